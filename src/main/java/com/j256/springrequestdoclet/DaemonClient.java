@@ -0,0 +1,156 @@
+package com.j256.springrequestdoclet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client which asks a running {@link DaemonServer} to regenerate the documentation and prints its output. This
+ * does not load javadoc or the doclet so it starts quickly. The exit status is the status of the run.
+ *
+ * <pre>
+ * java -cp spring-request-doclet.jar com.j256.springrequestdoclet.DaemonClient [-port port] [-port-file path]
+ *     [-token-file path] [-stop] [extra-args ...]
+ * </pre>
+ *
+ * <p>
+ * The extra arguments are added to the javadoc and doclet arguments that the daemon was started with for this run. The
+ * token that the daemon checks is read from the same token file that the daemon wrote, see {@link DaemonServer}.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class DaemonClient {
+
+	static final int DEFAULT_PORT = 9256;
+	static final String PORT_ARG = "-port";
+	static final String PORT_FILE_ARG = "-port-file";
+	static final String TOKEN_FILE_ARG = "-token-file";
+	static final String RUN_COMMAND = "run";
+	static final String STOP_COMMAND = "stop";
+	/** written instead of the length of a chunk of output when the run is finished, followed by the status */
+	static final int END_OF_OUTPUT = -1;
+
+	private static final String STOP_ARG = "-stop";
+	private static final String TOKEN_FILE_SUFFIX = ".token";
+	private static final String DEFAULT_TOKEN_FILE_NAME = ".spring-request-doclet-daemon.token";
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		String portFilePath = null;
+		String tokenFilePath = null;
+		String command = RUN_COMMAND;
+		List<String> extraArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (PORT_ARG.equals(args[i]) && i + 1 < args.length) {
+				port = parsePort(args[++i]);
+			} else if (PORT_FILE_ARG.equals(args[i]) && i + 1 < args.length) {
+				portFilePath = args[++i];
+				port = readPortFile(new File(portFilePath));
+			} else if (TOKEN_FILE_ARG.equals(args[i]) && i + 1 < args.length) {
+				tokenFilePath = args[++i];
+			} else if (STOP_ARG.equals(args[i])) {
+				command = STOP_COMMAND;
+			} else {
+				extraArgs.add(args[i]);
+			}
+		}
+
+		File tokenFile = tokenFile(tokenFilePath, portFilePath);
+		String token;
+		try {
+			token = new String(Files.readAllBytes(tokenFile.toPath()), StandardCharsets.US_ASCII).trim();
+		} catch (IOException ioe) {
+			System.err.println("Could not read the daemon token from " + tokenFile + ": " + ioe.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		Socket socket;
+		try {
+			socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		} catch (IOException ioe) {
+			System.err.println("Could not connect to the daemon on port " + port + ": " + ioe.getMessage());
+			System.exit(1);
+			return;
+		}
+		int status;
+		try {
+			DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			dataOut.writeUTF(token);
+			dataOut.writeUTF(command);
+			dataOut.writeInt(extraArgs.size());
+			for (String arg : extraArgs) {
+				dataOut.writeUTF(arg);
+			}
+			dataOut.flush();
+
+			// copy the output of the run until we get the end marker
+			DataInputStream dataIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			byte[] buffer = new byte[4096];
+			while (true) {
+				int length = dataIn.readInt();
+				if (length == END_OF_OUTPUT) {
+					status = dataIn.readInt();
+					break;
+				}
+				if (buffer.length < length) {
+					buffer = new byte[length];
+				}
+				dataIn.readFully(buffer, 0, length);
+				System.out.write(buffer, 0, length);
+			}
+			System.out.flush();
+		} finally {
+			socket.close();
+		}
+		System.exit(status);
+	}
+
+	/**
+	 * Return the token file from the -token-file path or the default one next to the port file or in the current
+	 * directory.
+	 */
+	static File tokenFile(String tokenFilePath, String portFilePath) {
+		if (tokenFilePath != null) {
+			return new File(tokenFilePath);
+		} else if (portFilePath != null) {
+			return new File(portFilePath + TOKEN_FILE_SUFFIX);
+		} else {
+			return new File(DEFAULT_TOKEN_FILE_NAME);
+		}
+	}
+
+	static String tokenToHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX_CHARS[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	private static int readPortFile(File file) throws IOException {
+		return parsePort(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim());
+	}
+
+	private static int parsePort(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException nfe) {
+			System.err.println("Invalid port number: " + value);
+			System.exit(1);
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,380 @@
+package com.j256.springrequestdoclet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DocumentationTool;
+import javax.tools.DocumentationTool.DocumentationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Daemon which keeps a warm JVM with javadoc and the doclet loaded and regenerates the documentation when asked by a
+ * {@link DaemonClient}. Javadoc is run in-process through the {@link DocumentationTool} API and the file manager, with
+ * its class-path indexes, is shared between the runs so after the first couple of runs most of the time is spent in
+ * the doclet itself. The doclet options are parsed separately for every run. Like the doclet, the output is written
+ * into the current directory, unless the -d doclet option is specified, so the daemon should be started in the
+ * documentation directory.
+ *
+ * <pre>
+ * java -cp tools.jar:spring-request-doclet.jar com.j256.springrequestdoclet.DaemonServer [-port port]
+ *     [-port-file path] [-token-file path] -sourcepath dirs [-classpath path] [javadoc-and-doclet-args ...]
+ * </pre>
+ *
+ * <p>
+ * The daemon only listens on the loopback address. Use port 0 to pick a free port in which case you will want to use
+ * -port-file to write the port to a file that the client can read. Runs are done one at a time.
+ * </p>
+ *
+ * <p>
+ * Every request must start with the random token that the daemon writes, readable only by its user, to the -token-file
+ * path. By default this is the port file path with a .token suffix or .spring-request-doclet-daemon.token in the
+ * current directory. The extra arguments from the client are limited to the javadoc and doclet options in
+ * {@link #CLIENT_OPTION_LENGTHS} and the packages and source files to document. Options which name output files or
+ * directories or which load classes can only be given when the daemon is started.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class DaemonServer {
+
+	/** options that the client may add to a run mapped to their number of arguments including themselves */
+	private static final Map<String, Integer> CLIENT_OPTION_LENGTHS = new HashMap<String, Integer>();
+	private static final int MAX_CLIENT_ARG_COUNT = 4096;
+	private static final int REQUEST_READ_TIMEOUT_MILLIS = 10000;
+	private static final int TOKEN_BYTE_LENGTH = 32;
+
+	static {
+		for (String option : new String[] { "-quiet", "-verbose", "-public", "-protected", "-package", "-private",
+				DocletOptions.HEAP_REPORT_ARG, DocletOptions.METRICS_ARG, DocletOptions.CONTROLLERS_ONLY_ARG,
+				DocletOptions.CONTENT_HASH_NAMES_ARG, DocletOptions.SPA_ARG, DocletOptions.SPA_GZIP_ARG }) {
+			CLIENT_OPTION_LENGTHS.put(option, 1);
+		}
+		for (String option : new String[] { "-subpackages", "-exclude", "-encoding",
+				DocletOptions.METRICS_SLOWEST_ARG, DocletOptions.INCLUDE_PACKAGES_ARG,
+				DocletOptions.EXCLUDE_PACKAGES_ARG, DocletOptions.INCLUDE_CLASSES_ARG,
+				DocletOptions.EXCLUDE_CLASSES_ARG, DocletOptions.PAGE_SHARDS_ARG,
+				DocletOptions.SPILL_THRESHOLD_ARG }) {
+			CLIENT_OPTION_LENGTHS.put(option, 2);
+		}
+	}
+
+	private final List<String> baseArgs;
+	private final byte[] token;
+	private final DocumentationTool tool;
+	private final StandardJavaFileManager fileManager;
+	private List<String> appliedFileManagerArgs;
+	private int runCount;
+
+	private DaemonServer(List<String> baseArgs, byte[] token) {
+		this.baseArgs = baseArgs;
+		this.token = token;
+		this.tool = ToolProvider.getSystemDocumentationTool();
+		this.fileManager = tool.getStandardFileManager(null, null, null);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DaemonClient.DEFAULT_PORT;
+		String portFilePath = null;
+		String tokenFilePath = null;
+		List<String> baseArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (DaemonClient.PORT_ARG.equals(args[i]) && i + 1 < args.length) {
+				try {
+					port = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException nfe) {
+					usage("Invalid port number: " + args[i]);
+				}
+			} else if (DaemonClient.PORT_FILE_ARG.equals(args[i]) && i + 1 < args.length) {
+				portFilePath = args[++i];
+			} else if (DaemonClient.TOKEN_FILE_ARG.equals(args[i]) && i + 1 < args.length) {
+				tokenFilePath = args[++i];
+			} else {
+				baseArgs.add(args[i]);
+			}
+		}
+		if (baseArgs.isEmpty()) {
+			usage("No javadoc arguments specified");
+		}
+
+		File tokenFile = DaemonClient.tokenFile(tokenFilePath, portFilePath);
+		byte[] tokenBytes = new byte[TOKEN_BYTE_LENGTH];
+		new SecureRandom().nextBytes(tokenBytes);
+		byte[] token = DaemonClient.tokenToHex(tokenBytes).getBytes(StandardCharsets.US_ASCII);
+		DaemonServer server = new DaemonServer(baseArgs, token);
+		if (server.tool == null) {
+			System.err.println("No documentation tool available, tools.jar needs to be on the classpath");
+			System.exit(1);
+		}
+		ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+		try {
+			writeTokenFile(tokenFile, token);
+			if (portFilePath != null) {
+				Files.write(new File(portFilePath).toPath(),
+						Integer.toString(serverSocket.getLocalPort()).getBytes(StandardCharsets.US_ASCII));
+			}
+			System.out.println("Daemon listening on port " + serverSocket.getLocalPort());
+			while (true) {
+				Socket socket = serverSocket.accept();
+				try {
+					// so a client which connects but doesn't send its request can't hold up the other clients
+					socket.setSoTimeout(REQUEST_READ_TIMEOUT_MILLIS);
+					if (!server.handleRequest(socket)) {
+						break;
+					}
+				} catch (IOException ioe) {
+					System.err.println("Problems handling request: " + ioe);
+				} finally {
+					socket.close();
+				}
+			}
+		} finally {
+			serverSocket.close();
+			if (portFilePath != null) {
+				new File(portFilePath).delete();
+			}
+			tokenFile.delete();
+			server.fileManager.close();
+		}
+	}
+
+	/**
+	 * Read the request from the client and run it.
+	 *
+	 * @return False if the daemon should stop.
+	 */
+	private boolean handleRequest(Socket socket) throws IOException {
+		DataInputStream dataIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		if (!MessageDigest.isEqual(token, dataIn.readUTF().getBytes(StandardCharsets.US_ASCII))) {
+			System.err.println("Request from client with an invalid token");
+			return writeError(dataOut, "Invalid daemon token, it is read from the file that the daemon writes to "
+					+ DaemonClient.TOKEN_FILE_ARG);
+		}
+		String command = dataIn.readUTF();
+		int argCount = dataIn.readInt();
+		if (argCount < 0 || argCount > MAX_CLIENT_ARG_COUNT) {
+			return writeError(dataOut, "Invalid number of arguments from client: " + argCount);
+		}
+		List<String> extraArgs = new ArrayList<String>(argCount);
+		for (int i = 0; i < argCount; i++) {
+			extraArgs.add(dataIn.readUTF());
+		}
+
+		boolean keepRunning = true;
+		int status;
+		String invalidArg;
+		if (DaemonClient.STOP_COMMAND.equals(command)) {
+			System.out.println("Daemon stopping");
+			keepRunning = false;
+			status = 0;
+		} else if ((invalidArg = findInvalidClientArg(extraArgs)) != null) {
+			return writeError(dataOut, "Argument " + invalidArg
+					+ " is not allowed from the client, it can only be given when the daemon is started");
+		} else if (DaemonClient.RUN_COMMAND.equals(command)) {
+			PrintStream out = new PrintStream(new BufferedOutputStream(new ChunkOutputStream(dataOut)), true, "UTF-8");
+			status = runJavadoc(extraArgs, out);
+			out.flush();
+		} else {
+			System.err.println("Unknown command from client: " + command);
+			status = 1;
+		}
+		dataOut.writeInt(DaemonClient.END_OF_OUTPUT);
+		dataOut.writeInt(status);
+		dataOut.flush();
+		return keepRunning;
+	}
+
+	/**
+	 * Send the error message to the client as the output of a failed request.
+	 *
+	 * @return True since the daemon should keep running.
+	 */
+	private boolean writeError(DataOutputStream dataOut, String message) throws IOException {
+		byte[] bytes = (message + System.getProperty("line.separator")).getBytes(StandardCharsets.UTF_8);
+		dataOut.writeInt(bytes.length);
+		dataOut.write(bytes);
+		dataOut.writeInt(DaemonClient.END_OF_OUTPUT);
+		dataOut.writeInt(1);
+		dataOut.flush();
+		return true;
+	}
+
+	/**
+	 * Return the first argument from the client that isn't an allowed option, a package name, or a source file, or null
+	 * if they are all allowed.
+	 */
+	private static String findInvalidClientArg(List<String> extraArgs) {
+		for (int i = 0; i < extraArgs.size(); i++) {
+			String arg = extraArgs.get(i);
+			if (arg.startsWith("@")) {
+				// javadoc reads more arguments from the file
+				return arg;
+			} else if (!arg.startsWith("-")) {
+				// package name or source file
+				continue;
+			}
+			Integer optionLength = CLIENT_OPTION_LENGTHS.get(arg);
+			if (optionLength == null) {
+				return arg;
+			}
+			i += optionLength - 1;
+		}
+		return null;
+	}
+
+	/**
+	 * Write the token to the file so only our user can read it.
+	 */
+	private static void writeTokenFile(File tokenFile, byte[] token) throws IOException {
+		Path path = tokenFile.toPath();
+		Files.deleteIfExists(path);
+		if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createFile(path);
+			tokenFile.setReadable(false, false);
+			tokenFile.setWritable(false, false);
+			tokenFile.setReadable(true, true);
+			tokenFile.setWritable(true, true);
+		}
+		Files.write(path, token);
+	}
+
+	/**
+	 * Run javadoc with our doclet sending all of the output to the stream.
+	 */
+	private int runJavadoc(List<String> extraArgs, PrintStream out) {
+		long startMillis = System.currentTimeMillis();
+		List<String> args = new ArrayList<String>(baseArgs.size() + extraArgs.size());
+		args.addAll(baseArgs);
+		args.addAll(extraArgs);
+		runCount++;
+
+		// the doclet prints to System.out and System.err so we send them to the client during the run
+		PrintStream savedOut = System.out;
+		PrintStream savedErr = System.err;
+		System.setOut(out);
+		System.setErr(out);
+		boolean success;
+		try {
+			List<String> options = applyFileManagerOptions(args);
+			// so the metrics report the javadoc parsing of this run instead of the uptime of the daemon
+			options.add(DocletOptions.RUN_START_MILLIS_ARG);
+			options.add(Long.toString(startMillis));
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			DocumentationTask task =
+					tool.getTask(writer, fileManager, null, SpringRequestDoclet.class, options, null);
+			success = task.call();
+			writer.flush();
+		} catch (Exception e) {
+			// bad options throw out of the task
+			e.printStackTrace(out);
+			success = false;
+		} finally {
+			System.setOut(savedOut);
+			System.setErr(savedErr);
+		}
+		long elapsedMillis = System.currentTimeMillis() - startMillis;
+		out.println("Daemon run #" + runCount + (success ? " generated documentation" : " failed") + " in "
+				+ elapsedMillis + "ms");
+		savedOut.println("Run #" + runCount + (success ? " succeeded" : " failed") + " in " + elapsedMillis + "ms");
+		return (success ? 0 : 1);
+	}
+
+	/**
+	 * The tool ignores the -sourcepath, -classpath, and the like in the options so they have to be set on the file
+	 * manager. Setting them throws away the file manager's caches so it is only done when they change.
+	 *
+	 * @return The remaining options for javadoc and the doclet.
+	 */
+	private List<String> applyFileManagerOptions(List<String> args) {
+		List<String> options = new ArrayList<String>(args.size());
+		List<String> fileManagerArgs = new ArrayList<String>();
+		for (int i = 0; i < args.size(); i++) {
+			int argCount = fileManager.isSupportedOption(args.get(i));
+			if (argCount < 0) {
+				options.add(args.get(i));
+			} else {
+				for (int j = 0; j <= argCount && i < args.size(); j++, i++) {
+					fileManagerArgs.add(args.get(i));
+				}
+				i--;
+			}
+		}
+		if (!fileManagerArgs.equals(appliedFileManagerArgs)) {
+			Iterator<String> iterator = fileManagerArgs.iterator();
+			while (iterator.hasNext()) {
+				fileManager.handleOption(iterator.next(), iterator);
+			}
+			appliedFileManagerArgs = fileManagerArgs;
+		}
+		return options;
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: java " + DaemonServer.class.getName() + " [" + DaemonClient.PORT_ARG + " port] ["
+				+ DaemonClient.PORT_FILE_ARG + " path] [" + DaemonClient.TOKEN_FILE_ARG
+				+ " path] javadoc-and-doclet-args ...");
+		System.exit(1);
+	}
+
+	/**
+	 * Sends the output to the client as length prefixed chunks so it can be told apart from the final status.
+	 */
+	private static class ChunkOutputStream extends OutputStream {
+
+		private final DataOutputStream dataOut;
+
+		public ChunkOutputStream(DataOutputStream dataOut) {
+			this.dataOut = dataOut;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			dataOut.writeInt(1);
+			dataOut.write(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			if (length > 0) {
+				dataOut.writeInt(length);
+				dataOut.write(bytes, offset, length);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			dataOut.flush();
+		}
+
+		@Override
+		public void close() {
+			// the socket is closed by the daemon
+		}
+	}
+}
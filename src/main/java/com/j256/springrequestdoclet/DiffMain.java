@@ -0,0 +1,80 @@
+package com.j256.springrequestdoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.EndPointDiff;
+import com.j256.springrequestdoclet.collector.EndPointSnapshot;
+import com.j256.springrequestdoclet.writer.DiffReportWriter;
+
+/**
+ * Standalone entry point which compares two end-point snapshots, saved with the doclet's -snapshot option, and writes
+ * a report of the added, removed, and changed operations. Like the doclet, the report is written into the current
+ * directory as {@value DiffReportWriter#HTML_FILE_NAME} and {@value DiffReportWriter#JSON_FILE_NAME}.
+ *
+ * <pre>
+ * java -cp spring-request-doclet.jar com.j256.springrequestdoclet.DiffMain [-b] old-snapshot new-snapshot
+ * </pre>
+ *
+ * <p>
+ * With -b the exit status is 2 if there are any breaking changes so it can be used to fail a build.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class DiffMain {
+
+	private static final String FAIL_ON_BREAKING_ARG = "-b";
+	private static final int BREAKING_EXIT_STATUS = 2;
+
+	public static void main(String[] args) throws IOException {
+		boolean failOnBreaking = false;
+		List<String> snapshotPaths = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (FAIL_ON_BREAKING_ARG.equals(args[i])) {
+				failOnBreaking = true;
+			} else if (args[i].startsWith("-")) {
+				usage("Unknown argument: " + args[i]);
+			} else {
+				snapshotPaths.add(args[i]);
+			}
+		}
+		if (snapshotPaths.size() != 2) {
+			usage("Old and new snapshot files must be specified");
+		}
+
+		long startMillis = System.currentTimeMillis();
+		Map<String, List<EndPoint>> oldEndPointMap = readSnapshot(snapshotPaths.get(0));
+		Map<String, List<EndPoint>> newEndPointMap = readSnapshot(snapshotPaths.get(1));
+		EndPointDiff diff = new EndPointDiff(oldEndPointMap, newEndPointMap);
+		DiffReportWriter reportWriter = new DiffReportWriter(diff);
+		reportWriter.writeHtml(new File(DiffReportWriter.HTML_FILE_NAME));
+		reportWriter.writeJson(new File(DiffReportWriter.JSON_FILE_NAME));
+		System.out.println("API diff: " + reportWriter.getSummary() + " in "
+				+ (System.currentTimeMillis() - startMillis) + "ms");
+		if (failOnBreaking && diff.getBreakingCount() > 0) {
+			System.exit(BREAKING_EXIT_STATUS);
+		}
+	}
+
+	private static Map<String, List<EndPoint>> readSnapshot(String snapshotPath) {
+		try {
+			return EndPointSnapshot.read(new File(snapshotPath));
+		} catch (IOException ioe) {
+			System.err.println("Could not read snapshot " + snapshotPath + ": " + ioe.getMessage());
+			System.exit(1);
+			return null;
+		}
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println(
+				"Usage: java " + DiffMain.class.getName() + " [" + FAIL_ON_BREAKING_ARG + "] old-snapshot new-snapshot");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,309 @@
+package com.j256.springrequestdoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.springrequestdoclet.collector.ClassFilter;
+import com.j256.springrequestdoclet.metrics.DocletMetrics;
+import com.j256.springrequestdoclet.writer.EndPointMapWriter;
+import com.sun.javadoc.DocErrorReporter;
+
+/**
+ * The doclet options of one javadoc run. These are parsed from the options that javadoc passes to the doclet and are
+ * kept per run, instead of in static fields of the doclet, so that multiple runs can be done at the same time in one
+ * JVM such as by a parallel maven build or the {@link DaemonServer}.
+ *
+ * @author graywatson
+ */
+class DocletOptions {
+
+	static final String ROOT_DIR_ARG = "-r";
+	static final String OUTPUT_DIR_ARG = "-d";
+	static final String HEAP_REPORT_ARG = "-heap-report";
+	static final String METRICS_ARG = "-metrics";
+	static final String METRICS_FILE_ARG = "-metrics-file";
+	static final String METRICS_SLOWEST_ARG = "-metrics-slowest";
+	static final String SNAPSHOT_ARG = "-snapshot";
+	static final String INCLUDE_PACKAGES_ARG = "-include-packages";
+	static final String EXCLUDE_PACKAGES_ARG = "-exclude-packages";
+	static final String INCLUDE_CLASSES_ARG = "-include-classes";
+	static final String EXCLUDE_CLASSES_ARG = "-exclude-classes";
+	static final String CONTROLLERS_ONLY_ARG = "-controllers-only";
+	static final String PREVIEW_ARG = "-preview";
+	static final String CONTENT_HASH_NAMES_ARG = "-content-hash-names";
+	static final String DIFF_BASELINE_ARG = "-diff-baseline";
+	static final String SPA_ARG = "-spa";
+	static final String SPA_GZIP_ARG = "-spa-gzip";
+	static final String PAGE_SHARDS_ARG = "-page-shards";
+	static final String SPILL_THRESHOLD_ARG = "-spill-threshold";
+	static final String WRITERS_ARG = "-writers";
+	/** passed by the programs that run javadoc in-process with the time that their run started */
+	static final String RUN_START_MILLIS_ARG = "-run-start-millis";
+
+	static final String HTML_WRITER_NAME = "html";
+	static final String SPA_WRITER_NAME = "spa";
+	static final String SPA_GZIP_WRITER_NAME = "spa-gzip";
+
+	String rootDirPath;
+	/** directory that the documentation is written into, by default the current directory */
+	File outputDir = new File(".");
+	boolean heapReport;
+	boolean metricsEnabled;
+	String metricsFilePath;
+	int metricsSlowestCount = DocletMetrics.DEFAULT_SLOWEST_CLASS_COUNT;
+	String snapshotPath;
+	ClassFilter classFilter;
+	int previewPort = -1;
+	String diffBaselinePath;
+	boolean contentHashNames;
+	/** write a single page application instead of the html pages */
+	boolean spa;
+	boolean spaGzip;
+	int pageShards;
+	int spillThreshold;
+	/** names of the writers to run at the same time from -writers, empty to run the one writer */
+	final List<String> writerNames = new ArrayList<String>();
+	/** output directories of the writers, relative ones are under the output directory */
+	final List<File> writerDirs = new ArrayList<File>();
+	/** time that the javadoc run started or 0 if not known */
+	long runStartMillis;
+
+	/**
+	 * Return the number of arguments of the option including itself. Unknown options, which may be javadoc's or ones
+	 * passed by maven, are allowed.
+	 */
+	static int optionLength(String option) {
+		if (ROOT_DIR_ARG.equals(option) || OUTPUT_DIR_ARG.equals(option) || METRICS_FILE_ARG.equals(option)
+				|| METRICS_SLOWEST_ARG.equals(option) || SNAPSHOT_ARG.equals(option)
+				|| INCLUDE_PACKAGES_ARG.equals(option) || EXCLUDE_PACKAGES_ARG.equals(option)
+				|| INCLUDE_CLASSES_ARG.equals(option) || EXCLUDE_CLASSES_ARG.equals(option)
+				|| PREVIEW_ARG.equals(option) || DIFF_BASELINE_ARG.equals(option) || PAGE_SHARDS_ARG.equals(option)
+				|| SPILL_THRESHOLD_ARG.equals(option) || WRITERS_ARG.equals(option)
+				|| RUN_START_MILLIS_ARG.equals(option)) {
+			// param + argument
+			return 2;
+		} else {
+			return 1;
+		}
+	}
+
+	/**
+	 * Parse the options into our fields.
+	 *
+	 * @return True if the options are valid otherwise false after reporting the error.
+	 */
+	boolean parse(String[][] options, DocErrorReporter docErrorReporter) {
+		for (int optCount = 0; optCount < options.length; optCount++) {
+			String option = options[optCount][0];
+			if (optionLength(option) == 2 && options[optCount].length < 2) {
+				docErrorReporter.printError("No argument specified for: " + option);
+				return false;
+			}
+			if (ROOT_DIR_ARG.equals(option)) {
+				rootDirPath = options[optCount][1];
+			} else if (OUTPUT_DIR_ARG.equals(option)) {
+				outputDir = new File(options[optCount][1]);
+			} else if (HEAP_REPORT_ARG.equals(option)) {
+				heapReport = true;
+			} else if (METRICS_ARG.equals(option)) {
+				metricsEnabled = true;
+			} else if (METRICS_FILE_ARG.equals(option)) {
+				metricsFilePath = options[optCount][1];
+				metricsEnabled = true;
+			} else if (METRICS_SLOWEST_ARG.equals(option)) {
+				try {
+					metricsSlowestCount = Integer.parseInt(options[optCount][1]);
+				} catch (NumberFormatException nfe) {
+					docErrorReporter.printError("Invalid number for " + METRICS_SLOWEST_ARG + ": " + options[optCount][1]);
+					return false;
+				}
+			} else if (SNAPSHOT_ARG.equals(option)) {
+				snapshotPath = options[optCount][1];
+			} else if (INCLUDE_PACKAGES_ARG.equals(option) || EXCLUDE_PACKAGES_ARG.equals(option)
+					|| INCLUDE_CLASSES_ARG.equals(option) || EXCLUDE_CLASSES_ARG.equals(option)) {
+				addClassFilterGlobs(option, options[optCount][1]);
+			} else if (CONTROLLERS_ONLY_ARG.equals(option)) {
+				getClassFilter().setControllersOnly(true);
+			} else if (PREVIEW_ARG.equals(option)) {
+				try {
+					previewPort = Integer.parseInt(options[optCount][1]);
+				} catch (NumberFormatException nfe) {
+					docErrorReporter.printError("Invalid port for " + PREVIEW_ARG + ": " + options[optCount][1]);
+					return false;
+				}
+			} else if (CONTENT_HASH_NAMES_ARG.equals(option)) {
+				contentHashNames = true;
+			} else if (DIFF_BASELINE_ARG.equals(option)) {
+				diffBaselinePath = options[optCount][1];
+			} else if (SPA_ARG.equals(option)) {
+				spa = true;
+			} else if (SPA_GZIP_ARG.equals(option)) {
+				spa = true;
+				spaGzip = true;
+			} else if (PAGE_SHARDS_ARG.equals(option)) {
+				try {
+					pageShards = Integer.parseInt(options[optCount][1]);
+				} catch (NumberFormatException nfe) {
+					docErrorReporter.printError("Invalid number for " + PAGE_SHARDS_ARG + ": " + options[optCount][1]);
+					return false;
+				}
+				if (pageShards < 0) {
+					docErrorReporter.printError("Number for " + PAGE_SHARDS_ARG + " cannot be negative: " + pageShards);
+					return false;
+				}
+			} else if (SPILL_THRESHOLD_ARG.equals(option)) {
+				try {
+					spillThreshold = Integer.parseInt(options[optCount][1]);
+				} catch (NumberFormatException nfe) {
+					docErrorReporter.printError(
+							"Invalid number for " + SPILL_THRESHOLD_ARG + ": " + options[optCount][1]);
+					return false;
+				}
+				if (spillThreshold < 0) {
+					docErrorReporter.printError(
+							"Number for " + SPILL_THRESHOLD_ARG + " cannot be negative: " + spillThreshold);
+					return false;
+				}
+			} else if (WRITERS_ARG.equals(option)) {
+				if (!addWriters(options[optCount][1], docErrorReporter)) {
+					return false;
+				}
+			} else if (RUN_START_MILLIS_ARG.equals(option)) {
+				try {
+					runStartMillis = Long.parseLong(options[optCount][1]);
+				} catch (NumberFormatException nfe) {
+					docErrorReporter.printError(
+							"Invalid time for " + RUN_START_MILLIS_ARG + ": " + options[optCount][1]);
+					return false;
+				}
+			}
+		}
+		// checked after all of the options since -d can come after -writers
+		return checkLegacyWriterDirs(docErrorReporter);
+	}
+
+	/**
+	 * Add the writers from a comma separated list of name[=dir] entries. The name is html, spa, spa-gzip, or the class
+	 * name of an {@link EndPointMapWriter}. Without a directory the writer writes into a sub-directory of the output
+	 * directory with the simple name of the writer.
+	 */
+	private boolean addWriters(String writers, DocErrorReporter docErrorReporter) {
+		for (String writer : writers.split(",")) {
+			writer = writer.trim();
+			if (writer.length() == 0) {
+				continue;
+			}
+			String name;
+			String dirPath;
+			int equalsIndex = writer.indexOf('=');
+			if (equalsIndex < 0) {
+				name = writer;
+				dirPath = writer.substring(writer.lastIndexOf('.') + 1);
+			} else {
+				name = writer.substring(0, equalsIndex).trim();
+				dirPath = writer.substring(equalsIndex + 1).trim();
+			}
+			if (!HTML_WRITER_NAME.equals(name) && !SPA_WRITER_NAME.equals(name) && !SPA_GZIP_WRITER_NAME.equals(name)) {
+				try {
+					Class.forName(name).asSubclass(EndPointMapWriter.class);
+				} catch (ClassCastException cce) {
+					docErrorReporter.printError("Writer class for " + WRITERS_ARG + " does not implement "
+							+ EndPointMapWriter.class.getSimpleName() + ": " + name);
+					return false;
+				} catch (ClassNotFoundException cnfe) {
+					docErrorReporter.printError("Unknown writer for " + WRITERS_ARG + ": " + name);
+					return false;
+				}
+			}
+			if (dirPath.length() == 0) {
+				docErrorReporter.printError("No directory specified for writer in " + WRITERS_ARG + ": " + name);
+				return false;
+			}
+			writerNames.add(name);
+			writerDirs.add(new File(dirPath));
+		}
+		return true;
+	}
+
+	/**
+	 * Check that the writer classes which only implement the older {@link EndPointMapWriter#write(Map, File)} are given
+	 * the current directory, since that's the only place they can write, so the run fails before the classes are
+	 * collected instead of after. Only one of them can be given since the writers run at the same time.
+	 */
+	private boolean checkLegacyWriterDirs(DocErrorReporter docErrorReporter) {
+		String legacyName = null;
+		for (int i = 0; i < writerNames.size(); i++) {
+			String name = writerNames.get(i);
+			if (HTML_WRITER_NAME.equals(name) || SPA_WRITER_NAME.equals(name) || SPA_GZIP_WRITER_NAME.equals(name)) {
+				continue;
+			}
+			try {
+				if (!isLegacyWriter(Class.forName(name).asSubclass(EndPointMapWriter.class))) {
+					continue;
+				}
+			} catch (ClassNotFoundException cnfe) {
+				// checked when the writer was added
+				continue;
+			}
+			if (legacyName != null) {
+				docErrorReporter.printError("Writers " + legacyName + " and " + name + " in " + WRITERS_ARG
+						+ " can only write into the current directory and so cannot both be used");
+				return false;
+			}
+			legacyName = name;
+			File dir = writerDirs.get(i);
+			if (!dir.isAbsolute()) {
+				dir = new File(outputDir, dir.getPath());
+			}
+			File currentDir = new File(System.getProperty("user.dir"));
+			try {
+				if (!dir.getCanonicalFile().equals(currentDir.getCanonicalFile())) {
+					docErrorReporter.printError("Writer " + name + " in " + WRITERS_ARG
+							+ " can only write into the current directory, not: " + dir);
+					return false;
+				}
+			} catch (IOException ioe) {
+				docErrorReporter.printError("Could not resolve the directory of writer " + name + ": " + ioe);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return true if the writer class doesn't override {@link EndPointMapWriter#write(Map, File, File)} and so can only
+	 * write into the current directory.
+	 */
+	static boolean isLegacyWriter(Class<? extends EndPointMapWriter> writerClass) {
+		try {
+			return writerClass.getMethod("write", Map.class, File.class, File.class)
+					.getDeclaringClass() == EndPointMapWriter.class;
+		} catch (NoSuchMethodException nsme) {
+			// can't happen since the interface has the method
+			return false;
+		}
+	}
+
+	private void addClassFilterGlobs(String option, String globs) {
+		ClassFilter filter = getClassFilter();
+		if (INCLUDE_PACKAGES_ARG.equals(option)) {
+			filter.addIncludePackages(globs);
+		} else if (EXCLUDE_PACKAGES_ARG.equals(option)) {
+			filter.addExcludePackages(globs);
+		} else if (INCLUDE_CLASSES_ARG.equals(option)) {
+			filter.addIncludeClasses(globs);
+		} else if (EXCLUDE_CLASSES_ARG.equals(option)) {
+			filter.addExcludeClasses(globs);
+		}
+	}
+
+	private ClassFilter getClassFilter() {
+		if (classFilter == null) {
+			classFilter = new ClassFilter();
+		}
+		return classFilter;
+	}
+}
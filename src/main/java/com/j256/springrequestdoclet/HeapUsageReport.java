@@ -0,0 +1,99 @@
+package com.j256.springrequestdoclet;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.j256.springrequestdoclet.collector.ClassInfo;
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.EndPointCollector;
+import com.j256.springrequestdoclet.collector.MethodInfo;
+import com.j256.springrequestdoclet.collector.StringPool;
+
+/**
+ * Records the heap usage at various points of a doclet run so we can figure out how much memory the documentation job
+ * needs. Enabled with the -heap-report doclet option.
+ *
+ * @author graywatson
+ */
+public class HeapUsageReport {
+
+	private static final long MEGABYTE = 1024 * 1024;
+
+	private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+	private final List<String> phases = new ArrayList<String>();
+	private final List<Long> usedBytes = new ArrayList<Long>();
+
+	public HeapUsageReport() {
+		// reset the peaks so they cover just our run and not the javadoc parsing before it
+		for (MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (poolBean.getType() == MemoryType.HEAP) {
+				poolBean.resetPeakUsage();
+			}
+		}
+		record("start");
+	}
+
+	/**
+	 * Record the heap in use after the phase. This does a GC first so the number reflects the retained objects.
+	 */
+	public void record(String phase) {
+		System.gc();
+		phases.add(phase);
+		usedBytes.add(memoryBean.getHeapMemoryUsage().getUsed());
+	}
+
+	/**
+	 * Print out the report of the heap usage and the size of the collected model.
+	 */
+	public void print(PrintStream out, EndPointCollector collector) {
+		out.println("Heap usage report:");
+		for (int i = 0; i < phases.size(); i++) {
+			out.println("  heap used after " + phases.get(i) + ": " + toMegabytes(usedBytes.get(i)));
+		}
+		long peakBytes = 0;
+		for (MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (poolBean.getType() == MemoryType.HEAP && poolBean.getPeakUsage() != null) {
+				peakBytes += poolBean.getPeakUsage().getUsed();
+			}
+		}
+		// NOTE: the pools don't peak at the same time so this is an upper bound
+		out.println("  peak heap used: " + toMegabytes(peakBytes));
+		long maxBytes = memoryBean.getHeapMemoryUsage().getMax();
+		if (maxBytes >= 0) {
+			out.println("  max heap: " + toMegabytes(maxBytes));
+		}
+
+		if (collector == null) {
+			return;
+		}
+		Map<String, List<EndPoint>> endPointMap = collector.getPathInfoMap();
+		Set<ClassInfo> classInfos = new HashSet<ClassInfo>();
+		Map<MethodInfo, Boolean> methodInfos = new IdentityHashMap<MethodInfo, Boolean>();
+		int endPointCount = 0;
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			for (EndPoint endPoint : endPoints) {
+				classInfos.add(endPoint.getClassInfo());
+				methodInfos.put(endPoint.getMethodInfo(), Boolean.TRUE);
+				endPointCount++;
+			}
+		}
+		out.println("  model: " + endPointMap.size() + " paths, " + endPointCount + " end-points, " + classInfos.size()
+				+ " classes, " + methodInfos.size() + " methods");
+		StringPool stringPool = collector.getStringPool();
+		out.println("  string pool: " + stringPool.size() + " unique strings from " + stringPool.getLookupCount()
+				+ " lookups");
+	}
+
+	private String toMegabytes(long bytes) {
+		return String.format("%.1fmb", (double) bytes / MEGABYTE);
+	}
+}
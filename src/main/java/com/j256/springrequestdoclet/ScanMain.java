@@ -0,0 +1,142 @@
+package com.j256.springrequestdoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.EndPointCollector;
+import com.j256.springrequestdoclet.collector.EndPointSnapshot;
+import com.j256.springrequestdoclet.collector.SourceScanner;
+import com.j256.springrequestdoclet.writer.EndPointMapWriter;
+import com.j256.springrequestdoclet.writer.HtmlPathMapWriter;
+
+/**
+ * Standalone entry point which builds the documentation straight from the java source files with a
+ * {@link SourceScanner} instead of running javadoc. This is much faster on large code bases since the sources are not
+ * attributed and the files without mapping annotations are skipped. Like the doclet, the output is written into the
+ * current directory unless -d is specified.
+ *
+ * <pre>
+ * java -cp spring-request-doclet.jar com.j256.springrequestdoclet.ScanMain [-r root-dir] [-d output-dir]
+ *     [-w writer-class] [-o snapshot] [-t threads] [-encoding charset] source-dir ...
+ * </pre>
+ *
+ * @author graywatson
+ */
+public class ScanMain {
+
+	private static final String ROOT_DIR_ARG = "-r";
+	private static final String OUTPUT_DIR_ARG = "-d";
+	private static final String WRITER_CLASS_ARG = "-w";
+	private static final String OUTPUT_SNAPSHOT_ARG = "-o";
+	private static final String THREADS_ARG = "-t";
+	private static final String ENCODING_ARG = "-encoding";
+
+	public static void main(String[] args) throws Exception {
+		String rootDirPath = null;
+		File outputDir = new File(".");
+		String writerClassName = HtmlPathMapWriter.class.getName();
+		String outputSnapshotPath = null;
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		Charset charset = Charset.defaultCharset();
+		List<File> sourceDirs = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (ROOT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				rootDirPath = args[++i];
+			} else if (OUTPUT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				outputDir = new File(args[++i]);
+			} else if (WRITER_CLASS_ARG.equals(args[i]) && i + 1 < args.length) {
+				writerClassName = args[++i];
+			} else if (OUTPUT_SNAPSHOT_ARG.equals(args[i]) && i + 1 < args.length) {
+				outputSnapshotPath = args[++i];
+			} else if (THREADS_ARG.equals(args[i]) && i + 1 < args.length) {
+				try {
+					threadCount = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException nfe) {
+					usage("Invalid number of threads: " + args[i]);
+				}
+				if (threadCount <= 0) {
+					usage("Number of threads must be positive: " + args[i]);
+				}
+			} else if (ENCODING_ARG.equals(args[i]) && i + 1 < args.length) {
+				try {
+					charset = Charset.forName(args[++i]);
+				} catch (IllegalArgumentException iae) {
+					usage("Unknown encoding: " + args[i]);
+				}
+			} else if (args[i].startsWith("-")) {
+				usage("Unknown argument: " + args[i]);
+			} else {
+				sourceDirs.add(new File(args[i]));
+			}
+		}
+		if (sourceDirs.isEmpty()) {
+			usage("No source directory specified");
+		}
+		for (File sourceDir : sourceDirs) {
+			if (!sourceDir.isDirectory()) {
+				System.err.println("Could not find source directory: " + sourceDir);
+				System.exit(1);
+			}
+		}
+
+		File rootDocDir = null;
+		if (rootDirPath != null) {
+			rootDocDir = new File(rootDirPath);
+			if (!rootDocDir.isDirectory()) {
+				System.err.println("Could not find root directory: " + rootDirPath);
+				System.exit(1);
+			}
+		}
+
+		EndPointMapWriter writer = createWriter(writerClassName);
+
+		long startMillis = System.currentTimeMillis();
+		EndPointCollector collector = new EndPointCollector();
+		SourceScanner scanner = new SourceScanner(collector, threadCount, charset);
+		try {
+			scanner.scan(sourceDirs);
+		} catch (IOException ioe) {
+			System.err.println("Could not scan sources: " + ioe.getMessage());
+			System.exit(1);
+			return;
+		}
+		Map<String, List<EndPoint>> endPointMap = collector.getPathInfoMap();
+		System.out.println("Scanned " + scanner.getFileCount() + " files, parsed " + scanner.getParsedFileCount()
+				+ ", and found " + endPointMap.size() + " paths in " + (System.currentTimeMillis() - startMillis)
+				+ "ms");
+
+		if (outputSnapshotPath != null) {
+			EndPointSnapshot.write(endPointMap, new File(outputSnapshotPath));
+		}
+
+		startMillis = System.currentTimeMillis();
+		writer.write(endPointMap, rootDocDir, outputDir);
+		System.out.println("Wrote documentation in " + (System.currentTimeMillis() - startMillis) + "ms");
+	}
+
+	private static EndPointMapWriter createWriter(String writerClassName) {
+		try {
+			Class<?> writerClass = Class.forName(writerClassName);
+			return writerClass.asSubclass(EndPointMapWriter.class).newInstance();
+		} catch (ClassCastException cce) {
+			usage("Writer class does not implement " + EndPointMapWriter.class.getSimpleName() + ": "
+					+ writerClassName);
+		} catch (Exception e) {
+			usage("Could not create writer class " + writerClassName + ": " + e);
+		}
+		return null;
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: java " + ScanMain.class.getName() + " [" + ROOT_DIR_ARG + " root-dir] ["
+				+ OUTPUT_DIR_ARG + " output-dir] [" + WRITER_CLASS_ARG + " writer-class] [" + OUTPUT_SNAPSHOT_ARG
+				+ " snapshot] [" + THREADS_ARG + " threads] [" + ENCODING_ARG + " charset] source-dir ...");
+		System.exit(1);
+	}
+}
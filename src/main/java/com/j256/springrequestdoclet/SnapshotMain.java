@@ -0,0 +1,150 @@
+package com.j256.springrequestdoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.EndPointMerger;
+import com.j256.springrequestdoclet.collector.EndPointSnapshot;
+import com.j256.springrequestdoclet.writer.EndPointMapWriter;
+import com.j256.springrequestdoclet.writer.HtmlPathMapWriter;
+import com.j256.springrequestdoclet.writer.PreviewServer;
+
+/**
+ * Standalone entry point which loads end-point snapshots, saved with the doclet's -snapshot option, and runs a writer
+ * on them without having to run javadoc again. Like the doclet, the output is written into the current directory unless
+ * -d is specified.
+ *
+ * <pre>
+ * java -cp spring-request-doclet.jar com.j256.springrequestdoclet.SnapshotMain [-r root-dir] [-d output-dir]
+ *     [-w writer-class] [-o merged-snapshot] [-n] [-p port] snapshot ...
+ * </pre>
+ *
+ * <p>
+ * If multiple snapshots are specified, for example from separate modules or from javadoc runs over different packages
+ * on different build nodes, they are merged with {@link EndPointMerger} into one site. The -o option saves the merged
+ * snapshot and -n skips running the writer so merges can be done in stages. The -p option serves the documentation
+ * from memory with a {@link PreviewServer} on the port instead of writing it.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class SnapshotMain {
+
+	private static final String ROOT_DIR_ARG = "-r";
+	private static final String OUTPUT_DIR_ARG = "-d";
+	private static final String WRITER_CLASS_ARG = "-w";
+	private static final String OUTPUT_SNAPSHOT_ARG = "-o";
+	private static final String NO_WRITE_ARG = "-n";
+	private static final String PREVIEW_PORT_ARG = "-p";
+
+	public static void main(String[] args) throws Exception {
+		String rootDirPath = null;
+		File outputDir = new File(".");
+		String writerClassName = HtmlPathMapWriter.class.getName();
+		String outputSnapshotPath = null;
+		boolean noWrite = false;
+		int previewPort = -1;
+		List<String> snapshotPaths = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (ROOT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				rootDirPath = args[++i];
+			} else if (OUTPUT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				outputDir = new File(args[++i]);
+			} else if (WRITER_CLASS_ARG.equals(args[i]) && i + 1 < args.length) {
+				writerClassName = args[++i];
+			} else if (OUTPUT_SNAPSHOT_ARG.equals(args[i]) && i + 1 < args.length) {
+				outputSnapshotPath = args[++i];
+			} else if (NO_WRITE_ARG.equals(args[i])) {
+				noWrite = true;
+			} else if (PREVIEW_PORT_ARG.equals(args[i]) && i + 1 < args.length) {
+				try {
+					previewPort = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException nfe) {
+					usage("Invalid port number: " + args[i]);
+				}
+			} else if (args[i].startsWith("-")) {
+				usage("Unknown argument: " + args[i]);
+			} else {
+				snapshotPaths.add(args[i]);
+			}
+		}
+		if (snapshotPaths.isEmpty()) {
+			usage("No snapshot file specified");
+		}
+		// sort them so the first class/method information that wins in the merge doesn't depend on the arg order
+		Collections.sort(snapshotPaths);
+
+		File rootDocDir = null;
+		if (rootDirPath != null) {
+			rootDocDir = new File(rootDirPath);
+			if (!rootDocDir.isDirectory()) {
+				System.err.println("Could not find root directory: " + rootDirPath);
+				System.exit(1);
+			}
+		}
+
+		EndPointMapWriter writer = createWriter(writerClassName);
+
+		long startMillis = System.currentTimeMillis();
+		EndPointMerger merger = new EndPointMerger();
+		for (String snapshotPath : snapshotPaths) {
+			try {
+				merger.merge(EndPointSnapshot.read(new File(snapshotPath)));
+			} catch (IOException ioe) {
+				System.err.println("Could not read snapshot " + snapshotPath + ": " + ioe.getMessage());
+				System.exit(1);
+				return;
+			}
+		}
+		Map<String, List<EndPoint>> endPointMap = merger.getEndPointMap();
+		System.out.println("Loaded " + endPointMap.size() + " paths from " + snapshotPaths.size() + " snapshot(s) in "
+				+ (System.currentTimeMillis() - startMillis) + "ms");
+		if (merger.getDuplicateCount() > 0) {
+			System.out.println("Dropped " + merger.getDuplicateCount() + " end-points that were in multiple snapshots");
+		}
+
+		if (outputSnapshotPath != null) {
+			EndPointSnapshot.write(endPointMap, new File(outputSnapshotPath));
+		}
+		if (noWrite) {
+			return;
+		}
+		if (previewPort >= 0) {
+			PreviewServer previewServer = new PreviewServer(endPointMap, rootDocDir);
+			previewServer.start(previewPort);
+			System.out.println("Previewing documentation at http://localhost:" + previewServer.getPort() + "/");
+			previewServer.join();
+			return;
+		}
+
+		startMillis = System.currentTimeMillis();
+		writer.write(endPointMap, rootDocDir, outputDir);
+		System.out.println("Wrote documentation in " + (System.currentTimeMillis() - startMillis) + "ms");
+	}
+
+	private static EndPointMapWriter createWriter(String writerClassName) {
+		try {
+			Class<?> writerClass = Class.forName(writerClassName);
+			return writerClass.asSubclass(EndPointMapWriter.class).newInstance();
+		} catch (ClassCastException cce) {
+			usage("Writer class does not implement " + EndPointMapWriter.class.getSimpleName() + ": "
+					+ writerClassName);
+		} catch (Exception e) {
+			usage("Could not create writer class " + writerClassName + ": " + e);
+		}
+		return null;
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: java " + SnapshotMain.class.getName() + " [" + ROOT_DIR_ARG + " root-dir] ["
+				+ OUTPUT_DIR_ARG + " output-dir] [" + WRITER_CLASS_ARG + " writer-class] [" + OUTPUT_SNAPSHOT_ARG
+				+ " merged-snapshot] [" + NO_WRITE_ARG + "] [" + PREVIEW_PORT_ARG + " port] snapshot-file ...");
+		System.exit(1);
+	}
+}
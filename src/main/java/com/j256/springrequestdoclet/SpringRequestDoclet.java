@@ -2,12 +2,21 @@ package com.j256.springrequestdoclet;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.Map;
 
 import com.j256.springrequestdoclet.collector.EndPoint;
 import com.j256.springrequestdoclet.collector.EndPointCollector;
+import com.j256.springrequestdoclet.collector.EndPointDiff;
+import com.j256.springrequestdoclet.collector.EndPointSnapshot;
+import com.j256.springrequestdoclet.metrics.DocletMetrics;
+import com.j256.springrequestdoclet.writer.DiffReportWriter;
+import com.j256.springrequestdoclet.writer.EndPointMapWriter;
+import com.j256.springrequestdoclet.writer.FanOutWriter;
 import com.j256.springrequestdoclet.writer.HtmlPathMapWriter;
+import com.j256.springrequestdoclet.writer.PreviewServer;
+import com.j256.springrequestdoclet.writer.SinglePageAppWriter;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.javadoc.Doclet;
@@ -22,11 +31,9 @@ import com.sun.javadoc.RootDoc;
  */
 public class SpringRequestDoclet extends Doclet {
 
-	private static final String ROOT_DIR_ARG = "-r";
-
-	private static HtmlPathMapWriter writer = new HtmlPathMapWriter();
-
-	private static String rootDirPath;
+	/** main classes of the javadoc command on java 8 and on 9 through 12 */
+	private static final String[] JAVADOC_MAIN_CLASSES =
+			{ "com.sun.tools.javadoc.Main", "jdk.javadoc/jdk.javadoc.internal.tool.Main" };
 
 	/**
 	 * Actually do the processing of the variable class information so we can general the documentation output.
@@ -34,17 +41,64 @@ public class SpringRequestDoclet extends Doclet {
 	 * @see Doclet#start(RootDoc)
 	 */
 	public static boolean start(RootDoc root) {
+		// the options are parsed again for each run, instead of saved in static fields by validOptions(), so multiple
+		// runs can be done at the same time in one JVM
+		DocletOptions options = new DocletOptions();
+		if (!options.parse(root.options(), root)) {
+			return false;
+		}
+		return run(root, options);
+	}
+
+	/**
+	 * Collect the end-points from the classes and write them out with the options of this run.
+	 */
+	private static boolean run(RootDoc root, DocletOptions options) {
+		HeapUsageReport heapUsageReport = null;
+		if (options.heapReport) {
+			heapUsageReport = new HeapUsageReport();
+		}
+		DocletMetrics metrics = null;
+		if (options.metricsEnabled) {
+			metrics = new DocletMetrics(options.metricsSlowestCount);
+			/*
+			 * We don't get control until javadoc has parsed everything. If javadoc was run in-process, such as by the
+			 * daemon, then the launcher passes the start of its run. Otherwise we can only use the JVM start, which
+			 * includes the JVM startup, and only if the JVM was started by the javadoc command for this one run.
+			 */
+			long runStartMillis = options.runStartMillis;
+			if (runStartMillis == 0 && isJavadocCommand()) {
+				runStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+			}
+			if (runStartMillis > 0) {
+				long parseMillis = System.currentTimeMillis() - runStartMillis;
+				metrics.addPhaseNanos("javadoc-parsing", parseMillis * 1000000L);
+			}
+		}
+		long startNanos = System.nanoTime();
+
 		// run our collector to convert the root doc information
 		EndPointCollector collector = new EndPointCollector();
+		collector.setMetrics(metrics);
+		collector.setClassFilter(options.classFilter);
+		if (options.spillThreshold > 0) {
+			collector.setSpillThreshold(options.spillThreshold, null);
+		}
 		for (ClassDoc classDoc : root.classes()) {
 			collector.processClass(classDoc);
 		}
+		if (metrics != null) {
+			metrics.phaseFinished("collection", startNanos);
+		}
+		if (heapUsageReport != null) {
+			heapUsageReport.record("collection");
+		}
 
 		File rootDocDir = null;
-		if (rootDirPath != null) {
-			rootDocDir = new File(rootDirPath);
+		if (options.rootDirPath != null) {
+			rootDocDir = new File(options.rootDirPath);
 			if (!rootDocDir.isDirectory()) {
-				System.err.println("Could not find root directory: " + rootDirPath);
+				System.err.println("Could not find root directory: " + options.rootDirPath);
 				String userDirProp = System.getProperty("user.dir");
 				System.err.println("user.dir property = " + userDirProp);
 				return false;
@@ -54,15 +108,132 @@ public class SpringRequestDoclet extends Doclet {
 		// now write out all of the documentation we've collected
 		Map<String, List<EndPoint>> endPointMap = collector.getPathInfoMap();
 		try {
-			writer.write(endPointMap, rootDocDir);
+			// done before the snapshot is written in case it is being saved over the baseline
+			if (options.diffBaselinePath != null) {
+				writeDiffReport(endPointMap, options);
+			}
+			if (options.snapshotPath != null) {
+				// save the collected information so the writers can be run again with SnapshotMain
+				EndPointSnapshot.write(endPointMap, new File(options.snapshotPath));
+			}
+			if (options.previewPort >= 0) {
+				return runPreviewServer(endPointMap, rootDocDir, options.previewPort);
+			}
+			long writeStartNanos = System.nanoTime();
+			if (options.writerNames.isEmpty()) {
+				EndPointMapWriter writer;
+				if (options.spa) {
+					writer = createWriter(DocletOptions.SPA_WRITER_NAME, options, metrics);
+				} else {
+					writer = createWriter(DocletOptions.HTML_WRITER_NAME, options, metrics);
+				}
+				writer.write(endPointMap, rootDocDir, options.outputDir);
+			} else {
+				// the writers all run at the same time on the model so it must not change underneath them
+				FanOutWriter fanOutWriter = new FanOutWriter();
+				for (int i = 0; i < options.writerNames.size(); i++) {
+					fanOutWriter.addWriter(createWriter(options.writerNames.get(i), options, metrics),
+							options.writerDirs.get(i));
+				}
+				fanOutWriter.write(collector.getImmutablePathInfoMap(), rootDocDir, options.outputDir);
+			}
+			if (metrics != null) {
+				metrics.phaseFinished("writing", writeStartNanos);
+				metrics.phaseFinished("total", startNanos);
+				metrics.endPointsCollected(endPointMap);
+				metrics.print(System.out);
+				if (options.metricsFilePath != null) {
+					metrics.writeJson(new File(options.metricsFilePath));
+				}
+			}
+			if (heapUsageReport != null) {
+				heapUsageReport.record("writing");
+				heapUsageReport.print(System.out, collector);
+			}
 			return true;
 		} catch (IOException ioe) {
 			// print out the exception and return error
 			ioe.printStackTrace();
 			return false;
+		} finally {
+			try {
+				collector.close();
+			} catch (IOException ioe) {
+				System.err.println("Could not close the end-point store: " + ioe.getMessage());
+			}
 		}
 	}
 
+	/**
+	 * Return true if the JVM was started by the javadoc command instead of by a program which runs javadoc in-process.
+	 */
+	private static boolean isJavadocCommand() {
+		String command = System.getProperty("sun.java.command");
+		if (command == null) {
+			return false;
+		}
+		for (String mainClass : JAVADOC_MAIN_CLASSES) {
+			if (command.equals(mainClass) || command.startsWith(mainClass + " ")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Create the writer with the name from the options which is html, spa, spa-gzip, or a writer class name.
+	 */
+	private static EndPointMapWriter createWriter(String name, DocletOptions options, DocletMetrics metrics)
+			throws IOException {
+		if (DocletOptions.HTML_WRITER_NAME.equals(name)) {
+			HtmlPathMapWriter writer = new HtmlPathMapWriter();
+			writer.setContentHashNames(options.contentHashNames);
+			writer.setPageShards(options.pageShards);
+			writer.setMetrics(metrics);
+			return writer;
+		} else if (DocletOptions.SPA_WRITER_NAME.equals(name) || DocletOptions.SPA_GZIP_WRITER_NAME.equals(name)) {
+			SinglePageAppWriter spaWriter = new SinglePageAppWriter();
+			spaWriter.setGzip(options.spaGzip || DocletOptions.SPA_GZIP_WRITER_NAME.equals(name));
+			spaWriter.setMetrics(metrics);
+			return spaWriter;
+		}
+		try {
+			return Class.forName(name).asSubclass(EndPointMapWriter.class).newInstance();
+		} catch (Exception e) {
+			throw new IOException("Could not create writer class " + name, e);
+		}
+	}
+
+	/**
+	 * Serve the pages from memory instead of writing them until the JVM is killed.
+	 */
+	private static boolean runPreviewServer(Map<String, List<EndPoint>> endPointMap, File rootDocDir, int previewPort)
+			throws IOException {
+		PreviewServer previewServer = new PreviewServer(endPointMap, rootDocDir);
+		previewServer.start(previewPort);
+		System.out.println("Previewing documentation at http://localhost:" + previewServer.getPort() + "/");
+		try {
+			previewServer.join();
+			return true;
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Compare the collected end-points with the baseline snapshot and write the API change report.
+	 */
+	private static void writeDiffReport(Map<String, List<EndPoint>> endPointMap, DocletOptions options)
+			throws IOException {
+		EndPointDiff diff = new EndPointDiff(EndPointSnapshot.read(new File(options.diffBaselinePath)), endPointMap);
+		DiffReportWriter reportWriter = new DiffReportWriter(diff);
+		options.outputDir.mkdirs();
+		reportWriter.writeHtml(new File(options.outputDir, DiffReportWriter.HTML_FILE_NAME));
+		reportWriter.writeJson(new File(options.outputDir, DiffReportWriter.JSON_FILE_NAME));
+		System.out.println("API diff against " + options.diffBaselinePath + ": " + reportWriter.getSummary());
+	}
+
 	/**
 	 * This method may be necessary to expose show generic arguments in the class information.
 	 * 
@@ -80,14 +251,8 @@ public class SpringRequestDoclet extends Doclet {
 	 * @see Doclet#optionLength(String)
 	 */
 	public static int optionLength(String option) {
-		if (ROOT_DIR_ARG.equals(option)) {
-			// param + argument
-			return 2;
-		} else {
-			// this allows other unknown options
-			return 1;
-			// return 0; means option unknown
-		}
+		// return 0; means option unknown but we allow other options
+		return DocletOptions.optionLength(option);
 	}
 
 	/**
@@ -98,15 +263,7 @@ public class SpringRequestDoclet extends Doclet {
 	 * @see Doclet#validOptions(String[][], DocErrorReporter)
 	 */
 	public static boolean validOptions(String[][] options, DocErrorReporter docErrorReporter) {
-		for (int optCount = 0; optCount < options.length; optCount++) {
-			if (ROOT_DIR_ARG.equals(options[optCount][0])) {
-				if (options[optCount].length < 2) {
-					docErrorReporter.printError("No argument specified for: " + ROOT_DIR_ARG);
-					return false;
-				}
-				rootDirPath = options[optCount][1];
-			}
-		}
-		return true;
+		// the options are only checked here, they are parsed again by start() for the run
+		return new DocletOptions().parse(options, docErrorReporter);
 	}
 }
@@ -0,0 +1,473 @@
+package com.j256.springrequestdoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.j256.springrequestdoclet.collector.EndPointCollector;
+import com.j256.springrequestdoclet.writer.HtmlPathMapWriter;
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.LanguageVersion;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.Parameter;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
+
+/**
+ * Long running entry point which generates the documentation and then watches the source directories, regenerating the
+ * pages of the classes whose sources change. Javadoc is run in-process on just the changed files along with the files
+ * of the classes that extend or are annotated with the changed types so the documentation is updated shortly after the
+ * file is saved. Like the doclet, the output is written into the current directory unless -d is specified.
+ *
+ * <pre>
+ * java -cp tools.jar:spring-request-doclet.jar com.j256.springrequestdoclet.WatchMain [-r root-dir] [-d output-dir]
+ *     [-debounce millis] -sourcepath dirs [-classpath path] [javadoc-args ...] packages-or-files ...
+ * </pre>
+ *
+ * <p>
+ * The arguments other than -r, -d, and -debounce are passed to javadoc for the initial run. The -sourcepath,
+ * -classpath, and -encoding arguments are also used when the changed files are processed again. The class filter and
+ * html page options of the doclet, such as -include-packages and -content-hash-names, are taken from the initial run.
+ * The options for the other writers and outputs are ignored.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class WatchMain {
+
+	private static final String ROOT_DIR_ARG = "-r";
+	private static final String OUTPUT_DIR_ARG = "-d";
+	private static final String DEBOUNCE_ARG = "-debounce";
+	private static final String SOURCE_PATH_ARG = "-sourcepath";
+	private static final String QUIET_ARG = "-quiet";
+	private static final String[] INCREMENTAL_ARGS = new String[] { SOURCE_PATH_ARG, "-classpath", "-cp", "-encoding" };
+	private static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+	private static final String JAVA_FILE_SUFFIX = ".java";
+
+	/** javadoc calls the doclet in our thread so this is how the capture doclet finds us */
+	private static WatchMain currentWatch;
+
+	private final List<String> javadocArgs;
+	private final List<String> incrementalArgs;
+	private final File rootDocDir;
+	private final File outputDir;
+	private final long debounceMillis;
+	private final Map<WatchKey, Path> watchKeyDirMap = new HashMap<WatchKey, Path>();
+	private final Map<File, Set<String>> fileClassesMap = new HashMap<File, Set<String>>();
+	private final Map<String, File> classFileMap = new HashMap<String, File>();
+	/** types that each class extends or is annotated with so we know what to process again when they change */
+	private final Map<String, Set<String>> classDependenciesMap = new HashMap<String, Set<String>>();
+	private EndPointCollector collector;
+	private HtmlPathMapWriter writer;
+	private Set<String> processedClasses;
+	/** true if javadoc is processing all of the sources so the doclet options are applied */
+	private boolean fullRun;
+
+	private WatchMain(List<String> javadocArgs, List<String> incrementalArgs, File rootDocDir, File outputDir,
+			long debounceMillis) {
+		this.javadocArgs = javadocArgs;
+		this.incrementalArgs = incrementalArgs;
+		this.rootDocDir = rootDocDir;
+		this.outputDir = outputDir;
+		this.debounceMillis = debounceMillis;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String rootDirPath = null;
+		File outputDir = new File(".");
+		long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+		List<String> javadocArgs = new ArrayList<String>();
+		List<String> incrementalArgs = new ArrayList<String>();
+		List<Path> sourceDirs = new ArrayList<Path>();
+		javadocArgs.add(QUIET_ARG);
+		incrementalArgs.add(QUIET_ARG);
+		for (int i = 0; i < args.length; i++) {
+			if (ROOT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				rootDirPath = args[++i];
+			} else if (OUTPUT_DIR_ARG.equals(args[i]) && i + 1 < args.length) {
+				outputDir = new File(args[++i]);
+			} else if (DEBOUNCE_ARG.equals(args[i]) && i + 1 < args.length) {
+				try {
+					debounceMillis = Long.parseLong(args[++i]);
+				} catch (NumberFormatException nfe) {
+					usage("Invalid number for " + DEBOUNCE_ARG + ": " + args[i]);
+				}
+			} else if (isIncrementalArg(args[i]) && i + 1 < args.length) {
+				if (SOURCE_PATH_ARG.equals(args[i])) {
+					for (String dir : args[i + 1].split(File.pathSeparator)) {
+						if (!dir.isEmpty()) {
+							sourceDirs.add(new File(dir).getAbsoluteFile().toPath());
+						}
+					}
+				}
+				incrementalArgs.add(args[i]);
+				incrementalArgs.add(args[i + 1]);
+				javadocArgs.add(args[i]);
+				javadocArgs.add(args[++i]);
+			} else {
+				javadocArgs.add(args[i]);
+			}
+		}
+		if (sourceDirs.isEmpty()) {
+			usage("No " + SOURCE_PATH_ARG + " specified to watch");
+		}
+
+		File rootDocDir = null;
+		if (rootDirPath != null) {
+			rootDocDir = new File(rootDirPath);
+			if (!rootDocDir.isDirectory()) {
+				System.err.println("Could not find root directory: " + rootDirPath);
+				System.exit(1);
+			}
+		}
+
+		WatchMain watch = new WatchMain(javadocArgs, incrementalArgs, rootDocDir, outputDir, debounceMillis);
+		if (!watch.generate()) {
+			System.exit(1);
+		}
+		watch.watch(sourceDirs);
+	}
+
+	/**
+	 * Run javadoc over all of the sources and write all of the documentation.
+	 */
+	private boolean generate() throws IOException {
+		long startMillis = System.currentTimeMillis();
+		collector = new EndPointCollector();
+		writer = new HtmlPathMapWriter();
+		fileClassesMap.clear();
+		classFileMap.clear();
+		classDependenciesMap.clear();
+		processedClasses = new HashSet<String>();
+		fullRun = true;
+		try {
+			if (!runJavadoc(javadocArgs)) {
+				return false;
+			}
+		} finally {
+			fullRun = false;
+		}
+		writer.write(collector.getPathInfoMap(), rootDocDir, outputDir);
+		System.out.println("Generated documentation for " + processedClasses.size() + " classes in "
+				+ (System.currentTimeMillis() - startMillis) + "ms");
+		return true;
+	}
+
+	/**
+	 * Process the changed files again along with the files that depend on them and rewrite the affected pages.
+	 */
+	private void update(Set<File> changedFiles) throws IOException {
+		long startMillis = System.currentTimeMillis();
+
+		// find the classes that were in the changed files and the classes that depend on them
+		Set<String> changedClasses = new HashSet<String>();
+		for (File file : changedFiles) {
+			Set<String> classes = fileClassesMap.get(file);
+			if (classes != null) {
+				changedClasses.addAll(classes);
+			}
+		}
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Entry<String, Set<String>> entry : classDependenciesMap.entrySet()) {
+				if (!changedClasses.contains(entry.getKey()) && containsAny(changedClasses, entry.getValue())) {
+					changedClasses.add(entry.getKey());
+					added = true;
+				}
+			}
+		}
+		Set<File> files = new HashSet<File>(changedFiles);
+		for (String className : changedClasses) {
+			files.add(classFileMap.get(className));
+		}
+
+		// remove everything that we know about the files and then process them again
+		Set<String> typeNames = new HashSet<String>();
+		List<String> args = new ArrayList<String>(incrementalArgs);
+		for (File file : files) {
+			Set<String> classes = fileClassesMap.remove(file);
+			if (classes != null) {
+				for (String className : classes) {
+					collector.removeClass(className);
+					classFileMap.remove(className);
+					classDependenciesMap.remove(className);
+				}
+				typeNames.addAll(classes);
+			}
+			if (file.isFile()) {
+				args.add(file.getPath());
+			}
+		}
+		collector.clearMappingCaches();
+		processedClasses = typeNames;
+		if (args.size() > incrementalArgs.size() && !runJavadoc(args)) {
+			// errors have been printed by javadoc, we'll try again on the next change
+			return;
+		}
+
+		writer.writeClasses(collector.getPathInfoMap(), typeNames);
+		System.out.println("Regenerated documentation for " + typeNames.size() + " classes from " + files.size()
+				+ " files in " + (System.currentTimeMillis() - startMillis) + "ms");
+	}
+
+	/**
+	 * Run javadoc in-process with our capture doclet which calls back to {@link #processRoot(RootDoc)}.
+	 */
+	private boolean runJavadoc(List<String> args) {
+		currentWatch = this;
+		try {
+			PrintWriter errWriter = new PrintWriter(System.err, true);
+			PrintWriter outWriter = new PrintWriter(System.out, true);
+			int result = com.sun.tools.javadoc.Main.execute("javadoc", errWriter, errWriter, outWriter,
+					CaptureDoclet.class.getName(), WatchMain.class.getClassLoader(),
+					args.toArray(new String[args.size()]));
+			return (result == 0);
+		} finally {
+			currentWatch = null;
+		}
+	}
+
+	private boolean processRoot(RootDoc root) {
+		if (fullRun) {
+			// the incremental runs only have the javadoc arguments so the options from the initial run are kept
+			DocletOptions options = new DocletOptions();
+			if (!options.parse(root.options(), root)) {
+				return false;
+			}
+			collector.setClassFilter(options.classFilter);
+			writer.setContentHashNames(options.contentHashNames);
+			writer.setPageShards(options.pageShards);
+		}
+		for (ClassDoc classDoc : root.classes()) {
+			String className = classDoc.qualifiedTypeName();
+			SourcePosition position = classDoc.position();
+			if (position != null && position.file() != null) {
+				File file = canonicalFile(position.file());
+				Set<String> classes = fileClassesMap.get(file);
+				if (classes == null) {
+					classes = new HashSet<String>();
+					fileClassesMap.put(file, classes);
+				}
+				classes.add(className);
+				classFileMap.put(className, file);
+				classDependenciesMap.put(className, findDependencies(classDoc));
+			}
+			processedClasses.add(className);
+			collector.processClass(classDoc);
+		}
+		return true;
+	}
+
+	/**
+	 * Find the types that the class extends, implements, or is annotated with since changes to them can change the
+	 * mappings of the class.
+	 */
+	private Set<String> findDependencies(ClassDoc classDoc) {
+		Set<String> dependencies = new HashSet<String>();
+		addSupertypes(dependencies, classDoc);
+		addAnnotationTypes(dependencies, classDoc.annotations());
+		for (MethodDoc methodDoc : classDoc.methods()) {
+			addAnnotationTypes(dependencies, methodDoc.annotations());
+			for (Parameter param : methodDoc.parameters()) {
+				addAnnotationTypes(dependencies, param.annotations());
+			}
+		}
+		return dependencies;
+	}
+
+	private void addSupertypes(Set<String> dependencies, ClassDoc classDoc) {
+		ClassDoc superclass = classDoc.superclass();
+		if (superclass != null && dependencies.add(superclass.qualifiedTypeName())) {
+			addSupertypes(dependencies, superclass);
+		}
+		for (ClassDoc interfaceDoc : classDoc.interfaces()) {
+			if (dependencies.add(interfaceDoc.qualifiedTypeName())) {
+				addSupertypes(dependencies, interfaceDoc);
+			}
+		}
+	}
+
+	private void addAnnotationTypes(Set<String> dependencies, AnnotationDesc[] annotations) {
+		for (AnnotationDesc annotation : annotations) {
+			dependencies.add(annotation.annotationType().qualifiedTypeName());
+		}
+	}
+
+	/**
+	 * Watch the source directories forever and update the documentation when the java files change.
+	 */
+	private void watch(List<Path> sourceDirs) throws IOException, InterruptedException {
+		WatchService watchService = FileSystems.getDefault().newWatchService();
+		for (Path sourceDir : sourceDirs) {
+			if (Files.isDirectory(sourceDir)) {
+				registerDirs(watchService, sourceDir, null);
+			}
+		}
+		System.out.println("Watching " + watchKeyDirMap.size() + " directories for changes");
+		while (true) {
+			WatchKey key = watchService.take();
+			Set<File> changedFiles = new HashSet<File>();
+			boolean overflow = false;
+			// wait for the burst of changes from a save or a branch switch to settle
+			while (key != null) {
+				overflow |= handleEvents(watchService, key, changedFiles);
+				key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+			}
+			try {
+				if (overflow) {
+					// we lost events so we don't know what changed
+					generate();
+				} else if (!changedFiles.isEmpty()) {
+					update(changedFiles);
+				}
+			} catch (IOException ioe) {
+				System.err.println("Could not write documentation: " + ioe);
+			}
+		}
+	}
+
+	/**
+	 * Add the java files from the events to the changed set.
+	 *
+	 * @return True if events were lost.
+	 */
+	private boolean handleEvents(WatchService watchService, WatchKey key, Set<File> changedFiles) throws IOException {
+		Path dir = watchKeyDirMap.get(key);
+		boolean overflow = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				overflow = true;
+				continue;
+			}
+			if (dir == null) {
+				continue;
+			}
+			Path path = dir.resolve((Path) event.context());
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+				// new directories need to be watched and the files in them may have been created before we registered
+				registerDirs(watchService, path, changedFiles);
+			} else if (path.toString().endsWith(JAVA_FILE_SUFFIX)) {
+				changedFiles.add(canonicalFile(path.toFile()));
+			}
+		}
+		if (!key.reset()) {
+			watchKeyDirMap.remove(key);
+		}
+		return overflow;
+	}
+
+	/**
+	 * Register the directory and its sub-directories with the watch service.
+	 *
+	 * @param javaFiles
+	 *            If not null then the java files found in the directories are added to this set.
+	 */
+	private void registerDirs(final WatchService watchService, Path startDir, final Set<File> javaFiles)
+			throws IOException {
+		Files.walkFileTree(startDir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				watchKeyDirMap.put(key, dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (javaFiles != null && file.toString().endsWith(JAVA_FILE_SUFFIX)) {
+					javaFiles.add(canonicalFile(file.toFile()));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private static boolean containsAny(Set<String> set, Set<String> values) {
+		for (String value : values) {
+			if (set.contains(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isIncrementalArg(String arg) {
+		for (String incrementalArg : INCREMENTAL_ARGS) {
+			if (incrementalArg.equals(arg)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Javadoc and the watch service may give us different paths for the same file.
+	 */
+	private static File canonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException ioe) {
+			return file.getAbsoluteFile();
+		}
+	}
+
+	private static void usage(String message) {
+		System.err.println(message);
+		System.err.println("Usage: java " + WatchMain.class.getName() + " [" + ROOT_DIR_ARG + " root-dir] ["
+				+ DEBOUNCE_ARG + " millis] " + SOURCE_PATH_ARG + " dirs [javadoc-args ...] packages-or-files ...");
+		System.exit(1);
+	}
+
+	/**
+	 * Doclet that javadoc runs in-process which hands the classes back to the watch.
+	 */
+	public static class CaptureDoclet {
+
+		public static boolean start(RootDoc root) {
+			return currentWatch.processRoot(root);
+		}
+
+		/**
+		 * @see SpringRequestDoclet#optionLength(String)
+		 */
+		public static int optionLength(String option) {
+			return DocletOptions.optionLength(option);
+		}
+
+		/**
+		 * @see SpringRequestDoclet#validOptions(String[][], DocErrorReporter)
+		 */
+		public static boolean validOptions(String[][] options, DocErrorReporter docErrorReporter) {
+			return new DocletOptions().parse(options, docErrorReporter);
+		}
+
+		/**
+		 * @see SpringRequestDoclet#languageVersion()
+		 */
+		public static LanguageVersion languageVersion() {
+			return LanguageVersion.JAVA_1_5;
+		}
+	}
+}
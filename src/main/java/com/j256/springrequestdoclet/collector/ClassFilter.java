@@ -0,0 +1,259 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.SourcePosition;
+
+/**
+ * Filter which decides whether or not a class should be processed by the collector. The package and class globs are
+ * checked using only the names of the class so it is done before any of the annotations or methods of the class are
+ * loaded.
+ *
+ * <p>
+ * In the globs, "*" matches any characters other than '.' and "**" matches any characters. Package globs are matched
+ * against the package name so "com.foo.**" matches com.foo and all of its sub-packages. Class globs that contain a '.'
+ * are matched against the qualified class name otherwise they are matched against the simple class name.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class ClassFilter {
+
+	/** suffix of the annotation names that we look for in the source when we are only processing controllers */
+	private static final String MAPPING_ANNOTATION_SUFFIX = "Mapping";
+	private static final int MAX_ANNOTATION_NAME_LENGTH = 256;
+	private static final String LIST_SEPARATORS = "[,:]";
+	private static final String CORE_PACKAGE_PREFIX = "java.";
+
+	private final List<Pattern> includePackagePatterns = new ArrayList<Pattern>();
+	private final List<Pattern> excludePackagePatterns = new ArrayList<Pattern>();
+	private final List<Pattern> includeClassPatterns = new ArrayList<Pattern>();
+	private final List<Pattern> excludeClassPatterns = new ArrayList<Pattern>();
+	private final Map<File, Boolean> sourceMappingCache = new HashMap<File, Boolean>();
+	private boolean controllersOnly;
+
+	/**
+	 * Add a comma or colon separated list of package globs to include. If any are specified then only the classes in
+	 * matching packages are processed.
+	 */
+	public void addIncludePackages(String globs) {
+		addPatterns(includePackagePatterns, globs);
+	}
+
+	/**
+	 * Add a comma or colon separated list of package globs to exclude.
+	 */
+	public void addExcludePackages(String globs) {
+		addPatterns(excludePackagePatterns, globs);
+	}
+
+	/**
+	 * Add a comma or colon separated list of class globs to include. If any are specified then only the matching
+	 * classes are processed.
+	 */
+	public void addIncludeClasses(String globs) {
+		addPatterns(includeClassPatterns, globs);
+	}
+
+	/**
+	 * Add a comma or colon separated list of class globs to exclude.
+	 */
+	public void addExcludeClasses(String globs) {
+		addPatterns(excludeClassPatterns, globs);
+	}
+
+	/**
+	 * Set to true to skip the classes whose source does not mention a mapping annotation so we don't have to look at all
+	 * of the methods of every class. Classes that extend or implement anything other than the java.* types are still
+	 * processed since they may inherit their mappings.
+	 */
+	public void setControllersOnly(boolean controllersOnly) {
+		this.controllersOnly = controllersOnly;
+	}
+
+	/**
+	 * Return true if the class should be processed.
+	 */
+	public boolean accept(ClassDoc classDoc) {
+		String packageName = (classDoc.containingPackage() == null ? "" : classDoc.containingPackage().name());
+		if (!matches(includePackagePatterns, packageName, true) || matches(excludePackagePatterns, packageName, false)) {
+			return false;
+		}
+		String qualifiedName = classDoc.qualifiedName();
+		String simpleName = classDoc.name();
+		if (!matchesClass(includeClassPatterns, qualifiedName, simpleName, true)
+				|| matchesClass(excludeClassPatterns, qualifiedName, simpleName, false)) {
+			return false;
+		}
+		if (controllersOnly) {
+			return (hasNonCoreSupertype(classDoc) || sourceMentionsMapping(classDoc));
+		}
+		return true;
+	}
+
+	/**
+	 * Return true if the class extends or implements a type outside of java.* which may have the mappings that the
+	 * class inherits such as an API interface.
+	 */
+	private boolean hasNonCoreSupertype(ClassDoc classDoc) {
+		ClassDoc superclass = classDoc.superclass();
+		if (superclass != null && !superclass.qualifiedName().startsWith(CORE_PACKAGE_PREFIX)) {
+			return true;
+		}
+		for (ClassDoc interfaceDoc : classDoc.interfaces()) {
+			if (!interfaceDoc.qualifiedName().startsWith(CORE_PACKAGE_PREFIX)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean matches(List<Pattern> patterns, String name, boolean emptyResult) {
+		if (patterns.isEmpty()) {
+			return emptyResult;
+		}
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean matchesClass(List<Pattern> patterns, String qualifiedName, String simpleName,
+			boolean emptyResult) {
+		if (patterns.isEmpty()) {
+			return emptyResult;
+		}
+		for (Pattern pattern : patterns) {
+			// patterns without a '.' are matched against the simple name
+			String name = (pattern.pattern().contains("\\.") ? qualifiedName : simpleName);
+			if (pattern.matcher(name).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * See if the source file of the class has a mapping annotation. This is a heuristic but it means we don't have
+	 * to load the methods of all of the classes that can't be controllers. The answer is cached per file.
+	 */
+	private boolean sourceMentionsMapping(ClassDoc classDoc) {
+		SourcePosition position = classDoc.position();
+		if (position == null || position.file() == null) {
+			// no source so we can't tell
+			return true;
+		}
+		File file = position.file();
+		Boolean result = sourceMappingCache.get(file);
+		if (result == null) {
+			try {
+				result = fileMentionsMappingAnnotation(file);
+			} catch (IOException ioe) {
+				result = true;
+			}
+			sourceMappingCache.put(file, result);
+		}
+		return result;
+	}
+
+	/**
+	 * See if the file has an annotation whose name ends with "Mapping" such as @RequestMapping, @GetMapping, or a
+	 * qualified @org.springframework.web.bind.annotation.PostMapping. This is still a coarse pre-filter since it doesn't
+	 * know about comments or strings but a class or variable name that merely contains "Mapping" doesn't match.
+	 */
+	static boolean fileMentionsMappingAnnotation(File file) throws IOException {
+		InputStream input = new FileInputStream(file);
+		try {
+			// the annotation names we are looking for are ascii so this works with any of the usual source encodings
+			Reader reader = new InputStreamReader(input, "ISO-8859-1");
+			char[] buffer = new char[8192];
+			// name of the annotation that we are in the middle of reading, kept across the reads
+			StringBuilder annotationName = new StringBuilder();
+			boolean inAnnotation = false;
+			while (true) {
+				int numRead = reader.read(buffer);
+				if (numRead < 0) {
+					return (inAnnotation && isMappingAnnotationName(annotationName));
+				}
+				for (int i = 0; i < numRead; i++) {
+					char ch = buffer[i];
+					if (inAnnotation && (Character.isJavaIdentifierPart(ch) || ch == '.')) {
+						if (annotationName.length() < MAX_ANNOTATION_NAME_LENGTH) {
+							annotationName.append(ch);
+						}
+						continue;
+					}
+					if (inAnnotation && isMappingAnnotationName(annotationName)) {
+						return true;
+					}
+					inAnnotation = (ch == '@');
+					annotationName.setLength(0);
+				}
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	private static boolean isMappingAnnotationName(StringBuilder name) {
+		int start = name.length() - MAPPING_ANNOTATION_SUFFIX.length();
+		return (start >= 0 && name.indexOf(MAPPING_ANNOTATION_SUFFIX, start) == start);
+	}
+
+	private void addPatterns(List<Pattern> patterns, String globs) {
+		if (globs == null) {
+			return;
+		}
+		for (String glob : globs.split(LIST_SEPARATORS)) {
+			glob = glob.trim();
+			if (!glob.isEmpty()) {
+				patterns.add(globToPattern(glob));
+			}
+		}
+	}
+
+	/**
+	 * Convert our glob into a regex pattern.
+	 */
+	static Pattern globToPattern(String glob) {
+		StringBuilder sb = new StringBuilder(glob.length() + 16);
+		for (int i = 0; i < glob.length(); i++) {
+			char ch = glob.charAt(i);
+			if (ch == '*') {
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					i++;
+					// "foo.**" should also match "foo"
+					if (sb.length() >= 2 && sb.charAt(sb.length() - 1) == '.' && sb.charAt(sb.length() - 2) == '\\'
+							&& i + 1 == glob.length()) {
+						sb.setLength(sb.length() - 2);
+						sb.append("(\\..*)?");
+					} else {
+						sb.append(".*");
+					}
+				} else {
+					sb.append("[^.]*");
+				}
+			} else if (ch == '?') {
+				sb.append("[^.]");
+			} else if (Character.isLetterOrDigit(ch) || ch == '_') {
+				sb.append(ch);
+			} else {
+				sb.append('\\').append(ch);
+			}
+		}
+		return Pattern.compile(sb.toString());
+	}
+}
@@ -11,21 +11,35 @@ public class ContentsInfo {
 
 	private final String javaParamName;
 	private final String javaTypeName;
+	private final String qualifiedTypeName;
 	private final String javaDoc;
 	private final List<FieldInfo> fieldInfos;
 
-	public static ContentsInfo fromRequestBody(String javaParamName, String javaTypeName, String javaDoc,
-			List<FieldInfo> fieldInfos) {
-		return new ContentsInfo(javaParamName, javaTypeName, javaDoc, fieldInfos);
+	/**
+	 * @param javaTypeName
+	 *            Name of the type without the package which is displayed.
+	 * @param qualifiedTypeName
+	 *            Name of the type with the package, if known, which identifies the type since two types in different
+	 *            packages can have the same name.
+	 */
+	public static ContentsInfo fromRequestBody(String javaParamName, String javaTypeName, String qualifiedTypeName,
+			String javaDoc, List<FieldInfo> fieldInfos) {
+		return new ContentsInfo(javaParamName, javaTypeName, qualifiedTypeName, javaDoc, fieldInfos);
 	}
 
-	public static ContentsInfo fromResponse(String javaTypeName, String javaDoc, List<FieldInfo> fieldInfos) {
-		return new ContentsInfo(null, javaTypeName, javaDoc, fieldInfos);
+	/**
+	 * @see #fromRequestBody(String, String, String, String, List)
+	 */
+	public static ContentsInfo fromResponse(String javaTypeName, String qualifiedTypeName, String javaDoc,
+			List<FieldInfo> fieldInfos) {
+		return new ContentsInfo(null, javaTypeName, qualifiedTypeName, javaDoc, fieldInfos);
 	}
 
-	private ContentsInfo(String javaParamName, String javaTypeName, String javaDoc, List<FieldInfo> fieldInfos) {
+	private ContentsInfo(String javaParamName, String javaTypeName, String qualifiedTypeName, String javaDoc,
+			List<FieldInfo> fieldInfos) {
 		this.javaParamName = javaParamName;
 		this.javaTypeName = javaTypeName;
+		this.qualifiedTypeName = qualifiedTypeName;
 		this.javaDoc = javaDoc;
 		this.fieldInfos = fieldInfos;
 	}
@@ -38,6 +52,10 @@ public class ContentsInfo {
 		return javaTypeName;
 	}
 
+	public String getQualifiedTypeName() {
+		return qualifiedTypeName;
+	}
+
 	public String getJavaDoc() {
 		return javaDoc;
 	}
@@ -0,0 +1,117 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import com.j256.springrequestdoclet.collector.RequestMappingResolver.ResolvedMapping;
+
+/**
+ * Builds the parameter and method information of an end-point from its annotations. This is shared by the
+ * {@link EndPointCollector}, which gets the annotations from javadoc, and the {@link SourceScanner}, which parses them
+ * from the sources, so that both of them build the same end-points.
+ *
+ * @param <S>
+ *            Annotations of a parameter.
+ * @param <A>
+ *            One of the annotations.
+ * @author graywatson
+ */
+abstract class EndPointBuilder<S, A> {
+
+	private static final String REQUEST_PARAM_ANNOTATION_NAME = "RequestParam";
+	private static final String PATH_VARIABLE_ANNOTATION_NAME = "PathVariable";
+	private static final String REQUEST_HEADER_ANNOTATION_NAME = "RequestHeader";
+
+	private final StringPool stringPool;
+
+	protected EndPointBuilder(StringPool stringPool) {
+		this.stringPool = stringPool;
+	}
+
+	/**
+	 * Build the information about a method parameter from its @RequestParam, @PathVariable, or @RequestHeader
+	 * annotation.
+	 *
+	 * @return The parameter information or null if it has none of the annotations.
+	 */
+	public ParamInfo buildParamInfo(String paramName, String typeName, S annotations, String javaDoc)
+			throws IOException {
+		paramName = stringPool.intern(paramName);
+
+		// @RequestParam("schoolId) long schoolId, ...
+		A requestParam = findAnnotation(annotations, REQUEST_PARAM_ANNOTATION_NAME);
+		if (requestParam != null) {
+			String queryParamName = stringPool.intern(findAnnotationFieldValue(annotations, requestParam, "value"));
+			boolean required = true;
+			String requiredStr = findAnnotationFieldValue(annotations, requestParam, "required");
+			if (requiredStr != null) {
+				required = Boolean.parseBoolean(requiredStr);
+			}
+			String defaultValue = findAnnotationFieldValue(annotations, requestParam, "defaultValue");
+			return ParamInfo.fromRequestParam(paramName, typeName, queryParamName, required, defaultValue, javaDoc);
+		}
+
+		// @RequestMapping("/request/{schoolId}") public void request(@PathVariable("schoolId) long schoolId)
+		A pathVariable = findAnnotation(annotations, PATH_VARIABLE_ANNOTATION_NAME);
+		if (pathVariable != null) {
+			String pathVariableName = stringPool.intern(findAnnotationFieldValue(annotations, pathVariable, "value"));
+			return ParamInfo.fromPathVariable(paramName, typeName, pathVariableName, true, null, javaDoc);
+		}
+
+		// @RequestHeader("Content-Type") String contentType, ...
+		A requestHeader = findAnnotation(annotations, REQUEST_HEADER_ANNOTATION_NAME);
+		if (requestHeader != null) {
+			String requestHeaderName =
+					stringPool.intern(findAnnotationFieldValue(annotations, requestHeader, "value"));
+			boolean required = true;
+			String requiredStr = findAnnotationFieldValue(annotations, requestHeader, "required");
+			if (requiredStr != null) {
+				required = Boolean.parseBoolean(requiredStr);
+			}
+			String defaultValue = findAnnotationFieldValue(annotations, requestHeader, "defaultValue");
+			return ParamInfo.fromRequestHeader(paramName, typeName, requestHeaderName, required, defaultValue,
+					javaDoc);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Build the information about a method with its mapping. The method is given a name that is unique in its class,
+	 * which is added to the set of names, for its page.
+	 */
+	public MethodInfo buildMethodInfo(String methodName, Set<String> methodNameSet, String javaDoc,
+			ResolvedMapping mapping, List<ParamInfo> paramInfos, ContentsInfo requestInfo, ContentsInfo responseInfo) {
+
+		if (paramInfos != null && paramInfos.isEmpty()) {
+			paramInfos = null;
+		}
+
+		String uniqueName = methodName;
+		for (int i = 2; !methodNameSet.add(uniqueName); i++) {
+			uniqueName = methodName + i;
+		}
+
+		return new MethodInfo(methodName, uniqueName, javaDoc, EndPointCollector.javaDocFirstSentenceLength(javaDoc),
+				stringPool.intern(mapping.getPaths()), mapping.getHttpMethodMask(),
+				stringPool.intern(mapping.getParams()), stringPool.intern(mapping.getHeaders()),
+				stringPool.intern(mapping.getConsumes()), stringPool.intern(mapping.getProduces()), paramInfos,
+				requestInfo, responseInfo);
+	}
+
+	/**
+	 * Find the annotation with the simple name.
+	 *
+	 * @return The annotation or null if the parameter does not have it.
+	 */
+	protected abstract A findAnnotation(S annotations, String annotationName);
+
+	/**
+	 * Find the value of one of the fields of the annotation.
+	 *
+	 * @return The value or null if the annotation is null or the field is not set.
+	 */
+	protected abstract String findAnnotationFieldValue(S annotations, A annotation, String fieldName)
+			throws IOException;
+}
@@ -1,14 +1,25 @@
 package com.j256.springrequestdoclet.collector;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.j256.springrequestdoclet.collector.MappingHierarchy.MappedMethod;
+import com.j256.springrequestdoclet.collector.RequestMappingResolver.ResolvedMapping;
+import com.j256.springrequestdoclet.metrics.DocletMetrics;
+import com.j256.springrequestdoclet.metrics.JfrEventType;
 import com.sun.javadoc.AnnotationDesc;
 import com.sun.javadoc.AnnotationDesc.ElementValuePair;
 import com.sun.javadoc.AnnotationValue;
@@ -24,75 +35,225 @@ import com.sun.javadoc.Type;
  */
 public class EndPointCollector {
 
-	private static final String REQUEST_MAPPING_ANNOTATION_NAME = "RequestMapping";
-	private static final String REQUEST_PARAM_ANNOTATION_NAME = "RequestParam";
 	private static final String REQUEST_BODY_ANNOTATION_NAME = "RequestBody";
-	private static final String PATH_VARIABLE_ANNOTATION_NAME = "PathVariable";
-	private static final String REQUEST_HEADER_ANNOTATION_NAME = "RequestHeader";
 
-	private static final String REQUEST_METHOD_PACKAGE_PREFIX =
-			"org.springframework.web.bind.annotation.RequestMethod.";
 	private static final Pattern JAVADOC_PARAM_PATTERN = Pattern.compile("(?s)@param\\s+([^\\s]+)\\s+([^@]+)");
 	private static final Pattern JAVADOC_RETURN_PATTERN = Pattern.compile("(?s)@return\\s+([^@]+)");
 
 	private final Map<String, List<EndPoint>> pathInfoMap = new HashMap<String, List<EndPoint>>();
+	private final StringPool stringPool = new StringPool();
+	private final DocEndPointBuilder endPointBuilder = new DocEndPointBuilder(stringPool);
+	private final MappingHierarchy mappingHierarchy = new MappingHierarchy(new RequestMappingResolver());
+	private DocletMetrics metrics;
+	private ClassFilter classFilter;
+	private int spillThreshold;
+	private File spillDir;
+	private int endPointCount;
+	/** once the spill threshold is reached the end-points are kept here instead of the path info map */
+	private EndPointStore endPointStore;
+	/** interfaces and abstract classes that a concrete class in this run inherits mapped methods from */
+	private final Set<String> inheritedTypeNames = new HashSet<String>();
 
 	public void processClass(ClassDoc classDoc) {
-		AnnotationDesc requestMapping = findAnnotation(classDoc.annotations(), REQUEST_MAPPING_ANNOTATION_NAME);
-		if (requestMapping == null) {
+		// the filter only looks at the names so we do it before touching the annotations or methods
+		if (classFilter != null && !classFilter.accept(classDoc)) {
+			if (metrics != null) {
+				metrics.classFiltered();
+			}
 			return;
 		}
-
-		// @RequestMapping(value = { "/auth/oauth" })
-		String[] paths = findAnnotationFieldValues(requestMapping, "value");
-		String javaDoc = classDoc.getRawCommentText();
-		ClassInfo classInfo = new ClassInfo(classDoc.name(), classDoc.qualifiedTypeName(), javaDoc,
-				javaDocFirstSentence(javaDoc), paths);
-		Set<String> methodNameSet = new HashSet<String>();
-		for (MethodDoc methodDoc : classDoc.methods()) {
-			handleMethod(classInfo, methodNameSet, methodDoc);
+		Object event = JfrEventType.CLASS_COLLECTED.begin();
+		long startNanos = (metrics == null ? 0 : System.nanoTime());
+		int methodCount = handleClass(classDoc);
+		if (metrics != null) {
+			metrics.classProcessed(classDoc.qualifiedTypeName(), methodCount >= 0, System.nanoTime() - startNanos);
+		}
+		if (event != null) {
+			JfrEventType.CLASS_COLLECTED.commit(event, classDoc.qualifiedTypeName(), Math.max(0, methodCount));
 		}
+		classFinished();
 	}
 
+	/**
+	 * Return the map of path to its end-points. If the end-points were spilled to an {@link EndPointStore} then this is a
+	 * read-only view which reads them back from the store.
+	 */
 	public Map<String, List<EndPoint>> getPathInfoMap() {
-		return pathInfoMap;
+		removeInheritedTypes();
+		if (endPointStore == null) {
+			return pathInfoMap;
+		} else {
+			return endPointStore.getEndPointMap();
+		}
 	}
 
 	/**
-	 * Process the annotations from each of the methods looking for a @RequestMapping and/or @RequestMethod.
+	 * Return a read-only copy of the map of path to its end-points which can be shared by writers running at the same
+	 * time. If the end-points were spilled to an {@link EndPointStore} then this is its view which is already read-only.
+	 */
+	public Map<String, List<EndPoint>> getImmutablePathInfoMap() {
+		removeInheritedTypes();
+		if (endPointStore != null) {
+			return endPointStore.getEndPointMap();
+		}
+		Map<String, List<EndPoint>> copyMap = new LinkedHashMap<String, List<EndPoint>>(pathInfoMap.size() * 4 / 3 + 1);
+		for (Entry<String, List<EndPoint>> entry : pathInfoMap.entrySet()) {
+			copyMap.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<EndPoint>(entry.getValue())));
+		}
+		return Collections.unmodifiableMap(copyMap);
+	}
+
+	/**
+	 * Remove the end-points of the class so it can be collected again after it has changed.
+	 * 
+	 * @return True if the class had any end-points.
+	 */
+	public boolean removeClass(String qualifiedTypeName) {
+		if (endPointStore != null) {
+			try {
+				return endPointStore.removeClass(qualifiedTypeName);
+			} catch (IOException ioe) {
+				throw new IllegalStateException("Could not read end-points from store", ioe);
+			}
+		}
+		boolean removed = false;
+		Iterator<List<EndPoint>> pathIterator = pathInfoMap.values().iterator();
+		while (pathIterator.hasNext()) {
+			List<EndPoint> endPoints = pathIterator.next();
+			Iterator<EndPoint> iterator = endPoints.iterator();
+			while (iterator.hasNext()) {
+				if (qualifiedTypeName.equals(iterator.next().getClassInfo().getTypeName())) {
+					iterator.remove();
+					removed = true;
+				}
+			}
+			if (endPoints.isEmpty()) {
+				pathIterator.remove();
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Clear the cached annotation and class hierarchy mappings. This needs to be done before classes are collected again
+	 * after sources have changed since a base class or a composed annotation may have changed.
+	 */
+	public void clearMappingCaches() {
+		mappingHierarchy.clear();
+	}
+
+	/**
+	 * Set the metrics that will record the per-class timings or null to disable.
+	 */
+	public void setMetrics(DocletMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Set the filter that decides which classes are processed or null to process all of them.
+	 */
+	public void setClassFilter(ClassFilter classFilter) {
+		this.classFilter = classFilter;
+	}
+
+	/**
+	 * Set the number of end-points after which they are moved out of the heap and appended to an {@link EndPointStore}
+	 * file in the directory, or in the system temporary directory if null. The default of 0 keeps them all in memory.
+	 */
+	public void setSpillThreshold(int spillThreshold, File spillDir) {
+		this.spillThreshold = spillThreshold;
+		this.spillDir = spillDir;
+	}
+
+	/**
+	 * Return true if the end-points have been spilled to a store file.
 	 */
-	private void handleMethod(ClassInfo classInfo, Set<String> methodNameSet, MethodDoc methodDoc) {
+	public boolean isSpilled() {
+		return (endPointStore != null);
+	}
+
+	/**
+	 * Close and delete the store file if the end-points were spilled. The path info map can't be used afterwards.
+	 */
+	public void close() throws IOException {
+		if (endPointStore != null) {
+			endPointStore.close();
+		}
+	}
 
-		AnnotationDesc requestMapping = findAnnotation(methodDoc.annotations(), REQUEST_MAPPING_ANNOTATION_NAME);
+	/**
+	 * Pool of the type names, media types, header names and the like that were collected during this run.
+	 */
+	public StringPool getStringPool() {
+		return stringPool;
+	}
+
+	/**
+	 * Process the class if it has a @RequestMapping annotation and its methods looking for @RequestMapping annotations
+	 * or composed annotations such as @GetMapping. Mappings that are inherited from superclasses and interfaces are
+	 * included. Interfaces and abstract classes are documented as well unless a concrete class in this run inherits
+	 * their mapped methods, see {@link #addInheritedType(String)}.
+	 * 
+	 * @return Number of request methods in the class or -1 if the class did not have the annotation.
+	 */
+	private int handleClass(ClassDoc classDoc) {
+		ResolvedMapping requestMapping = mappingHierarchy.findClassMapping(classDoc);
 		if (requestMapping == null) {
-			return;
+			return -1;
+		}
+		if (!classDoc.isInterface() && !classDoc.isAbstract()) {
+			addInheritedTypes(classDoc);
 		}
 
 		// @RequestMapping(value = { "/auth/oauth" })
-		String[] paths = findAnnotationFieldValues(requestMapping, "value");
-		// @RequestMapping(method = { RequestMethod.GET })
-		String[] httpMethods = findAnnotationFieldValues(requestMapping, "method");
-		if (httpMethods != null) {
-			for (int i = 0; i < httpMethods.length; i++) {
-				if (httpMethods[i].startsWith(REQUEST_METHOD_PACKAGE_PREFIX)) {
-					httpMethods[i] = httpMethods[i].substring(REQUEST_METHOD_PACKAGE_PREFIX.length());
+		String[] paths = requestMapping.getPaths();
+		String javaDoc = classDoc.getRawCommentText();
+		ClassInfo classInfo = new ClassInfo(classDoc.name(), classDoc.qualifiedTypeName(), javaDoc,
+				javaDocFirstSentence(javaDoc), paths);
+		Set<String> methodNameSet = new HashSet<String>();
+		int methodCount = 0;
+		for (MappedMethod mappedMethod : mappingHierarchy.findMappedMethods(classDoc)) {
+			handleMethod(classInfo, methodNameSet, mappedMethod);
+			methodCount++;
+		}
+		return methodCount;
+	}
+
+	/**
+	 * Record the interfaces and abstract classes that the concrete class inherits mapped methods from.
+	 */
+	private void addInheritedTypes(ClassDoc classDoc) {
+		List<ClassDoc> supertypes = new ArrayList<ClassDoc>(Arrays.asList(classDoc.interfaces()));
+		if (classDoc.superclass() != null) {
+			supertypes.add(classDoc.superclass());
+		}
+		for (ClassDoc supertype : supertypes) {
+			// a type without mapped methods can't have supertypes with them since they would be inherited
+			if (!mappingHierarchy.findMappedMethods(supertype).isEmpty()) {
+				if (supertype.isInterface() || supertype.isAbstract()) {
+					addInheritedType(supertype.qualifiedTypeName());
 				}
+				addInheritedTypes(supertype);
 			}
 		}
-		// @RequestMapping(params = { "schoolId", "user=12234" })
-		String[] params = findAnnotationFieldValues(requestMapping, "params");
-		// @RequestMapping(headers = { "content-type=text/*" })
-		String[] headers = findAnnotationFieldValues(requestMapping, "headers");
-		// @RequestMapping(consumes = { "content-type=application/json" })
-		String[] consumes = findAnnotationFieldValues(requestMapping, "consumes");
-		// @RequestMapping(produces = { "content-type=text/plain" })
-		String[] produces = findAnnotationFieldValues(requestMapping, "produces");
+	}
 
-		String methodJavaDoc = methodDoc.getRawCommentText();
+	/**
+	 * Process a method with a @RequestMapping or a composed mapping annotation, either its own or inherited.
+	 */
+	private void handleMethod(ClassInfo classInfo, Set<String> methodNameSet, MappedMethod mappedMethod) {
+
+		MethodDoc methodDoc = mappedMethod.getMethodDoc();
+		ResolvedMapping requestMapping = mappedMethod.getMapping();
+
+		String methodJavaDoc = mappedMethod.getJavaDoc();
+		List<MethodDoc> declarations = mappedMethod.getDeclarations();
 
 		List<ParamInfo> paramInfos = new ArrayList<ParamInfo>();
-		for (Parameter param : methodDoc.parameters()) {
-			ParamInfo paramInfo = handleParam(param, methodJavaDoc);
+		Parameter[] parameters = methodDoc.parameters();
+		for (int i = 0; i < parameters.length; i++) {
+			ParamInfo paramInfo =
+					handleParam(parameters[i], mappedMethod.getParamAnnotations(i), findParamDocs(declarations, i));
 			if (paramInfo != null) {
 				paramInfos.add(paramInfo);
 			}
@@ -100,8 +261,9 @@ public class EndPointCollector {
 
 		// process the parameters looking for a @RequestBody parameter
 		ContentsInfo requestInfo = null;
-		for (Parameter param : methodDoc.parameters()) {
-			ContentsInfo contentsInfo = handleRequestBodyParam(param, methodJavaDoc);
+		for (int i = 0; i < parameters.length; i++) {
+			ContentsInfo contentsInfo = handleRequestBodyParam(parameters[i], mappedMethod.getParamAnnotations(i),
+					declarations, i);
 			if (contentsInfo != null) {
 				requestInfo = contentsInfo;
 				break;
@@ -109,21 +271,18 @@ public class EndPointCollector {
 		}
 
 		// process the returned class to see if it is @ResponseBody
-		ContentsInfo responseInfo = handleResponseBody(methodDoc);
-
-		if (paramInfos.isEmpty()) {
-			paramInfos = null;
-		}
-
-		String uniqueName = methodDoc.name();
-		for (int i = 2; !methodNameSet.add(uniqueName); i++) {
-			uniqueName = methodDoc.name() + i;
-		}
+		ContentsInfo responseInfo = handleResponseBody(methodDoc, methodJavaDoc);
 
-		MethodInfo methodInfo =
-				new MethodInfo(methodDoc.name(), uniqueName, methodJavaDoc, javaDocFirstSentence(methodJavaDoc), paths,
-						httpMethods, params, headers, consumes, produces, paramInfos, requestInfo, responseInfo);
+		MethodInfo methodInfo = endPointBuilder.buildMethodInfo(methodDoc.name(), methodNameSet, methodJavaDoc,
+				requestMapping, paramInfos, requestInfo, responseInfo);
+		addMethod(classInfo, methodInfo);
+	}
 
+	/**
+	 * Add the end-points of the method for each of the class paths combined with each of the method paths. This is also
+	 * used by the {@link SourceScanner} which builds the class and method information from the sources itself.
+	 */
+	void addMethod(ClassInfo classInfo, MethodInfo methodInfo) {
 		if (classInfo.getPaths() == null) {
 			addClassPathInfo(classInfo, methodInfo, null);
 		} else {
@@ -165,6 +324,14 @@ public class EndPointCollector {
 	}
 
 	private void addPathInfo(ClassInfo classInfo, MethodInfo methodInfo, String path) {
+		if (endPointStore != null) {
+			try {
+				endPointStore.add(path, classInfo, methodInfo);
+			} catch (IOException ioe) {
+				throw new IllegalStateException("Could not write end-point to store", ioe);
+			}
+			return;
+		}
 		List<EndPoint> pathInfos = pathInfoMap.get(path);
 		if (pathInfos == null) {
 			pathInfos = new ArrayList<EndPoint>();
@@ -172,76 +339,83 @@ public class EndPointCollector {
 		}
 		EndPoint pathInfo = new EndPoint(path, classInfo, methodInfo);
 		pathInfos.add(pathInfo);
+		endPointCount++;
 	}
 
 	/**
-	 * Process the annotations from each of the methods looking for a @RequestMapping and/or @RequestMethod.
+	 * Record that a concrete class inherits the mapped methods of the interface or abstract class. Its end-points are
+	 * removed before the path info map is returned since spring only maps the methods of the concrete controllers and
+	 * they are documented, with the inherited mappings, through those. Interfaces and abstract classes that no class in
+	 * the run extends, such as in a module with only the API interfaces, are still documented.
 	 */
-	private ParamInfo handleParam(Parameter param, String methodJavaDoc) {
-		String pathVariableName = null;
-		String requestHeaderName = null;
-
-		String javaDoc = extractParamDocs(methodJavaDoc, param.name());
-		String typeName = generateTypeName(param.type());
-
-		// @RequestParam("schoolId) long schoolId, ...
-		AnnotationDesc requestParam = findAnnotation(param.annotations(), REQUEST_PARAM_ANNOTATION_NAME);
-		if (requestParam != null) {
-			String queryParamName = findAnnotationFieldValue(requestParam, "value");
-			boolean required = true;
-			String requiredStr = findAnnotationFieldValue(requestParam, "required");
-			if (requiredStr != null) {
-				required = Boolean.parseBoolean(requiredStr);
-			}
-			String defaultValue = findAnnotationFieldValue(requestParam, "defaultValue");
-			return ParamInfo.fromRequestParam(param.name(), typeName, queryParamName, required, defaultValue, javaDoc);
-		}
+	void addInheritedType(String qualifiedTypeName) {
+		inheritedTypeNames.add(qualifiedTypeName);
+	}
 
-		// @RequestMapping("/request/{schoolId}") public void request(@PathVariable("schoolId) long schoolId)
-		AnnotationDesc pathVariable = findAnnotation(param.annotations(), PATH_VARIABLE_ANNOTATION_NAME);
-		if (pathVariable != null) {
-			pathVariableName = findAnnotationFieldValue(pathVariable, "value");
-			return ParamInfo.fromPathVariable(param.name(), typeName, pathVariableName, true, null, javaDoc);
+	private void removeInheritedTypes() {
+		for (String typeName : inheritedTypeNames) {
+			removeClass(typeName);
 		}
+		inheritedTypeNames.clear();
+	}
 
-		// @RequestHeader("Content-Type") String contentType, ...
-		AnnotationDesc requestHeader = findAnnotation(param.annotations(), REQUEST_HEADER_ANNOTATION_NAME);
-		if (requestHeader != null) {
-			requestHeaderName = findAnnotationFieldValue(requestHeader, "value");
-			boolean required = true;
-			String requiredStr = findAnnotationFieldValue(requestParam, "required");
-			if (requiredStr != null) {
-				required = Boolean.parseBoolean(requiredStr);
-			}
-			String defaultValue = findAnnotationFieldValue(requestParam, "defaultValue");
-			return ParamInfo.fromRequestHeader(param.name(), typeName, requestHeaderName, required, defaultValue,
-					javaDoc);
+	/**
+	 * Called after all of the methods of a class have been added.
+	 */
+	void classFinished() {
+		// spilled between classes so the end-points of a method are all added to the store together
+		if (spillThreshold > 0 && endPointStore == null && endPointCount >= spillThreshold) {
+			spillEndPoints();
 		}
+	}
 
-		return null;
+	/**
+	 * Move the end-points that have been collected so far into a store file and add the rest of them there.
+	 */
+	private void spillEndPoints() {
+		try {
+			endPointStore = new EndPointStore(spillDir);
+			endPointStore.addAll(pathInfoMap);
+		} catch (IOException ioe) {
+			throw new IllegalStateException("Could not write end-points to store", ioe);
+		}
+		pathInfoMap.clear();
+	}
+
+	/**
+	 * Process the annotations of a method parameter which may have been inherited from an overridden declaration.
+	 */
+	private ParamInfo handleParam(Parameter param, AnnotationDesc[] annotations, String javaDoc) {
+		try {
+			return endPointBuilder.buildParamInfo(param.name(), generateTypeName(param.type()), annotations, javaDoc);
+		} catch (IOException ioe) {
+			// should not happen since the javadoc annotation values are already evaluated
+			throw new IllegalStateException("Could not process parameter " + param.name(), ioe);
+		}
 	}
 
 	/**
 	 * Process the annotations from each of the methods looking for a @RequestMapping and/or @RequestMethod.
 	 */
-	private ContentsInfo handleRequestBodyParam(Parameter param, String methodJavaDoc) {
+	private ContentsInfo handleRequestBodyParam(Parameter param, AnnotationDesc[] annotations,
+			List<MethodDoc> declarations, int paramIndex) {
 
 		// Ex: public void method(@RequestBody SomeObject someObject)
 
-		AnnotationDesc requestBody = findAnnotation(param.annotations(), REQUEST_BODY_ANNOTATION_NAME);
+		AnnotationDesc requestBody = findAnnotation(annotations, REQUEST_BODY_ANNOTATION_NAME);
 		if (requestBody == null) {
 			return null;
 		} else {
-			String javaDoc = extractParamDocs(methodJavaDoc, param.name());
-			return ContentsInfo.fromRequestBody(param.name(), generateTypeName(param.type()), javaDoc,
-					extractFieldInfos(param.type()));
+			String javaDoc = findParamDocs(declarations, paramIndex);
+			return ContentsInfo.fromRequestBody(stringPool.intern(param.name()), generateTypeName(param.type()),
+					generateQualifiedTypeName(param.type()), javaDoc, extractFieldInfos(param.type()));
 		}
 	}
 
 	/**
 	 * Process the return type from a method marked (probably) with @ResponseBody.
 	 */
-	private ContentsInfo handleResponseBody(MethodDoc methodDoc) {
+	private ContentsInfo handleResponseBody(MethodDoc methodDoc, String methodJavaDoc) {
 
 		// Ex: public @ResponseBody SomeObject method() {
 
@@ -250,25 +424,47 @@ public class EndPointCollector {
 			return null;
 		}
 
-		// try to extract the @return javadoc information
-		String javaDoc = null;
-		if (methodDoc.getRawCommentText() != null) {
-			Matcher matcher = JAVADOC_RETURN_PATTERN.matcher(methodDoc.getRawCommentText());
-			if (matcher.find()) {
-				javaDoc = javaDocFirstSentence(matcher.group(1));
-			}
-		}
+		return ContentsInfo.fromResponse(generateTypeName(type), generateQualifiedTypeName(type),
+				extractReturnDocs(methodJavaDoc), extractFieldInfos(type));
+	}
 
-		return ContentsInfo.fromResponse(generateTypeName(type), javaDoc, extractFieldInfos(type));
+	/**
+	 * Extract the first sentence of the @return javadoc information or null if none.
+	 */
+	static String extractReturnDocs(String methodJavaDoc) {
+		if (methodJavaDoc == null) {
+			return null;
+		}
+		Matcher matcher = JAVADOC_RETURN_PATTERN.matcher(methodJavaDoc);
+		if (matcher.find()) {
+			return javaDocFirstSentence(matcher.group(1));
+		} else {
+			return null;
+		}
 	}
 
+	/**
+	 * Generate the pooled type name which includes any array dimensions.
+	 */
 	private String generateTypeName(Type type) {
-		StringBuilder sb = new StringBuilder();
-		sb.append(type.typeName());
-		if (type.dimension() != null) {
-			sb.append(type.dimension());
+		String dimension = type.dimension();
+		if (dimension == null || dimension.isEmpty()) {
+			return stringPool.intern(type.typeName());
+		} else {
+			return stringPool.intern(type.typeName() + dimension);
+		}
+	}
+
+	/**
+	 * Generate the pooled type name with its package which includes any array dimensions.
+	 */
+	private String generateQualifiedTypeName(Type type) {
+		String dimension = type.dimension();
+		if (dimension == null || dimension.isEmpty()) {
+			return stringPool.intern(type.qualifiedTypeName());
+		} else {
+			return stringPool.intern(type.qualifiedTypeName() + dimension);
 		}
-		return sb.toString();
 	}
 
 	/**
@@ -278,11 +474,8 @@ public class EndPointCollector {
 		if (type.isPrimitive()) {
 			return null;
 		}
-		String typeName = type.typeName();
 		// skip the core objects
-		if ("Boolean".equals(typeName) || "Byte".equals(typeName) || "Short".equals(typeName)
-				|| "Integer".equals(typeName) || "Long".equals(typeName) || "Float".equals(typeName)
-				|| "Double".equals(typeName) || "String".equals(typeName)) {
+		if (isCoreType(type.typeName())) {
 			return null;
 		}
 
@@ -305,14 +498,40 @@ public class EndPointCollector {
 				fieldName = Character.toLowerCase(methodName.charAt(2)) + methodName.substring(3);
 			}
 			if (fieldName != null) {
-				fieldInfos.add(new FieldInfo(fieldName, generateTypeName(methodDoc.returnType()),
+				fieldInfos.add(new FieldInfo(stringPool.intern(fieldName), generateTypeName(methodDoc.returnType()),
 						javaDocFirstSentence(methodDoc.getRawCommentText())));
 			}
 		}
 		return fieldInfos;
 	}
 
-	private String extractParamDocs(String methodJavaDocs, String paramName) {
+	/**
+	 * Return true if the type is one of the core objects whose getters are not fields.
+	 */
+	static boolean isCoreType(String typeName) {
+		return ("Boolean".equals(typeName) || "Byte".equals(typeName) || "Short".equals(typeName)
+				|| "Integer".equals(typeName) || "Long".equals(typeName) || "Float".equals(typeName)
+				|| "Double".equals(typeName) || "String".equals(typeName));
+	}
+
+	/**
+	 * Find the @param docs for the parameter at the index from the first of the declarations that has them. The
+	 * parameter names of the overridden declarations may be different.
+	 */
+	private String findParamDocs(List<MethodDoc> declarations, int paramIndex) {
+		for (MethodDoc declaration : declarations) {
+			Parameter[] params = declaration.parameters();
+			if (paramIndex < params.length) {
+				String javaDoc = extractParamDocs(declaration.getRawCommentText(), params[paramIndex].name());
+				if (javaDoc != null) {
+					return javaDoc;
+				}
+			}
+		}
+		return null;
+	}
+
+	static String extractParamDocs(String methodJavaDocs, String paramName) {
 		// @param ssoVar oauth provider name.
 		if (methodJavaDocs == null || methodJavaDocs.isEmpty()) {
 			return null;
@@ -343,29 +562,6 @@ public class EndPointCollector {
 		return null;
 	}
 
-	/**
-	 * Find the specific annotation field by name.
-	 * 
-	 * @return Values associated with the field or null if not found.
-	 */
-	private String[] findAnnotationFieldValues(AnnotationDesc annotation, String fieldName) {
-		for (ElementValuePair pair : annotation.elementValues()) {
-			// String[] value, consumes, produces, headers, method (no s), params
-			String name = pair.element().name();
-			Object obj = pair.value().value();
-			if (fieldName.equals(name) && (obj instanceof AnnotationValue[])) {
-				// each of these are the path mapping for the @RequestMapping annotation
-				AnnotationValue[] values = (AnnotationValue[]) obj;
-				String[] result = new String[values.length];
-				for (int i = 0; i < values.length; i++) {
-					result[i] = pathNoQuotes(values[i].toString());
-				}
-				return result;
-			}
-		}
-		return null;
-	}
-
 	/**
 	 * Find the specific annotation field by name.
 	 * 
@@ -386,24 +582,55 @@ public class EndPointCollector {
 		return null;
 	}
 
-	private String javaDocFirstSentence(String javaDoc) {
-		if (javaDoc == null) {
+	static String javaDocFirstSentence(String javaDoc) {
+		int length = javaDocFirstSentenceLength(javaDoc);
+		if (length < 0) {
 			return null;
+		} else if (length == javaDoc.length()) {
+			return javaDoc;
+		} else {
+			return javaDoc.substring(0, length);
+		}
+	}
+
+	/**
+	 * Return the length of the first sentence of the javadoc or -1 if it is null.
+	 */
+	static int javaDocFirstSentenceLength(String javaDoc) {
+		if (javaDoc == null) {
+			return -1;
 		}
 		for (int i = 0; i < javaDoc.length(); i++) {
 			char ch = javaDoc.charAt(i);
 			if (ch == '.' || ch == '!' || ch == '?' || ch == '@') {
-				return javaDoc.substring(0, i + 1);
+				return i + 1;
 			}
 		}
-		return javaDoc;
+		return javaDoc.length();
 	}
 
 	private String pathNoQuotes(String path) {
-		if (path != null && path.length() >= 2 && path.charAt(0) == '\"' && path.charAt(path.length() - 1) == '\"') {
-			return path.substring(1, path.length() - 1);
-		} else {
-			return path;
+		return RequestMappingResolver.stripQuotes(path);
+	}
+
+	/**
+	 * Builds the end-points from the annotations that javadoc has parsed.
+	 */
+	private class DocEndPointBuilder extends EndPointBuilder<AnnotationDesc[], AnnotationDesc> {
+
+		public DocEndPointBuilder(StringPool stringPool) {
+			super(stringPool);
+		}
+
+		@Override
+		protected AnnotationDesc findAnnotation(AnnotationDesc[] annotations, String annotationName) {
+			return EndPointCollector.this.findAnnotation(annotations, annotationName);
+		}
+
+		@Override
+		protected String findAnnotationFieldValue(AnnotationDesc[] annotations, AnnotationDesc annotation,
+				String fieldName) {
+			return EndPointCollector.this.findAnnotationFieldValue(annotation, fieldName);
 		}
 	}
 }
@@ -0,0 +1,552 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares two end-point maps, for example a saved baseline snapshot and the current run, and finds the operations
+ * that were added, removed, or changed. An operation is an end-point path with one of its HTTP methods and its
+ * request parameter narrowing. The operations of both maps are sorted and then matched with a single merge pass so the
+ * comparison stays fast on large APIs.
+ *
+ * <p>
+ * Changes that will break existing clients are flagged: removed operations, new required parameters, parameters that
+ * became required or changed type, new narrowing conditions, content types that are no longer consumed or produced,
+ * request body type changes, and response fields that were removed or changed type. Changes to the javadocs are
+ * ignored.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class EndPointDiff {
+
+	/** used in place of the HTTP method for end-points which handle all of them */
+	public static final String ANY_HTTP_METHOD = "ANY";
+
+	private static final Comparator<Operation> OPERATION_COMPARATOR = new Comparator<Operation>() {
+		@Override
+		public int compare(Operation operation1, Operation operation2) {
+			int result = operation1.key.compareTo(operation2.key);
+			if (result == 0) {
+				// operations with the same key are matched by the method that handles them
+				result = operation1.handlerName.compareTo(operation2.handlerName);
+			}
+			return result;
+		}
+	};
+
+	private final List<OperationChange> changes = new ArrayList<OperationChange>();
+	private int oldOperationCount;
+	private int newOperationCount;
+	private int addedCount;
+	private int removedCount;
+	private int changedCount;
+	private int breakingCount;
+
+	/**
+	 * Compare the old map with the new one.
+	 */
+	public EndPointDiff(Map<String, List<EndPoint>> oldEndPointMap, Map<String, List<EndPoint>> newEndPointMap) {
+		List<Operation> oldOperations = toSortedOperations(oldEndPointMap);
+		List<Operation> newOperations = toSortedOperations(newEndPointMap);
+		oldOperationCount = oldOperations.size();
+		newOperationCount = newOperations.size();
+
+		int oldIndex = 0;
+		int newIndex = 0;
+		while (oldIndex < oldOperations.size() || newIndex < newOperations.size()) {
+			int result;
+			if (oldIndex >= oldOperations.size()) {
+				result = 1;
+			} else if (newIndex >= newOperations.size()) {
+				result = -1;
+			} else {
+				result = oldOperations.get(oldIndex).key.compareTo(newOperations.get(newIndex).key);
+			}
+			if (result < 0) {
+				addRemoved(oldOperations.get(oldIndex++));
+			} else if (result > 0) {
+				addAdded(newOperations.get(newIndex++));
+			} else {
+				int oldEnd = findKeyEnd(oldOperations, oldIndex);
+				int newEnd = findKeyEnd(newOperations, newIndex);
+				if (oldEnd - oldIndex == 1 && newEnd - newIndex == 1) {
+					addIfChanged(oldOperations.get(oldIndex), newOperations.get(newIndex));
+				} else {
+					matchSameKey(oldOperations.subList(oldIndex, oldEnd), newOperations.subList(newIndex, newEnd));
+				}
+				oldIndex = oldEnd;
+				newIndex = newEnd;
+			}
+		}
+	}
+
+	/**
+	 * Return the changed operations in order of path and HTTP method.
+	 */
+	public List<OperationChange> getChanges() {
+		return changes;
+	}
+
+	public int getOldOperationCount() {
+		return oldOperationCount;
+	}
+
+	public int getNewOperationCount() {
+		return newOperationCount;
+	}
+
+	public int getAddedCount() {
+		return addedCount;
+	}
+
+	public int getRemovedCount() {
+		return removedCount;
+	}
+
+	public int getChangedCount() {
+		return changedCount;
+	}
+
+	/**
+	 * Number of the added, removed, and changed operations which have breaking changes.
+	 */
+	public int getBreakingCount() {
+		return breakingCount;
+	}
+
+	/**
+	 * Match up operations that have the same key, for example a path with a couple of POST methods that are routed by
+	 * content type. They are first matched by the java method that handles them and then in order.
+	 */
+	private void matchSameKey(List<Operation> oldOperations, List<Operation> newOperations) {
+		List<Operation> oldUnmatched = new ArrayList<Operation>();
+		List<Operation> newUnmatched = new ArrayList<Operation>();
+		int oldIndex = 0;
+		int newIndex = 0;
+		// they are sorted by handler name within the key
+		while (oldIndex < oldOperations.size() && newIndex < newOperations.size()) {
+			Operation oldOperation = oldOperations.get(oldIndex);
+			Operation newOperation = newOperations.get(newIndex);
+			int result = oldOperation.handlerName.compareTo(newOperation.handlerName);
+			if (result < 0) {
+				oldUnmatched.add(oldOperation);
+				oldIndex++;
+			} else if (result > 0) {
+				newUnmatched.add(newOperation);
+				newIndex++;
+			} else {
+				addIfChanged(oldOperation, newOperation);
+				oldIndex++;
+				newIndex++;
+			}
+		}
+		oldUnmatched.addAll(oldOperations.subList(oldIndex, oldOperations.size()));
+		newUnmatched.addAll(newOperations.subList(newIndex, newOperations.size()));
+		// the handler may have been renamed
+		int pairCount = Math.min(oldUnmatched.size(), newUnmatched.size());
+		for (int i = 0; i < pairCount; i++) {
+			addIfChanged(oldUnmatched.get(i), newUnmatched.get(i));
+		}
+		for (int i = pairCount; i < oldUnmatched.size(); i++) {
+			addRemoved(oldUnmatched.get(i));
+		}
+		for (int i = pairCount; i < newUnmatched.size(); i++) {
+			addAdded(newUnmatched.get(i));
+		}
+	}
+
+	/**
+	 * Return the index after the last operation with the same key as the one at the start index.
+	 */
+	private static int findKeyEnd(List<Operation> operations, int startIndex) {
+		String key = operations.get(startIndex).key;
+		int end = startIndex + 1;
+		while (end < operations.size() && operations.get(end).key.equals(key)) {
+			end++;
+		}
+		return end;
+	}
+
+	private void addRemoved(Operation operation) {
+		OperationChange change = new OperationChange(ChangeKind.REMOVED, operation, null);
+		change.addDetail("Operation removed", true);
+		addChange(change);
+	}
+
+	private void addAdded(Operation operation) {
+		OperationChange change = new OperationChange(ChangeKind.ADDED, operation, null);
+		change.addDetail("Operation added", false);
+		addChange(change);
+	}
+
+	private void addIfChanged(Operation oldOperation, Operation newOperation) {
+		OperationChange change = new OperationChange(ChangeKind.CHANGED, oldOperation, newOperation);
+		compareMethods(change, oldOperation.endPoint.getMethodInfo(), newOperation.endPoint.getMethodInfo());
+		if (!change.details.isEmpty()) {
+			addChange(change);
+		}
+	}
+
+	private void addChange(OperationChange change) {
+		changes.add(change);
+		switch (change.kind) {
+			case ADDED:
+				addedCount++;
+				break;
+			case REMOVED:
+				removedCount++;
+				break;
+			default:
+				changedCount++;
+				break;
+		}
+		if (change.breaking) {
+			breakingCount++;
+		}
+	}
+
+	/**
+	 * Split the end-points of the map into operations, one per HTTP method, and sort them by their keys.
+	 */
+	private static List<Operation> toSortedOperations(Map<String, List<EndPoint>> endPointMap) {
+		List<Operation> operations = new ArrayList<Operation>();
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			for (EndPoint endPoint : endPoints) {
+				String[] httpMethods = endPoint.getMethodInfo().getHttpMethods();
+				if (httpMethods == null) {
+					operations.add(new Operation(endPoint, ANY_HTTP_METHOD));
+				} else {
+					for (String httpMethod : httpMethods) {
+						operations.add(new Operation(endPoint, httpMethod));
+					}
+				}
+			}
+		}
+		Collections.sort(operations, OPERATION_COMPARATOR);
+		return operations;
+	}
+
+	private static void compareMethods(OperationChange change, MethodInfo oldMethod, MethodInfo newMethod) {
+		// new conditions on the headers make requests that used to match fail
+		compareConditions(change, "Header condition", oldMethod.getHeaders(), newMethod.getHeaders());
+		compareContentTypes(change, "Consumes", oldMethod.getConsumes(), newMethod.getConsumes());
+		compareContentTypes(change, "Produces", oldMethod.getProduces(), newMethod.getProduces());
+		compareParams(change, oldMethod.getParamInfos(), newMethod.getParamInfos());
+		compareContents(change, "Request body", oldMethod.getRequestInfo(), newMethod.getRequestInfo(), false);
+		compareContents(change, "Response", oldMethod.getResponseInfo(), newMethod.getResponseInfo(), true);
+	}
+
+	private static void compareConditions(OperationChange change, String label, String[] oldValues,
+			String[] newValues) {
+		Set<String> oldSet = toSet(oldValues);
+		Set<String> newSet = toSet(newValues);
+		for (String value : newSet) {
+			if (!oldSet.contains(value)) {
+				change.addDetail(label + " added: " + value, true);
+			}
+		}
+		for (String value : oldSet) {
+			if (!newSet.contains(value)) {
+				change.addDetail(label + " removed: " + value, false);
+			}
+		}
+	}
+
+	/**
+	 * No content types means that all of them are handled.
+	 */
+	private static void compareContentTypes(OperationChange change, String label, String[] oldValues,
+			String[] newValues) {
+		Set<String> oldSet = toSet(oldValues);
+		Set<String> newSet = toSet(newValues);
+		for (String value : newSet) {
+			if (!oldSet.contains(value)) {
+				// going from all types to some of them drops the others
+				change.addDetail(label + " added: " + value, oldSet.isEmpty());
+			}
+		}
+		for (String value : oldSet) {
+			if (!newSet.contains(value)) {
+				change.addDetail(label + " removed: " + value, !newSet.isEmpty());
+			}
+		}
+	}
+
+	private static void compareParams(OperationChange change, List<ParamInfo> oldParams, List<ParamInfo> newParams) {
+		Map<String, ParamInfo> oldParamMap = toParamMap(oldParams);
+		Map<String, ParamInfo> newParamMap = toParamMap(newParams);
+		// walk the lists so the details are in parameter order
+		if (newParams != null) {
+			for (ParamInfo newParam : newParams) {
+				String label = paramLabel(newParam);
+				ParamInfo oldParam = oldParamMap.get(paramKey(newParam));
+				if (oldParam == null) {
+					if (newParam.isRequired()) {
+						change.addDetail("Required " + label + " added", true);
+					} else {
+						change.addDetail("Optional " + label + " added", false);
+					}
+					continue;
+				}
+				if (!oldParam.isRequired() && newParam.isRequired()) {
+					change.addDetail(label + " is now required", true);
+				} else if (oldParam.isRequired() && !newParam.isRequired()) {
+					change.addDetail(label + " is now optional", false);
+				}
+				if (!equals(oldParam.getJavaTypeName(), newParam.getJavaTypeName())) {
+					change.addDetail(label + " type changed from " + oldParam.getJavaTypeName() + " to "
+							+ newParam.getJavaTypeName(), true);
+				}
+				if (!equals(oldParam.getDefaultValue(), newParam.getDefaultValue())) {
+					change.addDetail(label + " default changed from " + oldParam.getDefaultValue() + " to "
+							+ newParam.getDefaultValue(), false);
+				}
+			}
+		}
+		if (oldParams != null) {
+			for (ParamInfo oldParam : oldParams) {
+				if (!newParamMap.containsKey(paramKey(oldParam))) {
+					change.addDetail(paramLabel(oldParam) + " removed", false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param response
+	 *            True if this is the response in which case removed or changed fields break the clients that read them
+	 *            otherwise it is the request body where only a change of type is flagged.
+	 */
+	private static void compareContents(OperationChange change, String label, ContentsInfo oldContents,
+			ContentsInfo newContents, boolean response) {
+		if (oldContents == null && newContents == null) {
+			return;
+		} else if (oldContents == null) {
+			change.addDetail(label + " added: " + newContents.getJavaTypeName(), !response);
+			return;
+		} else if (newContents == null) {
+			change.addDetail(label + " removed: " + oldContents.getJavaTypeName(), response);
+			return;
+		}
+		List<FieldInfo> oldFields = oldContents.getFieldInfos();
+		List<FieldInfo> newFields = newContents.getFieldInfos();
+		if (isEmpty(oldFields) || isEmpty(newFields)) {
+			if (!equals(oldContents.getJavaTypeName(), newContents.getJavaTypeName())) {
+				change.addDetail(label + " type changed from " + oldContents.getJavaTypeName() + " to "
+						+ newContents.getJavaTypeName(), true);
+			}
+			return;
+		}
+		// the type can be renamed as long as the fields are compatible
+		Map<String, FieldInfo> oldFieldMap = new HashMap<String, FieldInfo>();
+		for (FieldInfo field : oldFields) {
+			oldFieldMap.put(field.getFieldName(), field);
+		}
+		Set<String> newFieldNames = new HashSet<String>();
+		for (FieldInfo newField : newFields) {
+			newFieldNames.add(newField.getFieldName());
+			FieldInfo oldField = oldFieldMap.get(newField.getFieldName());
+			if (oldField == null) {
+				change.addDetail(label + " field added: " + newField.getFieldName(), false);
+			} else if (!equals(oldField.getTypeName(), newField.getTypeName())) {
+				change.addDetail(label + " field " + newField.getFieldName() + " type changed from "
+						+ oldField.getTypeName() + " to " + newField.getTypeName(), true);
+			}
+		}
+		for (FieldInfo oldField : oldFields) {
+			if (!newFieldNames.contains(oldField.getFieldName())) {
+				change.addDetail(label + " field removed: " + oldField.getFieldName(), response);
+			}
+		}
+	}
+
+	private static Map<String, ParamInfo> toParamMap(List<ParamInfo> params) {
+		if (params == null || params.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, ParamInfo> paramMap = new HashMap<String, ParamInfo>();
+		for (ParamInfo param : params) {
+			paramMap.put(paramKey(param), param);
+		}
+		return paramMap;
+	}
+
+	private static String paramKey(ParamInfo param) {
+		return param.getRequestKind().name() + ' ' + param.getRequestName();
+	}
+
+	private static String paramLabel(ParamInfo param) {
+		return param.getRequestKind().getDescription().toLowerCase() + " param " + param.getRequestName();
+	}
+
+	private static Set<String> toSet(String[] values) {
+		if (values == null || values.length == 0) {
+			return Collections.emptySet();
+		}
+		return new HashSet<String>(Arrays.asList(values));
+	}
+
+	private static boolean isEmpty(List<?> list) {
+		return (list == null || list.isEmpty());
+	}
+
+	private static boolean equals(String str1, String str2) {
+		if (str1 == null) {
+			return (str2 == null);
+		} else {
+			return str1.equals(str2);
+		}
+	}
+
+	/**
+	 * How the operation changed.
+	 */
+	public static enum ChangeKind {
+		ADDED,
+		REMOVED,
+		CHANGED,
+		// end
+		;
+	}
+
+	/**
+	 * An end-point with one of its HTTP methods. The key is used to match the operations of the two maps.
+	 */
+	private static class Operation {
+		final EndPoint endPoint;
+		final String httpMethod;
+		final String key;
+		final String handlerName;
+
+		public Operation(EndPoint endPoint, String httpMethod) {
+			this.endPoint = endPoint;
+			this.httpMethod = httpMethod;
+			StringBuilder sb = new StringBuilder();
+			if (endPoint.getPath() != null) {
+				sb.append(endPoint.getPath());
+			}
+			sb.append(' ').append(httpMethod);
+			// the params narrowing is part of the key since it routes the request to different methods
+			String[] params = endPoint.getMethodInfo().getParams();
+			if (params != null && params.length > 0) {
+				String[] sortedParams = params.clone();
+				Arrays.sort(sortedParams);
+				for (String param : sortedParams) {
+					sb.append(' ').append(param);
+				}
+			}
+			this.key = sb.toString();
+			this.handlerName = endPoint.getClassInfo().getTypeName() + '.' + endPoint.getMethodInfo().getUniqueName();
+		}
+	}
+
+	/**
+	 * An operation that was added, removed, or changed along with the details of the change.
+	 */
+	public static class OperationChange {
+
+		private final ChangeKind kind;
+		private final String path;
+		private final String httpMethod;
+		private final String[] params;
+		private final EndPoint oldEndPoint;
+		private final EndPoint newEndPoint;
+		private final List<ChangeDetail> details = new ArrayList<ChangeDetail>();
+		private boolean breaking;
+
+		private OperationChange(ChangeKind kind, Operation operation, Operation newOperation) {
+			this.kind = kind;
+			this.path = operation.endPoint.getPath();
+			this.httpMethod = operation.httpMethod;
+			this.params = operation.endPoint.getMethodInfo().getParams();
+			if (kind == ChangeKind.ADDED) {
+				this.oldEndPoint = null;
+				this.newEndPoint = operation.endPoint;
+			} else {
+				this.oldEndPoint = operation.endPoint;
+				this.newEndPoint = (newOperation == null ? null : newOperation.endPoint);
+			}
+		}
+
+		private void addDetail(String description, boolean breakingDetail) {
+			details.add(new ChangeDetail(description, breakingDetail));
+			if (breakingDetail) {
+				breaking = true;
+			}
+		}
+
+		public ChangeKind getKind() {
+			return kind;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public String getHttpMethod() {
+			return httpMethod;
+		}
+
+		/**
+		 * Request parameter narrowing of the operation.
+		 */
+		public String[] getParams() {
+			return params;
+		}
+
+		/**
+		 * End-point from the old map or null if the operation was added.
+		 */
+		public EndPoint getOldEndPoint() {
+			return oldEndPoint;
+		}
+
+		/**
+		 * End-point from the new map or null if the operation was removed.
+		 */
+		public EndPoint getNewEndPoint() {
+			return newEndPoint;
+		}
+
+		public List<ChangeDetail> getDetails() {
+			return details;
+		}
+
+		/**
+		 * True if any of the details of the change will break existing clients.
+		 */
+		public boolean isBreaking() {
+			return breaking;
+		}
+	}
+
+	/**
+	 * One difference in an operation.
+	 */
+	public static class ChangeDetail {
+
+		private final String description;
+		private final boolean breaking;
+
+		public ChangeDetail(String description, boolean breaking) {
+			this.description = description;
+			this.breaking = breaking;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public boolean isBreaking() {
+			return breaking;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Merges the end-point maps that were collected independently, for example from different modules or from shards of
+ * the packages on different build nodes, into one map. Classes and methods that appear in more than one of the maps are
+ * shared so the writers only see one of each and duplicate end-points are removed. The resulting map is ordered by path
+ * and the end-points of each path are ordered by class, method, and path so the output does not depend on the order
+ * that the maps were merged.
+ *
+ * @author graywatson
+ */
+public class EndPointMerger {
+
+	private static final Comparator<String> NULL_FIRST_COMPARATOR = new Comparator<String>() {
+		@Override
+		public int compare(String str1, String str2) {
+			if (str1 == null) {
+				return (str2 == null ? 0 : -1);
+			} else if (str2 == null) {
+				return 1;
+			} else {
+				return str1.compareTo(str2);
+			}
+		}
+	};
+
+	private static final Comparator<EndPoint> END_POINT_COMPARATOR = new Comparator<EndPoint>() {
+		@Override
+		public int compare(EndPoint endPoint1, EndPoint endPoint2) {
+			int result = NULL_FIRST_COMPARATOR.compare(endPoint1.getClassInfo().getTypeName(),
+					endPoint2.getClassInfo().getTypeName());
+			if (result == 0) {
+				result = NULL_FIRST_COMPARATOR.compare(endPoint1.getMethodInfo().getUniqueName(),
+						endPoint2.getMethodInfo().getUniqueName());
+			}
+			if (result == 0) {
+				result = NULL_FIRST_COMPARATOR.compare(endPoint1.getPath(), endPoint2.getPath());
+			}
+			return result;
+		}
+	};
+
+	private final Map<String, List<EndPoint>> pathMap = new HashMap<String, List<EndPoint>>();
+	private final Map<String, ClassInfo> classInfoMap = new HashMap<String, ClassInfo>();
+	private final Map<String, MethodInfo> methodInfoMap = new HashMap<String, MethodInfo>();
+	private final Set<String> endPointKeySet = new HashSet<String>();
+	private int duplicateCount;
+
+	/**
+	 * Merge in an end-point map.
+	 */
+	public void merge(Map<String, List<EndPoint>> endPointMap) {
+		for (Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+			for (EndPoint endPoint : entry.getValue()) {
+				addEndPoint(entry.getKey(), endPoint);
+			}
+		}
+	}
+
+	/**
+	 * Return the merged map ordered by path with null first.
+	 */
+	public Map<String, List<EndPoint>> getEndPointMap() {
+		List<String> paths = new ArrayList<String>(pathMap.keySet());
+		Collections.sort(paths, NULL_FIRST_COMPARATOR);
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>(paths.size() * 2);
+		for (String path : paths) {
+			List<EndPoint> endPoints = pathMap.get(path);
+			Collections.sort(endPoints, END_POINT_COMPARATOR);
+			endPointMap.put(path, endPoints);
+		}
+		return endPointMap;
+	}
+
+	/**
+	 * Number of end-points that were dropped because they were in more than one map.
+	 */
+	public int getDuplicateCount() {
+		return duplicateCount;
+	}
+
+	private void addEndPoint(String key, EndPoint endPoint) {
+		ClassInfo classInfo = endPoint.getClassInfo();
+		String typeName = classInfo.getTypeName();
+		MethodInfo methodInfo = endPoint.getMethodInfo();
+		String methodKey = typeName + '.' + methodInfo.getUniqueName();
+		if (!endPointKeySet.add(key + ' ' + methodKey)) {
+			duplicateCount++;
+			return;
+		}
+
+		// the first class and method info wins so they are shared by all of the end-points
+		ClassInfo existingClassInfo = classInfoMap.get(typeName);
+		if (existingClassInfo == null) {
+			classInfoMap.put(typeName, classInfo);
+		} else {
+			classInfo = existingClassInfo;
+		}
+		MethodInfo existingMethodInfo = methodInfoMap.get(methodKey);
+		if (existingMethodInfo == null) {
+			methodInfoMap.put(methodKey, methodInfo);
+		} else {
+			methodInfo = existingMethodInfo;
+		}
+
+		List<EndPoint> endPoints = pathMap.get(key);
+		if (endPoints == null) {
+			endPoints = new ArrayList<EndPoint>();
+			pathMap.put(key, endPoints);
+		}
+		if (classInfo == endPoint.getClassInfo() && methodInfo == endPoint.getMethodInfo()) {
+			endPoints.add(endPoint);
+		} else {
+			endPoints.add(new EndPoint(endPoint.getPath(), classInfo, methodInfo));
+		}
+	}
+}
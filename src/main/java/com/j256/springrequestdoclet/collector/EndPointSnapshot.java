@@ -0,0 +1,479 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.j256.springrequestdoclet.collector.ParamInfo.ParamRequestKind;
+
+/**
+ * Saves and loads the collected end-point map as a compact binary snapshot so the writers can be run again without
+ * having to run javadoc. All of the strings are written once in a table at the front of the file and then referenced by
+ * index and the class and method information shared between end-points is only written once.
+ *
+ * <p>
+ * The format is the magic number, the version, the string table, the class table, the method table, and then the
+ * paths with their end-points. Numbers are written as variable length integers. A string, array, or list reference of
+ * 0 means null.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class EndPointSnapshot {
+
+	private static final int MAGIC = 0x53524453; // SRDS
+	private static final int VERSION = 2;
+	private static final int BUFFER_SIZE = 65536;
+
+	/**
+	 * Write the end-point map to the snapshot file.
+	 */
+	public static void write(Map<String, List<EndPoint>> endPointMap, File file) throws IOException {
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+		try {
+			write(endPointMap, output);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Write the end-point map to the output stream.
+	 */
+	public static void write(Map<String, List<EndPoint>> endPointMap, OutputStream output) throws IOException {
+		new SnapshotWriter(endPointMap).write(new DataOutputStream(output));
+	}
+
+	/**
+	 * Read in the end-point map from the snapshot file.
+	 */
+	public static Map<String, List<EndPoint>> read(File file) throws IOException {
+		InputStream input = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+		try {
+			return read(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Read in the end-point map from the input stream.
+	 */
+	public static Map<String, List<EndPoint>> read(InputStream input) throws IOException {
+		return new SnapshotReader().read(new DataInputStream(input));
+	}
+
+	/**
+	 * Writes out the snapshot.
+	 */
+	private static class SnapshotWriter {
+
+		private final Map<String, List<EndPoint>> endPointMap;
+		private final Map<String, Integer> stringIndexMap = new LinkedHashMap<String, Integer>();
+		private final Map<ClassInfo, Integer> classIndexMap = new IdentityHashMap<ClassInfo, Integer>();
+		private final List<ClassInfo> classInfos = new ArrayList<ClassInfo>();
+		private final Map<MethodInfo, Integer> methodIndexMap = new IdentityHashMap<MethodInfo, Integer>();
+		private final List<MethodInfo> methodInfos = new ArrayList<MethodInfo>();
+
+		public SnapshotWriter(Map<String, List<EndPoint>> endPointMap) {
+			this.endPointMap = endPointMap;
+		}
+
+		public void write(DataOutputStream output) throws IOException {
+			collectTables();
+
+			output.writeInt(MAGIC);
+			writeNumber(output, VERSION);
+
+			writeNumber(output, stringIndexMap.size());
+			for (String str : stringIndexMap.keySet()) {
+				byte[] bytes = str.getBytes("UTF-8");
+				writeNumber(output, bytes.length);
+				output.write(bytes);
+			}
+
+			writeNumber(output, classInfos.size());
+			for (ClassInfo classInfo : classInfos) {
+				writeString(output, classInfo.getClassName());
+				writeString(output, classInfo.getTypeName());
+				writeString(output, classInfo.getJavaDoc());
+				writeString(output, classInfo.getJavaDocFirstSentence());
+				writeStrings(output, classInfo.getPaths());
+			}
+
+			writeNumber(output, methodInfos.size());
+			for (MethodInfo methodInfo : methodInfos) {
+				writeMethodInfo(output, methodInfo);
+			}
+
+			writeNumber(output, endPointMap.size());
+			for (Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+				writeString(output, entry.getKey());
+				writeNumber(output, entry.getValue().size());
+				for (EndPoint endPoint : entry.getValue()) {
+					writeString(output, endPoint.getPath());
+					writeNumber(output, classIndexMap.get(endPoint.getClassInfo()));
+					writeNumber(output, methodIndexMap.get(endPoint.getMethodInfo()));
+				}
+			}
+			output.flush();
+		}
+
+		/**
+		 * Make our first pass through the map building the string, class, and method tables.
+		 */
+		private void collectTables() {
+			for (Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+				addString(entry.getKey());
+				for (EndPoint endPoint : entry.getValue()) {
+					addString(endPoint.getPath());
+					ClassInfo classInfo = endPoint.getClassInfo();
+					if (!classIndexMap.containsKey(classInfo)) {
+						classIndexMap.put(classInfo, classInfos.size());
+						classInfos.add(classInfo);
+						addString(classInfo.getClassName());
+						addString(classInfo.getTypeName());
+						addString(classInfo.getJavaDoc());
+						addString(classInfo.getJavaDocFirstSentence());
+						addStrings(classInfo.getPaths());
+					}
+					MethodInfo methodInfo = endPoint.getMethodInfo();
+					if (!methodIndexMap.containsKey(methodInfo)) {
+						methodIndexMap.put(methodInfo, methodInfos.size());
+						methodInfos.add(methodInfo);
+						addMethodStrings(methodInfo);
+					}
+				}
+			}
+		}
+
+		private void addMethodStrings(MethodInfo methodInfo) {
+			addString(methodInfo.getJavaMethodName());
+			addString(methodInfo.getUniqueName());
+			addString(methodInfo.getJavaDoc());
+			addStrings(methodInfo.getPaths());
+			addStrings(methodInfo.getParams());
+			addStrings(methodInfo.getHeaders());
+			addStrings(methodInfo.getConsumes());
+			addStrings(methodInfo.getProduces());
+			if (methodInfo.getParamInfos() != null) {
+				for (ParamInfo paramInfo : methodInfo.getParamInfos()) {
+					addString(paramInfo.getJavaParamName());
+					addString(paramInfo.getJavaTypeName());
+					addString(paramInfo.getRequestName());
+					addString(paramInfo.getDefaultValue());
+					addString(paramInfo.getJavaDoc());
+				}
+			}
+			addContentsStrings(methodInfo.getRequestInfo());
+			addContentsStrings(methodInfo.getResponseInfo());
+		}
+
+		private void addContentsStrings(ContentsInfo contentsInfo) {
+			if (contentsInfo == null) {
+				return;
+			}
+			addString(contentsInfo.getJavaParamName());
+			addString(contentsInfo.getJavaTypeName());
+			addString(contentsInfo.getQualifiedTypeName());
+			addString(contentsInfo.getJavaDoc());
+			if (contentsInfo.getFieldInfos() != null) {
+				for (FieldInfo fieldInfo : contentsInfo.getFieldInfos()) {
+					addString(fieldInfo.getFieldName());
+					addString(fieldInfo.getTypeName());
+					addString(fieldInfo.getJavaDoc());
+				}
+			}
+		}
+
+		private void addStrings(String[] strs) {
+			if (strs != null) {
+				for (String str : strs) {
+					addString(str);
+				}
+			}
+		}
+
+		private void addString(String str) {
+			if (str != null && !stringIndexMap.containsKey(str)) {
+				stringIndexMap.put(str, stringIndexMap.size());
+			}
+		}
+
+		private void writeMethodInfo(DataOutputStream output, MethodInfo methodInfo) throws IOException {
+			writeString(output, methodInfo.getJavaMethodName());
+			writeString(output, methodInfo.getUniqueName());
+			writeString(output, methodInfo.getJavaDoc());
+			writeNumber(output, methodInfo.getJavaDocFirstSentenceLength() + 1);
+			writeStrings(output, methodInfo.getPaths());
+			writeNumber(output, methodInfo.getHttpMethodMask());
+			writeStrings(output, methodInfo.getParams());
+			writeStrings(output, methodInfo.getHeaders());
+			writeStrings(output, methodInfo.getConsumes());
+			writeStrings(output, methodInfo.getProduces());
+			List<ParamInfo> paramInfos = methodInfo.getParamInfos();
+			if (paramInfos == null) {
+				writeNumber(output, 0);
+			} else {
+				writeNumber(output, paramInfos.size() + 1);
+				for (ParamInfo paramInfo : paramInfos) {
+					writeString(output, paramInfo.getJavaParamName());
+					writeString(output, paramInfo.getJavaTypeName());
+					writeNumber(output, paramInfo.getRequestKind().ordinal());
+					writeString(output, paramInfo.getRequestName());
+					output.writeBoolean(paramInfo.isRequired());
+					writeString(output, paramInfo.getDefaultValue());
+					writeString(output, paramInfo.getJavaDoc());
+				}
+			}
+			writeContentsInfo(output, methodInfo.getRequestInfo());
+			writeContentsInfo(output, methodInfo.getResponseInfo());
+		}
+
+		private void writeContentsInfo(DataOutputStream output, ContentsInfo contentsInfo) throws IOException {
+			if (contentsInfo == null) {
+				output.writeBoolean(false);
+				return;
+			}
+			output.writeBoolean(true);
+			writeString(output, contentsInfo.getJavaParamName());
+			writeString(output, contentsInfo.getJavaTypeName());
+			writeString(output, contentsInfo.getQualifiedTypeName());
+			writeString(output, contentsInfo.getJavaDoc());
+			List<FieldInfo> fieldInfos = contentsInfo.getFieldInfos();
+			if (fieldInfos == null) {
+				writeNumber(output, 0);
+			} else {
+				writeNumber(output, fieldInfos.size() + 1);
+				for (FieldInfo fieldInfo : fieldInfos) {
+					writeString(output, fieldInfo.getFieldName());
+					writeString(output, fieldInfo.getTypeName());
+					writeString(output, fieldInfo.getJavaDoc());
+				}
+			}
+		}
+
+		private void writeStrings(DataOutputStream output, String[] strs) throws IOException {
+			if (strs == null) {
+				writeNumber(output, 0);
+				return;
+			}
+			writeNumber(output, strs.length + 1);
+			for (String str : strs) {
+				writeString(output, str);
+			}
+		}
+
+		private void writeString(DataOutputStream output, String str) throws IOException {
+			if (str == null) {
+				writeNumber(output, 0);
+			} else {
+				writeNumber(output, stringIndexMap.get(str) + 1);
+			}
+		}
+	}
+
+	/**
+	 * Reads in the snapshot.
+	 */
+	private static class SnapshotReader {
+
+		private static final ParamRequestKind[] REQUEST_KINDS = ParamRequestKind.values();
+
+		private String[] strings;
+
+		public Map<String, List<EndPoint>> read(DataInputStream input) throws IOException {
+			if (input.readInt() != MAGIC) {
+				throw new IOException("Not an end-point snapshot file");
+			}
+			int version = readNumber(input);
+			if (version != VERSION) {
+				throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+			}
+
+			strings = new String[readNumber(input)];
+			byte[] buffer = new byte[256];
+			for (int i = 0; i < strings.length; i++) {
+				int length = readNumber(input);
+				if (length > buffer.length) {
+					buffer = new byte[length];
+				}
+				input.readFully(buffer, 0, length);
+				strings[i] = new String(buffer, 0, length, "UTF-8");
+			}
+
+			ClassInfo[] classInfos = new ClassInfo[readNumber(input)];
+			for (int i = 0; i < classInfos.length; i++) {
+				classInfos[i] = new ClassInfo(readString(input), readString(input), readString(input),
+						readString(input), readStrings(input));
+			}
+
+			MethodInfo[] methodInfos = new MethodInfo[readNumber(input)];
+			for (int i = 0; i < methodInfos.length; i++) {
+				methodInfos[i] = readMethodInfo(input);
+			}
+
+			int pathCount = readNumber(input);
+			Map<String, List<EndPoint>> endPointMap = new HashMap<String, List<EndPoint>>(pathCount * 2);
+			for (int i = 0; i < pathCount; i++) {
+				String key = readString(input);
+				int endPointCount = readNumber(input);
+				List<EndPoint> endPoints = new ArrayList<EndPoint>(endPointCount);
+				for (int j = 0; j < endPointCount; j++) {
+					String path = readString(input);
+					ClassInfo classInfo = classInfos[readIndex(input, classInfos.length)];
+					MethodInfo methodInfo = methodInfos[readIndex(input, methodInfos.length)];
+					endPoints.add(new EndPoint(path, classInfo, methodInfo));
+				}
+				endPointMap.put(key, endPoints);
+			}
+			return endPointMap;
+		}
+
+		private MethodInfo readMethodInfo(DataInputStream input) throws IOException {
+			String javaMethodName = readString(input);
+			String uniqueName = readString(input);
+			String javaDoc = readString(input);
+			int javaDocFirstSentenceLength = readNumber(input) - 1;
+			String[] paths = readStrings(input);
+			int httpMethodMask = readNumber(input);
+			String[] params = readStrings(input);
+			String[] headers = readStrings(input);
+			String[] consumes = readStrings(input);
+			String[] produces = readStrings(input);
+			List<ParamInfo> paramInfos = null;
+			int paramCount = readNumber(input);
+			if (paramCount > 0) {
+				paramInfos = new ArrayList<ParamInfo>(paramCount - 1);
+				for (int i = 1; i < paramCount; i++) {
+					paramInfos.add(readParamInfo(input));
+				}
+			}
+			ContentsInfo requestInfo = readContentsInfo(input);
+			ContentsInfo responseInfo = readContentsInfo(input);
+			return new MethodInfo(javaMethodName, uniqueName, javaDoc, javaDocFirstSentenceLength, paths,
+					httpMethodMask, params, headers, consumes, produces, paramInfos, requestInfo, responseInfo);
+		}
+
+		private ParamInfo readParamInfo(DataInputStream input) throws IOException {
+			String javaParamName = readString(input);
+			String javaTypeName = readString(input);
+			ParamRequestKind kind = REQUEST_KINDS[readIndex(input, REQUEST_KINDS.length)];
+			String requestName = readString(input);
+			boolean required = input.readBoolean();
+			String defaultValue = readString(input);
+			String javaDoc = readString(input);
+			switch (kind) {
+				case PATH:
+					return ParamInfo.fromPathVariable(javaParamName, javaTypeName, requestName, required,
+							defaultValue, javaDoc);
+				case HEADER:
+					return ParamInfo.fromRequestHeader(javaParamName, javaTypeName, requestName, required,
+							defaultValue, javaDoc);
+				case QUERY:
+				default:
+					return ParamInfo.fromRequestParam(javaParamName, javaTypeName, requestName, required,
+							defaultValue, javaDoc);
+			}
+		}
+
+		private ContentsInfo readContentsInfo(DataInputStream input) throws IOException {
+			if (!input.readBoolean()) {
+				return null;
+			}
+			String javaParamName = readString(input);
+			String javaTypeName = readString(input);
+			String qualifiedTypeName = readString(input);
+			String javaDoc = readString(input);
+			List<FieldInfo> fieldInfos = null;
+			int fieldCount = readNumber(input);
+			if (fieldCount > 0) {
+				fieldInfos = new ArrayList<FieldInfo>(fieldCount - 1);
+				for (int i = 1; i < fieldCount; i++) {
+					fieldInfos.add(new FieldInfo(readString(input), readString(input), readString(input)));
+				}
+			}
+			if (javaParamName == null) {
+				return ContentsInfo.fromResponse(javaTypeName, qualifiedTypeName, javaDoc, fieldInfos);
+			} else {
+				return ContentsInfo.fromRequestBody(javaParamName, javaTypeName, qualifiedTypeName, javaDoc,
+						fieldInfos);
+			}
+		}
+
+		private String[] readStrings(DataInputStream input) throws IOException {
+			int length = readNumber(input);
+			if (length == 0) {
+				return null;
+			} else if (length == 1) {
+				return StringPool.EMPTY_STRING_ARRAY;
+			}
+			String[] strs = new String[length - 1];
+			for (int i = 0; i < strs.length; i++) {
+				strs[i] = readString(input);
+			}
+			return strs;
+		}
+
+		private String readString(DataInputStream input) throws IOException {
+			int index = readNumber(input);
+			if (index == 0) {
+				return null;
+			} else {
+				return strings[checkIndex(index - 1, strings.length)];
+			}
+		}
+
+		private int readIndex(DataInputStream input, int length) throws IOException {
+			return checkIndex(readNumber(input), length);
+		}
+
+		private int checkIndex(int index, int length) throws IOException {
+			if (index < 0 || index >= length) {
+				throw new IOException("Snapshot index " + index + " is out of range, file may be corrupted");
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Write a non-negative number using 7 bits per byte with the high bit set if there are more bytes.
+	 */
+	static void writeNumber(DataOutputStream output, int num) throws IOException {
+		while ((num & ~0x7F) != 0) {
+			output.write((num & 0x7F) | 0x80);
+			num >>>= 7;
+		}
+		output.write(num);
+	}
+
+	static int readNumber(DataInputStream input) throws IOException {
+		int num = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = input.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of snapshot");
+			}
+			num |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return num;
+			}
+		}
+		throw new IOException("Invalid number in snapshot, file may be corrupted");
+	}
+}
@@ -0,0 +1,624 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.j256.springrequestdoclet.collector.ParamInfo.ParamRequestKind;
+
+/**
+ * Bounded memory store of the collected end-points for code bases whose end-points and javadocs don't fit in the heap.
+ * The classes and methods are appended as records to a temporary file and only the paths and the offsets of the
+ * method records are kept in memory. The end-points are read back from the memory mapped file by the map returned by
+ * {@link #getEndPointMap()} which decodes the end-points of a path when they are asked for. The paths are iterated in
+ * the order they were added so the file is mostly read sequentially. This only bounds the memory during collection
+ * since the writers, which group all of the end-points by class, method, and type, decode them all back onto the heap.
+ *
+ * <p>
+ * A decoded class or method is handed out again for as long as something still references it so the writers, which
+ * group the end-points by their classes and methods, see the same objects for the same method on different paths.
+ * </p>
+ *
+ * <p>
+ * A class record is the type name, class name, javadoc, javadoc first sentence, and paths. A method record is the
+ * offset of its class record followed by the same method fields as the {@link EndPointSnapshot}. Numbers are written as
+ * variable length integers and strings as their UTF-8 length plus 1, with 0 meaning null, and then their bytes.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class EndPointStore implements Closeable {
+
+	private static final int BUFFER_SIZE = 65536;
+	/** the file is mapped in regions since a mapped buffer has to be smaller than 2gb */
+	private static final long MAP_REGION_SIZE = 1L << 30;
+	private static final ParamRequestKind[] REQUEST_KINDS = ParamRequestKind.values();
+
+	private final File file;
+	private final DataOutputStream output;
+	private long fileSize;
+	private int maxRecordSize;
+	/** path -> offsets of the method records of its end-points in the order that they were added */
+	private final Map<String, long[]> pathOffsetsMap = new LinkedHashMap<String, long[]>();
+	private final Map<String, List<EndPoint>> endPointMap = new EndPointMap();
+	private ClassInfo lastClassInfo;
+	private long lastClassOffset;
+	private MethodInfo lastMethodInfo;
+	private long lastMethodOffset;
+	private MappedByteBuffer[] regions = new MappedByteBuffer[0];
+	private long mappedSize;
+	/** offset -> the decoded classes and methods that are still referenced */
+	private final Map<Long, DecodedReference<ClassInfo>> classCache = new HashMap<Long, DecodedReference<ClassInfo>>();
+	private final Map<Long, DecodedReference<MethodInfo>> methodCache =
+			new HashMap<Long, DecodedReference<MethodInfo>>();
+	private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<Object>();
+
+	/**
+	 * Create a store in a temporary file in the directory or in the system temporary directory if null.
+	 */
+	public EndPointStore(File dir) throws IOException {
+		this.file = File.createTempFile("spring-request-doclet", ".endpoints", dir);
+		this.file.deleteOnExit();
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+	}
+
+	/**
+	 * Add an end-point. The class and method records are only written once if the end-points of a method are added one
+	 * after the other which is how the collector adds them.
+	 */
+	public void add(String path, ClassInfo classInfo, MethodInfo methodInfo) throws IOException {
+		if (methodInfo != lastMethodInfo) {
+			if (classInfo != lastClassInfo) {
+				lastClassOffset = writeClassInfo(classInfo);
+				lastClassInfo = classInfo;
+			}
+			lastMethodOffset = writeMethodInfo(lastClassOffset, methodInfo);
+			lastMethodInfo = methodInfo;
+		}
+		addOffset(path, lastMethodOffset);
+	}
+
+	/**
+	 * Add all of the end-points from the map writing each class and method once.
+	 */
+	public void addAll(Map<String, List<EndPoint>> endPointMap) throws IOException {
+		Map<ClassInfo, Long> classOffsetMap = new IdentityHashMap<ClassInfo, Long>();
+		Map<MethodInfo, Long> methodOffsetMap = new IdentityHashMap<MethodInfo, Long>();
+		for (Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+			for (EndPoint endPoint : entry.getValue()) {
+				Long methodOffset = methodOffsetMap.get(endPoint.getMethodInfo());
+				if (methodOffset == null) {
+					Long classOffset = classOffsetMap.get(endPoint.getClassInfo());
+					if (classOffset == null) {
+						classOffset = writeClassInfo(endPoint.getClassInfo());
+						classOffsetMap.put(endPoint.getClassInfo(), classOffset);
+					}
+					methodOffset = writeMethodInfo(classOffset, endPoint.getMethodInfo());
+					methodOffsetMap.put(endPoint.getMethodInfo(), methodOffset);
+				}
+				addOffset(entry.getKey(), methodOffset);
+			}
+		}
+	}
+
+	/**
+	 * Remove the end-points of the class. Its records stay in the file but are no longer referenced.
+	 *
+	 * @return True if the class had any end-points.
+	 */
+	public boolean removeClass(String qualifiedTypeName) throws IOException {
+		boolean removed = false;
+		Iterator<Entry<String, long[]>> iterator = pathOffsetsMap.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, long[]> entry = iterator.next();
+			long[] offsets = entry.getValue();
+			int count = 0;
+			for (long offset : offsets) {
+				if (!qualifiedTypeName.equals(readMethodClassInfo(offset).getTypeName())) {
+					offsets[count++] = offset;
+				}
+			}
+			if (count == offsets.length) {
+				continue;
+			}
+			removed = true;
+			if (count == 0) {
+				iterator.remove();
+			} else {
+				long[] newOffsets = new long[count];
+				System.arraycopy(offsets, 0, newOffsets, 0, count);
+				entry.setValue(newOffsets);
+			}
+		}
+		// the class may be added again after it has changed
+		lastClassInfo = null;
+		lastMethodInfo = null;
+		return removed;
+	}
+
+	/**
+	 * Return a map view of the end-points in the store which decodes the end-points of each path as they are asked
+	 * for. The view can't be modified but reflects later changes to the store.
+	 */
+	public Map<String, List<EndPoint>> getEndPointMap() {
+		return endPointMap;
+	}
+
+	/**
+	 * Size of the store file in bytes.
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			output.close();
+		} finally {
+			regions = new MappedByteBuffer[0];
+			mappedSize = 0;
+			classCache.clear();
+			methodCache.clear();
+			file.delete();
+		}
+	}
+
+	private void addOffset(String path, long offset) {
+		long[] offsets = pathOffsetsMap.get(path);
+		if (offsets == null) {
+			offsets = new long[] { offset };
+		} else {
+			long[] newOffsets = new long[offsets.length + 1];
+			System.arraycopy(offsets, 0, newOffsets, 0, offsets.length);
+			newOffsets[offsets.length] = offset;
+			offsets = newOffsets;
+		}
+		pathOffsetsMap.put(path, offsets);
+	}
+
+	private long writeClassInfo(ClassInfo classInfo) throws IOException {
+		long offset = fileSize;
+		int startSize = output.size();
+		writeString(classInfo.getTypeName());
+		writeString(classInfo.getClassName());
+		writeString(classInfo.getJavaDoc());
+		writeString(classInfo.getJavaDocFirstSentence());
+		writeStrings(classInfo.getPaths());
+		recordWritten(startSize);
+		return offset;
+	}
+
+	private long writeMethodInfo(long classOffset, MethodInfo methodInfo) throws IOException {
+		long offset = fileSize;
+		int startSize = output.size();
+		writeLong(classOffset);
+		writeString(methodInfo.getJavaMethodName());
+		writeString(methodInfo.getUniqueName());
+		writeString(methodInfo.getJavaDoc());
+		writeNumber(methodInfo.getJavaDocFirstSentenceLength() + 1);
+		writeStrings(methodInfo.getPaths());
+		writeNumber(methodInfo.getHttpMethodMask());
+		writeStrings(methodInfo.getParams());
+		writeStrings(methodInfo.getHeaders());
+		writeStrings(methodInfo.getConsumes());
+		writeStrings(methodInfo.getProduces());
+		List<ParamInfo> paramInfos = methodInfo.getParamInfos();
+		if (paramInfos == null) {
+			writeNumber(0);
+		} else {
+			writeNumber(paramInfos.size() + 1);
+			for (ParamInfo paramInfo : paramInfos) {
+				writeString(paramInfo.getJavaParamName());
+				writeString(paramInfo.getJavaTypeName());
+				writeNumber(paramInfo.getRequestKind().ordinal());
+				writeString(paramInfo.getRequestName());
+				output.writeBoolean(paramInfo.isRequired());
+				writeString(paramInfo.getDefaultValue());
+				writeString(paramInfo.getJavaDoc());
+			}
+		}
+		writeContentsInfo(methodInfo.getRequestInfo());
+		writeContentsInfo(methodInfo.getResponseInfo());
+		recordWritten(startSize);
+		return offset;
+	}
+
+	private void writeContentsInfo(ContentsInfo contentsInfo) throws IOException {
+		if (contentsInfo == null) {
+			output.writeBoolean(false);
+			return;
+		}
+		output.writeBoolean(true);
+		writeString(contentsInfo.getJavaParamName());
+		writeString(contentsInfo.getJavaTypeName());
+		writeString(contentsInfo.getQualifiedTypeName());
+		writeString(contentsInfo.getJavaDoc());
+		List<FieldInfo> fieldInfos = contentsInfo.getFieldInfos();
+		if (fieldInfos == null) {
+			writeNumber(0);
+		} else {
+			writeNumber(fieldInfos.size() + 1);
+			for (FieldInfo fieldInfo : fieldInfos) {
+				writeString(fieldInfo.getFieldName());
+				writeString(fieldInfo.getTypeName());
+				writeString(fieldInfo.getJavaDoc());
+			}
+		}
+	}
+
+	/**
+	 * Keep track of the file size and the largest record. The size of the data stream is an int that wraps so we only
+	 * use the difference.
+	 */
+	private void recordWritten(int startSize) {
+		int recordSize = output.size() - startSize;
+		fileSize += recordSize;
+		if (recordSize > maxRecordSize) {
+			maxRecordSize = recordSize;
+		}
+	}
+
+	private void writeStrings(String[] strs) throws IOException {
+		if (strs == null) {
+			writeNumber(0);
+			return;
+		}
+		writeNumber(strs.length + 1);
+		for (String str : strs) {
+			writeString(str);
+		}
+	}
+
+	private void writeString(String str) throws IOException {
+		if (str == null) {
+			writeNumber(0);
+			return;
+		}
+		byte[] bytes = str.getBytes("UTF-8");
+		writeNumber(bytes.length + 1);
+		output.write(bytes);
+	}
+
+	private void writeNumber(int num) throws IOException {
+		EndPointSnapshot.writeNumber(output, num);
+	}
+
+	private void writeLong(long num) throws IOException {
+		while ((num & ~0x7FL) != 0) {
+			output.write((int) (num & 0x7F) | 0x80);
+			num >>>= 7;
+		}
+		output.write((int) num);
+	}
+
+	/**
+	 * Read the end-points of a path. This is synchronized because the caches and the mapped regions are shared by the
+	 * writers which may be reading the view at the same time.
+	 */
+	private synchronized List<EndPoint> readEndPoints(String path, long[] offsets) {
+		List<EndPoint> endPoints = new ArrayList<EndPoint>(offsets.length);
+		try {
+			for (long offset : offsets) {
+				MethodInfo methodInfo = readMethodInfo(offset);
+				ClassInfo classInfo = readMethodClassInfo(offset);
+				endPoints.add(new EndPoint(path, classInfo, methodInfo));
+			}
+		} catch (IOException ioe) {
+			// the map interface doesn't let us throw so this gets wrapped
+			throw new IllegalStateException("Could not read end-points from store " + file, ioe);
+		}
+		return Collections.unmodifiableList(endPoints);
+	}
+
+	private MethodInfo readMethodInfo(long offset) throws IOException {
+		MethodInfo methodInfo = getCached(methodCache, offset);
+		if (methodInfo != null) {
+			return methodInfo;
+		}
+		ByteBuffer buffer = recordBuffer(offset);
+		readLong(buffer);
+		String javaMethodName = readString(buffer);
+		String uniqueName = readString(buffer);
+		String javaDoc = readString(buffer);
+		int javaDocFirstSentenceLength = readNumber(buffer) - 1;
+		String[] paths = readStrings(buffer);
+		int httpMethodMask = readNumber(buffer);
+		String[] params = readStrings(buffer);
+		String[] headers = readStrings(buffer);
+		String[] consumes = readStrings(buffer);
+		String[] produces = readStrings(buffer);
+		List<ParamInfo> paramInfos = null;
+		int paramCount = readNumber(buffer);
+		if (paramCount > 0) {
+			paramInfos = new ArrayList<ParamInfo>(paramCount - 1);
+			for (int i = 1; i < paramCount; i++) {
+				paramInfos.add(readParamInfo(buffer));
+			}
+		}
+		ContentsInfo requestInfo = readContentsInfo(buffer);
+		ContentsInfo responseInfo = readContentsInfo(buffer);
+		methodInfo = new MethodInfo(javaMethodName, uniqueName, javaDoc, javaDocFirstSentenceLength, paths,
+				httpMethodMask, params, headers, consumes, produces, paramInfos, requestInfo, responseInfo);
+		methodCache.put(offset, new DecodedReference<MethodInfo>(offset, methodInfo, referenceQueue));
+		return methodInfo;
+	}
+
+	/**
+	 * Read the class of the method record at the offset.
+	 */
+	private ClassInfo readMethodClassInfo(long methodOffset) throws IOException {
+		long offset = readLong(recordBuffer(methodOffset));
+		ClassInfo classInfo = getCached(classCache, offset);
+		if (classInfo != null) {
+			return classInfo;
+		}
+		ByteBuffer buffer = recordBuffer(offset);
+		String typeName = readString(buffer);
+		String className = readString(buffer);
+		String javaDoc = readString(buffer);
+		String javaDocFirstSentence = readString(buffer);
+		String[] paths = readStrings(buffer);
+		classInfo = new ClassInfo(className, typeName, javaDoc, javaDocFirstSentence, paths);
+		classCache.put(offset, new DecodedReference<ClassInfo>(offset, classInfo, referenceQueue));
+		return classInfo;
+	}
+
+	private ParamInfo readParamInfo(ByteBuffer buffer) throws IOException {
+		String javaParamName = readString(buffer);
+		String javaTypeName = readString(buffer);
+		int kindIndex = readNumber(buffer);
+		if (kindIndex >= REQUEST_KINDS.length) {
+			throw new IOException("Invalid param kind " + kindIndex + " in store, file may be corrupted");
+		}
+		ParamRequestKind kind = REQUEST_KINDS[kindIndex];
+		String requestName = readString(buffer);
+		boolean required = (buffer.get() != 0);
+		String defaultValue = readString(buffer);
+		String javaDoc = readString(buffer);
+		switch (kind) {
+			case PATH:
+				return ParamInfo.fromPathVariable(javaParamName, javaTypeName, requestName, required, defaultValue,
+						javaDoc);
+			case HEADER:
+				return ParamInfo.fromRequestHeader(javaParamName, javaTypeName, requestName, required, defaultValue,
+						javaDoc);
+			case QUERY:
+			default:
+				return ParamInfo.fromRequestParam(javaParamName, javaTypeName, requestName, required, defaultValue,
+						javaDoc);
+		}
+	}
+
+	private ContentsInfo readContentsInfo(ByteBuffer buffer) throws IOException {
+		if (buffer.get() == 0) {
+			return null;
+		}
+		String javaParamName = readString(buffer);
+		String javaTypeName = readString(buffer);
+		String qualifiedTypeName = readString(buffer);
+		String javaDoc = readString(buffer);
+		List<FieldInfo> fieldInfos = null;
+		int fieldCount = readNumber(buffer);
+		if (fieldCount > 0) {
+			fieldInfos = new ArrayList<FieldInfo>(fieldCount - 1);
+			for (int i = 1; i < fieldCount; i++) {
+				fieldInfos.add(new FieldInfo(readString(buffer), readString(buffer), readString(buffer)));
+			}
+		}
+		if (javaParamName == null) {
+			return ContentsInfo.fromResponse(javaTypeName, qualifiedTypeName, javaDoc, fieldInfos);
+		} else {
+			return ContentsInfo.fromRequestBody(javaParamName, javaTypeName, qualifiedTypeName, javaDoc, fieldInfos);
+		}
+	}
+
+	private String[] readStrings(ByteBuffer buffer) throws IOException {
+		int length = readNumber(buffer);
+		if (length == 0) {
+			return null;
+		} else if (length == 1) {
+			return StringPool.EMPTY_STRING_ARRAY;
+		}
+		String[] strs = new String[length - 1];
+		for (int i = 0; i < strs.length; i++) {
+			strs[i] = readString(buffer);
+		}
+		return strs;
+	}
+
+	private String readString(ByteBuffer buffer) throws IOException {
+		int length = readNumber(buffer);
+		if (length == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length - 1];
+		buffer.get(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	private int readNumber(ByteBuffer buffer) throws IOException {
+		long num = readLong(buffer);
+		if (num > Integer.MAX_VALUE) {
+			throw new IOException("Invalid number in store, file may be corrupted");
+		}
+		return (int) num;
+	}
+
+	private long readLong(ByteBuffer buffer) throws IOException {
+		long num = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = buffer.get() & 0xFF;
+			num |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return num;
+			}
+		}
+		throw new IOException("Invalid number in store, file may be corrupted");
+	}
+
+	/**
+	 * Return a buffer positioned at the record at the offset mapping the file again if it has grown.
+	 */
+	private ByteBuffer recordBuffer(long offset) throws IOException {
+		if (offset >= mappedSize) {
+			mapFile();
+		}
+		int regionIndex = (int) (offset / MAP_REGION_SIZE);
+		ByteBuffer buffer = regions[regionIndex].duplicate();
+		buffer.position((int) (offset % MAP_REGION_SIZE));
+		return buffer;
+	}
+
+	/**
+	 * Map the file in regions that overlap by the size of the largest record so that every record can be read from the
+	 * region that it starts in.
+	 */
+	private void mapFile() throws IOException {
+		output.flush();
+		int regionCount = (int) ((fileSize + MAP_REGION_SIZE - 1) / MAP_REGION_SIZE);
+		MappedByteBuffer[] newRegions = new MappedByteBuffer[regionCount];
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			for (int i = 0; i < regionCount; i++) {
+				long start = i * MAP_REGION_SIZE;
+				long size = Math.min(MAP_REGION_SIZE + maxRecordSize, fileSize - start);
+				newRegions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+			}
+		} finally {
+			// the mappings stay valid after the channel is closed
+			randomAccessFile.close();
+		}
+		regions = newRegions;
+		mappedSize = fileSize;
+	}
+
+	private <T> T getCached(Map<Long, DecodedReference<T>> cache, long offset) {
+		expungeCollected();
+		DecodedReference<T> reference = cache.get(offset);
+		if (reference == null) {
+			return null;
+		} else {
+			return reference.get();
+		}
+	}
+
+	/**
+	 * Remove the cache entries of the classes and methods that have been garbage collected.
+	 */
+	private void expungeCollected() {
+		while (true) {
+			DecodedReference<?> reference = (DecodedReference<?>) referenceQueue.poll();
+			if (reference == null) {
+				return;
+			}
+			// only remove the entry if it hasn't been replaced by a newer decoding
+			if (classCache.get(reference.offset) == reference) {
+				classCache.remove(reference.offset);
+			} else if (methodCache.get(reference.offset) == reference) {
+				methodCache.remove(reference.offset);
+			}
+		}
+	}
+
+	/**
+	 * Weak reference to a decoded class or method which remembers the offset of its record.
+	 */
+	private static class DecodedReference<T> extends WeakReference<T> {
+
+		final long offset;
+
+		public DecodedReference(long offset, T referent, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Read-only map view of the store.
+	 */
+	private class EndPointMap extends AbstractMap<String, List<EndPoint>> {
+
+		private final Set<Entry<String, List<EndPoint>>> entrySet = new AbstractSet<Entry<String, List<EndPoint>>>() {
+			@Override
+			public Iterator<Entry<String, List<EndPoint>>> iterator() {
+				final Iterator<Entry<String, long[]>> iterator = pathOffsetsMap.entrySet().iterator();
+				return new Iterator<Entry<String, List<EndPoint>>>() {
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Entry<String, List<EndPoint>> next() {
+						Entry<String, long[]> entry = iterator.next();
+						return new SimpleImmutableEntry<String, List<EndPoint>>(entry.getKey(),
+								readEndPoints(entry.getKey(), entry.getValue()));
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException("End-point store map cannot be modified");
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return pathOffsetsMap.size();
+			}
+		};
+
+		@Override
+		public Set<Entry<String, List<EndPoint>>> entrySet() {
+			return entrySet;
+		}
+
+		@Override
+		public List<EndPoint> get(Object key) {
+			long[] offsets = pathOffsetsMap.get(key);
+			if (offsets == null) {
+				return null;
+			} else {
+				return readEndPoints((String) key, offsets);
+			}
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return pathOffsetsMap.containsKey(key);
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return Collections.unmodifiableSet(pathOffsetsMap.keySet());
+		}
+
+		@Override
+		public int size() {
+			return pathOffsetsMap.size();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.j256.springrequestdoclet.collector;
+
+/**
+ * HTTP request methods which correspond to the values of spring's RequestMethod enum. We store the methods of an
+ * end-point as a bit mask of these values instead of as an array of strings.
+ * 
+ * @author graywatson
+ */
+public enum HttpMethod {
+	GET,
+	HEAD,
+	POST,
+	PUT,
+	PATCH,
+	DELETE,
+	OPTIONS,
+	TRACE,
+	// end
+	;
+
+	private static final HttpMethod[] VALUES = values();
+	/** names for each of the possible masks so we don't have to allocate arrays when rendering */
+	private static final String[][] MASK_NAMES = new String[1 << VALUES.length][];
+
+	static {
+		for (int mask = 0; mask < MASK_NAMES.length; mask++) {
+			String[] names = new String[Integer.bitCount(mask)];
+			int nameCount = 0;
+			for (HttpMethod method : VALUES) {
+				if ((mask & method.getMask()) != 0) {
+					names[nameCount++] = method.name();
+				}
+			}
+			MASK_NAMES[mask] = names;
+		}
+	}
+
+	public int getMask() {
+		return 1 << ordinal();
+	}
+
+	/**
+	 * Find the method from its name which can be prefixed with the enum class. Returns null if unknown.
+	 */
+	public static HttpMethod fromName(String name) {
+		if (name == null) {
+			return null;
+		}
+		// handles both RequestMethod.GET and org.springframework.web.bind.annotation.RequestMethod.GET
+		int index = name.lastIndexOf('.');
+		if (index >= 0) {
+			name = name.substring(index + 1);
+		}
+		for (HttpMethod method : VALUES) {
+			if (method.name().equals(name)) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Convert the names of the methods into a bit mask. Unknown method names are ignored.
+	 */
+	public static int toMask(String[] names) {
+		int mask = 0;
+		if (names != null) {
+			for (String name : names) {
+				HttpMethod method = fromName(name);
+				if (method != null) {
+					mask |= method.getMask();
+				}
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Return the names of the methods in the bit mask or null if the mask is 0. NOTE: the returned array is shared and
+	 * must not be modified.
+	 */
+	public static String[] toNames(int mask) {
+		if (mask == 0) {
+			return null;
+		} else {
+			return MASK_NAMES[mask & (MASK_NAMES.length - 1)];
+		}
+	}
+}
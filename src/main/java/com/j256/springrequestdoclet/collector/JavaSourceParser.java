@@ -0,0 +1,962 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Light-weight parser of java source files for the {@link SourceScanner}. It tokenizes the source and picks out the
+ * declarations of the types and their methods along with their annotations and doc comments. Method bodies and field
+ * initializers are skipped without being parsed. The doc comments are processed the same way as javac so the raw
+ * comment text is the same as javadoc's.
+ *
+ * @author graywatson
+ */
+class JavaSourceParser {
+
+	private static final Set<String> MODIFIERS = new HashSet<String>(Arrays.asList("public", "protected", "private",
+			"static", "final", "abstract", "native", "synchronized", "transient", "volatile", "strictfp", "default",
+			"sealed"));
+
+	private final File file;
+	private final String source;
+	private final List<Token> tokens = new ArrayList<Token>();
+	private int pos;
+
+	private JavaSourceParser(File file, String source) {
+		this.file = file;
+		this.source = source;
+	}
+
+	/**
+	 * Parse the declarations in the source of the file.
+	 */
+	public static ParsedFile parse(File file, String source) throws IOException {
+		JavaSourceParser parser = new JavaSourceParser(file, source);
+		parser.tokenize();
+		return parser.parseFile();
+	}
+
+	private ParsedFile parseFile() throws IOException {
+		ParsedFile parsedFile = new ParsedFile(file);
+		// the annotations belong to the package or to the first type if there is no package declaration
+		int start = pos;
+		skipAnnotations();
+		if (isIdent("package")) {
+			pos++;
+			parsedFile.packageName = parseQualifiedName();
+			expect(";");
+		} else {
+			pos = start;
+		}
+		while (isIdent("import")) {
+			pos++;
+			boolean staticImport = false;
+			if (isIdent("static")) {
+				staticImport = true;
+				pos++;
+			}
+			String name = parseQualifiedName();
+			boolean wildcard = false;
+			if (is(".")) {
+				pos++;
+				expect("*");
+				wildcard = true;
+			}
+			expect(";");
+			if (staticImport) {
+				if (wildcard) {
+					parsedFile.staticWildcardImports.add(name);
+				} else {
+					parsedFile.staticImports.put(name.substring(name.lastIndexOf('.') + 1), name);
+				}
+			} else if (wildcard) {
+				parsedFile.wildcardImports.add(name);
+			} else {
+				parsedFile.imports.put(name.substring(name.lastIndexOf('.') + 1), name);
+			}
+		}
+		while (pos < tokens.size()) {
+			if (is(";")) {
+				pos++;
+				continue;
+			}
+			ParsedType type = parseDeclaration(parsedFile, null);
+			if (type != null) {
+				parsedFile.types.add(type);
+			}
+		}
+		return parsedFile;
+	}
+
+	/**
+	 * Parse a type or member declaration.
+	 *
+	 * @return The type if the declaration was a type otherwise null.
+	 */
+	private ParsedType parseDeclaration(ParsedFile parsedFile, ParsedType outer) throws IOException {
+		String javaDoc = current().docComment;
+		List<ParsedAnnotation> annotations = new ArrayList<ParsedAnnotation>();
+		Set<String> modifiers = new HashSet<String>();
+		parseModifiers(annotations, modifiers);
+
+		if (is("{")) {
+			// initializer block
+			skipBalanced("{", "}");
+			return null;
+		}
+		String kind = null;
+		if (is("@") && isIdent(pos + 1, "interface")) {
+			pos += 2;
+			kind = "@interface";
+		} else if (isIdent("class") || isIdent("interface") || isIdent("enum")) {
+			kind = next().text;
+		} else if (isIdent("record") && peek(1).kind == TokenKind.IDENT && (is(pos + 2, "(") || is(pos + 2, "<"))) {
+			kind = next().text;
+		}
+		if (kind != null) {
+			return parseType(parsedFile, outer, kind, javaDoc, annotations, modifiers);
+		}
+		if (outer == null) {
+			throw parseError("Expecting a type declaration");
+		}
+		parseMember(outer, javaDoc, annotations, modifiers);
+		return null;
+	}
+
+	private ParsedType parseType(ParsedFile parsedFile, ParsedType outer, String kind, String javaDoc,
+			List<ParsedAnnotation> annotations, Set<String> modifiers) throws IOException {
+		ParsedType type = new ParsedType(parsedFile, outer, expectIdent(), kind, javaDoc, annotations);
+		type.abstractType = modifiers.contains("abstract");
+		if (is("<")) {
+			skipBalanced("<", ">");
+		}
+		if (is("(")) {
+			// record components
+			skipBalanced("(", ")");
+		}
+		while (!is("{")) {
+			if (isIdent("extends")) {
+				pos++;
+				List<String> superTypes = parseTypeList();
+				if ("class".equals(kind)) {
+					type.superclass = superTypes.get(0);
+				} else {
+					type.interfaces.addAll(superTypes);
+				}
+			} else if (isIdent("implements")) {
+				pos++;
+				type.interfaces.addAll(parseTypeList());
+			} else if (isIdent("permits")) {
+				pos++;
+				parseTypeList();
+			} else {
+				throw parseError("Unexpected token in type declaration");
+			}
+		}
+		expect("{");
+		if ("enum".equals(kind)) {
+			skipEnumConstants();
+		}
+		while (!is("}")) {
+			if (is(";")) {
+				pos++;
+				continue;
+			}
+			ParsedType nestedType = parseDeclaration(parsedFile, type);
+			if (nestedType != null) {
+				type.nestedTypes.add(nestedType);
+			}
+		}
+		expect("}");
+		return type;
+	}
+
+	private void parseMember(ParsedType type, String javaDoc, List<ParsedAnnotation> annotations,
+			Set<String> modifiers) throws IOException {
+		if (is("<")) {
+			// generic method
+			skipBalanced("<", ">");
+		}
+		TypeRef typeRef = parseTypeRef();
+		if (is("(")) {
+			// constructor
+			skipBalanced("(", ")");
+			skipMethodRest();
+			return;
+		} else if (is("{")) {
+			// compact record constructor
+			skipBalanced("{", "}");
+			return;
+		}
+		String name = expectIdent();
+		if (is("(")) {
+			ParsedMethod method = new ParsedMethod(type, name, javaDoc, annotations, typeRef,
+					modifiers.contains("public") || modifiers.contains("protected") || type.isInterface());
+			parseParams(method);
+			while (is("[")) {
+				// old style array return type after the parameters
+				pos += 2;
+				method.returnType = typeRef.withDimension();
+			}
+			skipMethodRest();
+			type.methods.add(method);
+			return;
+		}
+		// field declarations, the strings may be constants that are used in the annotations
+		boolean constant = ((modifiers.contains("static") && modifiers.contains("final")) || type.isInterface())
+				&& "String".equals(typeRef.name) && typeRef.dimension.isEmpty();
+		while (true) {
+			boolean array = false;
+			while (is("[")) {
+				pos += 2;
+				array = true;
+			}
+			if (is("=")) {
+				pos++;
+				List<Token> initializer = skipExpression();
+				if (constant && !array) {
+					type.constants.put(name, initializer);
+				}
+			}
+			if (is(";")) {
+				pos++;
+				return;
+			}
+			expect(",");
+			name = expectIdent();
+		}
+	}
+
+	private void parseParams(ParsedMethod method) throws IOException {
+		expect("(");
+		while (!is(")")) {
+			List<ParsedAnnotation> annotations = new ArrayList<ParsedAnnotation>();
+			parseModifiers(annotations, new HashSet<String>());
+			TypeRef typeRef = parseTypeRef();
+			String name = expectIdent();
+			if (is(".")) {
+				// receiver parameter such as Outer.this
+				pos++;
+				name = expectIdent();
+			}
+			while (is("[")) {
+				pos += 2;
+				typeRef = typeRef.withDimension();
+			}
+			if (!"this".equals(name)) {
+				method.params.add(new ParsedParam(name, typeRef, annotations));
+			}
+			if (is(",")) {
+				pos++;
+			}
+		}
+		expect(")");
+	}
+
+	/**
+	 * Skip the throws clause, the default value of an annotation element, and the body of a method or constructor.
+	 */
+	private void skipMethodRest() throws IOException {
+		while (true) {
+			if (is("{")) {
+				skipBalanced("{", "}");
+				return;
+			} else if (is(";")) {
+				pos++;
+				return;
+			} else if (is("(")) {
+				skipBalanced("(", ")");
+			} else {
+				next();
+			}
+		}
+	}
+
+	private void skipEnumConstants() throws IOException {
+		while (!is(";") && !is("}")) {
+			if (is("(")) {
+				skipBalanced("(", ")");
+			} else if (is("{")) {
+				skipBalanced("{", "}");
+			} else {
+				next();
+			}
+		}
+		if (is(";")) {
+			pos++;
+		}
+	}
+
+	private void parseModifiers(List<ParsedAnnotation> annotations, Set<String> modifiers) throws IOException {
+		while (pos < tokens.size()) {
+			if (is("@") && !isIdent(pos + 1, "interface")) {
+				annotations.add(parseAnnotation());
+			} else if (current().kind == TokenKind.IDENT && MODIFIERS.contains(current().text)) {
+				modifiers.add(next().text);
+			} else if (isIdent("non") && is(pos + 1, "-") && isIdent(pos + 2, "sealed")) {
+				pos += 3;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void skipAnnotations() throws IOException {
+		while (is("@") && !isIdent(pos + 1, "interface")) {
+			parseAnnotation();
+		}
+	}
+
+	private ParsedAnnotation parseAnnotation() throws IOException {
+		expect("@");
+		String name = parseQualifiedName();
+		ParsedAnnotation annotation = new ParsedAnnotation(name.substring(name.lastIndexOf('.') + 1), name);
+		if (!is("(")) {
+			return annotation;
+		}
+		pos++;
+		if (is(")")) {
+			pos++;
+			return annotation;
+		}
+		if (current().kind == TokenKind.IDENT && is(pos + 1, "=")) {
+			while (true) {
+				String elementName = expectIdent();
+				expect("=");
+				annotation.values.put(elementName, parseElementValue());
+				if (is(")")) {
+					break;
+				}
+				expect(",");
+			}
+		} else {
+			annotation.values.put("value", parseElementValue());
+		}
+		expect(")");
+		return annotation;
+	}
+
+	/**
+	 * Parse an annotation element value which is an array of expressions or a single expression.
+	 */
+	private List<List<Token>> parseElementValue() throws IOException {
+		List<List<Token>> values = new ArrayList<List<Token>>();
+		if (!is("{")) {
+			values.add(parseElementExpression());
+			return values;
+		}
+		pos++;
+		while (!is("}")) {
+			values.add(parseElementExpression());
+			if (is(",")) {
+				pos++;
+			}
+		}
+		pos++;
+		return values;
+	}
+
+	private List<Token> parseElementExpression() throws IOException {
+		if (is("@")) {
+			// nested annotations are not used by the mappings
+			int start = pos;
+			parseAnnotation();
+			return tokens.subList(start, pos);
+		}
+		return skipExpression();
+	}
+
+	/**
+	 * Skip an expression up to the ',', ';', or closing bracket that ends it and return its tokens.
+	 */
+	private List<Token> skipExpression() throws IOException {
+		int start = pos;
+		int depth = 0;
+		// type arguments such as new HashMap<String, String>() which may have commas
+		int typeArgDepth = 0;
+		while (true) {
+			Token token = current();
+			if (token.kind == TokenKind.PUNCT) {
+				String text = token.text;
+				if (depth == 0 && typeArgDepth == 0
+						&& (",".equals(text) || ";".equals(text) || ")".equals(text) || "}".equals(text))) {
+					return tokens.subList(start, pos);
+				} else if ("(".equals(text) || "{".equals(text) || "[".equals(text)) {
+					depth++;
+				} else if (")".equals(text) || "}".equals(text) || "]".equals(text)) {
+					depth--;
+				} else if ("<".equals(text) && pos > start && isTypeArgStart(tokens.get(pos - 1), peek(1))) {
+					typeArgDepth++;
+				} else if (">".equals(text) && typeArgDepth > 0) {
+					typeArgDepth--;
+				} else if (";".equals(text)) {
+					// not a type argument after all
+					typeArgDepth = 0;
+				}
+			}
+			pos++;
+		}
+	}
+
+	/**
+	 * Return true if a '<' between the tokens starts type arguments instead of being a less-than or a shift. This is a
+	 * guess since we don't parse expressions but type names start with a capital letter by convention.
+	 */
+	private boolean isTypeArgStart(Token before, Token after) {
+		if (after.kind != TokenKind.IDENT && !"?".equals(after.text) && !">".equals(after.text)
+				&& !"@".equals(after.text)) {
+			return false;
+		} else if (before.kind == TokenKind.IDENT) {
+			return Character.isUpperCase(before.text.charAt(0));
+		} else {
+			return (before.kind == TokenKind.PUNCT && ".".equals(before.text));
+		}
+	}
+
+	private List<String> parseTypeList() throws IOException {
+		List<String> typeNames = new ArrayList<String>();
+		while (true) {
+			typeNames.add(parseTypeRef().name);
+			if (!is(",")) {
+				return typeNames;
+			}
+			pos++;
+		}
+	}
+
+	/**
+	 * Parse a type reference skipping its type arguments.
+	 */
+	private TypeRef parseTypeRef() throws IOException {
+		skipAnnotations();
+		StringBuilder sb = new StringBuilder();
+		sb.append(expectIdent());
+		while (true) {
+			if (is("<")) {
+				skipBalanced("<", ">");
+			} else if (is(".") && peek(1).kind == TokenKind.IDENT) {
+				pos++;
+				sb.append('.').append(next().text);
+			} else if (is(".") && is(pos + 1, "@")) {
+				// type annotation such as java.lang.@NonNull String
+				pos++;
+				skipAnnotations();
+				sb.append('.').append(expectIdent());
+			} else {
+				break;
+			}
+		}
+		TypeRef typeRef = new TypeRef(sb.toString(), "");
+		while (true) {
+			skipAnnotations();
+			if (is("[") && is(pos + 1, "]")) {
+				pos += 2;
+				typeRef = typeRef.withDimension();
+			} else if (is("...")) {
+				pos++;
+				typeRef = typeRef.withDimension();
+			} else {
+				return typeRef;
+			}
+		}
+	}
+
+	private String parseQualifiedName() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append(expectIdent());
+		while (is(".") && peek(1).kind == TokenKind.IDENT) {
+			pos++;
+			sb.append('.').append(next().text);
+		}
+		return sb.toString();
+	}
+
+	private void skipBalanced(String open, String close) throws IOException {
+		int depth = 0;
+		while (true) {
+			Token token = next();
+			if (token.kind != TokenKind.PUNCT) {
+				continue;
+			}
+			if (open.equals(token.text)) {
+				depth++;
+			} else if (close.equals(token.text)) {
+				depth--;
+				if (depth == 0) {
+					return;
+				}
+			}
+		}
+	}
+
+	private boolean is(String text) {
+		return is(pos, text);
+	}
+
+	private boolean is(int index, String text) {
+		return (index < tokens.size() && tokens.get(index).kind == TokenKind.PUNCT && text.equals(tokens.get(index).text));
+	}
+
+	private boolean isIdent(String text) {
+		return isIdent(pos, text);
+	}
+
+	private boolean isIdent(int index, String text) {
+		return (index < tokens.size() && tokens.get(index).kind == TokenKind.IDENT && text.equals(tokens.get(index).text));
+	}
+
+	private Token current() throws IOException {
+		if (pos >= tokens.size()) {
+			throw parseError("Unexpected end of file");
+		}
+		return tokens.get(pos);
+	}
+
+	private Token peek(int offset) throws IOException {
+		if (pos + offset >= tokens.size()) {
+			throw parseError("Unexpected end of file");
+		}
+		return tokens.get(pos + offset);
+	}
+
+	private Token next() throws IOException {
+		Token token = current();
+		pos++;
+		return token;
+	}
+
+	private void expect(String text) throws IOException {
+		if (!is(text)) {
+			throw parseError("Expecting '" + text + "'");
+		}
+		pos++;
+	}
+
+	private String expectIdent() throws IOException {
+		Token token = current();
+		if (token.kind != TokenKind.IDENT) {
+			throw parseError("Expecting an identifier");
+		}
+		pos++;
+		return token.text;
+	}
+
+	private IOException parseError(String message) {
+		int line = 0;
+		String found = "end of file";
+		if (pos < tokens.size()) {
+			line = tokens.get(pos).line;
+			found = "'" + tokens.get(pos).text + "'";
+		} else if (!tokens.isEmpty()) {
+			line = tokens.get(tokens.size() - 1).line;
+		}
+		return new IOException(file + ":" + line + ": " + message + " but found " + found);
+	}
+
+	/**
+	 * Split the source into tokens. Comments are dropped other than the doc comments which are attached to the token
+	 * that follows them.
+	 */
+	private void tokenize() throws IOException {
+		int length = source.length();
+		int line = 1;
+		String docComment = null;
+		int index = 0;
+		while (index < length) {
+			char ch = source.charAt(index);
+			if (ch == '\n') {
+				line++;
+				index++;
+			} else if (Character.isWhitespace(ch)) {
+				index++;
+			} else if (ch == '/' && index + 1 < length && source.charAt(index + 1) == '/') {
+				while (index < length && source.charAt(index) != '\n') {
+					index++;
+				}
+			} else if (ch == '/' && index + 1 < length && source.charAt(index + 1) == '*') {
+				int end = source.indexOf("*/", index + 2);
+				if (end < 0) {
+					throw new IOException(file + ":" + line + ": Unterminated comment");
+				}
+				end += 2;
+				// /**/ is not a doc comment
+				if (end - index > 4 && source.charAt(index + 2) == '*') {
+					docComment = processDocComment(source, index, end);
+				}
+				line += countLines(index, end);
+				index = end;
+			} else if (ch == '"' || ch == '\'') {
+				int end = findLiteralEnd(index, line);
+				tokens.add(new Token(ch == '"' ? TokenKind.STRING : TokenKind.CHAR, source.substring(index, end), line,
+						docComment));
+				docComment = null;
+				line += countLines(index, end);
+				index = end;
+			} else if (Character.isJavaIdentifierStart(ch)) {
+				int end = index + 1;
+				while (end < length && Character.isJavaIdentifierPart(source.charAt(end))) {
+					end++;
+				}
+				tokens.add(new Token(TokenKind.IDENT, source.substring(index, end), line, docComment));
+				docComment = null;
+				index = end;
+			} else if (Character.isDigit(ch) || (ch == '.' && index + 1 < length
+					&& Character.isDigit(source.charAt(index + 1)))) {
+				int end = index + 1;
+				while (end < length) {
+					char numCh = source.charAt(end);
+					if (Character.isLetterOrDigit(numCh) || numCh == '.' || numCh == '_') {
+						end++;
+					} else if ((numCh == '+' || numCh == '-')
+							&& (source.charAt(end - 1) == 'e' || source.charAt(end - 1) == 'E')) {
+						end++;
+					} else {
+						break;
+					}
+				}
+				tokens.add(new Token(TokenKind.NUMBER, source.substring(index, end), line, docComment));
+				docComment = null;
+				index = end;
+			} else if (source.startsWith("...", index)) {
+				tokens.add(new Token(TokenKind.PUNCT, "...", line, docComment));
+				docComment = null;
+				index += 3;
+			} else {
+				// other operators are single characters which is fine since we don't parse expressions
+				tokens.add(new Token(TokenKind.PUNCT, String.valueOf(ch), line, docComment));
+				docComment = null;
+				index++;
+			}
+		}
+	}
+
+	/**
+	 * Find the end of the string, text block, or character literal starting at the index.
+	 */
+	private int findLiteralEnd(int start, int line) throws IOException {
+		char quote = source.charAt(start);
+		if (quote == '"' && source.startsWith("\"\"\"", start)) {
+			int index = start + 3;
+			while (true) {
+				index = source.indexOf("\"\"\"", index);
+				if (index < 0) {
+					throw new IOException(file + ":" + line + ": Unterminated text block");
+				}
+				if (source.charAt(index - 1) != '\\') {
+					return index + 3;
+				}
+				index++;
+			}
+		}
+		for (int index = start + 1; index < source.length(); index++) {
+			char ch = source.charAt(index);
+			if (ch == '\\') {
+				index++;
+			} else if (ch == quote) {
+				return index + 1;
+			} else if (ch == '\n') {
+				break;
+			}
+		}
+		throw new IOException(file + ":" + line + ": Unterminated literal");
+	}
+
+	private int countLines(int start, int end) {
+		int count = 0;
+		for (int i = start; i < end; i++) {
+			if (source.charAt(i) == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Convert a doc comment into the raw comment text like javac does. The leading whitespace and stars of each line
+	 * are removed along with the first line if it is empty.
+	 */
+	static String processDocComment(String source, int start, int end) {
+		StringBuilder sb = new StringBuilder(end - start);
+		// skip the slash and the stars
+		int index = start + 1;
+		while (index < end && source.charAt(index) == '*') {
+			index++;
+		}
+		if (index < end && source.charAt(index) == '/') {
+			// /***/ and the like
+			return "";
+		}
+		// skip a newline on the first line of the comment
+		boolean firstLine = true;
+		if (index < end && source.charAt(index) == '\n') {
+			index++;
+			firstLine = false;
+		} else if (index < end && source.charAt(index) == '\r') {
+			index++;
+			if (index < end && source.charAt(index) == '\n') {
+				index++;
+			}
+			firstLine = false;
+		}
+		OUTER: while (index < end) {
+			int lineStart = index;
+			while (index < end && (source.charAt(index) == ' ' || source.charAt(index) == '\t'
+					|| source.charAt(index) == '\f')) {
+				index++;
+			}
+			if (index < end && source.charAt(index) == '*') {
+				while (index < end && source.charAt(index) == '*') {
+					index++;
+				}
+				if (index < end && source.charAt(index) == '/') {
+					break;
+				}
+			} else if (!firstLine) {
+				// the line does not start with a star so the whitespace is part of the comment
+				index = lineStart;
+			}
+			while (index < end) {
+				char ch = source.charAt(index);
+				if (ch == '*' && index + 1 < end && source.charAt(index + 1) == '/') {
+					break OUTER;
+				} else if (ch == '\f') {
+					index++;
+					break;
+				} else if (ch == '\r') {
+					index++;
+					if (index < end && source.charAt(index) == '\n') {
+						index++;
+					}
+					sb.append('\n');
+					break;
+				} else if (ch == '\n') {
+					index++;
+					sb.append('\n');
+					break;
+				} else {
+					sb.append(ch);
+					index++;
+				}
+			}
+			firstLine = false;
+		}
+		// remove any trailing stars
+		int length = sb.length();
+		while (length > 0 && sb.charAt(length - 1) == '*') {
+			length--;
+		}
+		sb.setLength(length);
+		return sb.toString();
+	}
+
+	enum TokenKind {
+		IDENT,
+		STRING,
+		CHAR,
+		NUMBER,
+		PUNCT,
+		// end
+		;
+	}
+
+	/**
+	 * A token from the source.
+	 */
+	static class Token {
+
+		final TokenKind kind;
+		final String text;
+		final int line;
+		/** raw text of the doc comment before the token or null if none */
+		final String docComment;
+
+		public Token(TokenKind kind, String text, int line, String docComment) {
+			this.kind = kind;
+			this.text = text;
+			this.line = line;
+			this.docComment = docComment;
+		}
+	}
+
+	/**
+	 * A reference to a type without its type arguments.
+	 */
+	static class TypeRef {
+
+		/** name as written in the source such as "String", "Map.Entry", or "java.util.List" */
+		final String name;
+		/** "[]" for each of the array dimensions */
+		final String dimension;
+
+		public TypeRef(String name, String dimension) {
+			this.name = name;
+			this.dimension = dimension;
+		}
+
+		public TypeRef withDimension() {
+			return new TypeRef(name, dimension + "[]");
+		}
+	}
+
+	/**
+	 * The declarations of a source file.
+	 */
+	static class ParsedFile {
+
+		final File file;
+		String packageName = "";
+		/** simple name -> qualified name of the single type imports */
+		final Map<String, String> imports = new HashMap<String, String>();
+		final List<String> wildcardImports = new ArrayList<String>();
+		/** member name -> qualified name of the static imports */
+		final Map<String, String> staticImports = new HashMap<String, String>();
+		final List<String> staticWildcardImports = new ArrayList<String>();
+		final List<ParsedType> types = new ArrayList<ParsedType>();
+
+		public ParsedFile(File file) {
+			this.file = file;
+		}
+	}
+
+	/**
+	 * A class, interface, enum, record, or annotation type declaration.
+	 */
+	static class ParsedType {
+
+		final ParsedFile file;
+		final ParsedType outer;
+		final String simpleName;
+		final String kind;
+		final String javaDoc;
+		final List<ParsedAnnotation> annotations;
+		boolean abstractType;
+		String superclass;
+		final List<String> interfaces = new ArrayList<String>();
+		final List<ParsedMethod> methods = new ArrayList<ParsedMethod>();
+		final List<ParsedType> nestedTypes = new ArrayList<ParsedType>();
+		/** name -> initializer of the static final string fields */
+		final Map<String, List<Token>> constants = new LinkedHashMap<String, List<Token>>();
+
+		public ParsedType(ParsedFile file, ParsedType outer, String simpleName, String kind, String javaDoc,
+				List<ParsedAnnotation> annotations) {
+			this.file = file;
+			this.outer = outer;
+			this.simpleName = simpleName;
+			this.kind = kind;
+			// javadoc returns an empty string if there is no comment
+			this.javaDoc = (javaDoc == null ? "" : javaDoc);
+			this.annotations = annotations;
+		}
+
+		/**
+		 * Name of the type including the names of the types it is nested in like javadoc's ClassDoc.name().
+		 */
+		public String getName() {
+			if (outer == null) {
+				return simpleName;
+			} else {
+				return outer.getName() + '.' + simpleName;
+			}
+		}
+
+		public String getQualifiedName() {
+			if (file.packageName.isEmpty()) {
+				return getName();
+			} else {
+				return file.packageName + '.' + getName();
+			}
+		}
+
+		public boolean isInterface() {
+			return ("interface".equals(kind) || "@interface".equals(kind));
+		}
+
+		public boolean isAbstract() {
+			return abstractType;
+		}
+
+		public ParsedType findNestedType(String name) {
+			for (ParsedType nestedType : nestedTypes) {
+				if (nestedType.simpleName.equals(name)) {
+					return nestedType;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A method declaration.
+	 */
+	static class ParsedMethod {
+
+		final ParsedType owner;
+		final String name;
+		final String javaDoc;
+		final List<ParsedAnnotation> annotations;
+		TypeRef returnType;
+		/** true if public, protected, or in an interface since that is what javadoc documents by default */
+		final boolean documented;
+		final List<ParsedParam> params = new ArrayList<ParsedParam>();
+
+		public ParsedMethod(ParsedType owner, String name, String javaDoc, List<ParsedAnnotation> annotations,
+				TypeRef returnType, boolean documented) {
+			this.owner = owner;
+			this.name = name;
+			this.javaDoc = (javaDoc == null ? "" : javaDoc);
+			this.annotations = annotations;
+			this.returnType = returnType;
+			this.documented = documented;
+		}
+	}
+
+	/**
+	 * A method parameter.
+	 */
+	static class ParsedParam {
+
+		final String name;
+		final TypeRef type;
+		final List<ParsedAnnotation> annotations;
+
+		public ParsedParam(String name, TypeRef type, List<ParsedAnnotation> annotations) {
+			this.name = name;
+			this.type = type;
+			this.annotations = annotations;
+		}
+	}
+
+	/**
+	 * An annotation with the tokens of its element values.
+	 */
+	static class ParsedAnnotation {
+
+		final String simpleName;
+		final String name;
+		/** element name -> expressions, more than one if the value is an array */
+		final Map<String, List<List<Token>>> values = new LinkedHashMap<String, List<List<Token>>>();
+
+		public ParsedAnnotation(String simpleName, String name) {
+			this.simpleName = simpleName;
+			this.name = name;
+		}
+
+		public List<List<Token>> getValue(String elementName) {
+			List<List<Token>> value = values.get(elementName);
+			if (value == null) {
+				return Collections.emptyList();
+			} else {
+				return value;
+			}
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.j256.springrequestdoclet.collector.RequestMappingResolver.ResolvedMapping;
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.MethodDoc;
+import com.sun.javadoc.Parameter;
+
+/**
+ * Resolves the request mappings of a class including the ones that it inherits from its superclasses and interfaces
+ * like spring does. A method that overrides a mapped method is mapped even if it has no annotation itself and it
+ * inherits the parameter annotations and javadocs from the declarations that it overrides. The results are memoized per
+ * type so shared base controllers and API interfaces are only walked once and not once per subclass.
+ *
+ * @author graywatson
+ */
+class MappingHierarchy {
+
+	private static final String OBJECT_CLASS_NAME = "java.lang.Object";
+	/** cache entry for types that do not have a class-level mapping */
+	private static final ResolvedMapping NO_CLASS_MAPPING = new ResolvedMapping(null, 0, null, null, null, null);
+
+	private final RequestMappingResolver mappingResolver;
+	private final Map<String, ResolvedMapping> classMappingCache = new HashMap<String, ResolvedMapping>();
+	private final Map<String, List<MappedMethod>> mappedMethodsCache = new HashMap<String, List<MappedMethod>>();
+
+	public MappingHierarchy(RequestMappingResolver mappingResolver) {
+		this.mappingResolver = mappingResolver;
+	}
+
+	/**
+	 * Clear our memoized mappings and the annotation type mappings.
+	 */
+	public void clear() {
+		classMappingCache.clear();
+		mappedMethodsCache.clear();
+		mappingResolver.clear();
+	}
+
+	/**
+	 * Find the class-level mapping from the type or, if it has none, from its superclasses and then its interfaces.
+	 *
+	 * @return The mapping or null if none.
+	 */
+	public ResolvedMapping findClassMapping(ClassDoc classDoc) {
+		String key = classDoc.qualifiedName();
+		ResolvedMapping mapping = classMappingCache.get(key);
+		if (mapping == null) {
+			mapping = mappingResolver.resolve(classDoc.annotations());
+			if (mapping == null) {
+				ClassDoc superclass = classDoc.superclass();
+				if (superclass != null && !OBJECT_CLASS_NAME.equals(superclass.qualifiedName())) {
+					mapping = findClassMapping(superclass);
+				}
+			}
+			if (mapping == null) {
+				for (ClassDoc interfaceDoc : classDoc.interfaces()) {
+					mapping = findClassMapping(interfaceDoc);
+					if (mapping != null) {
+						break;
+					}
+				}
+			}
+			classMappingCache.put(key, (mapping == null ? NO_CLASS_MAPPING : mapping));
+		}
+		if (mapping == NO_CLASS_MAPPING) {
+			return null;
+		} else {
+			return mapping;
+		}
+	}
+
+	/**
+	 * Find the mapped methods of the type. The methods declared in the type come first in declaration order followed by
+	 * the inherited ones which it does not override. The returned list must not be modified.
+	 */
+	public List<MappedMethod> findMappedMethods(ClassDoc classDoc) {
+		String key = classDoc.qualifiedName();
+		List<MappedMethod> mappedMethods = mappedMethodsCache.get(key);
+		if (mappedMethods != null) {
+			return mappedMethods;
+		}
+
+		// the superclass methods are added first so they win over the interface declarations that they implement
+		List<MappedMethod> inherited = new ArrayList<MappedMethod>();
+		ClassDoc superclass = classDoc.superclass();
+		if (superclass != null && !OBJECT_CLASS_NAME.equals(superclass.qualifiedName())) {
+			addInherited(inherited, findMappedMethods(superclass));
+		}
+		for (ClassDoc interfaceDoc : classDoc.interfaces()) {
+			addInherited(inherited, findMappedMethods(interfaceDoc));
+		}
+
+		mappedMethods = new ArrayList<MappedMethod>();
+		for (MethodDoc methodDoc : classDoc.methods()) {
+			ResolvedMapping mapping = mappingResolver.resolve(methodDoc.annotations());
+			MappedMethod overridden = removeOverridden(inherited, methodDoc);
+			if (mapping != null) {
+				mappedMethods.add(new MappedMethod(methodDoc, mapping, overridden));
+			} else if (overridden != null) {
+				mappedMethods.add(new MappedMethod(methodDoc, overridden.mapping, overridden));
+			}
+		}
+		mappedMethods.addAll(inherited);
+
+		if (mappedMethods.isEmpty()) {
+			mappedMethods = Collections.emptyList();
+		}
+		mappedMethodsCache.put(key, mappedMethods);
+		return mappedMethods;
+	}
+
+	private void addInherited(List<MappedMethod> inherited, List<MappedMethod> candidates) {
+		OUTER: for (MappedMethod candidate : candidates) {
+			for (MappedMethod existing : inherited) {
+				// diamond interfaces or a superclass method that implements the interface method
+				if (existing.methodDoc == candidate.methodDoc || overrides(existing.methodDoc, candidate.methodDoc)) {
+					continue OUTER;
+				}
+			}
+			inherited.add(candidate);
+		}
+	}
+
+	/**
+	 * Remove and return the inherited mapped method that the method overrides or null if none.
+	 */
+	private MappedMethod removeOverridden(List<MappedMethod> inherited, MethodDoc methodDoc) {
+		Iterator<MappedMethod> iterator = inherited.iterator();
+		while (iterator.hasNext()) {
+			MappedMethod mappedMethod = iterator.next();
+			if (overrides(methodDoc, mappedMethod.methodDoc)) {
+				iterator.remove();
+				return mappedMethod;
+			}
+		}
+		return null;
+	}
+
+	private boolean overrides(MethodDoc methodDoc, MethodDoc otherDoc) {
+		// the name check is cheap and rules out almost all of them
+		return methodDoc.name().equals(otherDoc.name())
+				&& methodDoc.parameters().length == otherDoc.parameters().length && methodDoc.overrides(otherDoc);
+	}
+
+	/**
+	 * A mapped method along with the chain of declarations that it overrides.
+	 */
+	static class MappedMethod {
+
+		private final MethodDoc methodDoc;
+		private final ResolvedMapping mapping;
+		/** the mapped declaration that this one overrides or null if none */
+		private final MappedMethod overridden;
+
+		public MappedMethod(MethodDoc methodDoc, ResolvedMapping mapping, MappedMethod overridden) {
+			this.methodDoc = methodDoc;
+			this.mapping = mapping;
+			this.overridden = overridden;
+		}
+
+		public MethodDoc getMethodDoc() {
+			return methodDoc;
+		}
+
+		public ResolvedMapping getMapping() {
+			return mapping;
+		}
+
+		/**
+		 * Return the raw javadocs of the method or the ones from the declaration that it overrides if it has none.
+		 */
+		public String getJavaDoc() {
+			MappedMethod current = this;
+			while (current.overridden != null && isEmpty(current.methodDoc.getRawCommentText())) {
+				current = current.overridden;
+			}
+			return current.methodDoc.getRawCommentText();
+		}
+
+		private boolean isEmpty(String javaDoc) {
+			return (javaDoc == null || javaDoc.isEmpty());
+		}
+
+		/**
+		 * Return the chain of declarations starting with this one. The parameter annotations and docs are looked up in
+		 * order through the chain.
+		 */
+		public List<MethodDoc> getDeclarations() {
+			List<MethodDoc> declarations = new ArrayList<MethodDoc>(2);
+			for (MappedMethod current = this; current != null; current = current.overridden) {
+				declarations.add(current.methodDoc);
+			}
+			return declarations;
+		}
+
+		/**
+		 * Return the annotations of the parameter at the index from the first declaration that has any.
+		 */
+		public AnnotationDesc[] getParamAnnotations(int paramIndex) {
+			AnnotationDesc[] annotations = null;
+			for (MappedMethod current = this; current != null; current = current.overridden) {
+				Parameter[] params = current.methodDoc.parameters();
+				if (paramIndex < params.length) {
+					annotations = params[paramIndex].annotations();
+					if (annotations.length > 0) {
+						break;
+					}
+				}
+			}
+			return annotations;
+		}
+	}
+}
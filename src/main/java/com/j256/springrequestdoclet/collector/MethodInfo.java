@@ -3,7 +3,9 @@ package com.j256.springrequestdoclet.collector;
 import java.util.List;
 
 /**
- * Method information which refines the request path and adds other narrowing fields.
+ * Method information which refines the request path and adds other narrowing fields. To keep the model small when we
+ * are collecting large numbers of end-points, the first sentence of the javadoc is stored as a length into the full
+ * javadoc and the HTTP methods are stored as a bit mask of {@link HttpMethod} values.
  * 
  * @author graywatson
  */
@@ -12,9 +14,9 @@ public class MethodInfo implements Comparable<MethodInfo> {
 	private final String javaMethodName;
 	private final String uniqueName;
 	private final String javaDoc;
-	private final String javaDocFirstSentence;
+	private final int javaDocFirstSentenceLength;
 	private final String[] paths;
-	private final String[] httpMethods;
+	private final int httpMethodMask;
 	private final String[] params;
 	private final String[] headers;
 	private final String[] consumes;
@@ -23,15 +25,21 @@ public class MethodInfo implements Comparable<MethodInfo> {
 	private final ContentsInfo requestInfo;
 	private final ContentsInfo responseInfo;
 
-	public MethodInfo(String javaMethodName, String uniqueName, String javaDoc, String javaDocFirstSentence, String[] paths,
-			String[] httpMethods, String[] params, String[] headers, String[] consumes, String[] produces,
-			List<ParamInfo> paramInfos, ContentsInfo requestInfo, ContentsInfo responseInfo) {
+	/**
+	 * @param javaDocFirstSentenceLength
+	 *            Length of the first sentence of the javadoc or -1 if the javadoc is null.
+	 * @param httpMethodMask
+	 *            Bit mask of the {@link HttpMethod} values or 0 if none.
+	 */
+	public MethodInfo(String javaMethodName, String uniqueName, String javaDoc, int javaDocFirstSentenceLength,
+			String[] paths, int httpMethodMask, String[] params, String[] headers, String[] consumes,
+			String[] produces, List<ParamInfo> paramInfos, ContentsInfo requestInfo, ContentsInfo responseInfo) {
 		this.javaMethodName = javaMethodName;
 		this.uniqueName = uniqueName;
 		this.paths = paths;
 		this.javaDoc = javaDoc;
-		this.javaDocFirstSentence = javaDocFirstSentence;
-		this.httpMethods = httpMethods;
+		this.javaDocFirstSentenceLength = javaDocFirstSentenceLength;
+		this.httpMethodMask = httpMethodMask;
 		this.params = params;
 		this.headers = headers;
 		this.consumes = consumes;
@@ -53,16 +61,50 @@ public class MethodInfo implements Comparable<MethodInfo> {
 		return javaDoc;
 	}
 
+	/**
+	 * Return the first sentence of the javadoc or null if none. NOTE: this makes a new string each time it is called
+	 * unless the first sentence is the whole javadoc so writers should use {@link #getJavaDocFirstSentenceLength()} to
+	 * write the start of {@link #getJavaDoc()} instead.
+	 */
 	public String getJavaDocFirstSentence() {
-		return javaDocFirstSentence;
+		int length = getJavaDocFirstSentenceLength();
+		if (length < 0) {
+			return null;
+		} else if (length == javaDoc.length()) {
+			return javaDoc;
+		} else {
+			return javaDoc.substring(0, length);
+		}
+	}
+
+	/**
+	 * Return the length of the first sentence at the start of the javadoc or -1 if there is no javadoc.
+	 */
+	public int getJavaDocFirstSentenceLength() {
+		if (javaDoc == null || javaDocFirstSentenceLength < 0) {
+			return -1;
+		} else {
+			return Math.min(javaDocFirstSentenceLength, javaDoc.length());
+		}
 	}
 
 	public String[] getPaths() {
 		return paths;
 	}
 
+	/**
+	 * Return the names of the HTTP methods or null if none. NOTE: the returned array is shared and must not be modified.
+	 */
 	public String[] getHttpMethods() {
-		return httpMethods;
+		return HttpMethod.toNames(httpMethodMask);
+	}
+
+	public int getHttpMethodMask() {
+		return httpMethodMask;
+	}
+
+	public boolean hasHttpMethod(HttpMethod httpMethod) {
+		return ((httpMethodMask & httpMethod.getMask()) != 0);
 	}
 
 	public String[] getParams() {
@@ -95,6 +137,11 @@ public class MethodInfo implements Comparable<MethodInfo> {
 
 	@Override
 	public int compareTo(MethodInfo other) {
-		return this.javaMethodName.compareTo(other.javaMethodName);
+		int compare = this.javaMethodName.compareTo(other.javaMethodName);
+		if (compare == 0) {
+			// overloaded methods are ordered by their unique names so the order doesn't depend on hash codes
+			compare = this.uniqueName.compareTo(other.uniqueName);
+		}
+		return compare;
 	}
 }
@@ -0,0 +1,251 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationDesc.ElementValuePair;
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.AnnotationValue;
+
+/**
+ * Finds the request mapping of a class or method. This handles @RequestMapping itself as well as composed annotations
+ * such as @GetMapping or in-house annotations which are meta-annotated with @RequestMapping. The meta-annotations of
+ * each annotation type are only walked once per run and the results, including the types that turn out not to be
+ * mappings, are cached by the type's qualified name.
+ *
+ * @author graywatson
+ */
+class RequestMappingResolver {
+
+	private static final String REQUEST_MAPPING_ANNOTATION_NAME = "RequestMapping";
+	/** mapping used for the @RequestMapping annotation itself, everything comes from the annotation values */
+	private static final ResolvedMapping EMPTY_MAPPING = new ResolvedMapping(null, 0, null, null, null, null);
+	/** cache entry for annotation types that are not mappings */
+	private static final ResolvedMapping NOT_A_MAPPING = new ResolvedMapping(null, 0, null, null, null, null);
+	/** spring's composed annotations in case spring is not on the javadoc classpath so the meta-annotations are missing */
+	private static final Map<String, HttpMethod> SPRING_COMPOSED_MAPPINGS = new HashMap<String, HttpMethod>();
+
+	static {
+		SPRING_COMPOSED_MAPPINGS.put("GetMapping", HttpMethod.GET);
+		SPRING_COMPOSED_MAPPINGS.put("PostMapping", HttpMethod.POST);
+		SPRING_COMPOSED_MAPPINGS.put("PutMapping", HttpMethod.PUT);
+		SPRING_COMPOSED_MAPPINGS.put("DeleteMapping", HttpMethod.DELETE);
+		SPRING_COMPOSED_MAPPINGS.put("PatchMapping", HttpMethod.PATCH);
+	}
+
+	private final Map<String, ResolvedMapping> typeMappingCache = new HashMap<String, ResolvedMapping>();
+
+	/**
+	 * Look through the annotations for a request mapping.
+	 *
+	 * @return The mapping or null if none of the annotations are mappings.
+	 */
+	public ResolvedMapping resolve(AnnotationDesc[] annotations) {
+		for (AnnotationDesc annotation : annotations) {
+			ResolvedMapping typeMapping = findTypeMapping(annotation.annotationType(), null);
+			if (typeMapping != null) {
+				return typeMapping.withValues(annotation);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Clear the cached annotation type mappings.
+	 */
+	public void clear() {
+		typeMappingCache.clear();
+	}
+
+	/**
+	 * Find the mapping for the annotation type from the cache or by walking its meta-annotations.
+	 *
+	 * @param visitingSet
+	 *            Names of the types that we are in the process of analyzing to stop loops or null if none.
+	 */
+	private ResolvedMapping findTypeMapping(AnnotationTypeDoc type, Set<String> visitingSet) {
+		String key = type.qualifiedName();
+		ResolvedMapping mapping = typeMappingCache.get(key);
+		if (mapping == null) {
+			if (visitingSet == null) {
+				visitingSet = new HashSet<String>();
+			} else if (visitingSet.contains(key)) {
+				// annotations like @Documented are annotated with themselves
+				return null;
+			}
+			visitingSet.add(key);
+			mapping = analyzeType(type, visitingSet);
+			typeMappingCache.put(key, (mapping == null ? NOT_A_MAPPING : mapping));
+		}
+		if (mapping == NOT_A_MAPPING) {
+			return null;
+		} else {
+			return mapping;
+		}
+	}
+
+	private ResolvedMapping analyzeType(AnnotationTypeDoc type, Set<String> visitingSet) {
+		if (REQUEST_MAPPING_ANNOTATION_NAME.equals(type.name())) {
+			return EMPTY_MAPPING;
+		}
+		for (AnnotationDesc metaAnnotation : type.annotations()) {
+			ResolvedMapping metaMapping = findTypeMapping(metaAnnotation.annotationType(), visitingSet);
+			if (metaMapping != null) {
+				// the values in the meta-annotation such as the method become the defaults for this type
+				return metaMapping.withValues(metaAnnotation);
+			}
+		}
+		HttpMethod httpMethod = SPRING_COMPOSED_MAPPINGS.get(type.name());
+		if (httpMethod == null) {
+			return null;
+		} else {
+			return new ResolvedMapping(null, httpMethod.getMask(), null, null, null, null);
+		}
+	}
+
+	/**
+	 * Return the mapping of @RequestMapping or one of spring's composed annotations by its simple name or null if it is
+	 * not one of them. This is used when the annotation types are not available such as by the {@link SourceScanner}.
+	 */
+	static ResolvedMapping findSpringMapping(String annotationName) {
+		if (REQUEST_MAPPING_ANNOTATION_NAME.equals(annotationName)) {
+			return EMPTY_MAPPING;
+		}
+		HttpMethod httpMethod = SPRING_COMPOSED_MAPPINGS.get(annotationName);
+		if (httpMethod == null) {
+			return null;
+		} else {
+			return new ResolvedMapping(null, httpMethod.getMask(), null, null, null, null);
+		}
+	}
+
+	/**
+	 * Convert an annotation value into an array of strings.
+	 */
+	static String[] annotationValueStrings(AnnotationValue annotationValue) {
+		Object obj = annotationValue.value();
+		if (obj instanceof AnnotationValue[]) {
+			AnnotationValue[] values = (AnnotationValue[]) obj;
+			String[] result = new String[values.length];
+			for (int i = 0; i < values.length; i++) {
+				result[i] = stripQuotes(values[i].toString());
+			}
+			return result;
+		} else {
+			return new String[] { stripQuotes(annotationValue.toString()) };
+		}
+	}
+
+	static String stripQuotes(String str) {
+		if (str != null && str.length() >= 2 && str.charAt(0) == '\"' && str.charAt(str.length() - 1) == '\"') {
+			return str.substring(1, str.length() - 1);
+		} else {
+			return str;
+		}
+	}
+
+	/**
+	 * The @RequestMapping fields of a class or method.
+	 */
+	static class ResolvedMapping {
+
+		private final String[] paths;
+		private final int httpMethodMask;
+		private final String[] params;
+		private final String[] headers;
+		private final String[] consumes;
+		private final String[] produces;
+
+		public ResolvedMapping(String[] paths, int httpMethodMask, String[] params, String[] headers,
+				String[] consumes, String[] produces) {
+			this.paths = paths;
+			this.httpMethodMask = httpMethodMask;
+			this.params = params;
+			this.headers = headers;
+			this.consumes = consumes;
+			this.produces = produces;
+		}
+
+		/**
+		 * Return a mapping with the values that are set in the annotation overriding ours.
+		 */
+		public ResolvedMapping withValues(AnnotationDesc annotation) {
+			ElementValuePair[] pairs = annotation.elementValues();
+			if (pairs == null || pairs.length == 0) {
+				return this;
+			}
+			Map<String, String[]> values = new LinkedHashMap<String, String[]>();
+			for (ElementValuePair pair : pairs) {
+				values.put(pair.element().name(), annotationValueStrings(pair.value()));
+			}
+			return withValues(values);
+		}
+
+		/**
+		 * Return a mapping with the annotation element values, already converted to strings, overriding ours.
+		 */
+		public ResolvedMapping withValues(Map<String, String[]> values) {
+			if (values.isEmpty()) {
+				return this;
+			}
+			String[] paths = this.paths;
+			int httpMethodMask = this.httpMethodMask;
+			String[] params = this.params;
+			String[] headers = this.headers;
+			String[] consumes = this.consumes;
+			String[] produces = this.produces;
+			for (Entry<String, String[]> entry : values.entrySet()) {
+				String name = entry.getKey();
+				// @RequestMapping(value = { "/auth/oauth" }) or path = ...
+				if ("value".equals(name) || "path".equals(name)) {
+					paths = entry.getValue();
+				} else if ("method".equals(name)) {
+					// @RequestMapping(method = { RequestMethod.GET })
+					httpMethodMask = HttpMethod.toMask(entry.getValue());
+				} else if ("params".equals(name)) {
+					// @RequestMapping(params = { "schoolId", "user=12234" })
+					params = entry.getValue();
+				} else if ("headers".equals(name)) {
+					// @RequestMapping(headers = { "content-type=text/*" })
+					headers = entry.getValue();
+				} else if ("consumes".equals(name)) {
+					// @RequestMapping(consumes = { "content-type=application/json" })
+					consumes = entry.getValue();
+				} else if ("produces".equals(name)) {
+					// @RequestMapping(produces = { "content-type=text/plain" })
+					produces = entry.getValue();
+				}
+			}
+			return new ResolvedMapping(paths, httpMethodMask, params, headers, consumes, produces);
+		}
+
+		public String[] getPaths() {
+			return paths;
+		}
+
+		public int getHttpMethodMask() {
+			return httpMethodMask;
+		}
+
+		public String[] getParams() {
+			return params;
+		}
+
+		public String[] getHeaders() {
+			return headers;
+		}
+
+		public String[] getConsumes() {
+			return consumes;
+		}
+
+		public String[] getProduces() {
+			return produces;
+		}
+	}
+}
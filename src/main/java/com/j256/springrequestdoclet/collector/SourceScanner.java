@@ -0,0 +1,1011 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedAnnotation;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedFile;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedMethod;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedParam;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedType;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.Token;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.TokenKind;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.TypeRef;
+import com.j256.springrequestdoclet.collector.RequestMappingResolver.ResolvedMapping;
+import com.j256.springrequestdoclet.concurrent.WorkerExecutors;
+
+/**
+ * Builds the end-points straight from the java source files without running javadoc. Javadoc has to attribute every
+ * class, and load everything they reference from the classpath, before the doclet sees any of them which is most of
+ * the time of a documentation run over a large code base. Instead this reads the source files in parallel, skips
+ * without parsing the ones that neither mention a mapping annotation nor extend or implement a type that they might
+ * inherit mappings from, and parses the declarations of the rest with a {@link JavaSourceParser}. The classes are then
+ * processed like the {@link EndPointCollector} does and the end-points are added to it.
+ *
+ * <p>
+ * This works from the sources alone so it is an approximation of what javadoc does. Request and response types are
+ * only documented if their sources are in the scanned directories, spring's annotations are matched by name, and
+ * overridden methods are matched by their name and parameter types without full type attribution.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class SourceScanner {
+
+	private static final String JAVA_SUFFIX = ".java";
+	/** same token as the -controllers-only filter uses, it is ascii so the bytes can be searched directly */
+	private static final byte[] MAPPING_TOKEN_BYTES = { 'M', 'a', 'p', 'p', 'i', 'n', 'g' };
+	/** classes that extend or implement other types may inherit their mappings so their files are parsed too */
+	private static final byte[] EXTENDS_TOKEN_BYTES = { 'e', 'x', 't', 'e', 'n', 'd', 's' };
+	private static final byte[] IMPLEMENTS_TOKEN_BYTES = { 'i', 'm', 'p', 'l', 'e', 'm', 'e', 'n', 't', 's' };
+	private static final String REQUEST_MAPPING_ANNOTATION_NAME = "RequestMapping";
+	private static final String REQUEST_BODY_ANNOTATION_NAME = "RequestBody";
+	private static final Set<String> PRIMITIVE_TYPE_NAMES = new HashSet<String>(Arrays.asList("boolean", "byte",
+			"char", "short", "int", "long", "float", "double", "void"));
+	/** limit on the constants that refer to other constants to stop loops */
+	private static final int MAX_CONSTANT_DEPTH = 20;
+	/** cache entry for types and annotation types that do not have a mapping */
+	private static final ResolvedMapping NO_MAPPING = new ResolvedMapping(null, 0, null, null, null, null);
+
+	private final EndPointCollector collector;
+	private final StringPool stringPool;
+	private final ScannedEndPointBuilder endPointBuilder;
+	private final int threadCount;
+	private final Charset charset;
+
+	/** qualified name -> type of all of the types that have been parsed */
+	private final Map<String, ParsedType> typeMap = new HashMap<String, ParsedType>();
+	/** file name without the suffix -> files that were skipped and may be parsed later if we need their types */
+	private final Map<String, List<File>> skippedFileMap = new HashMap<String, List<File>>();
+	private final Map<String, ResolvedMapping> classMappingCache = new HashMap<String, ResolvedMapping>();
+	private final Map<String, ResolvedMapping> annotationMappingCache = new HashMap<String, ResolvedMapping>();
+	private final Map<String, List<ScannedMethod>> mappedMethodsCache = new HashMap<String, List<ScannedMethod>>();
+	private int fileCount;
+	private int parsedFileCount;
+
+	/**
+	 * @param collector
+	 *            Collector that the end-points are added to.
+	 * @param threadCount
+	 *            Number of threads that read and parse the files. On JVMs with virtual threads each file is read and
+	 *            parsed on its own virtual thread instead, see {@link WorkerExecutors}.
+	 * @param charset
+	 *            Encoding of the source files which must be a superset of ascii.
+	 */
+	public SourceScanner(EndPointCollector collector, int threadCount, Charset charset) {
+		this.collector = collector;
+		this.stringPool = collector.getStringPool();
+		this.endPointBuilder = new ScannedEndPointBuilder(stringPool);
+		this.threadCount = threadCount;
+		this.charset = charset;
+	}
+
+	/**
+	 * Scan the java files in the directories and their sub-directories and add their end-points to the collector.
+	 */
+	public void scan(List<File> sourceDirs) throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (File sourceDir : sourceDirs) {
+			findJavaFiles(sourceDir, files);
+		}
+		// sorted so the results don't depend on the order of the directory listings
+		Collections.sort(files);
+		fileCount += files.size();
+
+		List<ParsedFile> parsedFiles = readFiles(files);
+		List<ParsedType> types = new ArrayList<ParsedType>();
+		for (ParsedFile parsedFile : parsedFiles) {
+			addTypes(parsedFile.types, types);
+		}
+
+		// the classes are processed in name order, the types that they reference may be parsed lazily along the way
+		Map<String, ParsedType> sortedTypeMap = new TreeMap<String, ParsedType>();
+		for (ParsedType type : types) {
+			sortedTypeMap.put(type.getQualifiedName(), type);
+		}
+		for (ParsedType type : sortedTypeMap.values()) {
+			if (!"@interface".equals(type.kind)) {
+				handleClass(type);
+				collector.classFinished();
+			}
+		}
+	}
+
+	/**
+	 * Number of java files that were found in the source directories.
+	 */
+	public int getFileCount() {
+		return fileCount;
+	}
+
+	/**
+	 * Number of java files that were parsed. The others were skipped because they don't mention a mapping annotation
+	 * and don't extend or implement anything.
+	 */
+	public int getParsedFileCount() {
+		return parsedFileCount;
+	}
+
+	private void findJavaFiles(File dir, List<File> files) {
+		File[] dirFiles = dir.listFiles();
+		if (dirFiles == null) {
+			return;
+		}
+		for (File file : dirFiles) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				findJavaFiles(file, files);
+			} else if (name.endsWith(JAVA_SUFFIX) && name.indexOf('-') < 0) {
+				// package-info.java and module-info.java don't have any classes
+				files.add(file);
+			}
+		}
+	}
+
+	/**
+	 * Read the files in parallel and parse the ones that might have mappings.
+	 */
+	private List<ParsedFile> readFiles(List<File> files) throws IOException {
+		ExecutorService executor = WorkerExecutors.newExecutor(threadCount);
+		try {
+			List<Future<ParsedFile>> futures = new ArrayList<Future<ParsedFile>>(files.size());
+			for (File file : files) {
+				futures.add(executor.submit(new FileReader(file)));
+			}
+			List<ParsedFile> parsedFiles = new ArrayList<ParsedFile>();
+			for (int i = 0; i < futures.size(); i++) {
+				ParsedFile parsedFile;
+				try {
+					parsedFile = futures.get(i).get();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while reading " + files.get(i));
+				} catch (ExecutionException ee) {
+					if (ee.getCause() instanceof IOException) {
+						throw (IOException) ee.getCause();
+					} else {
+						throw new IOException("Could not parse " + files.get(i), ee.getCause());
+					}
+				}
+				if (parsedFile == null) {
+					addSkippedFile(files.get(i));
+				} else {
+					addParsedFile(parsedFile);
+					parsedFiles.add(parsedFile);
+				}
+			}
+			return parsedFiles;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void addSkippedFile(File file) {
+		String name = file.getName();
+		name = name.substring(0, name.length() - JAVA_SUFFIX.length());
+		List<File> skippedFiles = skippedFileMap.get(name);
+		if (skippedFiles == null) {
+			skippedFiles = new ArrayList<File>(1);
+			skippedFileMap.put(name, skippedFiles);
+		}
+		skippedFiles.add(file);
+	}
+
+	private void addParsedFile(ParsedFile parsedFile) {
+		parsedFileCount++;
+		List<ParsedType> types = new ArrayList<ParsedType>();
+		addTypes(parsedFile.types, types);
+		for (ParsedType type : types) {
+			typeMap.put(type.getQualifiedName(), type);
+		}
+	}
+
+	private void addTypes(List<ParsedType> types, List<ParsedType> results) {
+		for (ParsedType type : types) {
+			results.add(type);
+			addTypes(type.nestedTypes, results);
+		}
+	}
+
+	/**
+	 * Parse the skipped files with the simple name in case one of them has the type that we are looking for.
+	 */
+	private void parseSkippedFiles(String simpleName) throws IOException {
+		List<File> skippedFiles = skippedFileMap.remove(simpleName);
+		if (skippedFiles == null) {
+			return;
+		}
+		for (File file : skippedFiles) {
+			String source = new String(Files.readAllBytes(file.toPath()), charset);
+			addParsedFile(JavaSourceParser.parse(file, source));
+		}
+	}
+
+	/**
+	 * Process the class like {@link EndPointCollector#processClass} does.
+	 */
+	private void handleClass(ParsedType type) throws IOException {
+		ResolvedMapping requestMapping = findClassMapping(type);
+		if (requestMapping == null) {
+			return;
+		}
+		if (!type.isInterface() && !type.isAbstract()) {
+			addInheritedTypes(type, new HashSet<String>());
+		}
+		String[] paths = requestMapping.getPaths();
+		List<ScannedMethod> mappedMethods = findMappedMethods(type);
+		ClassInfo classInfo = new ClassInfo(type.getName(), type.getQualifiedName(), type.javaDoc,
+				EndPointCollector.javaDocFirstSentence(type.javaDoc), paths);
+		Set<String> methodNameSet = new HashSet<String>();
+		for (ScannedMethod mappedMethod : mappedMethods) {
+			handleMethod(classInfo, methodNameSet, mappedMethod);
+		}
+	}
+
+	/**
+	 * Record the interfaces and abstract classes that the concrete class inherits mapped methods from like the
+	 * collector does.
+	 */
+	private void addInheritedTypes(ParsedType type, Set<String> visitedTypeNames) throws IOException {
+		List<String> supertypeNames = new ArrayList<String>(type.interfaces);
+		if (type.superclass != null) {
+			supertypeNames.add(type.superclass);
+		}
+		for (String supertypeName : supertypeNames) {
+			ParsedType supertype = resolveType(supertypeName, type);
+			// the sources may have loops which javac would reject
+			if (supertype != null && visitedTypeNames.add(supertype.getQualifiedName())
+					&& !findMappedMethods(supertype).isEmpty()) {
+				if (supertype.isInterface() || supertype.isAbstract()) {
+					collector.addInheritedType(supertype.getQualifiedName());
+				}
+				addInheritedTypes(supertype, visitedTypeNames);
+			}
+		}
+	}
+
+	private void handleMethod(ClassInfo classInfo, Set<String> methodNameSet, ScannedMethod mappedMethod)
+			throws IOException {
+
+		ParsedMethod method = mappedMethod.method;
+		ResolvedMapping requestMapping = mappedMethod.mapping;
+		String methodJavaDoc = mappedMethod.getJavaDoc();
+		List<ParsedMethod> declarations = mappedMethod.getDeclarations();
+
+		List<ParamInfo> paramInfos = new ArrayList<ParamInfo>();
+		ContentsInfo requestInfo = null;
+		for (int i = 0; i < method.params.size(); i++) {
+			ParsedParam param = method.params.get(i);
+			ScannedAnnotations annotations = mappedMethod.getParamAnnotations(i);
+			ParamInfo paramInfo = handleParam(param, method.owner, annotations, findParamDocs(declarations, i));
+			if (paramInfo != null) {
+				paramInfos.add(paramInfo);
+			}
+			if (requestInfo == null
+					&& findAnnotation(annotations.annotations, REQUEST_BODY_ANNOTATION_NAME) != null) {
+				requestInfo = ContentsInfo.fromRequestBody(stringPool.intern(param.name),
+						generateTypeName(param.type, method.owner), generateQualifiedTypeName(param.type, method.owner),
+						findParamDocs(declarations, i), extractFieldInfos(param.type, method.owner));
+			}
+		}
+
+		ContentsInfo responseInfo = null;
+		if (!"void".equals(method.returnType.name)) {
+			responseInfo = ContentsInfo.fromResponse(generateTypeName(method.returnType, method.owner),
+					generateQualifiedTypeName(method.returnType, method.owner),
+					EndPointCollector.extractReturnDocs(methodJavaDoc), extractFieldInfos(method.returnType,
+							method.owner));
+		}
+
+		MethodInfo methodInfo = endPointBuilder.buildMethodInfo(method.name, methodNameSet, methodJavaDoc,
+				requestMapping, paramInfos, requestInfo, responseInfo);
+		collector.addMethod(classInfo, methodInfo);
+	}
+
+	/**
+	 * Process the annotations of a method parameter like the collector does.
+	 */
+	private ParamInfo handleParam(ParsedParam param, ParsedType owner, ScannedAnnotations annotations, String javaDoc)
+			throws IOException {
+		return endPointBuilder.buildParamInfo(param.name, generateTypeName(param.type, owner), annotations, javaDoc);
+	}
+
+	private ParsedAnnotation findAnnotation(List<ParsedAnnotation> annotations, String annotationName) {
+		for (ParsedAnnotation annotation : annotations) {
+			if (annotationName.equals(annotation.simpleName)) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find the value of the annotation field or null if the annotation is null or the field is not set.
+	 */
+	private String findAnnotationFieldValue(ParsedAnnotation annotation, ParsedType context, String fieldName)
+			throws IOException {
+		if (annotation == null) {
+			return null;
+		}
+		List<List<Token>> value = annotation.values.get(fieldName);
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		return evaluate(value.get(0), context);
+	}
+
+	/**
+	 * Find the @param docs for the parameter at the index from the first of the declarations that has them.
+	 */
+	private String findParamDocs(List<ParsedMethod> declarations, int paramIndex) {
+		for (ParsedMethod declaration : declarations) {
+			if (paramIndex < declaration.params.size()) {
+				String javaDoc = EndPointCollector.extractParamDocs(declaration.javaDoc,
+						declaration.params.get(paramIndex).name);
+				if (javaDoc != null) {
+					return javaDoc;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Extract the field information from the getters of the type if we have its source.
+	 */
+	private List<FieldInfo> extractFieldInfos(TypeRef typeRef, ParsedType context) throws IOException {
+		if (PRIMITIVE_TYPE_NAMES.contains(typeRef.name)) {
+			return null;
+		}
+		ParsedType type = resolveType(typeRef.name, context);
+		if (type == null) {
+			// the core objects and library types which we don't have the sources for
+			return null;
+		}
+		if (EndPointCollector.isCoreType(type.getName())) {
+			return null;
+		}
+		List<FieldInfo> fieldInfos = new ArrayList<FieldInfo>(type.methods.size());
+		for (ParsedMethod method : type.methods) {
+			if (!method.documented) {
+				continue;
+			}
+			String methodName = method.name;
+			String fieldName = null;
+			if (methodName.startsWith("get") && methodName.length() > 3) {
+				fieldName = Character.toLowerCase(methodName.charAt(3)) + methodName.substring(4);
+			} else if (methodName.startsWith("is") && methodName.length() > 2) {
+				fieldName = Character.toLowerCase(methodName.charAt(2)) + methodName.substring(3);
+			}
+			if (fieldName != null) {
+				fieldInfos.add(new FieldInfo(stringPool.intern(fieldName), generateTypeName(method.returnType, type),
+						EndPointCollector.javaDocFirstSentence(method.javaDoc)));
+			}
+		}
+		return fieldInfos;
+	}
+
+	/**
+	 * Generate the pooled type name, like javadoc's, which has the names of any outer classes but not the package.
+	 */
+	private String generateTypeName(TypeRef typeRef, ParsedType context) throws IOException {
+		String typeName;
+		ParsedType type = null;
+		if (!PRIMITIVE_TYPE_NAMES.contains(typeRef.name)) {
+			type = resolveType(typeRef.name, context);
+		}
+		if (type != null) {
+			typeName = type.getName();
+		} else {
+			// drop the package segments which start with lowercase letters
+			typeName = typeRef.name;
+			int start = 0;
+			while (start < typeName.length() && Character.isLowerCase(typeName.charAt(start))) {
+				int index = typeName.indexOf('.', start);
+				if (index < 0) {
+					break;
+				}
+				start = index + 1;
+			}
+			typeName = typeName.substring(start);
+		}
+		return stringPool.intern(typeName + typeRef.dimension);
+	}
+
+	/**
+	 * Generate the pooled type name with its package if we have the source of the type otherwise the name as written.
+	 */
+	private String generateQualifiedTypeName(TypeRef typeRef, ParsedType context) throws IOException {
+		ParsedType type = null;
+		if (!PRIMITIVE_TYPE_NAMES.contains(typeRef.name)) {
+			type = resolveType(typeRef.name, context);
+		}
+		String typeName = (type == null ? typeRef.name : type.getQualifiedName());
+		return stringPool.intern(typeName + typeRef.dimension);
+	}
+
+	/**
+	 * Resolve the type name as written in the context of the type using its outer types, the imports of its file, its
+	 * package, and the wildcard imports.
+	 *
+	 * @return The type or null if we don't have its source.
+	 */
+	private ParsedType resolveType(String name, ParsedType context) throws IOException {
+		int index = name.indexOf('.');
+		String first = (index < 0 ? name : name.substring(0, index));
+		ParsedType type = null;
+		for (ParsedType current = context; current != null && type == null; current = current.outer) {
+			if (current.simpleName.equals(first)) {
+				type = current;
+			} else {
+				type = current.findNestedType(first);
+			}
+		}
+		ParsedFile file = context.file;
+		if (type == null) {
+			for (ParsedType fileType : file.types) {
+				if (fileType.simpleName.equals(first)) {
+					type = fileType;
+					break;
+				}
+			}
+		}
+		if (type == null) {
+			String importName = file.imports.get(first);
+			if (importName != null) {
+				type = findQualifiedType(importName);
+			} else {
+				type = findQualifiedType(qualify(file.packageName, first));
+				for (int i = 0; type == null && i < file.wildcardImports.size(); i++) {
+					type = findQualifiedType(file.wildcardImports.get(i) + '.' + first);
+				}
+			}
+		}
+		if (type == null) {
+			// may be a fully qualified name
+			return (index < 0 ? null : findQualifiedType(name));
+		}
+		while (index >= 0 && type != null) {
+			int nextIndex = name.indexOf('.', index + 1);
+			type = type.findNestedType(nextIndex < 0 ? name.substring(index + 1) : name.substring(index + 1,
+					nextIndex));
+			index = nextIndex;
+		}
+		return type;
+	}
+
+	/**
+	 * Find the type with the qualified name parsing any of the skipped files that may hold it.
+	 */
+	private ParsedType findQualifiedType(String qualifiedName) throws IOException {
+		ParsedType type = typeMap.get(qualifiedName);
+		if (type != null || skippedFileMap.isEmpty()) {
+			return type;
+		}
+		// we don't know which segments are the package so we try each of them as the file name
+		for (String segment : qualifiedName.split("\\.")) {
+			if (!segment.isEmpty() && Character.isUpperCase(segment.charAt(0))) {
+				parseSkippedFiles(segment);
+			}
+		}
+		return typeMap.get(qualifiedName);
+	}
+
+	private static String qualify(String packageName, String name) {
+		if (packageName.isEmpty()) {
+			return name;
+		} else {
+			return packageName + '.' + name;
+		}
+	}
+
+	/**
+	 * Find the class-level mapping of the type or from its superclasses and then its interfaces like
+	 * {@link MappingHierarchy}.
+	 */
+	private ResolvedMapping findClassMapping(ParsedType type) throws IOException {
+		String key = type.getQualifiedName();
+		ResolvedMapping mapping = classMappingCache.get(key);
+		if (mapping == null) {
+			// put in first in case of loops
+			classMappingCache.put(key, NO_MAPPING);
+			mapping = resolveMapping(type.annotations, type);
+			if (mapping == null && type.superclass != null) {
+				ParsedType superclass = resolveType(type.superclass, type);
+				if (superclass != null) {
+					mapping = findClassMapping(superclass);
+				}
+			}
+			for (int i = 0; mapping == null && i < type.interfaces.size(); i++) {
+				ParsedType interfaceType = resolveType(type.interfaces.get(i), type);
+				if (interfaceType != null) {
+					mapping = findClassMapping(interfaceType);
+				}
+			}
+			classMappingCache.put(key, (mapping == null ? NO_MAPPING : mapping));
+		}
+		if (mapping == NO_MAPPING) {
+			return null;
+		} else {
+			return mapping;
+		}
+	}
+
+	/**
+	 * Find the mapped methods of the type including the inherited ones like {@link MappingHierarchy}.
+	 */
+	private List<ScannedMethod> findMappedMethods(ParsedType type) throws IOException {
+		String key = type.getQualifiedName();
+		List<ScannedMethod> mappedMethods = mappedMethodsCache.get(key);
+		if (mappedMethods != null) {
+			return mappedMethods;
+		}
+		// put in first in case of loops
+		mappedMethodsCache.put(key, Collections.<ScannedMethod> emptyList());
+
+		List<ScannedMethod> inherited = new ArrayList<ScannedMethod>();
+		if (type.superclass != null) {
+			ParsedType superclass = resolveType(type.superclass, type);
+			if (superclass != null) {
+				addInherited(inherited, findMappedMethods(superclass));
+			}
+		}
+		for (String interfaceName : type.interfaces) {
+			ParsedType interfaceType = resolveType(interfaceName, type);
+			if (interfaceType != null) {
+				addInherited(inherited, findMappedMethods(interfaceType));
+			}
+		}
+
+		mappedMethods = new ArrayList<ScannedMethod>();
+		for (ParsedMethod method : type.methods) {
+			if (!method.documented) {
+				continue;
+			}
+			ResolvedMapping mapping = resolveMapping(method.annotations, type);
+			ScannedMethod overridden = removeOverridden(inherited, method);
+			if (mapping != null) {
+				mappedMethods.add(new ScannedMethod(method, mapping, overridden));
+			} else if (overridden != null) {
+				mappedMethods.add(new ScannedMethod(method, overridden.mapping, overridden));
+			}
+		}
+		mappedMethods.addAll(inherited);
+
+		if (mappedMethods.isEmpty()) {
+			mappedMethods = Collections.emptyList();
+		}
+		mappedMethodsCache.put(key, mappedMethods);
+		return mappedMethods;
+	}
+
+	private void addInherited(List<ScannedMethod> inherited, List<ScannedMethod> candidates) {
+		OUTER: for (ScannedMethod candidate : candidates) {
+			for (ScannedMethod existing : inherited) {
+				if (existing.method == candidate.method || overrides(existing.method, candidate.method)) {
+					continue OUTER;
+				}
+			}
+			inherited.add(candidate);
+		}
+	}
+
+	private ScannedMethod removeOverridden(List<ScannedMethod> inherited, ParsedMethod method) {
+		Iterator<ScannedMethod> iterator = inherited.iterator();
+		while (iterator.hasNext()) {
+			ScannedMethod mappedMethod = iterator.next();
+			if (overrides(method, mappedMethod.method)) {
+				iterator.remove();
+				return mappedMethod;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Approximates javadoc's override check by the method name and the simple names of the parameter types. Names
+	 * which look like type variables match any type since we don't attribute the generic supertypes.
+	 */
+	private boolean overrides(ParsedMethod method, ParsedMethod other) {
+		if (!method.name.equals(other.name) || method.params.size() != other.params.size()) {
+			return false;
+		}
+		for (int i = 0; i < method.params.size(); i++) {
+			TypeRef type = method.params.get(i).type;
+			TypeRef otherType = other.params.get(i).type;
+			if (isTypeVariable(type.name) || isTypeVariable(otherType.name)) {
+				continue;
+			}
+			if (!simpleName(type.name).equals(simpleName(otherType.name)) || !type.dimension.equals(
+					otherType.dimension)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isTypeVariable(String name) {
+		return (name.length() <= 2 && Character.isUpperCase(name.charAt(0)));
+	}
+
+	private static String simpleName(String name) {
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * Look through the annotations for @RequestMapping, one of spring's composed annotations, or an annotation whose
+	 * source we have which is meta-annotated with one of them.
+	 *
+	 * @return The mapping or null if none of the annotations are mappings.
+	 */
+	private ResolvedMapping resolveMapping(List<ParsedAnnotation> annotations, ParsedType context)
+			throws IOException {
+		for (ParsedAnnotation annotation : annotations) {
+			ResolvedMapping typeMapping = findAnnotationMapping(annotation, context, new HashSet<String>());
+			if (typeMapping != null) {
+				return typeMapping.withValues(evaluateValues(annotation, context));
+			}
+		}
+		return null;
+	}
+
+	private ResolvedMapping findAnnotationMapping(ParsedAnnotation annotation, ParsedType context,
+			Set<String> visitingSet) throws IOException {
+		if (REQUEST_MAPPING_ANNOTATION_NAME.equals(annotation.simpleName)) {
+			return RequestMappingResolver.findSpringMapping(annotation.simpleName);
+		}
+		ParsedType annotationType = resolveType(annotation.name, context);
+		if (annotationType == null || !"@interface".equals(annotationType.kind)) {
+			return RequestMappingResolver.findSpringMapping(annotation.simpleName);
+		}
+		String key = annotationType.getQualifiedName();
+		ResolvedMapping mapping = annotationMappingCache.get(key);
+		if (mapping == null) {
+			if (!visitingSet.add(key)) {
+				// annotations which are annotated with themselves
+				return null;
+			}
+			for (ParsedAnnotation metaAnnotation : annotationType.annotations) {
+				ResolvedMapping metaMapping = findAnnotationMapping(metaAnnotation, annotationType, visitingSet);
+				if (metaMapping != null) {
+					mapping = metaMapping.withValues(evaluateValues(metaAnnotation, annotationType));
+					break;
+				}
+			}
+			if (mapping == null) {
+				mapping = RequestMappingResolver.findSpringMapping(annotation.simpleName);
+			}
+			annotationMappingCache.put(key, (mapping == null ? NO_MAPPING : mapping));
+		}
+		if (mapping == NO_MAPPING) {
+			return null;
+		} else {
+			return mapping;
+		}
+	}
+
+	/**
+	 * Evaluate the element values of the annotation into strings.
+	 */
+	private Map<String, String[]> evaluateValues(ParsedAnnotation annotation, ParsedType context) throws IOException {
+		Map<String, String[]> values = new LinkedHashMap<String, String[]>();
+		for (Map.Entry<String, List<List<Token>>> entry : annotation.values.entrySet()) {
+			List<List<Token>> expressions = entry.getValue();
+			String[] strings = new String[expressions.size()];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = evaluate(expressions.get(i), context);
+			}
+			values.put(entry.getKey(), strings);
+		}
+		return values;
+	}
+
+	/**
+	 * Evaluate the expression into a string. String constants and concatenations are evaluated and other expressions,
+	 * such as enum values like RequestMethod.GET, are returned as written.
+	 */
+	private String evaluate(List<Token> expression, ParsedType context) throws IOException {
+		String value = evaluateConstant(expression, context, 0);
+		if (value != null) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Token token : expression) {
+			sb.append(token.text);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Evaluate a constant string expression.
+	 *
+	 * @return The value or null if it is not a constant that we can evaluate.
+	 */
+	private String evaluateConstant(List<Token> expression, ParsedType context, int depth) throws IOException {
+		if (depth > MAX_CONSTANT_DEPTH || expression.isEmpty()) {
+			return null;
+		}
+		int size = expression.size();
+		if (size > 2 && isPunct(expression.get(0), "(") && isPunct(expression.get(size - 1), ")")) {
+			expression = expression.subList(1, size - 1);
+			size -= 2;
+		}
+
+		// split the concatenations
+		int parenDepth = 0;
+		int start = 0;
+		StringBuilder sb = null;
+		for (int i = 0; i < size; i++) {
+			Token token = expression.get(i);
+			if (isPunct(token, "(")) {
+				parenDepth++;
+			} else if (isPunct(token, ")")) {
+				parenDepth--;
+			} else if (parenDepth == 0 && isPunct(token, "+")) {
+				String part = evaluateConstant(expression.subList(start, i), context, depth);
+				if (part == null) {
+					return null;
+				}
+				if (sb == null) {
+					sb = new StringBuilder();
+				}
+				sb.append(part);
+				start = i + 1;
+			}
+		}
+		if (sb != null) {
+			String part = evaluateConstant(expression.subList(start, size), context, depth);
+			if (part == null) {
+				return null;
+			}
+			return sb.append(part).toString();
+		}
+
+		Token first = expression.get(0);
+		if (size == 1 && first.kind == TokenKind.STRING) {
+			return stringLiteral(first.text);
+		} else if (size == 1 && (first.kind == TokenKind.CHAR || first.kind == TokenKind.NUMBER)) {
+			return (first.kind == TokenKind.CHAR ? first.text.substring(1, first.text.length() - 1) : first.text);
+		}
+
+		// a constant name such as NAME or SomeClass.NAME
+		StringBuilder nameSb = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			Token token = expression.get(i);
+			if (i % 2 == 0 ? token.kind != TokenKind.IDENT : !isPunct(token, ".")) {
+				return null;
+			}
+			nameSb.append(token.text);
+		}
+		if (size % 2 == 0) {
+			return null;
+		}
+		String name = nameSb.toString();
+		int index = name.lastIndexOf('.');
+		if (index < 0) {
+			for (ParsedType current = context; current != null; current = current.outer) {
+				ParsedType owner = findConstantOwner(current, name, 0);
+				if (owner != null) {
+					return evaluateConstant(owner.constants.get(name), owner, depth + 1);
+				}
+			}
+			ParsedFile file = context.file;
+			String staticImport = file.staticImports.get(name);
+			if (staticImport != null) {
+				return evaluateStaticConstant(staticImport.substring(0, staticImport.lastIndexOf('.')), name, depth);
+			}
+			for (String typeName : file.staticWildcardImports) {
+				String value = evaluateStaticConstant(typeName, name, depth);
+				if (value != null) {
+					return value;
+				}
+			}
+			return null;
+		}
+		ParsedType type = resolveType(name.substring(0, index), context);
+		if (type == null) {
+			return null;
+		}
+		String fieldName = name.substring(index + 1);
+		ParsedType owner = findConstantOwner(type, fieldName, 0);
+		if (owner == null) {
+			return null;
+		} else {
+			return evaluateConstant(owner.constants.get(fieldName), owner, depth + 1);
+		}
+	}
+
+	private String evaluateStaticConstant(String qualifiedTypeName, String name, int depth) throws IOException {
+		ParsedType type = findQualifiedType(qualifiedTypeName);
+		if (type == null) {
+			return null;
+		}
+		ParsedType owner = findConstantOwner(type, name, 0);
+		if (owner == null) {
+			return null;
+		} else {
+			return evaluateConstant(owner.constants.get(name), owner, depth + 1);
+		}
+	}
+
+	/**
+	 * Find the type that declares the constant looking in the type and then its supertypes.
+	 */
+	private ParsedType findConstantOwner(ParsedType type, String name, int depth) throws IOException {
+		if (type.constants.containsKey(name)) {
+			return type;
+		}
+		if (depth > MAX_CONSTANT_DEPTH) {
+			return null;
+		}
+		List<String> superNames = new ArrayList<String>(type.interfaces);
+		if (type.superclass != null) {
+			superNames.add(0, type.superclass);
+		}
+		for (String superName : superNames) {
+			ParsedType superType = resolveType(superName, type);
+			if (superType != null) {
+				ParsedType owner = findConstantOwner(superType, name, depth + 1);
+				if (owner != null) {
+					return owner;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isPunct(Token token, String text) {
+		return (token.kind == TokenKind.PUNCT && token.text.equals(text));
+	}
+
+	/**
+	 * Return the contents of the string literal or text block as written without the quotes.
+	 */
+	private static String stringLiteral(String literal) {
+		if (literal.startsWith("\"\"\"")) {
+			// text block, skip the line terminator after the opening quotes
+			int start = literal.indexOf('\n') + 1;
+			return literal.substring(start, literal.length() - 3);
+		} else {
+			return literal.substring(1, literal.length() - 1);
+		}
+	}
+
+	/**
+	 * Reads one of the source files and parses it if it might have any mappings.
+	 */
+	private class FileReader implements Callable<ParsedFile> {
+
+		private final File file;
+
+		public FileReader(File file) {
+			this.file = file;
+		}
+
+		@Override
+		public ParsedFile call() throws IOException {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			if (!containsToken(bytes, MAPPING_TOKEN_BYTES) && !containsToken(bytes, EXTENDS_TOKEN_BYTES)
+					&& !containsToken(bytes, IMPLEMENTS_TOKEN_BYTES)) {
+				return null;
+			}
+			return JavaSourceParser.parse(file, new String(bytes, charset));
+		}
+
+		private boolean containsToken(byte[] bytes, byte[] token) {
+			byte first = token[0];
+			int last = bytes.length - token.length;
+			OUTER: for (int i = 0; i <= last; i++) {
+				if (bytes[i] != first) {
+					continue;
+				}
+				for (int j = 1; j < token.length; j++) {
+					if (bytes[i + j] != token[j]) {
+						continue OUTER;
+					}
+				}
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Builds the end-points from the annotations that we have parsed.
+	 */
+	private class ScannedEndPointBuilder extends EndPointBuilder<ScannedAnnotations, ParsedAnnotation> {
+
+		public ScannedEndPointBuilder(StringPool stringPool) {
+			super(stringPool);
+		}
+
+		@Override
+		protected ParsedAnnotation findAnnotation(ScannedAnnotations annotations, String annotationName) {
+			return SourceScanner.this.findAnnotation(annotations.annotations, annotationName);
+		}
+
+		@Override
+		protected String findAnnotationFieldValue(ScannedAnnotations annotations, ParsedAnnotation annotation,
+				String fieldName) throws IOException {
+			return SourceScanner.this.findAnnotationFieldValue(annotation, annotations.context, fieldName);
+		}
+	}
+
+	/**
+	 * Annotations of a parameter along with the type whose source they were written in so their constants can be
+	 * evaluated.
+	 */
+	private static class ScannedAnnotations {
+
+		final List<ParsedAnnotation> annotations;
+		final ParsedType context;
+
+		public ScannedAnnotations(List<ParsedAnnotation> annotations, ParsedType context) {
+			this.annotations = annotations;
+			this.context = context;
+		}
+	}
+
+	/**
+	 * A mapped method along with the chain of declarations that it overrides like {@link MappingHierarchy.MappedMethod}.
+	 */
+	private static class ScannedMethod {
+
+		final ParsedMethod method;
+		final ResolvedMapping mapping;
+		final ScannedMethod overridden;
+
+		public ScannedMethod(ParsedMethod method, ResolvedMapping mapping, ScannedMethod overridden) {
+			this.method = method;
+			this.mapping = mapping;
+			this.overridden = overridden;
+		}
+
+		public String getJavaDoc() {
+			ScannedMethod current = this;
+			while (current.overridden != null && current.method.javaDoc.isEmpty()) {
+				current = current.overridden;
+			}
+			return current.method.javaDoc;
+		}
+
+		public List<ParsedMethod> getDeclarations() {
+			List<ParsedMethod> declarations = new ArrayList<ParsedMethod>(2);
+			for (ScannedMethod current = this; current != null; current = current.overridden) {
+				declarations.add(current.method);
+			}
+			return declarations;
+		}
+
+		public ScannedAnnotations getParamAnnotations(int paramIndex) {
+			ScannedAnnotations annotations = null;
+			for (ScannedMethod current = this; current != null; current = current.overridden) {
+				List<ParsedParam> params = current.method.params;
+				if (paramIndex < params.size()) {
+					annotations = new ScannedAnnotations(params.get(paramIndex).annotations, current.method.owner);
+					if (!annotations.annotations.isEmpty()) {
+						break;
+					}
+				}
+			}
+			return annotations;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-run pool of strings so that the type names, media types, and header names that are repeated across thousands of
+ * end-points are only held in memory once. This is used instead of {@link String#intern()} so the strings can be
+ * garbage collected after the run.
+ * 
+ * @author graywatson
+ */
+public class StringPool {
+
+	/** shared array used in place of all of the empty string arrays in the model */
+	public static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+	private final Map<String, String> poolMap = new HashMap<String, String>();
+	private long lookupCount;
+
+	/**
+	 * Return the pooled version of the string or null if the string is null.
+	 */
+	public String intern(String str) {
+		if (str == null) {
+			return null;
+		}
+		lookupCount++;
+		String pooled = poolMap.get(str);
+		if (pooled == null) {
+			poolMap.put(str, str);
+			pooled = str;
+		}
+		return pooled;
+	}
+
+	/**
+	 * Intern the strings in the array in place. Returns the shared empty array if the array has no entries or null if it
+	 * is null.
+	 */
+	public String[] intern(String[] strs) {
+		if (strs == null) {
+			return null;
+		}
+		if (strs.length == 0) {
+			return EMPTY_STRING_ARRAY;
+		}
+		for (int i = 0; i < strs.length; i++) {
+			strs[i] = intern(strs[i]);
+		}
+		return strs;
+	}
+
+	/**
+	 * Number of unique strings in the pool.
+	 */
+	public int size() {
+		return poolMap.size();
+	}
+
+	/**
+	 * Number of strings that have been passed to {@link #intern(String)}.
+	 */
+	public long getLookupCount() {
+		return lookupCount;
+	}
+}
@@ -0,0 +1,125 @@
+package com.j256.springrequestdoclet.concurrent;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Creates the executors that the collection and writing work is run on. On JDK 21 and later a virtual thread is started
+ * for each task so tasks that are blocked reading sources or writing pages don't tie up platform threads. The virtual
+ * thread executor is looked up through reflection, like the JFR events in
+ * {@link com.j256.springrequestdoclet.metrics.JfrEventType}, so the same jar still runs on older JVMs where a fixed pool
+ * of platform threads is used instead.
+ *
+ * <p>
+ * Virtual threads only take effect in the programs that don't run javadoc, such as the ScanMain and SnapshotMain
+ * programs, since the doclet needs the com.sun.javadoc API which was removed in JDK 13.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class WorkerExecutors {
+
+	private static final Method newVirtualThreadPerTaskExecutorMethod = findVirtualThreadPerTaskExecutorMethod();
+
+	/**
+	 * Return true if the JVM supports virtual threads.
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		return (newVirtualThreadPerTaskExecutorMethod != null);
+	}
+
+	/**
+	 * Return an executor which runs each task on its own virtual thread or a fixed pool of the number of platform threads
+	 * if the JVM does not support them.
+	 */
+	public static ExecutorService newExecutor(int threadCount) {
+		ExecutorService executor = newVirtualExecutor();
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(threadCount);
+		}
+		return executor;
+	}
+
+	/**
+	 * Return an executor which runs each task on its own virtual thread or null if the JVM does not support them. This is
+	 * for blocking I/O which should not share a fixed pool with the tasks that are waiting for it.
+	 */
+	public static ExecutorService newVirtualExecutor() {
+		if (newVirtualThreadPerTaskExecutorMethod == null) {
+			return null;
+		}
+		try {
+			return (ExecutorService) newVirtualThreadPerTaskExecutorMethod.invoke(null);
+		} catch (Exception e) {
+			// should not happen since we found the method
+			return null;
+		}
+	}
+
+	/**
+	 * Run the tasks on the executor and wait for all of them to finish. If the executor is null then the tasks are run
+	 * one after another in this thread.
+	 *
+	 * @throws IOException
+	 *             The first exception thrown by one of the tasks, after the rest have finished.
+	 */
+	public static void runAll(ExecutorService executor, List<? extends Callable<Void>> tasks) throws IOException {
+		if (executor == null) {
+			for (Callable<Void> task : tasks) {
+				try {
+					task.call();
+				} catch (IOException ioe) {
+					throw ioe;
+				} catch (RuntimeException re) {
+					throw re;
+				} catch (Exception e) {
+					throw new IOException("Task failed: " + e, e);
+				}
+			}
+			return;
+		}
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+		for (Callable<Void> task : tasks) {
+			futures.add(executor.submit(task));
+		}
+		IOException firstException = null;
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the tasks");
+			} catch (ExecutionException ee) {
+				if (firstException == null) {
+					if (ee.getCause() instanceof IOException) {
+						firstException = (IOException) ee.getCause();
+					} else {
+						firstException = new IOException("Task failed: " + ee.getCause(), ee.getCause());
+					}
+				}
+			}
+		}
+		if (firstException != null) {
+			throw firstException;
+		}
+	}
+
+	private static Method findVirtualThreadPerTaskExecutorMethod() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			// make sure that they are not a preview feature that is disabled
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		} catch (Throwable th) {
+			// older JVM so we use platform threads
+			return null;
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package com.j256.springrequestdoclet.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.writer.JsonWriter;
+
+/**
+ * Timings and counters that are recorded during a doclet run so we can see where the time goes. Enabled with the
+ * -metrics doclet option and optionally written as a JSON file with the -metrics-file option. The methods that are
+ * called while writing are synchronized since a number of writers may be running at the same time with -writers.
+ *
+ * @author graywatson
+ */
+public class DocletMetrics {
+
+	public static final int DEFAULT_SLOWEST_CLASS_COUNT = 10;
+
+	private static final double NANOS_IN_MILLIS = 1000000.0;
+
+	private final int slowestClassCount;
+	private final Map<String, Long> phaseNanosMap = new LinkedHashMap<String, Long>();
+	/** min-heap so the fastest of the slowest classes is the one that is removed */
+	private final PriorityQueue<ClassTiming> slowestClasses = new PriorityQueue<ClassTiming>();
+	private int classesFilteredCount;
+	private int classesScannedCount;
+	private int classesMatchedCount;
+	private long collectionNanos;
+	private int pathCount;
+	private int endPointCount;
+	private int pagesWrittenCount;
+	private long pageBytesWritten;
+	private int filesCopiedCount;
+	private long fileBytesCopied;
+
+	public DocletMetrics() {
+		this(DEFAULT_SLOWEST_CLASS_COUNT);
+	}
+
+	public DocletMetrics(int slowestClassCount) {
+		this.slowestClassCount = slowestClassCount;
+	}
+
+	/**
+	 * Add the time since the start nanos to the phase. Calling this multiple times for the same phase accumulates.
+	 */
+	public void phaseFinished(String phase, long startNanos) {
+		addPhaseNanos(phase, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Add the time in nanos to the phase.
+	 */
+	public synchronized void addPhaseNanos(String phase, long nanos) {
+		Long prev = phaseNanosMap.get(phase);
+		if (prev == null) {
+			phaseNanosMap.put(phase, nanos);
+		} else {
+			phaseNanosMap.put(phase, prev + nanos);
+		}
+	}
+
+	/**
+	 * Record the processing of a class by the collector.
+	 *
+	 * @param matched
+	 *            Whether or not the class had a request mapping.
+	 */
+	public void classProcessed(String className, boolean matched, long nanos) {
+		classesScannedCount++;
+		collectionNanos += nanos;
+		if (matched) {
+			classesMatchedCount++;
+		}
+		if (slowestClassCount <= 0) {
+			return;
+		}
+		if (slowestClasses.size() < slowestClassCount) {
+			slowestClasses.add(new ClassTiming(className, nanos));
+		} else if (slowestClasses.peek().nanos < nanos) {
+			slowestClasses.poll();
+			slowestClasses.add(new ClassTiming(className, nanos));
+		}
+	}
+
+	/**
+	 * Record a class that was skipped by the class filter.
+	 */
+	public void classFiltered() {
+		classesFilteredCount++;
+	}
+
+	/**
+	 * Count the paths and end-points that were collected.
+	 */
+	public void endPointsCollected(Map<String, List<EndPoint>> endPointMap) {
+		pathCount = endPointMap.size();
+		endPointCount = 0;
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			endPointCount += endPoints.size();
+		}
+	}
+
+	/**
+	 * Record the writing of a page of documentation.
+	 */
+	public synchronized void pageWritten(long numBytes) {
+		pagesWrittenCount++;
+		pageBytesWritten += numBytes;
+	}
+
+	/**
+	 * Record the copying of a file from the root documentation directory.
+	 */
+	public synchronized void fileCopied(long numBytes) {
+		filesCopiedCount++;
+		fileBytesCopied += numBytes;
+	}
+
+	/**
+	 * Print out the metrics in a human readable form.
+	 */
+	public void print(PrintStream out) {
+		out.println("Doclet metrics:");
+		for (Entry<String, Long> entry : phaseNanosMap.entrySet()) {
+			out.println("  phase " + entry.getKey() + ": " + toMillisString(entry.getValue()));
+		}
+		out.println("  classes filtered: " + classesFilteredCount + ", scanned: " + classesScannedCount + ", matched: "
+				+ classesMatchedCount + ", total class time: " + toMillisString(collectionNanos));
+		out.println("  paths: " + pathCount + ", end-points: " + endPointCount);
+		out.println("  pages written: " + pagesWrittenCount + " (" + pageBytesWritten + " bytes), files copied: "
+				+ filesCopiedCount + " (" + fileBytesCopied + " bytes)");
+		List<ClassTiming> slowest = getSlowestClasses();
+		if (!slowest.isEmpty()) {
+			out.println("  slowest classes:");
+			for (ClassTiming timing : slowest) {
+				out.println("    " + toMillisString(timing.nanos) + " " + timing.className);
+			}
+		}
+	}
+
+	/**
+	 * Write the metrics out as a JSON file.
+	 */
+	public void writeJson(File file) throws IOException {
+		JsonWriter json = new JsonWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			json.beginObject();
+			json.name("phasesMillis").beginObject();
+			for (Entry<String, Long> entry : phaseNanosMap.entrySet()) {
+				json.name(entry.getKey()).value(entry.getValue() / NANOS_IN_MILLIS);
+			}
+			json.endObject();
+			json.name("classesFiltered").value(classesFilteredCount);
+			json.name("classesScanned").value(classesScannedCount);
+			json.name("classesMatched").value(classesMatchedCount);
+			json.name("classTimeMillis").value(collectionNanos / NANOS_IN_MILLIS);
+			json.name("paths").value(pathCount);
+			json.name("endPoints").value(endPointCount);
+			json.name("pagesWritten").value(pagesWrittenCount);
+			json.name("pageBytesWritten").value(pageBytesWritten);
+			json.name("filesCopied").value(filesCopiedCount);
+			json.name("fileBytesCopied").value(fileBytesCopied);
+			json.name("slowestClasses").beginArray();
+			for (ClassTiming timing : getSlowestClasses()) {
+				json.beginObject();
+				json.name("className").value(timing.className);
+				json.name("millis").value(timing.nanos / NANOS_IN_MILLIS);
+				json.endObject();
+			}
+			json.endArray();
+			json.endObject();
+		} finally {
+			json.close();
+		}
+	}
+
+	public int getClassesScannedCount() {
+		return classesScannedCount;
+	}
+
+	public int getClassesMatchedCount() {
+		return classesMatchedCount;
+	}
+
+	public int getPagesWrittenCount() {
+		return pagesWrittenCount;
+	}
+
+	public long getPageBytesWritten() {
+		return pageBytesWritten;
+	}
+
+	/**
+	 * Return the slowest classes with the slowest first.
+	 */
+	private List<ClassTiming> getSlowestClasses() {
+		List<ClassTiming> slowest = new ArrayList<ClassTiming>(slowestClasses);
+		Collections.sort(slowest, Collections.reverseOrder());
+		return slowest;
+	}
+
+	private String toMillisString(long nanos) {
+		return String.format("%.1fms", nanos / NANOS_IN_MILLIS);
+	}
+
+	/**
+	 * Time that it took to process a class.
+	 */
+	private static class ClassTiming implements Comparable<ClassTiming> {
+		final String className;
+		final long nanos;
+
+		public ClassTiming(String className, long nanos) {
+			this.className = className;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public int compareTo(ClassTiming other) {
+			if (nanos < other.nanos) {
+				return -1;
+			} else if (nanos > other.nanos) {
+				return 1;
+			} else {
+				return className.compareTo(other.className);
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package com.j256.springrequestdoclet.metrics;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Java Flight Recorder event types for the doclet's work so it shows up in recordings of the build JVM. The event types
+ * are defined at runtime with jdk.jfr.EventFactory through reflection so the doclet does not depend on JFR. On JVMs
+ * without JFR, {@link #begin()} always returns null and nothing is recorded.
+ *
+ * <p>
+ * Usage is:
+ * </p>
+ *
+ * <pre>
+ * Object event = JfrEventType.CLASS_COLLECTED.begin();
+ * ... do the work ...
+ * JfrEventType.CLASS_COLLECTED.commit(event, className, methodCount);
+ * </pre>
+ *
+ * @author graywatson
+ */
+public class JfrEventType {
+
+	private static final String EVENT_NAME_PREFIX = "com.j256.springrequestdoclet.";
+	private static final String CATEGORY = "Spring Request Doclet";
+	private static final Object[] NO_ARGS = new Object[0];
+
+	private static final Reflection reflection = Reflection.create();
+
+	/** class processed by the collector, fields are the class name and number of request methods */
+	public static final JfrEventType CLASS_COLLECTED = new JfrEventType("ClassCollected", "Class Collected",
+			new String[] { "className", "methodCount" }, new String[] { "Class Name", "Request Method Count" },
+			new Class<?>[] { String.class, int.class });
+	/** page rendered by the writer, fields are the file name and number of bytes */
+	public static final JfrEventType PAGE_RENDERED = new JfrEventType("PageRendered", "Page Rendered",
+			new String[] { "fileName", "bytes" }, new String[] { "File Name", "Bytes" },
+			new Class<?>[] { String.class, long.class });
+	/** file copied from the root documentation directory, fields are the file name and number of bytes */
+	public static final JfrEventType ASSET_COPIED = new JfrEventType("AssetCopied", "Asset Copied",
+			new String[] { "fileName", "bytes" }, new String[] { "File Name", "Bytes" },
+			new Class<?>[] { String.class, long.class });
+
+	private final Object eventFactory;
+	private final Object eventType;
+
+	private JfrEventType(String name, String label, String[] fieldNames, String[] fieldLabels,
+			Class<?>[] fieldTypes) {
+		Object factory = null;
+		Object type = null;
+		if (reflection != null) {
+			try {
+				factory = reflection.createFactory(EVENT_NAME_PREFIX + name, label, fieldNames, fieldLabels,
+						fieldTypes);
+				type = reflection.eventFactoryGetEventType.invoke(factory, NO_ARGS);
+			} catch (Exception e) {
+				// we just don't record the events
+				factory = null;
+				type = null;
+			}
+		}
+		this.eventFactory = factory;
+		this.eventType = type;
+	}
+
+	/**
+	 * Return true if JFR is available and this event type is enabled in a running recording.
+	 */
+	public boolean isEnabled() {
+		if (eventType == null) {
+			return false;
+		}
+		try {
+			return (Boolean) reflection.eventTypeIsEnabled.invoke(eventType, NO_ARGS);
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Begin an event which times the work until {@link #commit(Object, Object...)} is called.
+	 *
+	 * @return The event or null if it is not being recorded.
+	 */
+	public Object begin() {
+		if (!isEnabled()) {
+			return null;
+		}
+		try {
+			Object event = reflection.eventFactoryNewEvent.invoke(eventFactory, NO_ARGS);
+			reflection.eventBegin.invoke(event, NO_ARGS);
+			return event;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * End the event, set its field values in order, and commit it. Does nothing if the event is null.
+	 */
+	public void commit(Object event, Object... fieldValues) {
+		if (event == null) {
+			return;
+		}
+		try {
+			reflection.eventEnd.invoke(event, NO_ARGS);
+			for (int i = 0; i < fieldValues.length; i++) {
+				reflection.eventSet.invoke(event, i, fieldValues[i]);
+			}
+			reflection.eventCommit.invoke(event, NO_ARGS);
+		} catch (Exception e) {
+			// ignored, we don't want to fail the run because of a recording problem
+		}
+	}
+
+	/**
+	 * The reflected JFR classes and methods which are looked up once.
+	 */
+	private static class Reflection {
+
+		final Constructor<?> annotationElementConstructor;
+		final Constructor<?> valueDescriptorConstructor;
+		final Method eventFactoryCreate;
+		final Method eventFactoryNewEvent;
+		final Method eventFactoryGetEventType;
+		final Method eventTypeIsEnabled;
+		final Method eventBegin;
+		final Method eventEnd;
+		final Method eventSet;
+		final Method eventCommit;
+		final Class<? extends Annotation> nameAnnotation;
+		final Class<? extends Annotation> labelAnnotation;
+		final Class<? extends Annotation> categoryAnnotation;
+
+		private Reflection() throws Exception {
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+			Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+			Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+			valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+			eventFactoryCreate = eventFactoryClass.getMethod("create", List.class, List.class);
+			eventFactoryNewEvent = eventFactoryClass.getMethod("newEvent");
+			eventFactoryGetEventType = eventFactoryClass.getMethod("getEventType");
+			eventTypeIsEnabled = eventTypeClass.getMethod("isEnabled");
+			eventBegin = eventClass.getMethod("begin");
+			eventEnd = eventClass.getMethod("end");
+			eventSet = eventClass.getMethod("set", int.class, Object.class);
+			eventCommit = eventClass.getMethod("commit");
+			nameAnnotation = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+			labelAnnotation = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+			categoryAnnotation = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+		}
+
+		/**
+		 * Return the reflection information or null if JFR is not available in this JVM.
+		 */
+		public static Reflection create() {
+			try {
+				return new Reflection();
+			} catch (Exception e) {
+				return null;
+			} catch (LinkageError le) {
+				return null;
+			}
+		}
+
+		public Object createFactory(String name, String label, String[] fieldNames, String[] fieldLabels,
+				Class<?>[] fieldTypes) throws Exception {
+			List<Object> annotations = new ArrayList<Object>();
+			annotations.add(annotationElementConstructor.newInstance(nameAnnotation, name));
+			annotations.add(annotationElementConstructor.newInstance(labelAnnotation, label));
+			annotations.add(annotationElementConstructor.newInstance(categoryAnnotation, new String[] { CATEGORY }));
+			List<Object> fields = new ArrayList<Object>();
+			for (int i = 0; i < fieldNames.length; i++) {
+				List<Object> fieldAnnotations = Collections.singletonList(
+						annotationElementConstructor.newInstance(labelAnnotation, fieldLabels[i]));
+				fields.add(valueDescriptorConstructor.newInstance(fieldTypes[i], fieldNames[i], fieldAnnotations));
+			}
+			return eventFactoryCreate.invoke(null, annotations, fields);
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Writes rendered pages to their files in the background so the rendering of the next pages overlaps the disk writes.
+ * The pages are rendered into buffers taken from a bounded pool and handed back with {@link #write(PageBuffer, File)}
+ * which writes them with an {@link AsynchronousFileChannel}. The buffers are returned to the pool once their page has
+ * been written so if the disk falls behind, {@link #takeBuffer()} blocks until one is free. The pages are written in
+ * {@link HtmlPrintWriter#PAGE_CHARSET}.
+ *
+ * @author graywatson
+ */
+public class AsyncPageWriter {
+
+	/** default number of pages that can be rendered and waiting to be written before the rendering blocks */
+	public static final int DEFAULT_BUFFER_COUNT = 16;
+
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+	private static final Set<OpenOption> WRITE_OPTIONS = new HashSet<OpenOption>(Arrays.asList(
+			StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+
+	private final int bufferCount;
+	private final ExecutorService executor;
+	private final BlockingQueue<PageBuffer> freeBuffers;
+	private final Object lock = new Object();
+	/** these are all guarded by the lock */
+	private int createdCount;
+	private int pendingCount;
+	private IOException writeException;
+
+	public AsyncPageWriter() {
+		this(DEFAULT_BUFFER_COUNT, null);
+	}
+
+	/**
+	 * @param bufferCount
+	 *            Number of pages that can be rendered and waiting to be written.
+	 * @param executor
+	 *            Executor that the file channels do their writes on or null for the default pool of the JVM. This must
+	 *            not be a fixed pool that the pages are rendered on since the rendering waits for the writes.
+	 */
+	public AsyncPageWriter(int bufferCount, ExecutorService executor) {
+		if (bufferCount <= 0) {
+			throw new IllegalArgumentException("Number of page buffers must be positive: " + bufferCount);
+		}
+		this.bufferCount = bufferCount;
+		this.executor = executor;
+		this.freeBuffers = new ArrayBlockingQueue<PageBuffer>(bufferCount);
+	}
+
+	/**
+	 * Take an empty buffer to render a page into. This blocks if all of the buffers hold pages waiting to be written.
+	 *
+	 * @throws IOException
+	 *             If one of the earlier pages could not be written.
+	 */
+	public PageBuffer takeBuffer() throws IOException {
+		throwIfWriteFailed();
+		PageBuffer buffer = freeBuffers.poll();
+		if (buffer == null) {
+			synchronized (lock) {
+				if (createdCount < bufferCount) {
+					createdCount++;
+					return new PageBuffer();
+				}
+			}
+			try {
+				buffer = freeBuffers.take();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a page buffer");
+			}
+		}
+		buffer.reset();
+		return buffer;
+	}
+
+	/**
+	 * Start writing the rendered page in the buffer to the file. The buffer must not be used afterwards since it goes
+	 * back into the pool once the write finishes.
+	 */
+	public void write(PageBuffer buffer, File file) throws IOException {
+		ByteBuffer byteBuffer;
+		AsynchronousFileChannel channel;
+		try {
+			byteBuffer = buffer.toByteBuffer();
+			channel = openChannel(file);
+		} catch (IOException ioe) {
+			freeBuffers.offer(buffer);
+			throw ioe;
+		} catch (RuntimeException re) {
+			freeBuffers.offer(buffer);
+			throw re;
+		}
+		synchronized (lock) {
+			pendingCount++;
+		}
+		try {
+			channel.write(byteBuffer, 0, byteBuffer, new WriteHandler(channel, buffer, file));
+		} catch (RuntimeException re) {
+			// such as when the executor has been shut down, the handler won't be called so we have to finish here
+			writeFinished(channel, buffer, file, re);
+		}
+	}
+
+	/**
+	 * Wait for the pages that have been handed to {@link #write(PageBuffer, File)} to be written.
+	 *
+	 * @throws IOException
+	 *             If any of the pages could not be written.
+	 */
+	public void close() throws IOException {
+		synchronized (lock) {
+			while (pendingCount > 0) {
+				try {
+					lock.wait();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for the pages to be written");
+				}
+			}
+		}
+		throwIfWriteFailed();
+	}
+
+	/**
+	 * Open the channel that the page is written to. This is here so the tests can write with partial writes.
+	 */
+	AsynchronousFileChannel openChannel(File file) throws IOException {
+		return AsynchronousFileChannel.open(file.toPath(), WRITE_OPTIONS, executor);
+	}
+
+	private void throwIfWriteFailed() throws IOException {
+		synchronized (lock) {
+			if (writeException != null) {
+				throw writeException;
+			}
+		}
+	}
+
+	private void writeFinished(AsynchronousFileChannel channel, PageBuffer buffer, File file, Throwable failure) {
+		try {
+			channel.close();
+		} catch (IOException ioe) {
+			if (failure == null) {
+				failure = ioe;
+			}
+		}
+		freeBuffers.offer(buffer);
+		synchronized (lock) {
+			if (failure != null && writeException == null) {
+				writeException = new IOException("Could not write page " + file + ": " + failure, failure);
+			}
+			pendingCount--;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Writer that a page is rendered into. The characters are collected in an array and, when the writer is closed,
+	 * encoded with the encoder of the buffer into its direct byte buffer so the page is written with one channel write.
+	 * The arrays and the encoder are kept between pages so nothing is allocated per page once the buffers have grown to
+	 * the size of the largest page.
+	 */
+	public static class PageBuffer extends Writer {
+
+		private final CharsetEncoder encoder = HtmlPrintWriter.PAGE_CHARSET.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		private char[] chars = new char[INITIAL_BUFFER_SIZE];
+		private int charCount;
+		/** encoded page from position 0 to the limit once the page is closed */
+		private ByteBuffer bytes;
+		private boolean encoded;
+
+		PageBuffer() {
+			// only made by the page writer
+		}
+
+		@Override
+		public void write(int ch) {
+			ensureCapacity(1);
+			chars[charCount++] = (char) ch;
+		}
+
+		@Override
+		public void write(char[] cbuf, int offset, int length) {
+			ensureCapacity(length);
+			System.arraycopy(cbuf, offset, chars, charCount, length);
+			charCount += length;
+		}
+
+		@Override
+		public void write(String str, int offset, int length) {
+			ensureCapacity(length);
+			str.getChars(offset, offset + length, chars, charCount);
+			charCount += length;
+		}
+
+		@Override
+		public void flush() {
+			// nothing is written until the page is closed
+		}
+
+		/**
+		 * Finish the page by encoding it into the byte buffer.
+		 */
+		@Override
+		public void close() {
+			if (encoded) {
+				return;
+			}
+			int maxBytes = (int) Math.ceil(charCount * (double) encoder.maxBytesPerChar());
+			if (bytes == null || bytes.capacity() < maxBytes) {
+				bytes = ByteBuffer.allocateDirect(Math.max(maxBytes, INITIAL_BUFFER_SIZE));
+			}
+			bytes.clear();
+			encoder.reset();
+			// the buffer is big enough for any characters so this can't overflow
+			encoder.encode(CharBuffer.wrap(chars, 0, charCount), bytes, true);
+			encoder.flush(bytes);
+			bytes.flip();
+			encoded = true;
+		}
+
+		/**
+		 * Return the number of bytes in the encoded page.
+		 */
+		public int size() {
+			return toByteBuffer().remaining();
+		}
+
+		/**
+		 * Return a byte buffer of the encoded page which shares the contents without copying them.
+		 */
+		public ByteBuffer toByteBuffer() {
+			if (!encoded) {
+				throw new IllegalStateException("Page buffer has not been closed");
+			}
+			return bytes.duplicate();
+		}
+
+		void reset() {
+			charCount = 0;
+			encoded = false;
+		}
+
+		private void ensureCapacity(int length) {
+			if (charCount + length > chars.length) {
+				chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+			}
+		}
+	}
+
+	/**
+	 * Continues writing the page until the buffer is empty since a write may only write some of it.
+	 */
+	private class WriteHandler implements CompletionHandler<Integer, ByteBuffer> {
+
+		private final AsynchronousFileChannel channel;
+		private final PageBuffer buffer;
+		private final File file;
+
+		public WriteHandler(AsynchronousFileChannel channel, PageBuffer buffer, File file) {
+			this.channel = channel;
+			this.buffer = buffer;
+			this.file = file;
+		}
+
+		@Override
+		public void completed(Integer numBytes, ByteBuffer byteBuffer) {
+			if (byteBuffer.hasRemaining()) {
+				try {
+					channel.write(byteBuffer, byteBuffer.position(), byteBuffer, this);
+				} catch (RuntimeException re) {
+					writeFinished(channel, buffer, file, re);
+				}
+			} else {
+				writeFinished(channel, buffer, file, null);
+			}
+		}
+
+		@Override
+		public void failed(Throwable throwable, ByteBuffer byteBuffer) {
+			writeFinished(channel, buffer, file, throwable);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.EndPointDiff;
+import com.j256.springrequestdoclet.collector.EndPointDiff.ChangeDetail;
+import com.j256.springrequestdoclet.collector.EndPointDiff.OperationChange;
+
+/**
+ * Writes out the changes found by an {@link EndPointDiff} as a HTML report and as JSON for tools.
+ *
+ * @author graywatson
+ */
+public class DiffReportWriter {
+
+	public static final String HTML_FILE_NAME = "api-diff.html";
+	public static final String JSON_FILE_NAME = "api-diff.json";
+
+	private final EndPointDiff diff;
+
+	public DiffReportWriter(EndPointDiff diff) {
+		this.diff = diff;
+	}
+
+	/**
+	 * Print a one line summary of the changes.
+	 */
+	public String getSummary() {
+		return diff.getAddedCount() + " added, " + diff.getRemovedCount() + " removed, " + diff.getChangedCount()
+				+ " changed operations of which " + diff.getBreakingCount() + " are breaking";
+	}
+
+	public void writeHtml(File file) throws IOException {
+		HtmlPrintWriter out = new HtmlPrintWriter(file);
+		try {
+			writeHtml(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	public void writeHtml(HtmlPrintWriter out) {
+		HtmlPathMapWriter.writeHeader("API Changes", out);
+
+		out.print("<p> Compared " + diff.getOldOperationCount() + " old operations with " + diff.getNewOperationCount()
+				+ " new ones: ");
+		out.printEscaped(getSummary());
+		out.println(". </p>");
+		if (diff.getChanges().isEmpty()) {
+			writeTrailer(out);
+			return;
+		}
+
+		out.println("<table>");
+		out.println("<tr><th> Path </th><th> Method </th><th> Params </th><th> Change </th><th> Breaking </th>"
+				+ "<th> Handler </th><th> Details </th></tr>");
+		for (OperationChange change : diff.getChanges()) {
+			out.write("<tr><td> ");
+			out.printEscaped(change.getPath());
+			out.write("</td><td> ");
+			out.printEscaped(change.getHttpMethod());
+			out.write("</td><td> ");
+			printArray(out, change.getParams());
+			out.write("</td><td> ");
+			out.printEscaped(change.getKind().name().toLowerCase());
+			out.write("</td><td> ");
+			out.write(change.isBreaking() ? "<b>yes</b>" : "no");
+			out.write("</td><td> ");
+			out.printEscaped(handlerName(change));
+			out.write("</td><td> ");
+			boolean first = true;
+			for (ChangeDetail detail : change.getDetails()) {
+				if (first) {
+					first = false;
+				} else {
+					out.write(" <br />");
+				}
+				if (detail.isBreaking()) {
+					out.write("<b>");
+					out.printEscaped(detail.getDescription());
+					out.write("</b>");
+				} else {
+					out.printEscaped(detail.getDescription());
+				}
+			}
+			out.println("</td></tr>");
+		}
+		out.println("</table>");
+		writeTrailer(out);
+	}
+
+	public void writeJson(File file) throws IOException {
+		JsonWriter json = new JsonWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			json.beginObject();
+			json.name("oldOperations").value(diff.getOldOperationCount());
+			json.name("newOperations").value(diff.getNewOperationCount());
+			json.name("added").value(diff.getAddedCount());
+			json.name("removed").value(diff.getRemovedCount());
+			json.name("changed").value(diff.getChangedCount());
+			json.name("breaking").value(diff.getBreakingCount());
+			json.name("changes").beginArray();
+			for (OperationChange change : diff.getChanges()) {
+				json.beginObject();
+				json.name("path").value(change.getPath());
+				json.name("httpMethod").value(change.getHttpMethod());
+				json.name("params").value(change.getParams());
+				json.name("kind").value(change.getKind().name().toLowerCase());
+				json.name("breaking").value(change.isBreaking());
+				json.name("handler").value(handlerName(change));
+				json.name("details").beginArray();
+				for (ChangeDetail detail : change.getDetails()) {
+					json.beginObject();
+					json.name("description").value(detail.getDescription());
+					json.name("breaking").value(detail.isBreaking());
+					json.endObject();
+				}
+				json.endArray();
+				json.endObject();
+			}
+			json.endArray();
+			json.endObject();
+		} finally {
+			json.close();
+		}
+	}
+
+	/**
+	 * Name of the java method which handles the operation now or which handled it before it was removed.
+	 */
+	private String handlerName(OperationChange change) {
+		EndPoint endPoint = change.getNewEndPoint();
+		if (endPoint == null) {
+			endPoint = change.getOldEndPoint();
+		}
+		return endPoint.getClassInfo().getClassName() + '.' + endPoint.getMethodInfo().getJavaMethodName() + "(...)";
+	}
+
+	private void printArray(HtmlPrintWriter out, String[] array) {
+		if (array == null || array.length == 0) {
+			out.write("&nbsp;");
+			return;
+		}
+		for (int i = 0; i < array.length; i++) {
+			if (i > 0) {
+				out.write(", ");
+			}
+			out.printEscaped(array[i]);
+		}
+	}
+
+	private void writeTrailer(HtmlPrintWriter out) {
+		out.println("<p style='font-size: 75%;'> Generated by <a "
+				+ "href='http://256stuff.com/sources/spring-request-doclet/'>Spring Request Doclet</a> package. </p>");
+		out.println("</body>");
+		out.println("</html>");
+	}
+}
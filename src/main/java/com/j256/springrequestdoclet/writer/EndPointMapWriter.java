@@ -15,7 +15,32 @@ import com.j256.springrequestdoclet.collector.EndPoint;
 public interface EndPointMapWriter {
 
 	/**
-	 * Write our end-point information out.
+	 * Write our end-point information out into the current directory.
 	 */
 	public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir) throws IOException;
+
+	/**
+	 * Write our end-point information out into the output directory. The default implementation is for writers that
+	 * were written before the output directory could be specified. It calls {@link #write(Map, File)} if the output
+	 * directory is the current directory and otherwise throws. The doclet checks this when the options are parsed so
+	 * the throw is only reached by other callers.
+	 * 
+	 * @param rootDocDir
+	 *            Directory of the root documentation to copy into the output or null if none.
+	 * @param outputDir
+	 *            Directory that the documentation is written into. It is created if it doesn't exist. Writers must not
+	 *            write relative to the current directory so that multiple runs can be done at the same time in one JVM.
+	 * @throws IOException
+	 *             If the documentation could not be written or if the writer can only write into the current directory
+	 *             and the output directory is somewhere else.
+	 */
+	public default void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir, File outputDir)
+			throws IOException {
+		File currentDir = new File(System.getProperty("user.dir"));
+		if (!outputDir.getCanonicalFile().equals(currentDir.getCanonicalFile())) {
+			throw new IOException("Writer " + getClass().getName()
+					+ " can only write into the current directory, not the output directory: " + outputDir);
+		}
+		write(endPointMap, rootDocDir);
+	}
 }
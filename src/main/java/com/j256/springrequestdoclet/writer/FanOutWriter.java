@@ -0,0 +1,117 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+
+/**
+ * Writer which runs a number of other writers at the same time on the same end-points, each into its own directory, so
+ * that the html pages, the single page application, and other outputs can be generated from one collection pass. The
+ * end-point map must not be modified while the writers are running and the writers must not modify it.
+ *
+ * @author graywatson
+ */
+public class FanOutWriter implements EndPointMapWriter {
+
+	private final List<EndPointMapWriter> writers = new ArrayList<EndPointMapWriter>();
+	private final List<File> writerDirs = new ArrayList<File>();
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Add a writer along with the directory that it writes into. If the directory is relative then it is relative to the
+	 * output directory passed to {@link #write(Map, File, File)}.
+	 */
+	public void addWriter(EndPointMapWriter writer, File dir) {
+		writers.add(writer);
+		writerDirs.add(dir);
+	}
+
+	/**
+	 * Set the maximum number of writers that run at the same time. Default is the number of processors.
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	@Override
+	public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir) throws IOException {
+		write(endPointMap, rootDocDir, new File("."));
+	}
+
+	@Override
+	public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir, File outputDir) throws IOException {
+		if (writers.isEmpty()) {
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadCount, writers.size())));
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(writers.size());
+			for (int i = 0; i < writers.size(); i++) {
+				File dir = writerDirs.get(i);
+				if (!dir.isAbsolute()) {
+					dir = new File(outputDir, dir.getPath());
+				}
+				futures.add(executor.submit(new WriterTask(writers.get(i), endPointMap, rootDocDir, dir)));
+			}
+			// wait for all of them so a failed writer doesn't leave the others running, the first failure is thrown
+			IOException firstException = null;
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					futures.get(i).get();
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the writers");
+				} catch (ExecutionException ee) {
+					if (firstException == null) {
+						Throwable cause = ee.getCause();
+						if (cause instanceof IOException) {
+							firstException = (IOException) cause;
+						} else {
+							firstException = new IOException(
+									"Writer " + writers.get(i).getClass().getSimpleName() + " failed: " + cause, cause);
+						}
+					}
+				}
+			}
+			if (firstException != null) {
+				throw firstException;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs one of the writers.
+	 */
+	private static class WriterTask implements Callable<Void> {
+
+		private final EndPointMapWriter writer;
+		private final Map<String, List<EndPoint>> endPointMap;
+		private final File rootDocDir;
+		private final File outputDir;
+
+		public WriterTask(EndPointMapWriter writer, Map<String, List<EndPoint>> endPointMap, File rootDocDir,
+				File outputDir) {
+			this.writer = writer;
+			this.endPointMap = endPointMap;
+			this.rootDocDir = rootDocDir;
+			this.outputDir = outputDir;
+		}
+
+		@Override
+		public Void call() throws IOException {
+			writer.write(endPointMap, rootDocDir, outputDir);
+			return null;
+		}
+	}
+}
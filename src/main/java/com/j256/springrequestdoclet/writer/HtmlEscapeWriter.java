@@ -0,0 +1,86 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer decorator which HTML escapes the characters written to it before passing them to the underlying writer. Runs
+ * of characters that do not need escaping are passed through as a single write so we don't allocate or copy anything.
+ *
+ * @author graywatson
+ */
+public class HtmlEscapeWriter extends FilterWriter {
+
+	public HtmlEscapeWriter(Writer out) {
+		super(out);
+	}
+
+	@Override
+	public void write(int ch) throws IOException {
+		String entity = escapeEntity((char) ch);
+		if (entity == null) {
+			out.write(ch);
+		} else {
+			out.write(entity);
+		}
+	}
+
+	@Override
+	public void write(char[] chars, int offset, int length) throws IOException {
+		int start = offset;
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			String entity = escapeEntity(chars[i]);
+			if (entity != null) {
+				if (i > start) {
+					out.write(chars, start, i - start);
+				}
+				out.write(entity);
+				start = i + 1;
+			}
+		}
+		if (end > start) {
+			out.write(chars, start, end - start);
+		}
+	}
+
+	@Override
+	public void write(String str, int offset, int length) throws IOException {
+		int start = offset;
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			String entity = escapeEntity(str.charAt(i));
+			if (entity != null) {
+				if (i > start) {
+					out.write(str, start, i - start);
+				}
+				out.write(entity);
+				start = i + 1;
+			}
+		}
+		if (end > start) {
+			out.write(str, start, end - start);
+		}
+	}
+
+	/**
+	 * Return the entity for the character or null if it does not need to be escaped.
+	 */
+	private static String escapeEntity(char ch) {
+		switch (ch) {
+			case '&':
+				return "&amp;";
+			case '<':
+				return "&lt;";
+			case '>':
+				return "&gt;";
+			case '\'':
+				return "&#39;";
+			case '"':
+				return "&quot;";
+			default:
+				return null;
+		}
+	}
+}
@@ -2,12 +2,13 @@ package com.j256.springrequestdoclet.writer;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -18,6 +19,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,10 +32,40 @@ import com.j256.springrequestdoclet.collector.EndPoint;
 import com.j256.springrequestdoclet.collector.FieldInfo;
 import com.j256.springrequestdoclet.collector.MethodInfo;
 import com.j256.springrequestdoclet.collector.ParamInfo;
+import com.j256.springrequestdoclet.concurrent.WorkerExecutors;
+import com.j256.springrequestdoclet.metrics.DocletMetrics;
+import com.j256.springrequestdoclet.metrics.JfrEventType;
+import com.j256.springrequestdoclet.writer.AsyncPageWriter.PageBuffer;
 
 /**
  * Writes out a HTML file describing the path information.
  * 
+ * <p>
+ * The page names of the classes and methods are assigned in sorted order so they are the same from run to run. With
+ * {@link #setContentHashNames(boolean)} the method pages are instead named after a hash of their contents and a
+ * {@value #MANIFEST_FILE} is written which maps the plain names to the hashed ones. Since the name of a hashed page
+ * changes whenever it does, a web server can serve them with long-lived immutable cache headers. The summary and class
+ * pages keep their names and are the entry points into the documentation. The class pages link to the hashed method
+ * pages so they can't be hashed themselves without the method pages linking to an old version of them.
+ * </p>
+ * 
+ * <p>
+ * The fields of the request and response types are documented on a page per type, written once, which the method pages
+ * link to. Each type page lists the methods that consume or produce the type. The type pages link back to the hashed
+ * class and method pages so they are not hashed themselves.
+ * </p>
+ * 
+ * <p>
+ * With {@link #setPageShards(int)} the class, method, and type pages are spread across a number of subdirectories named
+ * after a hash of the page name so that very large sites don't end up with tens of thousands of files in one directory.
+ * </p>
+ * 
+ * <p>
+ * The pages are rendered into buffers which an {@link AsyncPageWriter} writes to disk in the background so that slow
+ * file systems don't hold up the rendering of the next pages. The pages of each kind are rendered in parallel, on
+ * virtual threads if the JVM has them, see {@link #setThreadCount(int)}.
+ * </p>
+ * 
  * @author graywatson
  */
 public class HtmlPathMapWriter implements EndPointMapWriter {
@@ -39,36 +74,279 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 	private static final String METHOD_SUBDIR = "methods";
 	private static final String CLASS_METHOD_SUBDIR = CLASS_SUBDIR + File.separatorChar + METHOD_SUBDIR;
 	private static final String CLASS_METHOD_SUBDIR_HTML = CLASS_SUBDIR + '/' + METHOD_SUBDIR;
+	private static final String TYPE_SUBDIR = "types";
 	private static final String CLASS_SUMMARY_FILE = "classes.html";
 	private static final String METHOD_NAME_SUFFIX = "(...)";
 	private static final String INDEX_FILE_NAME = "index.html";
 	private static final String PATH_SUMMARY_SEPARATE_FILE = "paths.html";
 	private static final Pattern JAVADOC_CLEANUP_PATTERN = Pattern.compile("(?sm)^\\s*[@]");
+	private static final String MANIFEST_FILE = "manifest.json";
+	/** number of bytes of the content hash to put in the page names */
+	private static final int CONTENT_HASH_BYTES = 6;
 
 	private Map<String, String> classNameMap = new HashMap<String, String>();
 	private Map<String, String> methodNameMap = new HashMap<String, String>();
 	private Set<String> classPathSet = new HashSet<String>();
 	private Set<String> methodPathSet = new HashSet<String>();
+	private Map<String, String> typeNameMap = new HashMap<String, String>();
+	private Set<String> typePathSet = new HashSet<String>();
+	/** type name -> the methods that use it from the last time the end-points were written or prepared */
+	private Map<String, TypeUsage> typeUsageMap;
+	private DocletMetrics metrics;
+	private String summaryPath = INDEX_FILE_NAME;
+	/** indexes of the pages by their relative path set by {@link #preparePages(Map, boolean)} */
+	private Map<String, List<EndPoint>> pageEndPointMap;
+	private Map<String, ClassInfo> classPageMap;
+	private Map<ClassInfo, List<EndPoint>> classEndPointsMap;
+	private Map<String, List<EndPoint>> methodPageMap;
+	private Map<String, TypeUsage> typePageMap;
+	private boolean contentHashNames;
+	/** plain page path with '/' separators -> content hashed file name of the pages written so far */
+	private Map<String, String> hashedPageMap = new TreeMap<String, String>();
+	/** number of subdirectories to spread the pages of each kind across or 0 for none */
+	private int pageShards;
+	private int pageShardDigits;
+	/** directory that the pages are written into set by {@link #write(Map, File, File)} */
+	private File outputDir = new File(".");
+	private int pageBufferCount = AsyncPageWriter.DEFAULT_BUFFER_COUNT;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	/** renders the pages and copies the files, null to do it in the calling thread */
+	private ExecutorService executor;
+	/** runs the page writes on virtual threads if the JVM has them */
+	private ExecutorService ioExecutor;
+	/** writes the rendered pages in the background while the next ones are rendered */
+	private AsyncPageWriter pageWriter;
 
 	@Override
 	public void write(Map<String, List<EndPoint>> endPointMap, File rootDir) throws IOException {
-		// see if we already have an index.html
-		boolean rootDirIndex = false;
-		if (rootDir != null) {
-			rootDirIndex = copyFiles(new File("."), rootDir);
+		write(endPointMap, rootDir, new File("."));
+	}
+
+	@Override
+	public void write(Map<String, List<EndPoint>> endPointMap, File rootDir, File outputDir) throws IOException {
+		this.outputDir = outputDir;
+		outputDir.mkdirs();
+		startWorkers();
+		try {
+			// see if we already have an index.html
+			boolean rootDirIndex = false;
+			if (rootDir != null) {
+				long startNanos = System.nanoTime();
+				rootDirIndex = copyFiles(outputDir, rootDir, metrics, executor);
+				phaseFinished("copy-files", startNanos);
+			}
+			// write a path summary into our index.html
+			if (rootDirIndex) {
+				summaryPath = PATH_SUMMARY_SEPARATE_FILE;
+			} else {
+				summaryPath = INDEX_FILE_NAME;
+			}
+			assignPageNames(endPointMap);
+			// the pages are written before the pages that link to them so the content hashed names are known
+			long startNanos = System.nanoTime();
+			writeMethodFiles(endPointMap.values(), summaryPath);
+			phaseFinished("method-pages", startNanos);
+			// write a file for each class
+			startNanos = System.nanoTime();
+			writeClassFiles(endPointMap, summaryPath);
+			phaseFinished("class-pages", startNanos);
+			// the type pages link back to the class and method pages so they are written after them
+			startNanos = System.nanoTime();
+			typeUsageMap = collectTypeUsages(endPointMap.values());
+			writeTypeFiles(typeUsageMap.values(), summaryPath);
+			phaseFinished("type-pages", startNanos);
+			startNanos = System.nanoTime();
+			writePathSummary(endPointMap, summaryPath, new File(outputDir, summaryPath));
+			phaseFinished("path-summary", startNanos);
+			// write an index.html for all of the paths linking to path details
+			startNanos = System.nanoTime();
+			writeClassSummary(endPointMap, summaryPath, new File(outputDir, CLASS_SUMMARY_FILE));
+			phaseFinished("class-summary", startNanos);
+		} finally {
+			stopWorkers();
+		}
+		if (contentHashNames) {
+			writeManifest(new File(outputDir, MANIFEST_FILE));
+		}
+	}
+
+	/**
+	 * Rewrite the summaries and the pages of just the classes with the type names. This is used to update the output of
+	 * a previous {@link #write(Map, File, File)} call with this writer after some of the classes have been collected again.
+	 * The page names of the other classes and methods are remembered so the links stay the same. The pages of the types
+	 * that the classes use, or used the last time, are also rewritten so their lists of methods are up to date.
+	 */
+	public void writeClasses(Map<String, List<EndPoint>> endPointMap, Set<String> typeNames) throws IOException {
+		Map<String, List<EndPoint>> classEndPointMap = new HashMap<String, List<EndPoint>>();
+		for (Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+			List<EndPoint> classEndPoints = null;
+			for (EndPoint endPoint : entry.getValue()) {
+				if (typeNames.contains(endPoint.getClassInfo().getTypeName())) {
+					if (classEndPoints == null) {
+						classEndPoints = new ArrayList<EndPoint>();
+						classEndPointMap.put(entry.getKey(), classEndPoints);
+					}
+					classEndPoints.add(endPoint);
+				}
+			}
+		}
+		assignPageNames(classEndPointMap);
+		startWorkers();
+		try {
+			long startNanos = System.nanoTime();
+			writeMethodFiles(classEndPointMap.values(), summaryPath);
+			phaseFinished("method-pages", startNanos);
+			startNanos = System.nanoTime();
+			writeClassFiles(classEndPointMap, summaryPath);
+			phaseFinished("class-pages", startNanos);
+			startNanos = System.nanoTime();
+			Map<String, TypeUsage> oldTypeUsageMap = typeUsageMap;
+			typeUsageMap = collectTypeUsages(endPointMap.values());
+			List<TypeUsage> typeUsages = new ArrayList<TypeUsage>();
+			for (TypeUsage typeUsage : typeUsageMap.values()) {
+				TypeUsage oldTypeUsage = null;
+				if (oldTypeUsageMap != null) {
+					oldTypeUsage = oldTypeUsageMap.get(typeUsage.qualifiedTypeName);
+				}
+				if (typeUsage.isUsedByAny(typeNames)
+						|| (oldTypeUsage != null && oldTypeUsage.isUsedByAny(typeNames))) {
+					typeUsages.add(typeUsage);
+				}
+			}
+			writeTypeFiles(typeUsages, summaryPath);
+			phaseFinished("type-pages", startNanos);
+			startNanos = System.nanoTime();
+			writePathSummary(endPointMap, summaryPath, new File(outputDir, summaryPath));
+			phaseFinished("path-summary", startNanos);
+			startNanos = System.nanoTime();
+			writeClassSummary(endPointMap, summaryPath, new File(outputDir, CLASS_SUMMARY_FILE));
+			phaseFinished("class-summary", startNanos);
+		} finally {
+			stopWorkers();
+		}
+		if (contentHashNames) {
+			writeManifest(new File(outputDir, MANIFEST_FILE));
 		}
-		// write a path summary into our index.html
-		String summaryPath = INDEX_FILE_NAME;
+	}
+
+	/**
+	 * Assign the page names of all of the classes, methods, and types and index them so pages can be rendered one at a time
+	 * with {@link #writePage(String, HtmlPrintWriter)} without writing the whole site. The names are the same as the
+	 * ones that {@link #write(Map, File, File)} would use.
+	 * 
+	 * @param rootDirIndex
+	 *            True if the root documentation has its own index.html in which case the path summary is paths.html.
+	 */
+	public void preparePages(Map<String, List<EndPoint>> endPointMap, boolean rootDirIndex) {
 		if (rootDirIndex) {
 			summaryPath = PATH_SUMMARY_SEPARATE_FILE;
+		} else {
+			summaryPath = INDEX_FILE_NAME;
 		}
-		// write a file for each class method, we do this first to build the methodNameMap
-		writeMethodFiles(endPointMap.values(), summaryPath);
-		writePathSummary(endPointMap, summaryPath, new File(summaryPath));
-		// write an index.html for all of the paths linking to path details
-		writeClassSummary(endPointMap, summaryPath, new File(CLASS_SUMMARY_FILE));
-		// write a file for each class
-		writeClassFiles(endPointMap, summaryPath);
+		pageEndPointMap = endPointMap;
+		classPageMap = new HashMap<String, ClassInfo>();
+		classEndPointsMap = new HashMap<ClassInfo, List<EndPoint>>();
+		methodPageMap = new HashMap<String, List<EndPoint>>();
+		typePageMap = new HashMap<String, TypeUsage>();
+		assignPageNames(endPointMap);
+		typeUsageMap = collectTypeUsages(endPointMap.values());
+		for (TypeUsage typeUsage : typeUsageMap.values()) {
+			typePageMap.put(TYPE_SUBDIR + '/' + typePageName(typeUsage.qualifiedTypeName), typeUsage);
+		}
+		for (Entry<String, List<EndPoint>> entry : groupByMethodPage(endPointMap.values()).entrySet()) {
+			methodPageMap.put(CLASS_METHOD_SUBDIR_HTML + '/' + entry.getKey(), entry.getValue());
+		}
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			for (EndPoint endPoint : endPoints) {
+				ClassInfo classInfo = endPoint.getClassInfo();
+				List<EndPoint> classEndPoints = classEndPointsMap.get(classInfo);
+				if (classEndPoints == null) {
+					classEndPoints = new ArrayList<EndPoint>();
+					classEndPointsMap.put(classInfo, classEndPoints);
+					classPageMap.put(CLASS_SUBDIR + '/' + classPageName(classInfo), classInfo);
+				}
+				classEndPoints.add(endPoint);
+			}
+		}
+	}
+
+	/**
+	 * Render one page of the documentation. {@link #preparePages(Map, boolean)} must be called first.
+	 * 
+	 * @param pagePath
+	 *            Path of the page relative to the top of the documentation using '/' separators such as "index.html"
+	 *            or "classes/com_foo_BarController.html".
+	 * @return True if the page was written or false if there is no such page.
+	 */
+	public boolean writePage(String pagePath, HtmlPrintWriter out) {
+		if (pagePath.equals(summaryPath)) {
+			writePathSummary(pageEndPointMap, summaryPath, out);
+			return true;
+		} else if (pagePath.equals(CLASS_SUMMARY_FILE)) {
+			writeClassSummary(pageEndPointMap, summaryPath, out);
+			return true;
+		}
+		ClassInfo classInfo = classPageMap.get(pagePath);
+		if (classInfo != null) {
+			writeClassFile(classInfo, classEndPointsMap.get(classInfo), summaryPath, out);
+			return true;
+		}
+		List<EndPoint> methodEndPoints = methodPageMap.get(pagePath);
+		if (methodEndPoints != null) {
+			writeMethodFile(methodEndPoints, summaryPath, out);
+			return true;
+		}
+		TypeUsage typeUsage = typePageMap.get(pagePath);
+		if (typeUsage != null) {
+			writeTypeFile(typeUsage, summaryPath, out);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Set to true to name the method pages after a hash of their contents and write a manifest of the names. The
+	 * summary, class, and type pages keep their names so the method pages still link straight to their class page.
+	 */
+	public void setContentHashNames(boolean contentHashNames) {
+		this.contentHashNames = contentHashNames;
+	}
+
+	/**
+	 * Set the number of subdirectories, named with hex digits, to spread the class, method, and type pages across. A page
+	 * is put in the subdirectory picked by the hash of its name so the same page is always in the same one. The default
+	 * is 0 which writes the pages into their directories directly.
+	 */
+	public void setPageShards(int pageShards) {
+		if (pageShards < 0) {
+			throw new IllegalArgumentException("Number of page shards cannot be negative: " + pageShards);
+		}
+		this.pageShards = pageShards;
+		this.pageShardDigits = Integer.toHexString(Math.max(pageShards - 1, 0)).length();
+	}
+
+	/**
+	 * Set the number of threads that render the pages and copy the root documentation files. On JVMs with virtual
+	 * threads each page is rendered on its own virtual thread instead, see {@link WorkerExecutors}. Set to 1 to do all
+	 * of the work in the calling thread. Default is the number of processors.
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Set the number of rendered pages that can be waiting to be written before the rendering blocks. Default is
+	 * {@value AsyncPageWriter#DEFAULT_BUFFER_COUNT}.
+	 */
+	public void setPageBufferCount(int pageBufferCount) {
+		this.pageBufferCount = pageBufferCount;
+	}
+
+	/**
+	 * Set the metrics that will record the page timings and counts or null to disable.
+	 */
+	public void setMetrics(DocletMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	/**
@@ -76,7 +354,29 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 	 * 
 	 * @return true if the directory contains an index.html.
 	 */
-	private boolean copyFiles(File dirFile, File sourceDir) throws IOException {
+	static boolean copyFiles(File dirFile, File sourceDir, DocletMetrics metrics) throws IOException {
+		return copyFiles(dirFile, sourceDir, metrics, null);
+	}
+
+	/**
+	 * Copy the files like {@link #copyFiles(File, File, DocletMetrics)} with each file copied by a task on the executor.
+	 * The copying is done in this thread if the executor is null.
+	 * 
+	 * @return true if the directory contains an index.html.
+	 */
+	static boolean copyFiles(File dirFile, File sourceDir, DocletMetrics metrics, ExecutorService executor)
+			throws IOException {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		boolean indexFile = addCopyTasks(dirFile, sourceDir, metrics, tasks);
+		WorkerExecutors.runAll(executor, tasks);
+		return indexFile;
+	}
+
+	/**
+	 * Create the directories and add a task to copy each of the files. This method goes recursive.
+	 */
+	private static boolean addCopyTasks(final File dirFile, File sourceDir, final DocletMetrics metrics,
+			List<Callable<Void>> tasks) throws IOException {
 		boolean indexFile = false;
 		if (!dirFile.isDirectory()) {
 			dirFile.mkdirs();
@@ -87,9 +387,16 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		for (File file : sourceDir.listFiles()) {
 			if (file.isDirectory()) {
 				// NOTE: only the root directory has the index
-				copyFiles(new File(dirFile, file.getName()), file);
+				addCopyTasks(new File(dirFile, file.getName()), file, metrics, tasks);
 			} else {
-				copyFile(file, dirFile);
+				final File sourceFile = file;
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						copyFile(sourceFile, dirFile, metrics);
+						return null;
+					}
+				});
 				if (file.getName().equals(INDEX_FILE_NAME)) {
 					indexFile = true;
 				}
@@ -101,20 +408,27 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 	/**
 	 * Copy a file into the current directory.
 	 */
-	private void copyFile(File sourceFile, File dirFile) throws IOException {
+	private static void copyFile(File sourceFile, File dirFile, DocletMetrics metrics) throws IOException {
+		Object event = JfrEventType.ASSET_COPIED.begin();
 		InputStream input = null;
 		OutputStream output = null;
 		try {
 			input = new FileInputStream(sourceFile);
 			output = new FileOutputStream(new File(dirFile, sourceFile.getName()));
 			byte[] buffer = new byte[4096];
+			long totalBytes = 0;
 			while (true) {
 				int numBytes = input.read(buffer, 0, buffer.length);
 				if (numBytes < 0) {
 					break;
 				}
 				output.write(buffer, 0, numBytes);
+				totalBytes += numBytes;
+			}
+			if (metrics != null) {
+				metrics.fileCopied(totalBytes);
 			}
+			JfrEventType.ASSET_COPIED.commit(event, sourceFile.getPath(), totalBytes);
 		} finally {
 			if (input != null) {
 				input.close();
@@ -127,15 +441,18 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 
 	private void writePathSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, File file)
 			throws IOException {
-		PrintWriter out = new PrintWriter(file);
+		Object event = JfrEventType.PAGE_RENDERED.begin();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		HtmlPrintWriter out = new HtmlPrintWriter(buffer);
 		try {
 			writePathSummary(endPointMap, summaryPath, out);
 		} finally {
 			out.close();
 		}
+		writePage(buffer, file, event);
 	}
 
-	private void writePathSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, PrintWriter out) {
+	private void writePathSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, HtmlPrintWriter out) {
 
 		writeHeader("Path Summary", out);
 
@@ -161,7 +478,9 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			for (EndPoint endPoint : endPoints) {
 				out.write("<tr>");
 				if (first) {
-					out.write("<td rowspan='" + endPoints.size() + "'> " + htmlEscape(path) + "</td>");
+					out.write("<td rowspan='" + endPoints.size() + "'> ");
+					out.printEscaped(path);
+					out.write("</td>");
 					first = false;
 				}
 				out.write("<td> ");
@@ -196,15 +515,17 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 				}
 				out.write("</td><td> ");
 				ClassInfo classInfo = endPoint.getClassInfo();
-				String classFilePath = javaClassNameToPath(classInfo);
-				out.write("<a href='" + CLASS_SUBDIR + File.separatorChar + classFilePath + "'>"
-						+ htmlEscape(classInfo.getClassName()) + "</a>");
+				String classFilePath = classPageName(classInfo);
+				out.write("<a href='" + CLASS_SUBDIR + '/' + classFilePath + "'>");
+				out.printEscaped(classInfo.getClassName());
+				out.write("</a>");
 				out.write("</td><td> ");
 				String classMethodFileName = javaClassMathodNameToPath(classInfo, methodInfo);
-				out.write("<a href='" + CLASS_METHOD_SUBDIR_HTML + File.separatorChar + classMethodFileName + "'>"
-						+ htmlEscape(methodInfo.getJavaMethodName()) + METHOD_NAME_SUFFIX + "</a>");
+				out.write("<a href='" + CLASS_METHOD_SUBDIR_HTML + '/' + classMethodFileName + "'>");
+				out.printEscaped(methodInfo.getJavaMethodName());
+				out.write(METHOD_NAME_SUFFIX + "</a>");
 				out.write("</td><td> ");
-				writeIfNotNull(out, methodInfo.getJavaDocFirstSentence(), "&nbsp;");
+				writeJavaDocFirstSentence(out, methodInfo);
 				out.println("</td></tr>");
 			}
 		}
@@ -215,15 +536,18 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 
 	private void writeClassSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, File file)
 			throws IOException {
-		PrintWriter out = new PrintWriter(file);
+		Object event = JfrEventType.PAGE_RENDERED.begin();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		HtmlPrintWriter out = new HtmlPrintWriter(buffer);
 		try {
 			writeClassSummary(endPointMap, summaryPath, out);
 		} finally {
 			out.close();
 		}
+		writePage(buffer, file, event);
 	}
 
-	private void writeClassSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, PrintWriter out) {
+	private void writeClassSummary(Map<String, List<EndPoint>> endPointMap, String summaryPath, HtmlPrintWriter out) {
 
 		writeHeader("Class Summary", out);
 
@@ -254,9 +578,10 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("<table>");
 		out.println("<tr><th> Class </th><th> Paths </th><th> Description </th></tr>");
 		for (ClassInfo classInfo : classInfoList) {
-			String classFilePath = javaClassNameToPath(classInfo);
-			out.write("<tr><td><a href='" + CLASS_SUBDIR + File.separatorChar + classFilePath + "'>"
-					+ htmlEscape(classInfo.getClassName()) + "</a></td>");
+			String classFilePath = classPageName(classInfo);
+			out.write("<tr><td><a href='" + CLASS_SUBDIR + '/' + classFilePath + "'>");
+			out.printEscaped(classInfo.getClassName());
+			out.write("</a></td>");
 			out.write("<td>");
 			boolean first = true;
 			for (String path : classInfoMap.get(classInfo)) {
@@ -268,19 +593,19 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 				} else {
 					out.write(", ");
 				}
-				out.write(path);
+				out.printEscaped(path);
 			}
 			out.println("</td><td>");
-			writeIfNotNull(out, htmlEscape(classInfo.getJavaDocFirstSentence()), "&nbsp;");
+			writeIfNotNull(out, classInfo.getJavaDocFirstSentence(), "&nbsp;");
 			out.println("</td></tr>");
 		}
 		out.println("</table>");
 		writeTrailer(out, null, summaryPath);
 	}
 
-	private void writeClassFiles(Map<String, List<EndPoint>> endPointMap, String summaryPath) throws IOException {
-		File classSubdir = new File(CLASS_SUBDIR);
-		classSubdir.mkdirs();
+	private void writeClassFiles(Map<String, List<EndPoint>> endPointMap, final String summaryPath)
+			throws IOException {
+		makePageDirs(CLASS_SUBDIR);
 		Map<ClassInfo, List<EndPoint>> classInfoMap = new HashMap<ClassInfo, List<EndPoint>>();
 		for (List<EndPoint> endPoints : endPointMap.values()) {
 			for (EndPoint endPoint : endPoints) {
@@ -294,32 +619,52 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			}
 		}
 
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(classInfoMap.size());
 		for (Entry<ClassInfo, List<EndPoint>> entry : classInfoMap.entrySet()) {
-			writeClassFile(entry.getKey(), entry.getValue(), summaryPath);
+			final ClassInfo classInfo = entry.getKey();
+			final List<EndPoint> endPoints = entry.getValue();
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					writeClassFile(classInfo, endPoints, summaryPath);
+					return null;
+				}
+			});
 		}
+		WorkerExecutors.runAll(executor, tasks);
 	}
 
 	private void writeClassFile(ClassInfo classInfo, List<EndPoint> endPoints, String summaryPath) throws IOException {
-		String classFilePath = javaClassNameToPath(classInfo);
-		PrintWriter out = new PrintWriter(CLASS_SUBDIR + File.separatorChar + classFilePath);
+		String classFilePath = classPageName(classInfo);
+		Object event = JfrEventType.PAGE_RENDERED.begin();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		HtmlPrintWriter out = new HtmlPrintWriter(buffer);
 		try {
 			writeClassFile(classInfo, endPoints, summaryPath, out);
 		} finally {
 			out.close();
 		}
+		// the class pages are not hashed so the method pages can link to them
+		writePage(buffer, new File(outputDir, CLASS_SUBDIR + File.separatorChar + classFilePath), event);
 	}
 
-	private void writeClassFile(ClassInfo classInfo, List<EndPoint> endPoints, String summaryPath, PrintWriter out) {
+	private void writeClassFile(ClassInfo classInfo, List<EndPoint> endPoints, String summaryPath, HtmlPrintWriter out) {
 
 		writeHeader("Class " + classInfo.getClassName(), out);
 
-		// gather up the methods so we can sort them
-		List<MethodInfo> methodInfoList = new ArrayList<MethodInfo>();
-		Map<MethodInfo, String> methodPathMap = new HashMap<MethodInfo, String>();
+		// gather up the methods and their paths so we can sort them
+		Map<MethodInfo, Collection<String>> methodPathMap = new HashMap<MethodInfo, Collection<String>>();
 		for (EndPoint endPoint : endPoints) {
-			methodInfoList.add(endPoint.getMethodInfo());
-			methodPathMap.put(endPoint.getMethodInfo(), endPoint.getPath());
+			Collection<String> methodPaths = methodPathMap.get(endPoint.getMethodInfo());
+			if (methodPaths == null) {
+				methodPaths = new TreeSet<String>();
+				methodPathMap.put(endPoint.getMethodInfo(), methodPaths);
+			}
+			if (endPoint.getPath() != null) {
+				methodPaths.add(endPoint.getPath());
+			}
 		}
+		List<MethodInfo> methodInfoList = new ArrayList<MethodInfo>(methodPathMap.keySet());
 		// sort by class name
 		Collections.sort(methodInfoList);
 
@@ -340,37 +685,158 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			out.println("<p class='bc'> Javadoc summary: " + javaDocFirst + "</p>");
 		}
 
-		writeMethodInfo(out, classInfo, methodInfoList, methodPathMap, METHOD_SUBDIR);
+		// the links are relative to the page which may be in a shard subdirectory
+		String shardRoot = pathToShardRoot(classPageName(classInfo));
+		writeMethodInfo(out, classInfo, methodInfoList, methodPathMap, shardRoot + METHOD_SUBDIR);
 
 		if (javaDoc != null && !javaDoc.equals(javaDocFirst)) {
 			// NOTE: javadoc might have html which we hope is ok
 			printJavaDocs(out, javaDoc);
 		}
 
-		writeTrailer(out, "../", summaryPath);
+		writeTrailer(out, "../" + shardRoot, summaryPath);
+	}
+
+	private void writeMethodFiles(Collection<List<EndPoint>> pathEndPoints, final String summaryPath)
+			throws IOException {
+		makePageDirs(CLASS_METHOD_SUBDIR);
+		// each method page is written once with all of the paths of the method
+		Map<String, List<EndPoint>> methodEndPointsMap = groupByMethodPage(pathEndPoints);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(methodEndPointsMap.size());
+		for (Entry<String, List<EndPoint>> entry : methodEndPointsMap.entrySet()) {
+			final String classMethodPath = entry.getKey();
+			final List<EndPoint> methodEndPoints = entry.getValue();
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					writeMethodFile(classMethodPath, methodEndPoints, summaryPath);
+					return null;
+				}
+			});
+		}
+		WorkerExecutors.runAll(executor, tasks);
+	}
+
+	private void writeMethodFile(String classMethodPath, List<EndPoint> methodEndPoints, String summaryPath)
+			throws IOException {
+		Object event = JfrEventType.PAGE_RENDERED.begin();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		HtmlPrintWriter out = new HtmlPrintWriter(buffer);
+		try {
+			writeMethodFile(methodEndPoints, summaryPath, out);
+		} finally {
+			out.close();
+		}
+		if (contentHashNames) {
+			writeHashedPage(CLASS_METHOD_SUBDIR, CLASS_METHOD_SUBDIR_HTML, classMethodPath, buffer, event);
+		} else {
+			writePage(buffer, new File(outputDir, CLASS_METHOD_SUBDIR + File.separatorChar + classMethodPath), event);
+		}
 	}
 
-	private void writeMethodFiles(Collection<List<EndPoint>> pathEndPoints, String summaryPath)
-			throws FileNotFoundException {
-		File methodSubdir = new File(CLASS_METHOD_SUBDIR);
-		methodSubdir.mkdirs();
+	/**
+	 * Group the end-points by the name of the page of the method that handles them. A method has an end-point for each
+	 * of its paths combined with each of the paths of its class.
+	 */
+	private Map<String, List<EndPoint>> groupByMethodPage(Collection<List<EndPoint>> pathEndPoints) {
+		Map<String, List<EndPoint>> methodEndPointsMap = new HashMap<String, List<EndPoint>>();
 		for (List<EndPoint> pathEndPoint : pathEndPoints) {
 			for (EndPoint endPoint : pathEndPoint) {
-				String classMethodPath = javaClassMathodNameToPath(endPoint.getClassInfo(), endPoint.getMethodInfo());
-				PrintWriter out = new PrintWriter(CLASS_METHOD_SUBDIR + File.separatorChar + classMethodPath);
-				try {
-					writeMethodFile(endPoint, summaryPath, out);
-				} finally {
-					out.close();
+				String classMethodPath = methodPageName(endPoint.getClassInfo(), endPoint.getMethodInfo());
+				List<EndPoint> methodEndPoints = methodEndPointsMap.get(classMethodPath);
+				if (methodEndPoints == null) {
+					methodEndPoints = new ArrayList<EndPoint>(1);
+					methodEndPointsMap.put(classMethodPath, methodEndPoints);
 				}
+				methodEndPoints.add(endPoint);
 			}
 		}
+		return methodEndPointsMap;
 	}
 
-	private void writeMethodFile(EndPoint endPoint, String summaryPath, PrintWriter out) {
+	/**
+	 * Write the contents of a page to a file named after the hash of the contents and remember the name so the pages
+	 * written afterwards link to it.
+	 */
+	private void writeHashedPage(String dirPath, String htmlDirPath, String fileName, PageBuffer buffer, Object event)
+			throws IOException {
+		// the pages are hashed by a number of threads so each gets its own digest
+		MessageDigest contentDigest = newContentDigest();
+		contentDigest.update(buffer.toByteBuffer());
+		byte[] digest = contentDigest.digest();
+		StringBuilder sb = new StringBuilder(fileName.length() + CONTENT_HASH_BYTES * 2 + 1);
+		int extensionIndex = fileName.lastIndexOf('.');
+		sb.append(fileName, 0, extensionIndex).append('.');
+		for (int i = 0; i < CONTENT_HASH_BYTES; i++) {
+			sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(digest[i] & 0xF, 16));
+		}
+		sb.append(fileName, extensionIndex, fileName.length());
+		String hashedName = sb.toString();
+		synchronized (hashedPageMap) {
+			hashedPageMap.put(htmlDirPath + '/' + fileName, hashedName);
+		}
+		writePage(buffer, new File(outputDir, dirPath + File.separatorChar + hashedName), event);
+	}
+
+	/**
+	 * Hand the rendered page to the page writer which writes it to the file in the background.
+	 */
+	private void writePage(PageBuffer buffer, File file, Object event) throws IOException {
+		// the size is recorded before the buffer is handed off since it is reused once the page is written
+		long numBytes = buffer.size();
+		pageWriter.write(buffer, file);
+		if (metrics != null) {
+			metrics.pageWritten(numBytes);
+		}
+		JfrEventType.PAGE_RENDERED.commit(event, file.getPath(), numBytes);
+	}
 
-		ClassInfo classInfo = endPoint.getClassInfo();
-		MethodInfo methodInfo = endPoint.getMethodInfo();
+	/**
+	 * Write the manifest which maps the plain page paths to the content hashed ones.
+	 */
+	private void writeManifest(File file) throws IOException {
+		JsonWriter json = new JsonWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			json.beginObject();
+			// the entry pages are not hashed and need to be revalidated by the browser
+			json.name("entryPages").beginArray();
+			json.value(INDEX_FILE_NAME);
+			if (!summaryPath.equals(INDEX_FILE_NAME)) {
+				json.value(summaryPath);
+			}
+			json.value(CLASS_SUMMARY_FILE);
+			for (String classPageName : new TreeSet<String>(classNameMap.values())) {
+				json.value(CLASS_SUBDIR + '/' + classPageName);
+			}
+			for (TypeUsage typeUsage : typeUsageMap.values()) {
+				json.value(TYPE_SUBDIR + '/' + typePageName(typeUsage.qualifiedTypeName));
+			}
+			json.endArray();
+			json.name("hashedPages").beginObject();
+			for (Entry<String, String> entry : hashedPageMap.entrySet()) {
+				// the hashed name may start with the shard subdirectory which is already in the key
+				String htmlDirPath = entry.getKey().substring(0, entry.getKey().lastIndexOf('/') + 1);
+				String hashedName = entry.getValue().substring(entry.getValue().lastIndexOf('/') + 1);
+				json.name(entry.getKey()).value(htmlDirPath + hashedName);
+			}
+			json.endObject();
+			json.endObject();
+		} finally {
+			json.close();
+		}
+	}
+
+	private void writeMethodFile(List<EndPoint> methodEndPoints, String summaryPath, HtmlPrintWriter out) {
+
+		ClassInfo classInfo = methodEndPoints.get(0).getClassInfo();
+		MethodInfo methodInfo = methodEndPoints.get(0).getMethodInfo();
+		Collection<String> methodPaths = new TreeSet<String>();
+		for (EndPoint endPoint : methodEndPoints) {
+			if (endPoint.getPath() != null) {
+				methodPaths.add(endPoint.getPath());
+			}
+		}
 		writeHeader("Method " + classInfo.getClassName() + ". " + methodInfo.getJavaMethodName() + METHOD_NAME_SUFFIX,
 				out);
 
@@ -379,9 +845,11 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			javaDoc = null;
 		}
 
-		String classFilePath = javaClassNameToPath(classInfo);
-		out.print("<p> The following is documentation for a single method from the class <a href='../" + classFilePath
-				+ "'>" + htmlEscape(classInfo.getClassName()) + "</a>.");
+		String shardRoot = pathToShardRoot(methodPageName(classInfo, methodInfo));
+		String classHref = "../" + shardRoot + classPageName(classInfo);
+		out.print("<p> The following is documentation for a single method from the class <a href='" + classHref + "'>");
+		out.printEscaped(classInfo.getClassName());
+		out.print("</a>.");
 		if (javaDoc != null) {
 			out.print(" The full javadocs are below.");
 		}
@@ -393,17 +861,19 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		}
 
 		writeMethodInfo(out, classInfo, Collections.singletonList(methodInfo),
-				Collections.singletonMap(methodInfo, endPoint.getPath()), null);
+				Collections.singletonMap(methodInfo, methodPaths), null);
 		out.println("<br />\n");
 		if (methodInfo.getRequestInfo() == null) {
 			writeParamInfo(out, methodInfo);
 		} else {
-			writeContentsInfo(out, methodInfo, methodInfo.getRequestInfo(), "Request Fields POSTed to Method");
+			writeContentsInfo(out, methodInfo, methodInfo.getRequestInfo(), "Request Fields POSTed to Method",
+					shardRoot);
 		}
 
 		if (methodInfo.getResponseInfo() != null) {
 			out.println("<br />\n");
-			writeContentsInfo(out, methodInfo, methodInfo.getResponseInfo(), "Response Fields Returned to Client");
+			writeContentsInfo(out, methodInfo, methodInfo.getResponseInfo(), "Response Fields Returned to Client",
+					shardRoot);
 		}
 
 		if (javaDoc != null) {
@@ -411,10 +881,10 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			printJavaDocs(out, javaDoc);
 		}
 
-		writeTrailer(out, "../../", summaryPath);
+		writeTrailer(out, "../../" + shardRoot, summaryPath);
 	}
 
-	private void printJavaDocs(PrintWriter out, String javaDoc) {
+	private void printJavaDocs(HtmlPrintWriter out, String javaDoc) {
 		if (javaDoc == null || javaDoc.isEmpty()) {
 			return;
 		}
@@ -432,8 +902,8 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("</p>");
 	}
 
-	private void writeMethodInfo(PrintWriter out, ClassInfo classInfo, List<MethodInfo> methodInfoList,
-			Map<MethodInfo, String> methodPathMap, String subDir) {
+	private void writeMethodInfo(HtmlPrintWriter out, ClassInfo classInfo, List<MethodInfo> methodInfoList,
+			Map<MethodInfo, Collection<String>> methodPathMap, String subDir) {
 		out.println("<table>");
 		out.println("<tr><th colspan='7'> Method Information </th></tr>");
 		out.println("<tr><th rowspan='2'> Method </th><th colspan='5'> Request Narrowing </th>"
@@ -446,19 +916,32 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("</table>");
 	}
 
-	private void writeMethodInfoRow(PrintWriter out, ClassInfo classInfo, MethodInfo methodInfo, String methodPath,
-			String subDir) {
+	private void writeMethodInfoRow(HtmlPrintWriter out, ClassInfo classInfo, MethodInfo methodInfo,
+			Collection<String> methodPaths, String subDir) {
 		out.write("<tr><td>");
 		if (subDir != null) {
 			String classMethodFileName = javaClassMathodNameToPath(classInfo, methodInfo);
 			out.write("<a href='" + subDir + '/' + classMethodFileName + "'>");
 		}
-		out.write(htmlEscape(methodInfo.getJavaMethodName()) + METHOD_NAME_SUFFIX);
+		out.printEscaped(methodInfo.getJavaMethodName());
+		out.write(METHOD_NAME_SUFFIX);
 		if (subDir != null) {
 			out.write("</a>");
 		}
 		out.write("</td><td>");
-		writeIfNotNull(out, methodPath, "&nbsp;");
+		if (methodPaths.isEmpty()) {
+			out.print("&nbsp;");
+		} else {
+			boolean first = true;
+			for (String methodPath : methodPaths) {
+				if (first) {
+					first = false;
+				} else {
+					out.write(" <br />");
+				}
+				out.printEscaped(methodPath);
+			}
+		}
 		out.write("</td><td>");
 		String[] methods = methodInfo.getHttpMethods();
 		printArray(out, null, methods);
@@ -484,11 +967,11 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			firstOther = false;
 		}
 		out.write("</td><td> ");
-		writeIfNotNull(out, methodInfo.getJavaDocFirstSentence(), "&nbsp;");
+		writeJavaDocFirstSentence(out, methodInfo);
 		out.println("</td></tr>");
 	}
 
-	private void writeParamInfo(PrintWriter out, MethodInfo methodInfo) {
+	private void writeParamInfo(HtmlPrintWriter out, MethodInfo methodInfo) {
 		List<ParamInfo> paramInfos = methodInfo.getParamInfos();
 		if (paramInfos == null || paramInfos.isEmpty()) {
 			return;
@@ -501,15 +984,18 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		for (ParamInfo paramInfo : paramInfos) {
 			out.write("<tr>");
 			if (first) {
-				out.write("<td rowspan='" + paramInfos.size() + "'> " + htmlEscape(methodInfo.getJavaMethodName())
-						+ METHOD_NAME_SUFFIX + "</td>");
+				out.write("<td rowspan='" + paramInfos.size() + "'> ");
+				out.printEscaped(methodInfo.getJavaMethodName());
+				out.write(METHOD_NAME_SUFFIX + "</td>");
 				first = false;
 			}
-			out.write("<td> " + (paramInfo.getRequestName() == null ? "" : htmlEscape(paramInfo.getRequestName()))
-					+ "</td>");
-			out.write("<td> " + htmlEscape(paramInfo.getRequestKind().getDescription()) + "</td>");
-			out.write("<td> " + htmlEscape(paramInfo.getJavaTypeName()) + "</td>");
-			out.write("<td> " + (paramInfo.isRequired() ? true : "&nbsp;" + "</td>"));
+			out.write("<td> ");
+			out.printEscaped(paramInfo.getRequestName());
+			out.write("</td><td> ");
+			out.printEscaped(paramInfo.getRequestKind().getDescription());
+			out.write("</td><td> ");
+			out.printEscaped(paramInfo.getJavaTypeName());
+			out.write("</td><td> " + (paramInfo.isRequired() ? "true" : "&nbsp;") + "</td>");
 			out.write("<td> ");
 			writeIfNotNull(out, paramInfo.getDefaultValue(), "&nbsp;");
 			out.write(" </td><td> ");
@@ -519,51 +1005,151 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("</table>");
 	}
 
-	private void writeContentsInfo(PrintWriter out, MethodInfo methodInfo, ContentsInfo bodyInfo, String label) {
+	private void writeContentsInfo(HtmlPrintWriter out, MethodInfo methodInfo, ContentsInfo bodyInfo, String label,
+			String shardRoot) {
 
 		out.println("<table>");
-		out.println("<tr><th colspan='7'> " + label + " </th></tr>");
-		out.println("<tr><th> Method </th><th> Field Name </th><th> Data Type </th><th> Description </th></tr>");
-		out.write("<tr>");
-		List<FieldInfo> fieldInfos = bodyInfo.getFieldInfos();
-		int height = 1;
-		if (fieldInfos != null && !fieldInfos.isEmpty()) {
-			height = fieldInfos.size();
-		}
-		out.write("<td rowspan='" + height + "'> " + htmlEscape(methodInfo.getJavaMethodName()) + METHOD_NAME_SUFFIX
-				+ "</td>");
-		if (fieldInfos == null || fieldInfos.isEmpty()) {
-			out.write("<td>&nbsp;</td>");
-			out.write("<td> " + htmlEscape(bodyInfo.getJavaTypeName()) + "</td>");
-			out.write("<td> ");
-			writeIfNotNull(out, bodyInfo.getJavaDoc(), "&nbsp;");
-			out.println("</td></tr>");
+		out.println("<tr><th colspan='3'> " + label + " </th></tr>");
+		out.println("<tr><th> Method </th><th> Data Type </th><th> Description </th></tr>");
+		out.write("<tr><td> ");
+		out.printEscaped(methodInfo.getJavaMethodName());
+		out.write(METHOD_NAME_SUFFIX + "</td><td> ");
+		// the fields are documented on the page of the type
+		if (hasFields(bodyInfo)) {
+			out.write("<a href='../../" + shardRoot + TYPE_SUBDIR + '/' + typePageName(bodyInfo.getQualifiedTypeName())
+					+ "'>");
+			out.printEscaped(bodyInfo.getJavaTypeName());
+			out.write("</a>");
 		} else {
-			boolean first = true;
-			for (FieldInfo fieldInfo : fieldInfos) {
-				if (!first) {
-					out.println("<tr>");
-				}
-				out.write("<td> " + htmlEscape(fieldInfo.getFieldName()) + "</td>");
-				out.write("<td> " + htmlEscape(fieldInfo.getTypeName()) + "</td>");
-				out.write("<td> ");
-				writeIfNotNull(out, fieldInfo.getJavaDoc(), "&nbsp;");
-				out.println("</td>");
-				out.println("</tr>");
-				first = false;
+			out.printEscaped(bodyInfo.getJavaTypeName());
+		}
+		out.write("</td><td> ");
+		writeIfNotNull(out, bodyInfo.getJavaDoc(), "&nbsp;");
+		out.println("</td></tr>");
+		out.println("</table>");
+	}
+
+	/**
+	 * Gather up the request and response types that have fields along with the methods that use them.
+	 */
+	private Map<String, TypeUsage> collectTypeUsages(Collection<List<EndPoint>> pathEndPoints) {
+		Map<String, TypeUsage> usageMap = new TreeMap<String, TypeUsage>();
+		for (List<EndPoint> endPoints : pathEndPoints) {
+			for (EndPoint endPoint : endPoints) {
+				MethodInfo methodInfo = endPoint.getMethodInfo();
+				addTypeUsage(usageMap, methodInfo.getRequestInfo(), endPoint, true);
+				addTypeUsage(usageMap, methodInfo.getResponseInfo(), endPoint, false);
 			}
 		}
+		return usageMap;
+	}
+
+	private void addTypeUsage(Map<String, TypeUsage> usageMap, ContentsInfo contentsInfo, EndPoint endPoint,
+			boolean request) {
+		if (!hasFields(contentsInfo)) {
+			return;
+		}
+		TypeUsage typeUsage = usageMap.get(contentsInfo.getQualifiedTypeName());
+		if (typeUsage == null) {
+			typeUsage = new TypeUsage(contentsInfo);
+			usageMap.put(typeUsage.qualifiedTypeName, typeUsage);
+		}
+		typeUsage.addEndPoint(methodPageName(endPoint.getClassInfo(), endPoint.getMethodInfo()), endPoint, request);
+	}
+
+	private void writeTypeFiles(Collection<TypeUsage> typeUsages, final String summaryPath) throws IOException {
+		makePageDirs(TYPE_SUBDIR);
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(typeUsages.size());
+		for (final TypeUsage typeUsage : typeUsages) {
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					writeTypeFile(typeUsage, summaryPath);
+					return null;
+				}
+			});
+		}
+		WorkerExecutors.runAll(executor, tasks);
+	}
+
+	private void writeTypeFile(TypeUsage typeUsage, String summaryPath) throws IOException {
+		Object event = JfrEventType.PAGE_RENDERED.begin();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		HtmlPrintWriter out = new HtmlPrintWriter(buffer);
+		try {
+			writeTypeFile(typeUsage, summaryPath, out);
+		} finally {
+			out.close();
+		}
+		String typePagePath = TYPE_SUBDIR + File.separatorChar + typePageName(typeUsage.qualifiedTypeName);
+		writePage(buffer, new File(outputDir, typePagePath), event);
+	}
+
+	private void writeTypeFile(TypeUsage typeUsage, String summaryPath, HtmlPrintWriter out) {
+
+		writeHeader("Type " + typeUsage.typeName, out);
+
+		out.println("<p> The following is documentation for the fields of a type which is sent to or returned by "
+				+ "the methods listed below. </p>");
+
+		out.println("<table>");
+		out.println("<tr><th colspan='3'> Type Fields </th></tr>");
+		out.println("<tr><th> Field Name </th><th> Data Type </th><th> Description </th></tr>");
+		for (FieldInfo fieldInfo : typeUsage.fieldInfos) {
+			out.write("<tr><td> ");
+			out.printEscaped(fieldInfo.getFieldName());
+			out.write("</td><td> ");
+			out.printEscaped(fieldInfo.getTypeName());
+			out.write("</td><td> ");
+			writeIfNotNull(out, fieldInfo.getJavaDoc(), "&nbsp;");
+			out.println("</td></tr>");
+		}
 		out.println("</table>");
+		out.println("<br />\n");
+
+		out.println("<table>");
+		out.println("<tr><th colspan='4'> Used By </th></tr>");
+		out.println("<tr><th> Class </th><th> Method </th><th> Usage </th><th> Description </th></tr>");
+		String shardRoot = pathToShardRoot(typePageName(typeUsage.qualifiedTypeName));
+		writeTypeUsageRows(out, typeUsage.requestEndPoints.values(), "Request body", shardRoot);
+		writeTypeUsageRows(out, typeUsage.responseEndPoints.values(), "Response", shardRoot);
+		out.println("</table>");
+
+		writeTrailer(out, "../" + shardRoot, summaryPath);
+	}
+
+	private void writeTypeUsageRows(HtmlPrintWriter out, Collection<EndPoint> endPoints, String usage,
+			String shardRoot) {
+		for (EndPoint endPoint : endPoints) {
+			ClassInfo classInfo = endPoint.getClassInfo();
+			MethodInfo methodInfo = endPoint.getMethodInfo();
+			out.write("<tr><td> <a href='../" + shardRoot + CLASS_SUBDIR + '/' + classPageName(classInfo) + "'>");
+			out.printEscaped(classInfo.getClassName());
+			out.write("</a></td><td> <a href='../" + shardRoot + CLASS_METHOD_SUBDIR_HTML + '/'
+					+ javaClassMathodNameToPath(classInfo, methodInfo) + "'>");
+			out.printEscaped(methodInfo.getJavaMethodName());
+			out.write(METHOD_NAME_SUFFIX + "</a></td><td> " + usage + "</td><td> ");
+			writeJavaDocFirstSentence(out, methodInfo);
+			out.println("</td></tr>");
+		}
 	}
 
-	private void writeHeader(String title, PrintWriter out) {
-		out.println("<?xml version='1.0' encoding='ISO-8859-1' ?>");
+	private static boolean hasFields(ContentsInfo contentsInfo) {
+		return (contentsInfo != null && contentsInfo.getFieldInfos() != null
+				&& !contentsInfo.getFieldInfos().isEmpty());
+	}
+
+	static void writeHeader(String title, HtmlPrintWriter out) {
+		out.println("<?xml version='1.0' encoding='" + HtmlPrintWriter.PAGE_CHARSET.name() + "' ?>");
 		out.println("<!DOCTYPE html PUBLIC '-//W3C//DTD XHTML 1.0 Strict//EN'");
 		out.println("    'http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd'>");
 		out.println("<html xmlns='http://www.w3.org/1999/xhtml'>");
 		out.println("<head>");
-		out.println("<meta http-equiv='Content-Type' content='text/html; charset=ISO-8859-1' />");
-		out.println("<title> " + htmlEscape(title) + " </title>");
+		out.println("<meta http-equiv='Content-Type' content='text/html; charset=" + HtmlPrintWriter.PAGE_CHARSET.name()
+				+ "' />");
+		out.print("<title> ");
+		out.printEscaped(title);
+		out.println(" </title>");
 		out.println("<style>");
 		out.println("   table { border-collapse: collapse; }");
 		out.println("   table, th, td { border: 1px solid black; }");
@@ -574,10 +1160,12 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("</style>");
 		out.println("</head>");
 		out.println("<body>");
-		out.println("<h1> " + htmlEscape(title) + " </h1>");
+		out.print("<h1> ");
+		out.printEscaped(title);
+		out.println(" </h1>");
 	}
 
-	private void writeTrailer(PrintWriter out, String relativePathToRoot, String pathSummaryFileName) {
+	private void writeTrailer(HtmlPrintWriter out, String relativePathToRoot, String pathSummaryFileName) {
 		if (relativePathToRoot == null) {
 			relativePathToRoot = "./";
 		}
@@ -595,11 +1183,49 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		out.println("</html>");
 	}
 
+	/**
+	 * Start the threads which render and write the pages.
+	 */
+	private void startWorkers() {
+		if (threadCount > 1) {
+			executor = WorkerExecutors.newExecutor(threadCount);
+		}
+		// the writes can't share a fixed pool with the rendering since the rendering waits for them
+		ioExecutor = WorkerExecutors.newVirtualExecutor();
+		pageWriter = new AsyncPageWriter(pageBufferCount, ioExecutor);
+	}
+
+	/**
+	 * Wait for the last of the pages to be written and stop the threads.
+	 */
+	private void stopWorkers() throws IOException {
+		long startNanos = System.nanoTime();
+		try {
+			pageWriter.close();
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+				executor = null;
+			}
+			if (ioExecutor != null) {
+				ioExecutor.shutdownNow();
+				ioExecutor = null;
+			}
+		}
+		phaseFinished("page-flush", startNanos);
+	}
+
+	private void phaseFinished(String phase, long startNanos) {
+		if (metrics != null) {
+			metrics.phaseFinished(phase, startNanos);
+		}
+	}
+
 	private boolean isEmpty(String[] array) {
 		return (array == null || array.length == 0);
 	}
 
-	private void printArray(PrintWriter out, String prefix, String[] array) {
+	private void printArray(HtmlPrintWriter out, String prefix, String[] array) {
 		if (array == null || array.length == 0) {
 			return;
 		}
@@ -608,58 +1234,114 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 			if (i > 0) {
 				out.write(", ");
 			}
-			out.write(htmlEscape(array[i]));
+			out.printEscaped(array[i]);
 		}
 	}
 
-	private void writeIfNotNull(PrintWriter out, String string, String nullString) {
+	/**
+	 * Write the first sentence of the method's javadoc straight from the javadoc string so no substring is made for it.
+	 */
+	private void writeJavaDocFirstSentence(HtmlPrintWriter out, MethodInfo methodInfo) {
+		int length = methodInfo.getJavaDocFirstSentenceLength();
+		if (length < 0) {
+			out.print("&nbsp;");
+		} else {
+			out.printEscaped(methodInfo.getJavaDoc(), 0, length);
+		}
+	}
+
+	private void writeIfNotNull(HtmlPrintWriter out, String string, String nullString) {
 		if (string == null) {
 			if (nullString != null) {
 				out.print(nullString);
 			}
 		} else {
-			out.print(htmlEscape(string));
+			out.printEscaped(string);
 		}
 	}
 
-	private String htmlEscape(String maybeHtml) {
-		if (maybeHtml == null || maybeHtml.isEmpty()) {
-			return maybeHtml;
-		}
-		boolean htmlChar = false;
-		for (int i = 0; i < maybeHtml.length(); i++) {
-			if (maybeHtml.charAt(i) == '&' || maybeHtml.charAt(i) == '<' || maybeHtml.charAt(i) == '>') {
-				htmlChar = true;
+	/**
+	 * Assign the page names of the classes, methods, and types in the end-point map, in sorted order of their keys so the
+	 * suffixes given to names that collide do not depend on the iteration order of the map. Names that were already
+	 * assigned are kept.
+	 */
+	private void assignPageNames(Map<String, List<EndPoint>> endPointMap) {
+		Set<String> classKeys = new TreeSet<String>();
+		Set<String> methodKeys = new TreeSet<String>();
+		Set<String> typeKeys = new TreeSet<String>();
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			for (EndPoint endPoint : endPoints) {
+				ClassInfo classInfo = endPoint.getClassInfo();
+				MethodInfo methodInfo = endPoint.getMethodInfo();
+				classKeys.add(classInfo.getTypeName());
+				methodKeys.add(classInfo.getTypeName() + '.' + methodInfo.getUniqueName());
+				if (hasFields(methodInfo.getRequestInfo())) {
+					typeKeys.add(methodInfo.getRequestInfo().getQualifiedTypeName());
+				}
+				if (hasFields(methodInfo.getResponseInfo())) {
+					typeKeys.add(methodInfo.getResponseInfo().getQualifiedTypeName());
+				}
 			}
 		}
-		if (!htmlChar) {
-			return maybeHtml;
+		for (String key : classKeys) {
+			findUniquePath(key, classNameMap, classPathSet);
 		}
-		StringBuilder sb = new StringBuilder(maybeHtml.length() + 10);
-		for (int i = 0; i < maybeHtml.length(); i++) {
-			char ch = maybeHtml.charAt(i);
-			if (ch == '&') {
-				sb.append("&amp;");
-			} else if (ch == '<') {
-				sb.append("&lt;");
-			} else if (ch == '>') {
-				sb.append("&gt;");
-			} else {
-				sb.append(ch);
-			}
+		for (String key : methodKeys) {
+			findUniquePath(key, methodNameMap, methodPathSet);
+		}
+		for (String key : typeKeys) {
+			findUniquePath(key, typeNameMap, typePathSet);
 		}
-		return sb.toString();
 	}
 
-	private String javaClassNameToPath(ClassInfo classInfo) {
-		return findUniquePath(classInfo.getTypeName(), classNameMap, classPathSet);
+	private static MessageDigest newContentDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException nsae) {
+			// every JVM has to support SHA-256
+			throw new IllegalStateException("Could not get the SHA-256 digest", nsae);
+		}
 	}
 
+	/**
+	 * Return the name of the page to link to for the method which is the content hashed name if it has been written.
+	 */
 	private String javaClassMathodNameToPath(ClassInfo classInfo, MethodInfo methodInfo) {
+		return hashedName(CLASS_METHOD_SUBDIR_HTML, methodPageName(classInfo, methodInfo));
+	}
+
+	private String classPageName(ClassInfo classInfo) {
+		return findUniquePath(classInfo.getTypeName(), classNameMap, classPathSet);
+	}
+
+	private String methodPageName(ClassInfo classInfo, MethodInfo methodInfo) {
 		return findUniquePath(classInfo.getTypeName() + '.' + methodInfo.getUniqueName(), methodNameMap, methodPathSet);
 	}
 
-	private String findUniquePath(String key, Map<String, String> nameMap, Set<String> pathSet) {
+	private String typePageName(String typeName) {
+		return findUniquePath(typeName, typeNameMap, typePathSet);
+	}
+
+	private String hashedName(String htmlDirPath, String fileName) {
+		String hashedName;
+		synchronized (hashedPageMap) {
+			if (hashedPageMap.isEmpty()) {
+				return fileName;
+			}
+			hashedName = hashedPageMap.get(htmlDirPath + '/' + fileName);
+		}
+		if (hashedName == null) {
+			return fileName;
+		} else {
+			return hashedName;
+		}
+	}
+
+	/**
+	 * Return the page name of the key assigning a new one if needed. This is synchronized since the pages are rendered by
+	 * a number of threads.
+	 */
+	private synchronized String findUniquePath(String key, Map<String, String> nameMap, Set<String> pathSet) {
 		String path = nameMap.get(key);
 		if (path != null) {
 			return path;
@@ -678,7 +1360,90 @@ public class HtmlPathMapWriter implements EndPointMapWriter {
 		for (int i = 2; !pathSet.add(path); i++) {
 			path = (rawPath + i) + ".html";
 		}
+		if (pageShards > 0) {
+			path = shardName(path) + '/' + path;
+		}
 		nameMap.put(key, path);
 		return path;
 	}
+
+	/**
+	 * Return the name of the shard subdirectory of a page which is the hash of its name in hex.
+	 */
+	private String shardName(String fileName) {
+		return toShardName((fileName.hashCode() & Integer.MAX_VALUE) % pageShards);
+	}
+
+	private String toShardName(int shard) {
+		String hex = Integer.toHexString(shard);
+		StringBuilder sb = new StringBuilder(pageShardDigits);
+		for (int i = hex.length(); i < pageShardDigits; i++) {
+			sb.append('0');
+		}
+		return sb.append(hex).toString();
+	}
+
+	/**
+	 * Return the relative path from the directory of a page up to the directory of its kind of page which is empty
+	 * unless the page is in a shard subdirectory.
+	 */
+	private static String pathToShardRoot(String pageName) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < pageName.length(); i++) {
+			if (pageName.charAt(i) == '/') {
+				sb.append("../");
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Create the directory of a kind of page along with its shard subdirectories.
+	 */
+	private void makePageDirs(String dirPath) {
+		File dir = new File(outputDir, dirPath);
+		dir.mkdirs();
+		for (int i = 0; i < pageShards; i++) {
+			new File(dir, toShardName(i)).mkdir();
+		}
+	}
+
+	/**
+	 * A request or response type with fields and the methods that consume or produce it.
+	 */
+	private static class TypeUsage {
+
+		/** identifies the type, the type name without the package is only displayed */
+		final String qualifiedTypeName;
+		final String typeName;
+		final List<FieldInfo> fieldInfos;
+		/** method page name -> an end-point of the method so the methods are listed in page name order */
+		final Map<String, EndPoint> requestEndPoints = new TreeMap<String, EndPoint>();
+		final Map<String, EndPoint> responseEndPoints = new TreeMap<String, EndPoint>();
+		final Set<String> classTypeNames = new HashSet<String>();
+
+		public TypeUsage(ContentsInfo contentsInfo) {
+			this.qualifiedTypeName = contentsInfo.getQualifiedTypeName();
+			this.typeName = contentsInfo.getJavaTypeName();
+			this.fieldInfos = contentsInfo.getFieldInfos();
+		}
+
+		public void addEndPoint(String methodPageName, EndPoint endPoint, boolean request) {
+			if (request) {
+				requestEndPoints.put(methodPageName, endPoint);
+			} else {
+				responseEndPoints.put(methodPageName, endPoint);
+			}
+			classTypeNames.add(endPoint.getClassInfo().getTypeName());
+		}
+
+		public boolean isUsedByAny(Set<String> typeNames) {
+			for (String classTypeName : classTypeNames) {
+				if (typeNames.contains(classTypeName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
 }
@@ -0,0 +1,65 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Print writer which can also write HTML escaped strings. The escaped output goes through a {@link HtmlEscapeWriter}
+ * straight into the same underlying writer so no intermediate strings are built.
+ *
+ * @author graywatson
+ */
+public class HtmlPrintWriter extends PrintWriter {
+
+	/** charset of the pages which must match the charset in their header */
+	public static final Charset PAGE_CHARSET = StandardCharsets.UTF_8;
+
+	private final HtmlEscapeWriter escapeWriter;
+
+	/**
+	 * Write to the file in {@link #PAGE_CHARSET}.
+	 */
+	public HtmlPrintWriter(File file) throws FileNotFoundException {
+		super(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), PAGE_CHARSET)));
+		this.escapeWriter = new HtmlEscapeWriter(out);
+	}
+
+	public HtmlPrintWriter(Writer writer) {
+		super(writer);
+		this.escapeWriter = new HtmlEscapeWriter(out);
+	}
+
+	/**
+	 * Print the string with the HTML characters escaped. Nothing is written if the string is null.
+	 */
+	public void printEscaped(String str) {
+		if (str == null) {
+			return;
+		}
+		printEscaped(str, 0, str.length());
+	}
+
+	/**
+	 * Print the characters of the string from the offset with the HTML characters escaped.
+	 */
+	public void printEscaped(String str, int offset, int length) {
+		try {
+			synchronized (lock) {
+				escapeWriter.write(str, offset, length);
+			}
+		} catch (InterruptedIOException iioe) {
+			Thread.currentThread().interrupt();
+		} catch (IOException ioe) {
+			setError();
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Small streaming JSON writer so we don't need to bring in a JSON library. It takes care of the commas between the
+ * elements and the escaping of the strings.
+ *
+ * @author graywatson
+ */
+public class JsonWriter implements Closeable {
+
+	private static final int MAX_DEPTH = 64;
+	private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+	private final Writer out;
+	/** whether or not we have written an element at each of the nesting levels */
+	private final boolean[] elementWritten = new boolean[MAX_DEPTH];
+	private int depth;
+	private boolean afterName;
+
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		return begin('{');
+	}
+
+	public JsonWriter endObject() throws IOException {
+		return end('}');
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		return begin('[');
+	}
+
+	public JsonWriter endArray() throws IOException {
+		return end(']');
+	}
+
+	/**
+	 * Write the name of the next field in an object which must be followed by a value or begin call.
+	 */
+	public JsonWriter name(String name) throws IOException {
+		beforeValue();
+		writeString(name);
+		out.write(':');
+		afterName = true;
+		return this;
+	}
+
+	public JsonWriter value(String value) throws IOException {
+		beforeValue();
+		if (value == null) {
+			out.write("null");
+		} else {
+			writeString(value);
+		}
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	public JsonWriter value(double value) throws IOException {
+		beforeValue();
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			out.write("null");
+		} else {
+			out.write(Double.toString(value));
+		}
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	/**
+	 * Write an array of strings or null if the array is null.
+	 */
+	public JsonWriter value(String[] values) throws IOException {
+		if (values == null) {
+			return value((String) null);
+		}
+		beginArray();
+		for (String value : values) {
+			value(value);
+		}
+		return endArray();
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private JsonWriter begin(char ch) throws IOException {
+		beforeValue();
+		if (depth + 1 >= MAX_DEPTH) {
+			throw new IOException("JSON nested too deeply: " + depth);
+		}
+		out.write(ch);
+		depth++;
+		elementWritten[depth] = false;
+		return this;
+	}
+
+	private JsonWriter end(char ch) throws IOException {
+		if (depth == 0) {
+			throw new IOException("JSON end " + ch + " without a begin");
+		}
+		out.write(ch);
+		depth--;
+		return this;
+	}
+
+	private void beforeValue() throws IOException {
+		if (afterName) {
+			// the value after the name doesn't get a comma
+			afterName = false;
+			return;
+		}
+		if (elementWritten[depth]) {
+			out.write(',');
+		} else {
+			elementWritten[depth] = true;
+		}
+	}
+
+	private void writeString(String str) throws IOException {
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < str.length(); i++) {
+			char ch = str.charAt(i);
+			if (ch >= ' ' && ch != '"' && ch != '\\') {
+				continue;
+			}
+			if (i > start) {
+				out.write(str, start, i - start);
+			}
+			start = i + 1;
+			switch (ch) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					out.write("\\u00");
+					out.write(HEX_CHARS[(ch >> 4) & 0xF]);
+					out.write(HEX_CHARS[ch & 0xF]);
+					break;
+			}
+		}
+		if (str.length() > start) {
+			out.write(str, start, str.length() - start);
+		}
+		out.write('"');
+	}
+}
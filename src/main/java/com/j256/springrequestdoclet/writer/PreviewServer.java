@@ -0,0 +1,243 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded web server which serves the documentation straight from the collected end-point map so nothing needs to be
+ * written to disk. Each page is rendered by the {@link HtmlPathMapWriter} the first time it is requested and the
+ * rendered pages are kept in a LRU cache which is bounded by the total number of bytes. The pages have ETags so
+ * browsers can revalidate them with a 304 response. Files from the root documentation directory are also served.
+ *
+ * @author graywatson
+ */
+public class PreviewServer implements HttpHandler {
+
+	public static final int DEFAULT_MAX_CACHE_BYTES = 8 * 1024 * 1024;
+
+	private static final String INDEX_FILE_NAME = "index.html";
+	/** matches the charset in the header of the pages */
+	private static final Charset PAGE_CHARSET = HtmlPrintWriter.PAGE_CHARSET;
+	private static final String HTML_CONTENT_TYPE = "text/html; charset=" + PAGE_CHARSET.name();
+	private static final int HTTP_OK = 200;
+	private static final int HTTP_NOT_MODIFIED = 304;
+	private static final int HTTP_NOT_FOUND = 404;
+	private static final int HTTP_BAD_METHOD = 405;
+
+	private final HtmlPathMapWriter writer = new HtmlPathMapWriter();
+	private final File rootDocDir;
+	private final int maxCacheBytes;
+	/** access ordered so the least recently used page is first */
+	private final Map<String, Page> pageCache = new LinkedHashMap<String, Page>(16, 0.75F, true);
+	private final CountDownLatch stoppedLatch = new CountDownLatch(1);
+	private long cacheBytes;
+	private HttpServer server;
+
+	public PreviewServer(Map<String, List<EndPoint>> endPointMap, File rootDocDir) {
+		this(endPointMap, rootDocDir, DEFAULT_MAX_CACHE_BYTES);
+	}
+
+	public PreviewServer(Map<String, List<EndPoint>> endPointMap, File rootDocDir, int maxCacheBytes) {
+		this.rootDocDir = rootDocDir;
+		this.maxCacheBytes = maxCacheBytes;
+		writer.preparePages(endPointMap, (rootDocDir != null && new File(rootDocDir, INDEX_FILE_NAME).isFile()));
+	}
+
+	/**
+	 * Start serving on the loopback address and port. Use port 0 to pick a free port.
+	 */
+	public void start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/", this);
+		server.start();
+	}
+
+	/**
+	 * Return the port that we are listening on.
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Wait until the server is stopped.
+	 */
+	public void join() throws InterruptedException {
+		stoppedLatch.await();
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+		stoppedLatch.countDown();
+	}
+
+	@Override
+	public void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			boolean head = "HEAD".equals(method);
+			if (!head && !"GET".equals(method)) {
+				exchange.sendResponseHeaders(HTTP_BAD_METHOD, -1);
+				return;
+			}
+			String pagePath = exchange.getRequestURI().getPath();
+			while (pagePath.startsWith("/")) {
+				pagePath = pagePath.substring(1);
+			}
+			if (pagePath.isEmpty()) {
+				pagePath = INDEX_FILE_NAME;
+			}
+
+			Page page = findPage(pagePath);
+			if (page == null) {
+				exchange.sendResponseHeaders(HTTP_NOT_FOUND, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("ETag", page.etag);
+			// the browser has to check with us each time since the documentation can change
+			exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+			String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+			if (ifNoneMatch != null && ifNoneMatch.contains(page.etag)) {
+				exchange.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", page.contentType);
+			if (head) {
+				exchange.sendResponseHeaders(HTTP_OK, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(HTTP_OK, page.bytes.length);
+			OutputStream output = exchange.getResponseBody();
+			output.write(page.bytes);
+			output.close();
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Find the page in the cache or render it.
+	 *
+	 * @return The page or null if not found.
+	 */
+	private Page findPage(String pagePath) throws IOException {
+		synchronized (pageCache) {
+			Page page = pageCache.get(pagePath);
+			if (page != null) {
+				return page;
+			}
+		}
+		Page page = renderPage(pagePath);
+		if (page == null) {
+			page = readRootDocFile(pagePath);
+			if (page == null) {
+				return null;
+			}
+		}
+		synchronized (pageCache) {
+			Page prev = pageCache.put(pagePath, page);
+			if (prev != null) {
+				cacheBytes -= prev.bytes.length;
+			}
+			cacheBytes += page.bytes.length;
+			// remove the least recently used pages, leaving at least the one we just added
+			Iterator<Page> iterator = pageCache.values().iterator();
+			while (cacheBytes > maxCacheBytes && pageCache.size() > 1) {
+				cacheBytes -= iterator.next().bytes.length;
+				iterator.remove();
+			}
+		}
+		return page;
+	}
+
+	private Page renderPage(String pagePath) {
+		ByteArrayOutputStream byteOutput = new ByteArrayOutputStream(8192);
+		HtmlPrintWriter out = new HtmlPrintWriter(new OutputStreamWriter(byteOutput, PAGE_CHARSET));
+		boolean found;
+		// the writer reuses its page indexes so we render one page at a time
+		synchronized (writer) {
+			found = writer.writePage(pagePath, out);
+		}
+		out.close();
+		if (found) {
+			return new Page(byteOutput.toByteArray(), HTML_CONTENT_TYPE);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Read a file from the root documentation directory.
+	 */
+	private Page readRootDocFile(String pagePath) throws IOException {
+		if (rootDocDir == null || pagePath.contains("..")) {
+			return null;
+		}
+		File file = new File(rootDocDir, pagePath.replace('/', File.separatorChar));
+		if (!file.isFile()) {
+			return null;
+		}
+		return new Page(Files.readAllBytes(file.toPath()), contentType(pagePath));
+	}
+
+	private String contentType(String pagePath) {
+		String lowerPath = pagePath.toLowerCase();
+		if (lowerPath.endsWith(".html") || lowerPath.endsWith(".htm")) {
+			return HTML_CONTENT_TYPE;
+		} else if (lowerPath.endsWith(".css")) {
+			return "text/css";
+		} else if (lowerPath.endsWith(".js")) {
+			return "application/javascript";
+		} else if (lowerPath.endsWith(".png")) {
+			return "image/png";
+		} else if (lowerPath.endsWith(".gif")) {
+			return "image/gif";
+		} else if (lowerPath.endsWith(".jpg") || lowerPath.endsWith(".jpeg")) {
+			return "image/jpeg";
+		} else if (lowerPath.endsWith(".svg")) {
+			return "image/svg+xml";
+		} else if (lowerPath.endsWith(".txt")) {
+			return "text/plain";
+		} else {
+			return "application/octet-stream";
+		}
+	}
+
+	/**
+	 * A rendered page or file.
+	 */
+	private static class Page {
+		final byte[] bytes;
+		final String contentType;
+		final String etag;
+
+		public Page(byte[] bytes, String contentType) {
+			this.bytes = bytes;
+			this.contentType = contentType;
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length);
+			this.etag = '"' + Long.toHexString(crc.getValue()) + '-' + Integer.toHexString(bytes.length) + '"';
+		}
+	}
+}
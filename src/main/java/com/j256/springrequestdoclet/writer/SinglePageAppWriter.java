@@ -0,0 +1,306 @@
+package com.j256.springrequestdoclet.writer;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+
+import com.j256.springrequestdoclet.collector.ClassInfo;
+import com.j256.springrequestdoclet.collector.ContentsInfo;
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.collector.FieldInfo;
+import com.j256.springrequestdoclet.collector.MethodInfo;
+import com.j256.springrequestdoclet.collector.ParamInfo;
+import com.j256.springrequestdoclet.metrics.DocletMetrics;
+
+/**
+ * Writes the documentation as a single page application: a static HTML and javascript shell which renders the path
+ * summary, class summary, class, and method views in the browser from one data file holding the whole end-point model.
+ * This writes a couple of files instead of one per class and method like the {@link HtmlPathMapWriter}.
+ *
+ * <p>
+ * The data file is {@value #DATA_FILE} which is loaded with a script tag so the documentation also works when opened
+ * from the file system. With {@link #setGzip(boolean)} it is instead written as {@value #GZIP_DATA_FILE} which the
+ * shell fetches and decompresses so it has to be served by a web server.
+ * </p>
+ *
+ * @author graywatson
+ */
+public class SinglePageAppWriter implements EndPointMapWriter {
+
+	public static final String DATA_FILE = "api-data.js";
+	public static final String GZIP_DATA_FILE = "api-data.json.gz";
+
+	private static final String SHELL_RESOURCE = "spa-shell.html";
+	private static final String INDEX_FILE_NAME = "index.html";
+	private static final String SEPARATE_SHELL_FILE = "api.html";
+	/** replaced in the shell with the tag or setting that loads the data */
+	private static final String DATA_PLACEHOLDER = "<!-- api-data -->";
+	/** the variable which the data file sets */
+	private static final String DATA_VARIABLE = "SRD_DATA";
+	/** bumped when the layout of the arrays in the data file changes */
+	private static final int DATA_VERSION = 1;
+
+	private boolean gzip;
+	private DocletMetrics metrics;
+
+	/**
+	 * Set to true to write the data file compressed with gzip.
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	/**
+	 * Set the metrics that will record the page counts or null to disable.
+	 */
+	public void setMetrics(DocletMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir) throws IOException {
+		write(endPointMap, rootDocDir, new File("."));
+	}
+
+	@Override
+	public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir, File outputDir) throws IOException {
+		outputDir.mkdirs();
+		String shellFileName = INDEX_FILE_NAME;
+		if (rootDocDir != null && HtmlPathMapWriter.copyFiles(outputDir, rootDocDir, metrics)) {
+			// don't overwrite the index from the root documentation
+			shellFileName = SEPARATE_SHELL_FILE;
+		}
+		if (gzip) {
+			File file = new File(outputDir, GZIP_DATA_FILE);
+			OutputStream output = new GZIPOutputStream(new FileOutputStream(file), 65536);
+			Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 65536);
+			try {
+				writeData(endPointMap, writer);
+			} finally {
+				writer.close();
+			}
+			pageWritten(file);
+			writeShell(new File(outputDir, shellFileName),
+					"<script>var " + DATA_VARIABLE + "_URL = '" + GZIP_DATA_FILE + "';</script>");
+		} else {
+			File file = new File(outputDir, DATA_FILE);
+			Writer writer =
+					new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 65536);
+			try {
+				writer.write("var " + DATA_VARIABLE + " = ");
+				writeData(endPointMap, writer);
+				writer.write(";\n");
+			} finally {
+				writer.close();
+			}
+			pageWritten(file);
+			writeShell(new File(outputDir, shellFileName),
+					"<script src='" + DATA_FILE + "' charset='UTF-8'></script>");
+		}
+	}
+
+	/**
+	 * Write the end-point model as compact JSON. The classes and methods are arrays of arrays instead of objects so the
+	 * field names are not repeated and the methods refer to their classes by index. The layout is described in the
+	 * shell's javascript.
+	 */
+	private void writeData(Map<String, List<EndPoint>> endPointMap, Writer writer) throws IOException {
+		// gather up the classes and methods along with the paths of each method
+		Map<ClassInfo, Integer> classIndexMap = new HashMap<ClassInfo, Integer>();
+		Map<MethodInfo, Collection<String>> methodPathMap = new IdentityHashMap<MethodInfo, Collection<String>>();
+		Map<MethodInfo, ClassInfo> methodClassMap = new IdentityHashMap<MethodInfo, ClassInfo>();
+		for (List<EndPoint> endPoints : endPointMap.values()) {
+			for (EndPoint endPoint : endPoints) {
+				classIndexMap.put(endPoint.getClassInfo(), 0);
+				Collection<String> methodPaths = methodPathMap.get(endPoint.getMethodInfo());
+				if (methodPaths == null) {
+					methodPaths = new TreeSet<String>();
+					methodPathMap.put(endPoint.getMethodInfo(), methodPaths);
+					methodClassMap.put(endPoint.getMethodInfo(), endPoint.getClassInfo());
+				}
+				if (endPoint.getPath() != null) {
+					methodPaths.add(endPoint.getPath());
+				}
+			}
+		}
+		// sorted so the data file is the same from run to run
+		List<ClassInfo> classInfos = new ArrayList<ClassInfo>(classIndexMap.keySet());
+		Collections.sort(classInfos);
+		for (int i = 0; i < classInfos.size(); i++) {
+			classIndexMap.put(classInfos.get(i), i);
+		}
+		List<MethodInfo> methodInfos = new ArrayList<MethodInfo>(methodPathMap.keySet());
+		Collections.sort(methodInfos, new MethodComparator(methodClassMap, classIndexMap));
+
+		JsonWriter json = new JsonWriter(writer);
+		json.beginObject();
+		json.name("version").value(DATA_VERSION);
+		json.name("classes").beginArray();
+		for (ClassInfo classInfo : classInfos) {
+			json.beginArray();
+			json.value(classInfo.getClassName());
+			json.value(classInfo.getTypeName());
+			json.value(classInfo.getJavaDoc());
+			json.value(classInfo.getJavaDocFirstSentence());
+			json.endArray();
+		}
+		json.endArray();
+		json.name("methods").beginArray();
+		for (MethodInfo methodInfo : methodInfos) {
+			json.beginArray();
+			json.value(classIndexMap.get(methodClassMap.get(methodInfo)));
+			json.value(methodInfo.getJavaMethodName());
+			json.value(methodInfo.getUniqueName());
+			json.value(methodInfo.getJavaDoc());
+			json.value(methodInfo.getJavaDocFirstSentence());
+			Collection<String> methodPaths = methodPathMap.get(methodInfo);
+			json.value(methodPaths.toArray(new String[methodPaths.size()]));
+			json.value(methodInfo.getHttpMethods());
+			json.value(methodInfo.getParams());
+			json.value(methodInfo.getHeaders());
+			json.value(methodInfo.getConsumes());
+			json.value(methodInfo.getProduces());
+			writeParamInfos(json, methodInfo.getParamInfos());
+			writeContentsInfo(json, methodInfo.getRequestInfo());
+			writeContentsInfo(json, methodInfo.getResponseInfo());
+			json.endArray();
+		}
+		json.endArray();
+		json.endObject();
+		json.flush();
+	}
+
+	private void writeParamInfos(JsonWriter json, List<ParamInfo> paramInfos) throws IOException {
+		if (paramInfos == null || paramInfos.isEmpty()) {
+			json.value((String) null);
+			return;
+		}
+		json.beginArray();
+		for (ParamInfo paramInfo : paramInfos) {
+			json.beginArray();
+			json.value(paramInfo.getRequestName());
+			json.value(paramInfo.getRequestKind().getDescription());
+			json.value(paramInfo.getJavaTypeName());
+			json.value(paramInfo.isRequired());
+			json.value(paramInfo.getDefaultValue());
+			json.value(paramInfo.getJavaDoc());
+			json.endArray();
+		}
+		json.endArray();
+	}
+
+	private void writeContentsInfo(JsonWriter json, ContentsInfo contentsInfo) throws IOException {
+		if (contentsInfo == null) {
+			json.value((String) null);
+			return;
+		}
+		json.beginArray();
+		json.value(contentsInfo.getJavaTypeName());
+		json.value(contentsInfo.getJavaDoc());
+		List<FieldInfo> fieldInfos = contentsInfo.getFieldInfos();
+		if (fieldInfos == null || fieldInfos.isEmpty()) {
+			json.value((String) null);
+		} else {
+			json.beginArray();
+			for (FieldInfo fieldInfo : fieldInfos) {
+				json.beginArray();
+				json.value(fieldInfo.getFieldName());
+				json.value(fieldInfo.getTypeName());
+				json.value(fieldInfo.getJavaDoc());
+				json.endArray();
+			}
+			json.endArray();
+		}
+		json.endArray();
+	}
+
+	/**
+	 * Write the shell from our resource with the tag that loads the data.
+	 */
+	private void writeShell(File file, String dataTag) throws IOException {
+		String shell = readShellResource();
+		int index = shell.indexOf(DATA_PLACEHOLDER);
+		if (index < 0) {
+			throw new IOException("Could not find the data placeholder in the " + SHELL_RESOURCE + " resource");
+		}
+		shell = shell.substring(0, index) + dataTag + shell.substring(index + DATA_PLACEHOLDER.length());
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(shell.getBytes(StandardCharsets.UTF_8));
+		} finally {
+			output.close();
+		}
+		pageWritten(file);
+	}
+
+	private String readShellResource() throws IOException {
+		InputStream input = SinglePageAppWriter.class.getResourceAsStream(SHELL_RESOURCE);
+		if (input == null) {
+			throw new IOException("Could not find the " + SHELL_RESOURCE + " resource");
+		}
+		try {
+			ByteArrayOutputStream output = new ByteArrayOutputStream(16384);
+			byte[] buffer = new byte[4096];
+			while (true) {
+				int numBytes = input.read(buffer);
+				if (numBytes < 0) {
+					break;
+				}
+				output.write(buffer, 0, numBytes);
+			}
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			input.close();
+		}
+	}
+
+	private void pageWritten(File file) {
+		if (metrics != null) {
+			metrics.pageWritten(file.length());
+		}
+	}
+
+	/**
+	 * Orders methods by the index of their class and then by their unique name.
+	 */
+	private static class MethodComparator implements Comparator<MethodInfo> {
+
+		private final Map<MethodInfo, ClassInfo> methodClassMap;
+		private final Map<ClassInfo, Integer> classIndexMap;
+
+		public MethodComparator(Map<MethodInfo, ClassInfo> methodClassMap, Map<ClassInfo, Integer> classIndexMap) {
+			this.methodClassMap = methodClassMap;
+			this.classIndexMap = classIndexMap;
+		}
+
+		@Override
+		public int compare(MethodInfo methodInfo1, MethodInfo methodInfo2) {
+			int index1 = classIndexMap.get(methodClassMap.get(methodInfo1));
+			int index2 = classIndexMap.get(methodClassMap.get(methodInfo2));
+			if (index1 < index2) {
+				return -1;
+			} else if (index1 > index2) {
+				return 1;
+			} else {
+				return methodInfo1.getUniqueName().compareTo(methodInfo2.getUniqueName());
+			}
+		}
+	}
+}
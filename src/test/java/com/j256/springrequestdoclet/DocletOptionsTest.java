@@ -0,0 +1,142 @@
+package com.j256.springrequestdoclet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.EndPoint;
+import com.j256.springrequestdoclet.writer.EndPointMapWriter;
+import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.SourcePosition;
+
+public class DocletOptionsTest {
+
+	private static final String LEGACY_WRITER = LegacyWriter.class.getName();
+	private static final String OTHER_LEGACY_WRITER = OtherLegacyWriter.class.getName();
+	private static final String DIR_WRITER = DirWriter.class.getName();
+
+	@Test
+	public void testIsLegacyWriter() {
+		assertTrue(DocletOptions.isLegacyWriter(LegacyWriter.class));
+		assertFalse(DocletOptions.isLegacyWriter(DirWriter.class));
+		// overridden in the superclass
+		assertFalse(DocletOptions.isLegacyWriter(SubDirWriter.class));
+	}
+
+	@Test
+	public void testLegacyWriterCurrentDir() {
+		ErrorCollector errors = new ErrorCollector();
+		assertTrue(parse(errors, "-writers", "html," + LEGACY_WRITER + "=."));
+		assertEquals(0, errors.errors.size());
+		File currentDir = new File(System.getProperty("user.dir"));
+		assertTrue(parse(errors, "-d", currentDir.getPath(), "-writers", LEGACY_WRITER + "=."));
+		assertTrue(parse(errors, "-writers", LEGACY_WRITER + "=" + currentDir.getPath()));
+		assertEquals(0, errors.errors.size());
+	}
+
+	@Test
+	public void testLegacyWriterOtherDir() {
+		ErrorCollector errors = new ErrorCollector();
+		assertFalse(parse(errors, "-writers", LEGACY_WRITER));
+		assertEquals(1, errors.errors.size());
+		assertTrue(errors.errors.get(0), errors.errors.get(0).contains(LEGACY_WRITER));
+	}
+
+	@Test
+	public void testLegacyWriterOutputDirAfterWriters() {
+		// -d comes after -writers so the directory is only known at the end
+		ErrorCollector errors = new ErrorCollector();
+		assertFalse(parse(errors, "-writers", LEGACY_WRITER + "=.", "-d", "docs"));
+		assertEquals(1, errors.errors.size());
+	}
+
+	@Test
+	public void testTwoLegacyWriters() {
+		ErrorCollector errors = new ErrorCollector();
+		assertFalse(parse(errors, "-writers", LEGACY_WRITER + "=.," + OTHER_LEGACY_WRITER + "=."));
+		assertEquals(1, errors.errors.size());
+		assertTrue(errors.errors.get(0), errors.errors.get(0).contains(OTHER_LEGACY_WRITER));
+	}
+
+	@Test
+	public void testDirWriters() {
+		ErrorCollector errors = new ErrorCollector();
+		assertTrue(parse(errors, "-d", "docs", "-writers",
+				"html,spa," + DIR_WRITER + "," + SubDirWriter.class.getName()));
+		assertEquals(0, errors.errors.size());
+	}
+
+	private static boolean parse(DocErrorReporter reporter, String... args) {
+		List<String[]> options = new ArrayList<String[]>();
+		for (int i = 0; i < args.length; i++) {
+			if (DocletOptions.optionLength(args[i]) == 2) {
+				options.add(new String[] { args[i], args[++i] });
+			} else {
+				options.add(new String[] { args[i] });
+			}
+		}
+		return new DocletOptions().parse(options.toArray(new String[options.size()][]), reporter);
+	}
+
+	public static class LegacyWriter implements EndPointMapWriter {
+		@Override
+		public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir) {
+		}
+	}
+
+	public static class OtherLegacyWriter extends LegacyWriter {
+	}
+
+	public static class DirWriter implements EndPointMapWriter {
+		@Override
+		public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir) throws IOException {
+			write(endPointMap, rootDocDir, new File("."));
+		}
+
+		@Override
+		public void write(Map<String, List<EndPoint>> endPointMap, File rootDocDir, File outputDir) {
+		}
+	}
+
+	public static class SubDirWriter extends DirWriter {
+	}
+
+	private static class ErrorCollector implements DocErrorReporter {
+
+		final List<String> errors = new ArrayList<String>();
+
+		@Override
+		public void printError(String msg) {
+			errors.add(msg);
+		}
+
+		@Override
+		public void printError(SourcePosition pos, String msg) {
+			errors.add(msg);
+		}
+
+		@Override
+		public void printWarning(String msg) {
+		}
+
+		@Override
+		public void printWarning(SourcePosition pos, String msg) {
+		}
+
+		@Override
+		public void printNotice(String msg) {
+		}
+
+		@Override
+		public void printNotice(SourcePosition pos, String msg) {
+		}
+	}
+}
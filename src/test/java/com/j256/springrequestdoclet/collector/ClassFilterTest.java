@@ -0,0 +1,179 @@
+package com.j256.springrequestdoclet.collector;
+
+import static com.j256.springrequestdoclet.collector.DocProxies.proxy;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.SourcePosition;
+
+public class ClassFilterTest {
+
+	private File sourceFile;
+
+	@After
+	public void after() {
+		if (sourceFile != null) {
+			sourceFile.delete();
+		}
+	}
+
+	@Test
+	public void testGlobLiteral() {
+		Pattern pattern = ClassFilter.globToPattern("com.j256.api");
+		assertTrue(pattern.matcher("com.j256.api").matches());
+		// the dots are literal
+		assertFalse(pattern.matcher("comxj256.api").matches());
+		assertFalse(pattern.matcher("com.j256.api.v2").matches());
+	}
+
+	@Test
+	public void testGlobStar() {
+		Pattern pattern = ClassFilter.globToPattern("com.*.api");
+		assertTrue(pattern.matcher("com.j256.api").matches());
+		// a single star doesn't cross a package separator
+		assertFalse(pattern.matcher("com.j256.web.api").matches());
+
+		pattern = ClassFilter.globToPattern("*Controller");
+		assertTrue(pattern.matcher("UserController").matches());
+		assertFalse(pattern.matcher("UserControllerTest").matches());
+	}
+
+	@Test
+	public void testGlobDoubleStar() {
+		Pattern pattern = ClassFilter.globToPattern("com.**.api");
+		assertTrue(pattern.matcher("com.j256.api").matches());
+		assertTrue(pattern.matcher("com.j256.web.api").matches());
+		assertFalse(pattern.matcher("org.j256.api").matches());
+	}
+
+	@Test
+	public void testGlobTrailingDoubleStar() {
+		Pattern pattern = ClassFilter.globToPattern("com.j256.**");
+		// matches the package itself as well as its sub-packages
+		assertTrue(pattern.matcher("com.j256").matches());
+		assertTrue(pattern.matcher("com.j256.api").matches());
+		assertTrue(pattern.matcher("com.j256.api.v2").matches());
+		assertFalse(pattern.matcher("com.j2567").matches());
+		assertFalse(pattern.matcher("com").matches());
+	}
+
+	@Test
+	public void testGlobQuestionMark() {
+		Pattern pattern = ClassFilter.globToPattern("v?.Api");
+		assertTrue(pattern.matcher("v1.Api").matches());
+		assertFalse(pattern.matcher("v.Api").matches());
+		assertFalse(pattern.matcher("v12.Api").matches());
+		assertFalse(pattern.matcher("v..Api").matches());
+	}
+
+	@Test
+	public void testGlobRegexCharacters() {
+		Pattern pattern = ClassFilter.globToPattern("Foo$Bar+(1)");
+		assertTrue(pattern.matcher("Foo$Bar+(1)").matches());
+		assertFalse(pattern.matcher("FooBarr1").matches());
+	}
+
+	@Test
+	public void testFileMentionsMapping() throws Exception {
+		assertTrue(mentionsMapping("@RequestMapping(\"/user\")\npublic class UserController {}"));
+		assertTrue(mentionsMapping("public class UserController {\n\t@GetMapping(\"/get\")\n\tvoid get() {}\n}"));
+		assertTrue(mentionsMapping("@org.springframework.web.bind.annotation.PostMapping void post();"));
+		assertTrue(mentionsMapping("@ApiMapping\nclass Foo {}"));
+		// at the very end of the file
+		assertTrue(mentionsMapping("@GetMapping"));
+	}
+
+	@Test
+	public void testFileDoesNotMentionMapping() throws Exception {
+		assertFalse(mentionsMapping("public class MappingUtils {\n\tprivate ObjectMapping mapping;\n}"));
+		assertFalse(mentionsMapping("@Mappings class Foo {}"));
+		assertFalse(mentionsMapping("@Override public String toString() { return \"Mapping\"; }"));
+		assertFalse(mentionsMapping("@RequestMappingHelper class Foo {}"));
+		assertFalse(mentionsMapping(""));
+	}
+
+	@Test
+	public void testFileMentionsMappingAcrossBuffers() throws Exception {
+		// put the annotation name across the boundary of the read buffer
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 8192 - 5) {
+			sb.append(' ');
+		}
+		sb.append("@GetMapping(\"/get\")");
+		assertTrue(mentionsMapping(sb.toString()));
+	}
+
+	@Test
+	public void testControllersOnly() throws Exception {
+		ClassFilter filter = new ClassFilter();
+		filter.setControllersOnly(true);
+		ClassDoc object = classDoc("java.lang.Object", null);
+		ClassDoc serializable = classDoc("java.io.Serializable", null);
+		// the mapping is in the source of the class
+		mentionsMapping("@RestController\npublic class UserController {\n\t@GetMapping(\"/get\")\n}");
+		assertTrue(filter.accept(classDoc("com.j256.UserController", object, serializable)));
+
+		// the answer is cached per file so we need another filter
+		filter = new ClassFilter();
+		filter.setControllersOnly(true);
+		mentionsMapping("public class User implements Serializable {}");
+		assertFalse(filter.accept(classDoc("com.j256.User", object, serializable)));
+		assertTrue(new ClassFilter().accept(classDoc("com.j256.User", object, serializable)));
+	}
+
+	@Test
+	public void testControllersOnlyInherited() throws Exception {
+		ClassFilter filter = new ClassFilter();
+		filter.setControllersOnly(true);
+		ClassDoc object = classDoc("java.lang.Object", null);
+		// all of the mappings are on the interface or the base class which may be in another file
+		mentionsMapping("@RestController\npublic class UserController implements UserApi {}");
+		assertTrue(filter.accept(classDoc("com.j256.UserController", object, classDoc("com.j256.api.UserApi", null))));
+		assertTrue(filter.accept(classDoc("com.j256.UserController", classDoc("com.j256.BaseController", object))));
+	}
+
+	/**
+	 * Create a class in the source file with the superclass, which may be null, and the interfaces.
+	 */
+	private ClassDoc classDoc(String qualifiedName, ClassDoc superclass, ClassDoc... interfaces) {
+		int index = qualifiedName.lastIndexOf('.');
+		Map<String, Object> packageResults = new HashMap<String, Object>();
+		packageResults.put("name", qualifiedName.substring(0, index));
+		Map<String, Object> positionResults = new HashMap<String, Object>();
+		positionResults.put("file", sourceFile);
+		Map<String, Object> methodResults = new HashMap<String, Object>();
+		methodResults.put("containingPackage", proxy(PackageDoc.class, packageResults));
+		methodResults.put("qualifiedName", qualifiedName);
+		methodResults.put("name", qualifiedName.substring(index + 1));
+		methodResults.put("position", proxy(SourcePosition.class, positionResults));
+		methodResults.put("superclass", superclass);
+		methodResults.put("interfaces", interfaces);
+		return proxy(ClassDoc.class, methodResults);
+	}
+
+	private boolean mentionsMapping(String source) throws IOException {
+		if (sourceFile == null) {
+			sourceFile = File.createTempFile(getClass().getSimpleName(), ".java");
+		}
+		OutputStream output = new FileOutputStream(sourceFile);
+		try {
+			output.write(source.getBytes("UTF-8"));
+		} finally {
+			output.close();
+		}
+		return ClassFilter.fileMentionsMappingAnnotation(sourceFile);
+	}
+}
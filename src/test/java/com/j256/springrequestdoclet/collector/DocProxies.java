@@ -0,0 +1,33 @@
+package com.j256.springrequestdoclet.collector;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Implements the javadoc interfaces for the tests without running javadoc.
+ */
+class DocProxies {
+
+	/**
+	 * Implement the javadoc interface with the results of its methods by name.
+	 */
+	static <T> T proxy(Class<T> clazz, final Map<String, Object> methodResults) {
+		return clazz.cast(Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[] { clazz },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (methodResults.containsKey(method.getName())) {
+							return methodResults.get(method.getName());
+						} else if ("hashCode".equals(method.getName())) {
+							return System.identityHashCode(proxy);
+						} else if ("equals".equals(method.getName())) {
+							return (proxy == args[0]);
+						} else {
+							throw new UnsupportedOperationException(method.getName());
+						}
+					}
+				}));
+	}
+}
@@ -0,0 +1,330 @@
+package com.j256.springrequestdoclet.collector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.EndPointDiff.ChangeKind;
+import com.j256.springrequestdoclet.collector.EndPointDiff.OperationChange;
+
+public class EndPointDiffTest {
+
+	private static final ClassInfo USER_CLASS = new ClassInfo("UserController", "com.j256.UserController", null,
+			null, new String[] { "/user" });
+
+	@Test
+	public void testNoChanges() {
+		Map<String, List<EndPoint>> endPointMap = endPointMap(method("get", HttpMethod.GET).build());
+		EndPointDiff diff = new EndPointDiff(endPointMap, endPointMap(method("get", HttpMethod.GET).build()));
+		assertTrue(diff.getChanges().isEmpty());
+		assertEquals(1, diff.getOldOperationCount());
+		assertEquals(1, diff.getNewOperationCount());
+		assertEquals(0, diff.getBreakingCount());
+	}
+
+	@Test
+	public void testJavaDocIgnored() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.javaDoc = "Now documented.";
+		newMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, "The id."));
+		oldMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, null));
+		assertTrue(diff(oldMethod, newMethod).getChanges().isEmpty());
+	}
+
+	@Test
+	public void testOperationAddedAndRemoved() {
+		EndPointDiff diff = new EndPointDiff(endPointMap(method("get", HttpMethod.GET).build()),
+				endPointMap(method("get", HttpMethod.POST).build()));
+		List<OperationChange> changes = diff.getChanges();
+		assertEquals(2, changes.size());
+		// ordered by path and then HTTP method
+		OperationChange removed = changes.get(0);
+		assertEquals(ChangeKind.REMOVED, removed.getKind());
+		assertEquals("GET", removed.getHttpMethod());
+		assertTrue(removed.isBreaking());
+		assertNull(removed.getNewEndPoint());
+		OperationChange added = changes.get(1);
+		assertEquals(ChangeKind.ADDED, added.getKind());
+		assertEquals("POST", added.getHttpMethod());
+		assertFalse(added.isBreaking());
+		assertNull(added.getOldEndPoint());
+		assertEquals(1, diff.getAddedCount());
+		assertEquals(1, diff.getRemovedCount());
+		assertEquals(1, diff.getBreakingCount());
+	}
+
+	@Test
+	public void testHttpMethodsSplit() {
+		// the GET operation stays the same when a HEAD is added to the method
+		EndPointDiff diff = new EndPointDiff(endPointMap(method("get", HttpMethod.GET).build()),
+				endPointMap(method("get", HttpMethod.GET, HttpMethod.HEAD).build()));
+		assertEquals(1, diff.getChanges().size());
+		assertEquals(ChangeKind.ADDED, diff.getChanges().get(0).getKind());
+		assertEquals("HEAD", diff.getChanges().get(0).getHttpMethod());
+	}
+
+	@Test
+	public void testAnyHttpMethod() {
+		MethodBuilder oldMethod = method("handle");
+		MethodBuilder newMethod = method("handle");
+		newMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", false, null, null));
+		OperationChange change = diff(oldMethod, newMethod).getChanges().get(0);
+		assertEquals(EndPointDiff.ANY_HTTP_METHOD, change.getHttpMethod());
+		assertEquals(ChangeKind.CHANGED, change.getKind());
+	}
+
+	@Test
+	public void testRequiredParamAdded() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, null));
+		assertBreaking(diff(oldMethod, newMethod), "Required query param id added");
+	}
+
+	@Test
+	public void testOptionalParamAdded() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.paramInfos.add(ParamInfo.fromRequestHeader("token", "String", "X-Token", false, null, null));
+		assertNotBreaking(diff(oldMethod, newMethod), "Optional header param X-Token added");
+	}
+
+	@Test
+	public void testParamRemoved() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		oldMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, null));
+		// the server ignoring a parameter doesn't break the clients that send it
+		assertNotBreaking(diff(oldMethod, method("get", HttpMethod.GET)), "query param id removed");
+	}
+
+	@Test
+	public void testParamRequired() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		oldMethod.paramInfos.add(ParamInfo.fromRequestParam("limit", "int", "limit", false, "10", null));
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.paramInfos.add(ParamInfo.fromRequestParam("limit", "int", "limit", true, "10", null));
+		assertBreaking(diff(oldMethod, newMethod), "query param limit is now required");
+		assertNotBreaking(diff(newMethod, oldMethod), "query param limit is now optional");
+	}
+
+	@Test
+	public void testParamTypeAndDefault() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		oldMethod.paramInfos.add(ParamInfo.fromRequestParam("limit", "int", "limit", false, "10", null));
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.paramInfos.add(ParamInfo.fromRequestParam("max", "String", "limit", false, "20", null));
+		OperationChange change = diff(oldMethod, newMethod).getChanges().get(0);
+		assertEquals(2, change.getDetails().size());
+		assertEquals("query param limit type changed from int to String", change.getDetails().get(0).getDescription());
+		assertTrue(change.getDetails().get(0).isBreaking());
+		assertEquals("query param limit default changed from 10 to 20", change.getDetails().get(1).getDescription());
+		assertFalse(change.getDetails().get(1).isBreaking());
+	}
+
+	@Test
+	public void testParamKindChanged() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		oldMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, null));
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.paramInfos.add(ParamInfo.fromPathVariable("id", "long", "id", true, null, null));
+		OperationChange change = diff(oldMethod, newMethod).getChanges().get(0);
+		assertTrue(change.isBreaking());
+		assertEquals(2, change.getDetails().size());
+	}
+
+	@Test
+	public void testHeaderCondition() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.headers = new String[] { "X-Version=2" };
+		assertBreaking(diff(oldMethod, newMethod), "Header condition added: X-Version=2");
+		assertNotBreaking(diff(newMethod, oldMethod), "Header condition removed: X-Version=2");
+	}
+
+	@Test
+	public void testContentTypes() {
+		MethodBuilder allMethod = method("post", HttpMethod.POST);
+		MethodBuilder jsonMethod = method("post", HttpMethod.POST);
+		jsonMethod.consumes = new String[] { "application/json" };
+		MethodBuilder jsonXmlMethod = method("post", HttpMethod.POST);
+		jsonXmlMethod.consumes = new String[] { "application/json", "application/xml" };
+
+		// going from all of the types to some of them drops the others
+		assertBreaking(diff(allMethod, jsonMethod), "Consumes added: application/json");
+		assertNotBreaking(diff(jsonMethod, allMethod), "Consumes removed: application/json");
+		assertNotBreaking(diff(jsonMethod, jsonXmlMethod), "Consumes added: application/xml");
+		assertBreaking(diff(jsonXmlMethod, jsonMethod), "Consumes removed: application/xml");
+	}
+
+	@Test
+	public void testRequestBody() {
+		MethodBuilder oldMethod = method("post", HttpMethod.POST);
+		MethodBuilder newMethod = method("post", HttpMethod.POST);
+		newMethod.requestInfo = ContentsInfo.fromRequestBody("user", "User", "com.j256.User", null, null);
+		assertBreaking(diff(oldMethod, newMethod), "Request body added: User");
+		assertNotBreaking(diff(newMethod, oldMethod), "Request body removed: User");
+
+		oldMethod.requestInfo = ContentsInfo.fromRequestBody("user", "Person", "com.j256.Person", null, null);
+		assertBreaking(diff(oldMethod, newMethod), "Request body type changed from Person to User");
+	}
+
+	@Test
+	public void testRequestBodyFields() {
+		MethodBuilder oldMethod = method("post", HttpMethod.POST);
+		oldMethod.requestInfo = ContentsInfo.fromRequestBody("user", "User", "com.j256.User", null,
+				Arrays.asList(new FieldInfo("name", "String", null), new FieldInfo("age", "int", null)));
+		MethodBuilder newMethod = method("post", HttpMethod.POST);
+		// the type can be renamed as long as the fields are compatible
+		newMethod.requestInfo = ContentsInfo.fromRequestBody("user", "Person", "com.j256.Person", null,
+				Arrays.asList(new FieldInfo("name", "String", null)));
+		assertNotBreaking(diff(oldMethod, newMethod), "Request body field removed: age");
+	}
+
+	@Test
+	public void testResponse() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		oldMethod.responseInfo = ContentsInfo.fromResponse("User", "com.j256.User", null,
+				Arrays.asList(new FieldInfo("name", "String", null), new FieldInfo("age", "int", null)));
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.responseInfo = ContentsInfo.fromResponse("User", "com.j256.User", null,
+				Arrays.asList(new FieldInfo("name", "String", null), new FieldInfo("age", "long", null),
+						new FieldInfo("email", "String", null)));
+		OperationChange change = diff(oldMethod, newMethod).getChanges().get(0);
+		assertEquals(2, change.getDetails().size());
+		assertEquals("Response field age type changed from int to long", change.getDetails().get(0).getDescription());
+		assertTrue(change.getDetails().get(0).isBreaking());
+		assertEquals("Response field added: email", change.getDetails().get(1).getDescription());
+		assertFalse(change.getDetails().get(1).isBreaking());
+
+		// clients reading the removed fields break
+		MethodBuilder nameMethod = method("get", HttpMethod.GET);
+		nameMethod.responseInfo = ContentsInfo.fromResponse("User", "com.j256.User", null,
+				Arrays.asList(new FieldInfo("name", "String", null)));
+		assertBreaking(diff(oldMethod, nameMethod), "Response field removed: age");
+		assertBreaking(diff(oldMethod, method("get", HttpMethod.GET)), "Response removed: User");
+		assertNotBreaking(diff(method("get", HttpMethod.GET), oldMethod), "Response added: User");
+	}
+
+	@Test
+	public void testParamsNarrowing() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("get", HttpMethod.GET);
+		newMethod.params = new String[] { "version=2" };
+		// the params narrowing is part of the operation
+		EndPointDiff diff = diff(oldMethod, newMethod);
+		assertEquals(1, diff.getRemovedCount());
+		assertEquals(1, diff.getAddedCount());
+		assertEquals(0, diff.getChangedCount());
+	}
+
+	@Test
+	public void testSameKeyMatchedByHandler() {
+		// two POST methods on the same path routed by content type
+		MethodBuilder jsonMethod = method("postJson", HttpMethod.POST);
+		jsonMethod.consumes = new String[] { "application/json" };
+		MethodBuilder xmlMethod = method("postXml", HttpMethod.POST);
+		xmlMethod.consumes = new String[] { "application/xml" };
+		MethodBuilder newXmlMethod = method("postXml", HttpMethod.POST);
+		newXmlMethod.consumes = new String[] { "application/xml" };
+		newXmlMethod.paramInfos.add(ParamInfo.fromRequestParam("id", "long", "id", true, null, null));
+
+		EndPointDiff diff = new EndPointDiff(endPointMap(jsonMethod.build(), xmlMethod.build()),
+				endPointMap(newXmlMethod.build(), jsonMethod.build()));
+		assertEquals(1, diff.getChanges().size());
+		OperationChange change = diff.getChanges().get(0);
+		assertEquals(ChangeKind.CHANGED, change.getKind());
+		assertEquals("postXml", change.getNewEndPoint().getMethodInfo().getJavaMethodName());
+		assertEquals("Required query param id added", change.getDetails().get(0).getDescription());
+	}
+
+	@Test
+	public void testHandlerRenamed() {
+		MethodBuilder oldMethod = method("get", HttpMethod.GET);
+		MethodBuilder newMethod = method("getUser", HttpMethod.GET);
+		newMethod.headers = new String[] { "X-Version=2" };
+		EndPointDiff diff = new EndPointDiff(endPointMap(method("list", HttpMethod.GET).build(), oldMethod.build()),
+				endPointMap(newMethod.build(), method("list", HttpMethod.GET).build()));
+		// the unmatched handlers of the same operation are paired up
+		assertEquals(1, diff.getChanges().size());
+		assertEquals(ChangeKind.CHANGED, diff.getChanges().get(0).getKind());
+	}
+
+	private static void assertBreaking(EndPointDiff diff, String description) {
+		assertDetail(diff, description, true);
+	}
+
+	private static void assertNotBreaking(EndPointDiff diff, String description) {
+		assertDetail(diff, description, false);
+	}
+
+	private static void assertDetail(EndPointDiff diff, String description, boolean breaking) {
+		assertEquals(1, diff.getChanges().size());
+		OperationChange change = diff.getChanges().get(0);
+		assertEquals(ChangeKind.CHANGED, change.getKind());
+		assertEquals(1, change.getDetails().size());
+		assertEquals(description, change.getDetails().get(0).getDescription());
+		assertEquals(breaking, change.getDetails().get(0).isBreaking());
+		assertEquals(breaking, change.isBreaking());
+		assertEquals((breaking ? 1 : 0), diff.getBreakingCount());
+		assertSame(change.getOldEndPoint().getClassInfo(), USER_CLASS);
+	}
+
+	private static EndPointDiff diff(MethodBuilder oldMethod, MethodBuilder newMethod) {
+		return new EndPointDiff(endPointMap(oldMethod.build()), endPointMap(newMethod.build()));
+	}
+
+	private static MethodBuilder method(String name, HttpMethod... httpMethods) {
+		return new MethodBuilder(name, httpMethods);
+	}
+
+	private static Map<String, List<EndPoint>> endPointMap(MethodInfo... methodInfos) {
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>();
+		List<EndPoint> endPoints = new ArrayList<EndPoint>();
+		for (MethodInfo methodInfo : methodInfos) {
+			endPoints.add(new EndPoint("/user", USER_CLASS, methodInfo));
+		}
+		endPointMap.put("/user", endPoints);
+		return endPointMap;
+	}
+
+	/**
+	 * Method information with the fields that the tests change.
+	 */
+	private static class MethodBuilder {
+		final String name;
+		final int httpMethodMask;
+		String javaDoc;
+		String[] params;
+		String[] headers;
+		String[] consumes;
+		final List<ParamInfo> paramInfos = new ArrayList<ParamInfo>();
+		ContentsInfo requestInfo;
+		ContentsInfo responseInfo;
+
+		public MethodBuilder(String name, HttpMethod... httpMethods) {
+			this.name = name;
+			int mask = 0;
+			for (HttpMethod httpMethod : httpMethods) {
+				mask |= httpMethod.getMask();
+			}
+			this.httpMethodMask = mask;
+		}
+
+		public MethodInfo build() {
+			return new MethodInfo(name, name, javaDoc, EndPointCollector.javaDocFirstSentenceLength(javaDoc), null,
+					httpMethodMask, params, headers, consumes, null, (paramInfos.isEmpty() ? null : paramInfos),
+					requestInfo, responseInfo);
+		}
+	}
+}
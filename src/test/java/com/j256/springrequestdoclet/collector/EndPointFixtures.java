@@ -0,0 +1,66 @@
+package com.j256.springrequestdoclet.collector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classes and methods shared by the tests that write the end-points out and read them back.
+ */
+class EndPointFixtures {
+
+	/**
+	 * Return a class with the type name and nothing else.
+	 */
+	static ClassInfo classInfo(String typeName) {
+		String className = typeName.substring(typeName.lastIndexOf('.') + 1);
+		return new ClassInfo(className, typeName, null, null, null);
+	}
+
+	/**
+	 * Return a method with the name and nothing else.
+	 */
+	static MethodInfo methodInfo(String name) {
+		return new MethodInfo(name, name, null, -1, null, 0, null, null, null, null, null, null, null);
+	}
+
+	/**
+	 * Return the UserController class with its javadoc and path.
+	 */
+	static ClassInfo userControllerInfo() {
+		return new ClassInfo("UserController", "com.j256.UserController", "User calls. More.", "User calls.",
+				new String[] { "/user" });
+	}
+
+	/**
+	 * Return the update method of the UserController with a query, path, and header parameter, a request body, and a
+	 * response.
+	 */
+	static MethodInfo userUpdateInfo() {
+		List<ParamInfo> paramInfos = new ArrayList<ParamInfo>();
+		paramInfos.add(ParamInfo.fromRequestParam("limit", "int", "max", false, "10", "Maximum number."));
+		paramInfos.add(ParamInfo.fromPathVariable("id", "long", "id", true, null, null));
+		paramInfos.add(ParamInfo.fromRequestHeader("token", "String", "X-Token", true, null, "Auth \u00e9."));
+		List<FieldInfo> fieldInfos = Arrays.asList(new FieldInfo("name", "String", "Name of the user."));
+		ContentsInfo requestInfo =
+				ContentsInfo.fromRequestBody("user", "User", "com.j256.User", "User to update.", fieldInfos);
+		ContentsInfo responseInfo = ContentsInfo.fromResponse("Result", "com.j256.Result", null, null);
+		return new MethodInfo("update", "update", "Update the user.", 16, new String[] { "/update", "/put" },
+				HttpMethod.POST.getMask() | HttpMethod.PUT.getMask(), new String[] { "force" }, null,
+				new String[] { "application/json" }, null, paramInfos, requestInfo, responseInfo);
+	}
+
+	/**
+	 * Assert that the class read back is the one from {@link #userControllerInfo()}.
+	 */
+	static void assertUserControllerInfo(ClassInfo classInfo) {
+		assertEquals("UserController", classInfo.getClassName());
+		assertEquals("com.j256.UserController", classInfo.getTypeName());
+		assertEquals("User calls. More.", classInfo.getJavaDoc());
+		assertEquals("User calls.", classInfo.getJavaDocFirstSentence());
+		assertArrayEquals(new String[] { "/user" }, classInfo.getPaths());
+	}
+}
@@ -0,0 +1,128 @@
+package com.j256.springrequestdoclet.collector;
+
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.classInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.methodInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class EndPointMergerTest {
+
+	@Test
+	public void testDisjoint() {
+		ClassInfo userClass = classInfo("com.j256.User");
+		ClassInfo schoolClass = classInfo("com.j256.School");
+		EndPointMerger merger = new EndPointMerger();
+		merger.merge(endPointMap(new EndPoint("/user/get", userClass, methodInfo("get"))));
+		merger.merge(endPointMap(new EndPoint("/school/get", schoolClass, methodInfo("get"))));
+
+		Map<String, List<EndPoint>> merged = merger.getEndPointMap();
+		assertEquals(Arrays.asList("/school/get", "/user/get"), new ArrayList<String>(merged.keySet()));
+		assertEquals(0, merger.getDuplicateCount());
+	}
+
+	@Test
+	public void testDuplicateEndPoints() {
+		EndPointMerger merger = new EndPointMerger();
+		// the same class and method collected in two modules
+		merger.merge(endPointMap(new EndPoint("/user/get", classInfo("com.j256.User"), methodInfo("get"))));
+		merger.merge(endPointMap(new EndPoint("/user/get", classInfo("com.j256.User"), methodInfo("get"))));
+
+		Map<String, List<EndPoint>> merged = merger.getEndPointMap();
+		assertEquals(1, merged.size());
+		assertEquals(1, merged.get("/user/get").size());
+		assertEquals(1, merger.getDuplicateCount());
+	}
+
+	@Test
+	public void testSamePathDifferentMethods() {
+		ClassInfo userClass = classInfo("com.j256.User");
+		ClassInfo adminClass = classInfo("com.j256.Admin");
+		EndPointMerger merger = new EndPointMerger();
+		merger.merge(endPointMap(new EndPoint("/get", userClass, methodInfo("get"))));
+		merger.merge(endPointMap(new EndPoint("/get", adminClass, methodInfo("get"))));
+
+		List<EndPoint> endPoints = merger.getEndPointMap().get("/get");
+		assertEquals(2, endPoints.size());
+		// ordered by class no matter which map was merged first
+		assertSame(adminClass, endPoints.get(0).getClassInfo());
+		assertSame(userClass, endPoints.get(1).getClassInfo());
+		assertEquals(0, merger.getDuplicateCount());
+	}
+
+	@Test
+	public void testOrderDoesNotMatter() {
+		EndPoint userGet = new EndPoint("/get", classInfo("com.j256.User"), methodInfo("get"));
+		EndPoint userList = new EndPoint("/get", classInfo("com.j256.User"), methodInfo("list"));
+		EndPoint adminGet = new EndPoint("/get", classInfo("com.j256.Admin"), methodInfo("get"));
+
+		EndPointMerger merger1 = new EndPointMerger();
+		merger1.merge(endPointMap(userList, userGet));
+		merger1.merge(endPointMap(adminGet));
+		EndPointMerger merger2 = new EndPointMerger();
+		merger2.merge(endPointMap(adminGet));
+		merger2.merge(endPointMap(userGet, userList));
+
+		assertEquals(describe(merger1.getEndPointMap()), describe(merger2.getEndPointMap()));
+		assertEquals("/get=com.j256.Admin.get,com.j256.User.get,com.j256.User.list;",
+				describe(merger1.getEndPointMap()));
+	}
+
+	@Test
+	public void testSharedClassAndMethodInfos() {
+		ClassInfo firstClass = classInfo("com.j256.User");
+		MethodInfo firstMethod = methodInfo("update");
+		ClassInfo secondClass = classInfo("com.j256.User");
+		MethodInfo secondMethod = methodInfo("update");
+		EndPointMerger merger = new EndPointMerger();
+		merger.merge(endPointMap(new EndPoint("/update", firstClass, firstMethod)));
+		// a different path of the same method from another shard
+		merger.merge(endPointMap(new EndPoint("/put", secondClass, secondMethod)));
+
+		Map<String, List<EndPoint>> merged = merger.getEndPointMap();
+		EndPoint putEndPoint = merged.get("/put").get(0);
+		assertEquals("/put", putEndPoint.getPath());
+		// the first class and method wins so the writers see one of each
+		assertSame(firstClass, putEndPoint.getClassInfo());
+		assertSame(firstMethod, putEndPoint.getMethodInfo());
+		assertSame(firstMethod, merged.get("/update").get(0).getMethodInfo());
+	}
+
+	private static Map<String, List<EndPoint>> endPointMap(EndPoint... endPoints) {
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>();
+		for (EndPoint endPoint : endPoints) {
+			List<EndPoint> pathEndPoints = endPointMap.get(endPoint.getPath());
+			if (pathEndPoints == null) {
+				pathEndPoints = new ArrayList<EndPoint>();
+				endPointMap.put(endPoint.getPath(), pathEndPoints);
+			}
+			pathEndPoints.add(endPoint);
+		}
+		return endPointMap;
+	}
+
+	private static String describe(Map<String, List<EndPoint>> endPointMap) {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, List<EndPoint>> entry : endPointMap.entrySet()) {
+			sb.append(entry.getKey()).append('=');
+			for (int i = 0; i < entry.getValue().size(); i++) {
+				EndPoint endPoint = entry.getValue().get(i);
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(endPoint.getClassInfo().getTypeName())
+						.append('.')
+						.append(endPoint.getMethodInfo().getUniqueName());
+			}
+			sb.append(';');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,172 @@
+package com.j256.springrequestdoclet.collector;
+
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.assertUserControllerInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.classInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.methodInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.userControllerInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.userUpdateInfo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.ParamInfo.ParamRequestKind;
+
+public class EndPointSnapshotTest {
+
+	@Test
+	public void testNumberRoundTrip() throws Exception {
+		int[] nums = new int[] { 0, 1, 127, 128, 300, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE };
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(baos);
+		for (int num : nums) {
+			EndPointSnapshot.writeNumber(output, num);
+		}
+		output.flush();
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+		for (int num : nums) {
+			assertEquals(num, EndPointSnapshot.readNumber(input));
+		}
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void testNumberLength() throws Exception {
+		assertEquals(1, numberBytes(0).length);
+		assertEquals(1, numberBytes(127).length);
+		assertEquals(2, numberBytes(128).length);
+		assertEquals(2, numberBytes(16383).length);
+		assertEquals(3, numberBytes(16384).length);
+		assertEquals(5, numberBytes(Integer.MAX_VALUE).length);
+		assertArrayEquals(new byte[] { (byte) 0xAC, 0x02 }, numberBytes(300));
+	}
+
+	@Test(expected = EOFException.class)
+	public void testNumberTruncated() throws Exception {
+		byte[] bytes = numberBytes(16384);
+		EndPointSnapshot.readNumber(new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 1)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNumberTooLong() throws Exception {
+		byte[] bytes = new byte[] { (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 };
+		EndPointSnapshot.readNumber(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		ClassInfo classInfo = userControllerInfo();
+		MethodInfo update = userUpdateInfo();
+		MethodInfo get = new MethodInfo("get", "get", null, -1, new String[] { "/get" }, 0, null, null, null, null,
+				null, null, null);
+
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>();
+		endPointMap.put("/user/update", Arrays.asList(new EndPoint("/user/update", classInfo, update)));
+		endPointMap.put("/user/put", Arrays.asList(new EndPoint("/user/put", classInfo, update)));
+		endPointMap.put("/user/get", Arrays.asList(new EndPoint("/user/get", classInfo, get)));
+
+		Map<String, List<EndPoint>> result = roundTrip(endPointMap);
+		assertEquals(endPointMap.keySet(), result.keySet());
+
+		EndPoint updateEndPoint = result.get("/user/update").get(0);
+		EndPoint putEndPoint = result.get("/user/put").get(0);
+		EndPoint getEndPoint = result.get("/user/get").get(0);
+		assertEquals("/user/update", updateEndPoint.getPath());
+		// the classes and methods are shared like they were before they were written
+		assertSame(updateEndPoint.getClassInfo(), getEndPoint.getClassInfo());
+		assertSame(updateEndPoint.getMethodInfo(), putEndPoint.getMethodInfo());
+
+		assertUserControllerInfo(updateEndPoint.getClassInfo());
+
+		MethodInfo readUpdate = updateEndPoint.getMethodInfo();
+		assertEquals("update", readUpdate.getJavaMethodName());
+		assertEquals("Update the user.", readUpdate.getJavaDocFirstSentence());
+		assertArrayEquals(new String[] { "/update", "/put" }, readUpdate.getPaths());
+		assertTrue(readUpdate.hasHttpMethod(HttpMethod.POST));
+		assertTrue(readUpdate.hasHttpMethod(HttpMethod.PUT));
+		assertFalse(readUpdate.hasHttpMethod(HttpMethod.GET));
+		assertArrayEquals(new String[] { "force" }, readUpdate.getParams());
+		assertNull(readUpdate.getHeaders());
+		assertArrayEquals(new String[] { "application/json" }, readUpdate.getConsumes());
+
+		List<ParamInfo> readParamInfos = readUpdate.getParamInfos();
+		assertEquals(3, readParamInfos.size());
+		ParamInfo limit = readParamInfos.get(0);
+		assertEquals("limit", limit.getJavaParamName());
+		assertEquals(ParamRequestKind.QUERY, limit.getRequestKind());
+		assertEquals("max", limit.getRequestName());
+		assertFalse(limit.isRequired());
+		assertEquals("10", limit.getDefaultValue());
+		assertEquals(ParamRequestKind.PATH, readParamInfos.get(1).getRequestKind());
+		assertNull(readParamInfos.get(1).getJavaDoc());
+		assertEquals(ParamRequestKind.HEADER, readParamInfos.get(2).getRequestKind());
+		assertEquals("Auth \u00e9.", readParamInfos.get(2).getJavaDoc());
+
+		ContentsInfo readRequestInfo = readUpdate.getRequestInfo();
+		assertEquals("user", readRequestInfo.getJavaParamName());
+		assertEquals("User", readRequestInfo.getJavaTypeName());
+		assertEquals("com.j256.User", readRequestInfo.getQualifiedTypeName());
+		assertEquals(1, readRequestInfo.getFieldInfos().size());
+		assertEquals("name", readRequestInfo.getFieldInfos().get(0).getFieldName());
+		assertEquals("com.j256.Result", readUpdate.getResponseInfo().getQualifiedTypeName());
+
+		MethodInfo readGet = getEndPoint.getMethodInfo();
+		assertNull(readGet.getJavaDoc());
+		assertEquals(0, readGet.getHttpMethodMask());
+		assertNull(readGet.getParamInfos());
+		assertNull(readGet.getRequestInfo());
+		assertNull(readGet.getResponseInfo());
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		Map<String, List<EndPoint>> result = roundTrip(new LinkedHashMap<String, List<EndPoint>>());
+		assertNotNull(result);
+		assertTrue(result.isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotSnapshot() throws Exception {
+		EndPointSnapshot.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>();
+		endPointMap.put("/foo", Arrays.asList(new EndPoint("/foo", classInfo("Foo"), methodInfo("foo"))));
+		EndPointSnapshot.write(endPointMap, baos);
+		byte[] bytes = baos.toByteArray();
+		EndPointSnapshot.read(new ByteArrayInputStream(bytes, 0, bytes.length - 2));
+	}
+
+	private Map<String, List<EndPoint>> roundTrip(Map<String, List<EndPoint>> endPointMap) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		EndPointSnapshot.write(endPointMap, baos);
+		return EndPointSnapshot.read(new ByteArrayInputStream(baos.toByteArray()));
+	}
+
+	private byte[] numberBytes(int num) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(baos);
+		EndPointSnapshot.writeNumber(output, num);
+		output.flush();
+		return baos.toByteArray();
+	}
+}
@@ -0,0 +1,141 @@
+package com.j256.springrequestdoclet.collector;
+
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.assertUserControllerInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.classInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.methodInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.userControllerInfo;
+import static com.j256.springrequestdoclet.collector.EndPointFixtures.userUpdateInfo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.ParamInfo.ParamRequestKind;
+
+public class EndPointStoreTest {
+
+	private EndPointStore store;
+
+	@Before
+	public void before() throws Exception {
+		store = new EndPointStore(null);
+	}
+
+	@After
+	public void after() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		ClassInfo classInfo = userControllerInfo();
+		MethodInfo methodInfo = userUpdateInfo();
+		store.add("/user/update", classInfo, methodInfo);
+		store.add("/user/put", classInfo, methodInfo);
+		assertTrue(store.getFileSize() > 0);
+
+		Map<String, List<EndPoint>> endPointMap = store.getEndPointMap();
+		assertEquals(Arrays.asList("/user/update", "/user/put"), new ArrayList<String>(endPointMap.keySet()));
+		assertEquals(2, endPointMap.size());
+		EndPoint updateEndPoint = endPointMap.get("/user/update").get(0);
+		EndPoint putEndPoint = endPointMap.get("/user/put").get(0);
+		assertEquals("/user/put", putEndPoint.getPath());
+		// the method was written once and is shared while it is referenced
+		assertSame(updateEndPoint.getMethodInfo(), putEndPoint.getMethodInfo());
+		assertSame(updateEndPoint.getClassInfo(), putEndPoint.getClassInfo());
+
+		assertUserControllerInfo(updateEndPoint.getClassInfo());
+
+		MethodInfo readMethodInfo = updateEndPoint.getMethodInfo();
+		assertEquals("update", readMethodInfo.getUniqueName());
+		assertEquals("Update the user.", readMethodInfo.getJavaDocFirstSentence());
+		assertEquals(methodInfo.getHttpMethodMask(), readMethodInfo.getHttpMethodMask());
+		assertArrayEquals(new String[] { "force" }, readMethodInfo.getParams());
+		assertNull(readMethodInfo.getHeaders());
+		assertArrayEquals(new String[] { "application/json" }, readMethodInfo.getConsumes());
+		assertNull(readMethodInfo.getProduces());
+		assertEquals(3, readMethodInfo.getParamInfos().size());
+		ParamInfo readLimit = readMethodInfo.getParamInfos().get(0);
+		assertEquals(ParamRequestKind.QUERY, readLimit.getRequestKind());
+		assertEquals("max", readLimit.getRequestName());
+		assertFalse(readLimit.isRequired());
+		assertEquals("10", readLimit.getDefaultValue());
+		assertEquals(ParamRequestKind.HEADER, readMethodInfo.getParamInfos().get(2).getRequestKind());
+		assertEquals("com.j256.User", readMethodInfo.getRequestInfo().getQualifiedTypeName());
+		assertEquals("Name of the user.", readMethodInfo.getRequestInfo().getFieldInfos().get(0).getJavaDoc());
+		assertEquals("com.j256.Result", readMethodInfo.getResponseInfo().getQualifiedTypeName());
+	}
+
+	@Test
+	public void testAddAll() throws Exception {
+		ClassInfo userClass = classInfo("com.j256.User");
+		ClassInfo schoolClass = classInfo("com.j256.School");
+		MethodInfo userGet = methodInfo("get");
+		Map<String, List<EndPoint>> endPointMap = new LinkedHashMap<String, List<EndPoint>>();
+		endPointMap.put("/get", Arrays.asList(new EndPoint("/get", userClass, userGet),
+				new EndPoint("/get", schoolClass, methodInfo("get"))));
+		endPointMap.put("/user/get", Arrays.asList(new EndPoint("/user/get", userClass, userGet)));
+		store.addAll(endPointMap);
+
+		Map<String, List<EndPoint>> readMap = store.getEndPointMap();
+		assertEquals(endPointMap.keySet(), readMap.keySet());
+		List<EndPoint> getEndPoints = readMap.get("/get");
+		assertEquals(2, getEndPoints.size());
+		assertEquals("com.j256.User", getEndPoints.get(0).getClassInfo().getTypeName());
+		assertEquals("com.j256.School", getEndPoints.get(1).getClassInfo().getTypeName());
+		assertSame(getEndPoints.get(0).getMethodInfo(), readMap.get("/user/get").get(0).getMethodInfo());
+		assertNull(readMap.get("/unknown"));
+		assertFalse(readMap.containsKey("/unknown"));
+	}
+
+	@Test
+	public void testRemoveClass() throws Exception {
+		ClassInfo userClass = classInfo("com.j256.User");
+		ClassInfo schoolClass = classInfo("com.j256.School");
+		store.add("/get", userClass, methodInfo("get"));
+		store.add("/user/list", userClass, methodInfo("list"));
+		store.add("/get", schoolClass, methodInfo("get"));
+
+		assertTrue(store.removeClass("com.j256.User"));
+		Map<String, List<EndPoint>> endPointMap = store.getEndPointMap();
+		// the paths that only the class used are gone and the other classes are kept
+		assertEquals(Arrays.asList("/get"), new ArrayList<String>(endPointMap.keySet()));
+		assertEquals(1, endPointMap.get("/get").size());
+		assertEquals("com.j256.School", endPointMap.get("/get").get(0).getClassInfo().getTypeName());
+		assertFalse(store.removeClass("com.j256.User"));
+		assertFalse(store.removeClass("com.j256.Unknown"));
+	}
+
+	@Test
+	public void testAddAfterRemove() throws Exception {
+		ClassInfo userClass = classInfo("com.j256.User");
+		MethodInfo getMethod = methodInfo("get");
+		store.add("/get", userClass, getMethod);
+		store.removeClass("com.j256.User");
+		assertTrue(store.getEndPointMap().isEmpty());
+
+		// the changed class is added again with the same objects
+		store.add("/get", userClass, getMethod);
+		Map<String, List<EndPoint>> endPointMap = store.getEndPointMap();
+		assertEquals(1, endPointMap.size());
+		assertEquals("com.j256.User", endPointMap.get("/get").get(0).getClassInfo().getTypeName());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMapUnmodifiable() throws Exception {
+		store.add("/get", classInfo("com.j256.User"), methodInfo("get"));
+		store.getEndPointMap().remove("/get");
+	}
+}
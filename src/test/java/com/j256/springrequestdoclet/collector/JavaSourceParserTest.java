@@ -0,0 +1,306 @@
+package com.j256.springrequestdoclet.collector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedAnnotation;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedFile;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedMethod;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedParam;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.ParsedType;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.Token;
+import com.j256.springrequestdoclet.collector.JavaSourceParser.TokenKind;
+
+public class JavaSourceParserTest {
+
+	@Test
+	public void testPackageAndImports() throws Exception {
+		ParsedFile parsedFile = parse("package com.j256.api;\n" //
+				+ "import java.util.List;\n" //
+				+ "import java.util.*;\n" //
+				+ "import static com.j256.Constants.PREFIX;\n" //
+				+ "import static com.j256.Paths.*;\n" //
+				+ "public class UserController {}\n");
+		assertEquals("com.j256.api", parsedFile.packageName);
+		assertEquals("java.util.List", parsedFile.imports.get("List"));
+		assertEquals(Arrays.asList("java.util"), parsedFile.wildcardImports);
+		assertEquals("com.j256.Constants.PREFIX", parsedFile.staticImports.get("PREFIX"));
+		assertEquals(Arrays.asList("com.j256.Paths"), parsedFile.staticWildcardImports);
+		assertEquals(1, parsedFile.types.size());
+		ParsedType type = parsedFile.types.get(0);
+		assertEquals("UserController", type.simpleName);
+		assertEquals("class", type.kind);
+		assertEquals("com.j256.api.UserController", type.getQualifiedName());
+		// javadoc returns an empty string if there is no comment
+		assertEquals("", type.javaDoc);
+	}
+
+	@Test
+	public void testDefaultPackage() throws Exception {
+		ParsedFile parsedFile = parse("class Foo {}");
+		assertEquals("", parsedFile.packageName);
+		assertEquals("Foo", parsedFile.types.get(0).getQualifiedName());
+	}
+
+	@Test
+	public void testTypeAnnotations() throws Exception {
+		ParsedType type = parseType("@RestController\n" //
+				+ "@org.springframework.web.bind.annotation.RequestMapping(value = { \"/user\", \"/person\" }, "
+				+ "produces = \"application/json\")\n" //
+				+ "@Cached(\"users\")\n" //
+				+ "public class UserController {}\n");
+		assertEquals(3, type.annotations.size());
+		assertEquals("RestController", type.annotations.get(0).simpleName);
+		assertTrue(type.annotations.get(0).values.isEmpty());
+
+		ParsedAnnotation mapping = type.annotations.get(1);
+		assertEquals("RequestMapping", mapping.simpleName);
+		assertEquals("org.springframework.web.bind.annotation.RequestMapping", mapping.name);
+		assertEquals(Arrays.asList("value", "produces"), Arrays.asList(mapping.values.keySet().toArray()));
+		List<List<Token>> paths = mapping.getValue("value");
+		assertEquals(2, paths.size());
+		assertEquals("\"/user\"", text(paths.get(0)));
+		assertEquals(TokenKind.STRING, paths.get(0).get(0).kind);
+		assertEquals("\"/person\"", text(paths.get(1)));
+		assertEquals(1, mapping.getValue("produces").size());
+		assertTrue(mapping.getValue("consumes").isEmpty());
+
+		// a single value without a name is the value element
+		assertEquals("\"users\"", text(type.annotations.get(2).getValue("value").get(0)));
+	}
+
+	@Test
+	public void testAnnotationExpressions() throws Exception {
+		ParsedType type = parseType("class Foo {\n" //
+				+ "\t@RequestMapping(value = PREFIX + \"/get\", method = { RequestMethod.GET, RequestMethod.HEAD })\n"
+				+ "\tpublic void get() {}\n" //
+				+ "}\n");
+		ParsedAnnotation mapping = type.methods.get(0).annotations.get(0);
+		assertEquals("PREFIX+\"/get\"", text(mapping.getValue("value").get(0)));
+		List<List<Token>> methods = mapping.getValue("method");
+		assertEquals(2, methods.size());
+		assertEquals("RequestMethod.GET", text(methods.get(0)));
+		assertEquals("RequestMethod.HEAD", text(methods.get(1)));
+	}
+
+	@Test
+	public void testMethods() throws Exception {
+		ParsedType type = parseType("public class UserController {\n" //
+				+ "\tprivate final Map<String, List<User>> users = new HashMap<String, List<User>>();\n" //
+				+ "\tpublic UserController() { this.count = 0; }\n" //
+				+ "\tstatic { init(\"}\"); }\n" //
+				+ "\t/**\n" //
+				+ "\t * Get the user.\n" //
+				+ "\t */\n" //
+				+ "\t@GetMapping(\"/get\")\n" //
+				+ "\tpublic User get(@RequestParam(value = \"id\", required = false) long id,\n" //
+				+ "\t\t\tfinal @PathVariable String[] names, Map<String, List<Integer>> extra) throws IOException {\n"
+				+ "\t\tif (id < 0) { return null; }\n" //
+				+ "\t\treturn users.get(\"{\" + '}');\n" //
+				+ "\t}\n" //
+				+ "\tprotected <T extends User> List<T>[] list() { return null; }\n" //
+				+ "\tvoid hidden() {}\n" //
+				+ "\tprivate int old()[] { return null; }\n" //
+				+ "}\n");
+		assertEquals(4, type.methods.size());
+
+		ParsedMethod get = type.methods.get(0);
+		assertEquals("get", get.name);
+		assertEquals(" Get the user.\n", get.javaDoc);
+		assertTrue(get.documented);
+		assertEquals("User", get.returnType.name);
+		assertEquals("", get.returnType.dimension);
+		assertEquals("GetMapping", get.annotations.get(0).simpleName);
+		assertEquals(3, get.params.size());
+		ParsedParam id = get.params.get(0);
+		assertEquals("id", id.name);
+		assertEquals("long", id.type.name);
+		assertEquals("RequestParam", id.annotations.get(0).simpleName);
+		assertEquals("false", text(id.annotations.get(0).getValue("required").get(0)));
+		ParsedParam names = get.params.get(1);
+		assertEquals("names", names.name);
+		assertEquals("String", names.type.name);
+		assertEquals("[]", names.type.dimension);
+		assertEquals("PathVariable", names.annotations.get(0).simpleName);
+		// the type arguments are dropped
+		assertEquals("Map", get.params.get(2).type.name);
+
+		ParsedMethod list = type.methods.get(1);
+		assertEquals("list", list.name);
+		assertEquals("List", list.returnType.name);
+		assertEquals("[]", list.returnType.dimension);
+		assertTrue(list.documented);
+		assertEquals("", list.javaDoc);
+
+		assertEquals("hidden", type.methods.get(2).name);
+		assertFalse(type.methods.get(2).documented);
+		// old style array return type after the parameters
+		assertEquals("[]", type.methods.get(3).returnType.dimension);
+	}
+
+	@Test
+	public void testInterfaceMethodsDocumented() throws Exception {
+		ParsedType type = parseType("public interface UserApi extends BaseApi, Closeable {\n" //
+				+ "\t@GetMapping(\"/get\")\n" //
+				+ "\tUser get();\n" //
+				+ "\tdefault void close() {}\n" //
+				+ "}\n");
+		assertTrue(type.isInterface());
+		assertNull(type.superclass);
+		assertEquals(Arrays.asList("BaseApi", "Closeable"), type.interfaces);
+		assertEquals(2, type.methods.size());
+		assertTrue(type.methods.get(0).documented);
+		assertTrue(type.methods.get(1).documented);
+	}
+
+	@Test
+	public void testSuperTypes() throws Exception {
+		ParsedType type = parseType("public abstract class BaseController<T extends Entity> "
+				+ "extends AbstractController<T> implements Api<T>, java.io.Serializable {}");
+		assertTrue(type.isAbstract());
+		assertFalse(type.isInterface());
+		assertEquals("AbstractController", type.superclass);
+		assertEquals(Arrays.asList("Api", "java.io.Serializable"), type.interfaces);
+	}
+
+	@Test
+	public void testNestedTypes() throws Exception {
+		ParsedFile parsedFile = parse("package com.j256;\n" //
+				+ "public class Outer {\n" //
+				+ "\tpublic enum Color { RED(\"r\") { void foo() {} }, GREEN(\"g\"); Color(String s) {} }\n" //
+				+ "\t/** Inner doc. */\n" //
+				+ "\tpublic static class Inner {\n" //
+				+ "\t\tpublic @interface Marker { String value() default \"}\"; }\n" //
+				+ "\t\tpublic void run() {}\n" //
+				+ "\t}\n" //
+				+ "}\n" //
+				+ "class Second {}\n");
+		assertEquals(2, parsedFile.types.size());
+		assertEquals("Second", parsedFile.types.get(1).simpleName);
+		ParsedType outer = parsedFile.types.get(0);
+		assertEquals(2, outer.nestedTypes.size());
+		assertEquals("enum", outer.findNestedType("Color").kind);
+		assertTrue(outer.findNestedType("Color").methods.isEmpty());
+		ParsedType inner = outer.findNestedType("Inner");
+		assertEquals("Inner doc. ", inner.javaDoc);
+		assertEquals("Outer.Inner", inner.getName());
+		assertEquals("com.j256.Outer.Inner", inner.getQualifiedName());
+		assertEquals("run", inner.methods.get(0).name);
+		ParsedType marker = inner.findNestedType("Marker");
+		assertEquals("@interface", marker.kind);
+		assertTrue(marker.isInterface());
+		assertEquals("com.j256.Outer.Inner.Marker", marker.getQualifiedName());
+		assertEquals("value", marker.methods.get(0).name);
+		assertNull(outer.findNestedType("Unknown"));
+	}
+
+	@Test
+	public void testConstants() throws Exception {
+		ParsedType type = parseType("public class Paths {\n" //
+				+ "\tpublic static final String ROOT = \"/api\";\n" //
+				+ "\tpublic static final String USER = ROOT + \"/user\", SCHOOL = ROOT + \"/school\";\n" //
+				+ "\tprivate static final String[] ARRAY = { \"a\" };\n" //
+				+ "\tprivate final String notStatic = \"b\";\n" //
+				+ "\tstatic final int COUNT = 1;\n" //
+				+ "\tinterface Inner { String NAME = \"name\"; }\n" //
+				+ "}\n");
+		assertEquals(Arrays.asList("ROOT", "USER", "SCHOOL"), Arrays.asList(type.constants.keySet().toArray()));
+		assertEquals("\"/api\"", text(type.constants.get("ROOT")));
+		assertEquals("ROOT+\"/school\"", text(type.constants.get("SCHOOL")));
+		// interface fields are implicitly static and final
+		assertEquals("\"name\"", text(type.findNestedType("Inner").constants.get("NAME")));
+	}
+
+	@Test
+	public void testCommentsAndLiterals() throws Exception {
+		ParsedType type = parseType("// class Ignored {}\n" //
+				+ "/* class AlsoIgnored { */\n" //
+				+ "class Foo {\n" //
+				+ "\tString s = \"\\\"class Bar {\";\n" //
+				+ "\tchar c = '{';\n" //
+				+ "\tString t = \"\"\"\n" //
+				+ "\t\ttext block with } and \"quotes\"\n" //
+				+ "\t\t\"\"\";\n" //
+				+ "\tvoid after() {}\n" //
+				+ "}\n");
+		assertEquals("Foo", type.simpleName);
+		assertEquals(1, type.methods.size());
+		assertEquals("after", type.methods.get(0).name);
+	}
+
+	@Test
+	public void testRecord() throws Exception {
+		ParsedType type = parseType("public record Point(int x, int y) implements Shape {\n" //
+				+ "\tpublic Point { if (x < 0) throw new IllegalArgumentException(); }\n" //
+				+ "\tpublic int sum() { return x + y; }\n" //
+				+ "}\n");
+		assertEquals("record", type.kind);
+		assertEquals(Arrays.asList("Shape"), type.interfaces);
+		assertEquals(1, type.methods.size());
+		assertEquals("sum", type.methods.get(0).name);
+	}
+
+	@Test
+	public void testParseError() throws Exception {
+		try {
+			parse("package com.j256;\n\nint foo;\n");
+			fail("Should have thrown");
+		} catch (IOException e) {
+			// the file and line are in the message
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Foo.java:3: "));
+		}
+		try {
+			parse("class Foo {");
+			fail("Should have thrown");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith("end of file"));
+		}
+	}
+
+	@Test
+	public void testProcessDocComment() {
+		assertEquals(" First line.\n Second line.\n", docComment("/**\n * First line.\n * Second line.\n */"));
+		// the leading whitespace of the first line is removed like the others
+		assertEquals("Single line. ", docComment("/** Single line. */"));
+		assertEquals("", docComment("/***/"));
+		assertEquals("", docComment("/**/"));
+		// the whitespace is kept on lines without a star
+		assertEquals("First.\n   indented\n", docComment("/** First.\n   indented\n */"));
+		assertEquals(" Windows.\n Lines.\n", docComment("/**\r\n * Windows.\r\n * Lines.\r\n */"));
+		// trailing stars are removed
+		assertEquals("Stars. ", docComment("/** Stars. ***/"));
+	}
+
+	private static ParsedFile parse(String source) throws IOException {
+		return JavaSourceParser.parse(new File("Foo.java"), source);
+	}
+
+	private static ParsedType parseType(String source) throws IOException {
+		List<ParsedType> types = parse(source).types;
+		assertEquals(1, types.size());
+		return types.get(0);
+	}
+
+	private static String docComment(String comment) {
+		String source = "x" + comment + "y";
+		return JavaSourceParser.processDocComment(source, 1, source.length() - 1);
+	}
+
+	private static String text(List<Token> tokens) {
+		StringBuilder sb = new StringBuilder();
+		for (Token token : tokens) {
+			sb.append(token.text);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,182 @@
+package com.j256.springrequestdoclet.collector;
+
+import static com.j256.springrequestdoclet.collector.DocProxies.proxy;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.collector.RequestMappingResolver.ResolvedMapping;
+import com.sun.javadoc.AnnotationDesc;
+import com.sun.javadoc.AnnotationDesc.ElementValuePair;
+import com.sun.javadoc.AnnotationTypeDoc;
+import com.sun.javadoc.AnnotationTypeElementDoc;
+import com.sun.javadoc.AnnotationValue;
+
+public class RequestMappingResolverTest {
+
+	private static final String SPRING_PACKAGE = "org.springframework.web.bind.annotation.";
+
+	private final AnnotationTypeDoc requestMappingType = annotationType(SPRING_PACKAGE + "RequestMapping");
+
+	@Test
+	public void testRequestMapping() {
+		AnnotationDesc annotation =
+				annotation(requestMappingType, "value", "\"/user\"", "method", "RequestMethod.GET", "params",
+						new String[] { "\"id\"", "\"force=true\"" });
+		ResolvedMapping mapping = new RequestMappingResolver().resolve(new AnnotationDesc[] { annotation });
+		assertNotNull(mapping);
+		assertArrayEquals(new String[] { "/user" }, mapping.getPaths());
+		assertEquals(HttpMethod.GET.getMask(), mapping.getHttpMethodMask());
+		assertArrayEquals(new String[] { "id", "force=true" }, mapping.getParams());
+		assertNull(mapping.getHeaders());
+	}
+
+	@Test
+	public void testPathAlias() {
+		AnnotationDesc annotation = annotation(requestMappingType, "path", new String[] { "\"/a\"", "\"/b\"" });
+		ResolvedMapping mapping = new RequestMappingResolver().resolve(new AnnotationDesc[] { annotation });
+		assertArrayEquals(new String[] { "/a", "/b" }, mapping.getPaths());
+		assertEquals(0, mapping.getHttpMethodMask());
+	}
+
+	@Test
+	public void testComposedWithoutSpring() {
+		// without spring on the classpath the meta-annotations of @GetMapping are missing
+		AnnotationTypeDoc getMappingType = annotationType(SPRING_PACKAGE + "GetMapping");
+		ResolvedMapping mapping = new RequestMappingResolver()
+				.resolve(new AnnotationDesc[] { annotation(getMappingType, "value", "\"/get\"") });
+		assertArrayEquals(new String[] { "/get" }, mapping.getPaths());
+		assertEquals(HttpMethod.GET.getMask(), mapping.getHttpMethodMask());
+	}
+
+	@Test
+	public void testComposedWithSpring() {
+		AnnotationTypeDoc postMappingType = annotationType(SPRING_PACKAGE + "PostMapping",
+				annotation(requestMappingType, "method", "RequestMethod.POST"));
+		ResolvedMapping mapping = new RequestMappingResolver().resolve(new AnnotationDesc[] {
+				annotation(postMappingType, "path", "\"/post\"", "consumes", "\"application/json\"") });
+		assertArrayEquals(new String[] { "/post" }, mapping.getPaths());
+		assertEquals(HttpMethod.POST.getMask(), mapping.getHttpMethodMask());
+		assertArrayEquals(new String[] { "application/json" }, mapping.getConsumes());
+	}
+
+	@Test
+	public void testInHouseAnnotation() {
+		AnnotationTypeDoc getMappingType = annotationType(SPRING_PACKAGE + "GetMapping");
+		// @JsonGet is meta-annotated with @GetMapping(produces = "application/json")
+		AnnotationTypeDoc jsonGetType = annotationType("com.j256.JsonGet",
+				annotation(annotationType("java.lang.annotation.Documented")),
+				annotation(getMappingType, "produces", "\"application/json\""));
+		// and @ApiGet with @JsonGet
+		AnnotationTypeDoc apiGetType = annotationType("com.j256.ApiGet", annotation(jsonGetType));
+
+		RequestMappingResolver resolver = new RequestMappingResolver();
+		ResolvedMapping mapping =
+				resolver.resolve(new AnnotationDesc[] { annotation(apiGetType, "value", "\"/api/users\"") });
+		assertArrayEquals(new String[] { "/api/users" }, mapping.getPaths());
+		assertEquals(HttpMethod.GET.getMask(), mapping.getHttpMethodMask());
+		assertArrayEquals(new String[] { "application/json" }, mapping.getProduces());
+
+		// the values of the annotation override the ones of its meta-annotation
+		mapping = resolver.resolve(new AnnotationDesc[] { annotation(jsonGetType, "produces", "\"text/plain\"") });
+		assertEquals(HttpMethod.GET.getMask(), mapping.getHttpMethodMask());
+		assertArrayEquals(new String[] { "text/plain" }, mapping.getProduces());
+	}
+
+	@Test
+	public void testNotMapping() {
+		// @Documented is annotated with itself
+		AnnotationDesc[] documentedMetaAnnotations = new AnnotationDesc[1];
+		AnnotationTypeDoc documentedType =
+				annotationType("java.lang.annotation.Documented", documentedMetaAnnotations);
+		documentedMetaAnnotations[0] = annotation(documentedType);
+		AnnotationTypeDoc cacheType = annotationType("com.j256.Cached", annotation(documentedType));
+		RequestMappingResolver resolver = new RequestMappingResolver();
+		assertNull(resolver.resolve(new AnnotationDesc[] { annotation(cacheType) }));
+		assertNull(resolver.resolve(new AnnotationDesc[] { annotation(documentedType) }));
+		assertNull(resolver.resolve(new AnnotationDesc[0]));
+
+		// the first annotation that is a mapping is used
+		AnnotationTypeDoc deleteMappingType = annotationType(SPRING_PACKAGE + "DeleteMapping");
+		ResolvedMapping mapping = resolver.resolve(new AnnotationDesc[] { annotation(cacheType),
+				annotation(deleteMappingType, "value", "\"/delete\"") });
+		assertEquals(HttpMethod.DELETE.getMask(), mapping.getHttpMethodMask());
+	}
+
+	@Test
+	public void testFindSpringMapping() {
+		assertEquals(HttpMethod.PATCH.getMask(), RequestMappingResolver.findSpringMapping("PatchMapping")
+				.getHttpMethodMask());
+		assertEquals(0, RequestMappingResolver.findSpringMapping("RequestMapping").getHttpMethodMask());
+		assertNull(RequestMappingResolver.findSpringMapping("Mapping"));
+		assertNull(RequestMappingResolver.findSpringMapping("Override"));
+	}
+
+	@Test
+	public void testWithValues() {
+		ResolvedMapping mapping = RequestMappingResolver.findSpringMapping("PutMapping");
+		Map<String, String[]> values = new HashMap<String, String[]>();
+		assertSame(mapping, mapping.withValues(values));
+		values.put("path", new String[] { "/put" });
+		values.put("headers", new String[] { "X-Token" });
+		values.put("unknown", new String[] { "ignored" });
+		ResolvedMapping result = mapping.withValues(values);
+		assertArrayEquals(new String[] { "/put" }, result.getPaths());
+		assertArrayEquals(new String[] { "X-Token" }, result.getHeaders());
+		assertEquals(HttpMethod.PUT.getMask(), result.getHttpMethodMask());
+		values.put("method", new String[] { "RequestMethod.GET", "RequestMethod.HEAD" });
+		assertEquals(HttpMethod.GET.getMask() | HttpMethod.HEAD.getMask(),
+				mapping.withValues(values).getHttpMethodMask());
+	}
+
+	private static AnnotationTypeDoc annotationType(String qualifiedName, AnnotationDesc... metaAnnotations) {
+		Map<String, Object> methodResults = new HashMap<String, Object>();
+		methodResults.put("qualifiedName", qualifiedName);
+		methodResults.put("name", qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1));
+		methodResults.put("annotations", metaAnnotations);
+		return proxy(AnnotationTypeDoc.class, methodResults);
+	}
+
+	/**
+	 * Create an annotation with its element names followed by their values as they are written in the source. A value
+	 * can also be an array of them.
+	 */
+	private static AnnotationDesc annotation(AnnotationTypeDoc type, Object... namesAndValues) {
+		ElementValuePair[] pairs = new ElementValuePair[namesAndValues.length / 2];
+		for (int i = 0; i < pairs.length; i++) {
+			Map<String, Object> elementResults = new HashMap<String, Object>();
+			elementResults.put("name", namesAndValues[i * 2]);
+			Map<String, Object> pairResults = new HashMap<String, Object>();
+			pairResults.put("element", proxy(AnnotationTypeElementDoc.class, elementResults));
+			pairResults.put("value", annotationValue(namesAndValues[i * 2 + 1]));
+			pairs[i] = proxy(ElementValuePair.class, pairResults);
+		}
+		Map<String, Object> methodResults = new HashMap<String, Object>();
+		methodResults.put("annotationType", type);
+		methodResults.put("elementValues", pairs);
+		return proxy(AnnotationDesc.class, methodResults);
+	}
+
+	private static AnnotationValue annotationValue(Object value) {
+		Map<String, Object> methodResults = new HashMap<String, Object>();
+		if (value instanceof String[]) {
+			String[] strings = (String[]) value;
+			AnnotationValue[] values = new AnnotationValue[strings.length];
+			for (int i = 0; i < strings.length; i++) {
+				values[i] = annotationValue(strings[i]);
+			}
+			methodResults.put("value", values);
+		} else {
+			methodResults.put("value", value);
+			methodResults.put("toString", value);
+		}
+		return proxy(AnnotationValue.class, methodResults);
+	}
+}
@@ -0,0 +1,165 @@
+package com.j256.springrequestdoclet.collector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SourceScannerTest {
+
+	private static final String SPRING_IMPORTS = "import org.springframework.web.bind.annotation.*;\n";
+
+	private File sourceDir;
+
+	@Before
+	public void before() throws Exception {
+		sourceDir = File.createTempFile(getClass().getSimpleName(), "");
+		sourceDir.delete();
+	}
+
+	@After
+	public void after() {
+		deleteAll(sourceDir);
+	}
+
+	@Test
+	public void testConcreteController() throws Exception {
+		writeSource("com/j256/UserController.java", "package com.j256;\n" + SPRING_IMPORTS //
+				+ "@RequestMapping(\"/user\")\n" //
+				+ "public class UserController {\n" //
+				+ "\t@GetMapping(\"/get\")\n" //
+				+ "\tpublic String get() { return null; }\n" //
+				+ "}\n");
+		assertEquals("/user/get=com.j256.UserController;", scan());
+	}
+
+	@Test
+	public void testApiInterfaceOnly() throws Exception {
+		// a module with only the API interfaces is documented like before
+		writeApiInterface();
+		assertEquals("/user/get=com.j256.api.UserApi;", scan());
+	}
+
+	@Test
+	public void testAbstractControllerOnly() throws Exception {
+		// the concrete subclass is in a module outside of this run
+		writeSource("com/j256/BaseController.java", "package com.j256;\n" + SPRING_IMPORTS //
+				+ "@RequestMapping(\"/base\")\n" //
+				+ "public abstract class BaseController {\n" //
+				+ "\t@GetMapping(\"/health\")\n" //
+				+ "\tpublic String health() { return null; }\n" //
+				+ "}\n");
+		assertEquals("/base/health=com.j256.BaseController;", scan());
+	}
+
+	@Test
+	public void testInheritedTypesDropped() throws Exception {
+		writeApiInterface();
+		writeSource("com/j256/impl/AbstractUserController.java", "package com.j256.impl;\n" //
+				+ "import com.j256.api.UserApi;\n" + SPRING_IMPORTS //
+				+ "public abstract class AbstractUserController implements UserApi {\n" //
+				+ "\t@GetMapping(\"/health\")\n" //
+				+ "\tpublic String health() { return null; }\n" //
+				+ "}\n");
+		writeSource("com/j256/impl/UserController.java", "package com.j256.impl;\n" + SPRING_IMPORTS //
+				+ "@RestController\n" //
+				+ "public class UserController extends AbstractUserController {\n" //
+				+ "\t@Override\n" //
+				+ "\tpublic String get() { return null; }\n" //
+				+ "\t@PostMapping(\"/save\")\n" //
+				+ "\tpublic void save() {}\n" //
+				+ "}\n");
+		// the interface and the abstract class are only documented through the concrete controller
+		assertEquals("/user/get=com.j256.impl.UserController;/user/health=com.j256.impl.UserController;"
+				+ "/user/save=com.j256.impl.UserController;", scan());
+	}
+
+	@Test
+	public void testInheritedWithoutMappingToken() throws Exception {
+		writeApiInterface();
+		// the file of the controller doesn't mention a mapping annotation at all
+		writeSource("com/j256/impl/UserController.java", "package com.j256.impl;\n" //
+				+ "import com.j256.api.UserApi;\n" //
+				+ "@RestController\n" //
+				+ "public class UserController implements UserApi {\n" //
+				+ "\tpublic String get() { return null; }\n" //
+				+ "}\n");
+		writeSource("com/j256/model/User.java", "package com.j256.model;\n" //
+				+ "public class User {\n" //
+				+ "\tpublic String getName() { return null; }\n" //
+				+ "}\n");
+		EndPointCollector collector = new EndPointCollector();
+		SourceScanner scanner = new SourceScanner(collector, 1, Charset.forName("UTF-8"));
+		scanner.scan(Arrays.asList(sourceDir));
+		assertEquals("/user/get=com.j256.impl.UserController;", describe(collector));
+		// the model class neither has mappings nor extends anything so it is skipped
+		assertEquals(3, scanner.getFileCount());
+		assertEquals(2, scanner.getParsedFileCount());
+	}
+
+	private void writeApiInterface() throws IOException {
+		writeSource("com/j256/api/UserApi.java", "package com.j256.api;\n" + SPRING_IMPORTS //
+				+ "@RequestMapping(\"/user\")\n" //
+				+ "public interface UserApi {\n" //
+				+ "\t@GetMapping(\"/get\")\n" //
+				+ "\tString get();\n" //
+				+ "}\n");
+	}
+
+	/**
+	 * Scan the source directory and describe the end-points in path order.
+	 */
+	private String scan() throws IOException {
+		EndPointCollector collector = new EndPointCollector();
+		new SourceScanner(collector, 1, Charset.forName("UTF-8")).scan(Arrays.asList(sourceDir));
+		return describe(collector);
+	}
+
+	private static String describe(EndPointCollector collector) {
+		Map<String, List<EndPoint>> sortedMap = new TreeMap<String, List<EndPoint>>(collector.getPathInfoMap());
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, List<EndPoint>> entry : sortedMap.entrySet()) {
+			sb.append(entry.getKey()).append('=');
+			for (int i = 0; i < entry.getValue().size(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(entry.getValue().get(i).getClassInfo().getTypeName());
+			}
+			sb.append(';');
+		}
+		return sb.toString();
+	}
+
+	private void writeSource(String path, String source) throws IOException {
+		File file = new File(sourceDir, path);
+		file.getParentFile().mkdirs();
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(source.getBytes("UTF-8"));
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void deleteAll(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				deleteAll(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,416 @@
+package com.j256.springrequestdoclet.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ShutdownChannelGroupException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.j256.springrequestdoclet.writer.AsyncPageWriter.PageBuffer;
+
+public class AsyncPageWriterTest {
+
+	private File dir;
+
+	@Before
+	public void before() throws Exception {
+		dir = File.createTempFile(getClass().getSimpleName(), "");
+		dir.delete();
+		assertTrue(dir.mkdir());
+	}
+
+	@After
+	public void after() {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void testWrite() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter();
+		File file = new File(dir, "page.html");
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("<html>caf\u00e9</html>");
+		buffer.close();
+		assertEquals(18, buffer.size());
+		pageWriter.write(buffer, file);
+		pageWriter.close();
+		assertEquals("<html>caf\u00e9</html>", readFile(file));
+	}
+
+	@Test
+	public void testPartialWrites() throws Exception {
+		final int[] writeCount = new int[1];
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null) {
+			@Override
+			AsynchronousFileChannel openChannel(File file) throws IOException {
+				return new ChunkedChannel(file, writeCount, 0, false);
+			}
+		};
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < 10000; i++) {
+			sb.append("line ").append(i).append(" \u00fcber\n");
+		}
+		String page = sb.toString();
+		File file = new File(dir, "page.html");
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write(page);
+		buffer.close();
+		pageWriter.write(buffer, file);
+		pageWriter.close();
+		// the channel only writes some of the page each time so the rest has to be written at the right position
+		assertTrue(writeCount[0] > 1);
+		assertEquals(page, readFile(file));
+	}
+
+	@Test
+	public void testManyPages() throws Exception {
+		// more pages than buffers so the buffers are reused as the writes finish
+		AsyncPageWriter pageWriter = new AsyncPageWriter(2, null);
+		for (int i = 0; i < 50; i++) {
+			PageBuffer buffer = pageWriter.takeBuffer();
+			for (int j = 0; j <= i; j++) {
+				buffer.write("page " + i + "\n");
+			}
+			buffer.close();
+			pageWriter.write(buffer, new File(dir, "page" + i + ".html"));
+		}
+		pageWriter.close();
+		for (int i = 0; i < 50; i++) {
+			String contents = readFile(new File(dir, "page" + i + ".html"));
+			assertEquals((i + 1) * ("page " + i + "\n").length(), contents.length());
+			assertTrue(contents.startsWith("page " + i + "\n"));
+		}
+	}
+
+	@Test
+	public void testOverwrite() throws Exception {
+		File file = new File(dir, "page.html");
+		Files.write(file.toPath(), "a much longer page that was there before".getBytes("UTF-8"));
+		AsyncPageWriter pageWriter = new AsyncPageWriter();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("short");
+		buffer.close();
+		pageWriter.write(buffer, file);
+		pageWriter.close();
+		assertEquals("short", readFile(file));
+	}
+
+	@Test
+	public void testBufferReused() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null);
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("first page");
+		buffer.close();
+		pageWriter.write(buffer, new File(dir, "first.html"));
+		pageWriter.close();
+
+		PageBuffer second = pageWriter.takeBuffer();
+		assertSame(buffer, second);
+		second.write("second");
+		second.close();
+		assertEquals(6, second.size());
+		pageWriter.write(second, new File(dir, "second.html"));
+		pageWriter.close();
+		assertEquals("first page", readFile(new File(dir, "first.html")));
+		assertEquals("second", readFile(new File(dir, "second.html")));
+	}
+
+	@Test
+	public void testMissingDirectory() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null);
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("page");
+		buffer.close();
+		try {
+			pageWriter.write(buffer, new File(new File(dir, "missing"), "page.html"));
+			fail("Should have thrown");
+		} catch (IOException e) {
+			// expected
+		}
+		// the buffer went back into the pool so this doesn't block
+		assertSame(buffer, pageWriter.takeBuffer());
+		pageWriter.close();
+	}
+
+	@Test
+	public void testWriteFailure() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null) {
+			@Override
+			AsynchronousFileChannel openChannel(File file) throws IOException {
+				return new ChunkedChannel(file, new int[1], 1, false);
+			}
+		};
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("page");
+		buffer.close();
+		pageWriter.write(buffer, new File(dir, "page.html"));
+		try {
+			pageWriter.close();
+			fail("Should have thrown");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("page.html"));
+		}
+		try {
+			pageWriter.takeBuffer();
+			fail("Should have thrown");
+		} catch (IOException e) {
+			// the earlier failure is reported to the rendering as well
+		}
+	}
+
+	@Test
+	public void testWriteThrows() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null) {
+			@Override
+			AsynchronousFileChannel openChannel(File file) throws IOException {
+				return new ChunkedChannel(file, new int[1], 1, true);
+			}
+		};
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("page");
+		buffer.close();
+		pageWriter.write(buffer, new File(dir, "page.html"));
+		// this returns instead of waiting for the write that never started
+		try {
+			pageWriter.close();
+			fail("Should have thrown");
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof ShutdownChannelGroupException);
+		}
+	}
+
+	@Test
+	public void testRestOfWriteThrows() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null) {
+			@Override
+			AsynchronousFileChannel openChannel(File file) throws IOException {
+				// the first chunk is written and writing the rest throws
+				return new ChunkedChannel(file, new int[1], 2, true);
+			}
+		};
+		PageBuffer buffer = pageWriter.takeBuffer();
+		for (int i = 0; i < 1000; i++) {
+			buffer.write("line " + i + "\n");
+		}
+		buffer.close();
+		pageWriter.write(buffer, new File(dir, "page.html"));
+		try {
+			pageWriter.close();
+			fail("Should have thrown");
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof ShutdownChannelGroupException);
+		}
+	}
+
+	@Test
+	public void testExecutorShutdown() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.shutdown();
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, executor);
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("page");
+		buffer.close();
+		// the channel can't start the write but the doclet fails instead of hanging
+		pageWriter.write(buffer, new File(dir, "page.html"));
+		try {
+			pageWriter.close();
+			fail("Should have thrown");
+		} catch (IOException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test
+	public void testWriteBufferNotClosed() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter(1, null);
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.write("page");
+		try {
+			pageWriter.write(buffer, new File(dir, "page.html"));
+			fail("Should have thrown");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		// nothing is waiting to be written and the buffer went back into the pool
+		pageWriter.close();
+		assertSame(buffer, pageWriter.takeBuffer());
+		assertFalse(new File(dir, "page.html").exists());
+	}
+
+	@Test
+	public void testEmptyPage() throws Exception {
+		AsyncPageWriter pageWriter = new AsyncPageWriter();
+		PageBuffer buffer = pageWriter.takeBuffer();
+		buffer.close();
+		assertEquals(0, buffer.size());
+		File file = new File(dir, "empty.html");
+		pageWriter.write(buffer, file);
+		pageWriter.close();
+		assertTrue(file.exists());
+		assertEquals(0, file.length());
+	}
+
+	@Test
+	public void testBufferContents() throws Exception {
+		PageBuffer buffer = new AsyncPageWriter().takeBuffer();
+		buffer.write('<');
+		buffer.write("xabcx", 1, 3);
+		buffer.write(new char[] { 'x', '>', 'x' }, 1, 1);
+		buffer.close();
+		// closing again doesn't encode again
+		buffer.close();
+		ByteBuffer byteBuffer = buffer.toByteBuffer();
+		byte[] bytes = new byte[byteBuffer.remaining()];
+		byteBuffer.get(bytes);
+		assertArrayEquals("<abc>".getBytes("UTF-8"), bytes);
+		// each call returns a new view of the page
+		assertEquals(5, buffer.toByteBuffer().remaining());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBufferNotClosed() throws Exception {
+		PageBuffer buffer = new AsyncPageWriter().takeBuffer();
+		buffer.write("page");
+		buffer.toByteBuffer();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoBuffers() {
+		new AsyncPageWriter(0, null);
+	}
+
+	private static String readFile(File file) throws IOException {
+		assertFalse(file.isDirectory());
+		return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+	}
+
+	/**
+	 * Channel that writes at most a small chunk of the buffer each time. One of the writes can fail either through the
+	 * handler or by throwing like a channel whose executor has been shut down.
+	 */
+	private static class ChunkedChannel extends AsynchronousFileChannel {
+
+		private static final int CHUNK_SIZE = 1000;
+
+		private final FileChannel fileChannel;
+		private final int[] writeCount;
+		/** number of the write that fails or 0 if none */
+		private final int failWrite;
+		private final boolean throwFailure;
+
+		public ChunkedChannel(File file, int[] writeCount, int failWrite, boolean throwFailure) throws IOException {
+			this.fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.writeCount = writeCount;
+			this.failWrite = failWrite;
+			this.throwFailure = throwFailure;
+		}
+
+		@Override
+		public <A> void write(ByteBuffer src, long position, A attachment,
+				CompletionHandler<Integer, ? super A> handler) {
+			writeCount[0]++;
+			if (writeCount[0] == failWrite) {
+				if (throwFailure) {
+					throw new ShutdownChannelGroupException();
+				}
+				handler.failed(new IOException("disk is full"), attachment);
+				return;
+			}
+			ByteBuffer chunk = src.slice();
+			chunk.limit(Math.min(chunk.remaining(), CHUNK_SIZE));
+			int numBytes;
+			try {
+				numBytes = fileChannel.write(chunk, position);
+			} catch (IOException ioe) {
+				handler.failed(ioe, attachment);
+				return;
+			}
+			src.position(src.position() + numBytes);
+			handler.completed(numBytes, attachment);
+		}
+
+		@Override
+		public void close() throws IOException {
+			fileChannel.close();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return fileChannel.isOpen();
+		}
+
+		@Override
+		public long size() throws IOException {
+			return fileChannel.size();
+		}
+
+		@Override
+		public AsynchronousFileChannel truncate(long size) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void force(boolean metaData) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <A> void lock(long position, long size, boolean shared, A attachment,
+				CompletionHandler<FileLock, ? super A> handler) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Future<FileLock> lock(long position, long size, boolean shared) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public <A> void read(ByteBuffer dst, long position, A attachment,
+				CompletionHandler<Integer, ? super A> handler) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Future<Integer> read(ByteBuffer dst, long position) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Future<Integer> write(ByteBuffer src, long position) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}